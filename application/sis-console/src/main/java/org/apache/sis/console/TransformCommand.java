@@ -16,9 +16,6 @@
  */
 package org.apache.sis.console;
 
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Locale;
 import java.io.IOException;
@@ -84,6 +81,23 @@ import org.apache.sis.util.CharSequences;
  * @module
  */
 final class TransformCommand extends FormattedOutputCommand {
+    /**
+     * Maximal number of points to read and transform in a single batch. Input files are read by blocks
+     * of this size, so the memory consumption does not depend on the number of points in the files.
+     */
+    static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Number of dimensions of source coordinates.
+     */
+    private int dimension;
+
+    /**
+     * If a line has been found with an unexpected number of dimensions, that number. Otherwise 0.
+     * This is used for reporting the error after the points before that line have been transformed.
+     */
+    private int mismatchedDimension;
+
     /**
      * The coordinate operation from the given source CRS to target CRS.
      */
@@ -94,6 +108,27 @@ final class TransformCommand extends FormattedOutputCommand {
      */
     private MathTransform toDomainOfValidity;
 
+    /**
+     * The domain of validity of the coordinate operation, or {@code null} if unknown.
+     */
+    private ImmutableEnvelope domainOfValidity;
+
+    /**
+     * Block of coordinates in the domain of validity CRS, or {@code null} if {@link #toDomainOfValidity} is null.
+     * This array has enough room for {@value #BLOCK_SIZE} points.
+     */
+    private double[] domainCoordinates;
+
+    /**
+     * A view over one point in {@link #domainCoordinates}, or {@code null} if {@link #domainOfValidity} is null.
+     */
+    private DirectPositionView positionInDomain;
+
+    /**
+     * Block of transformed coordinates. This array has enough room for {@value #BLOCK_SIZE} points.
+     */
+    private double[] result;
+
     /**
      * Resources for {@link #printHeader(short)}.
      */
@@ -194,36 +229,79 @@ final class TransformCommand extends FormattedOutputCommand {
     public int run() throws Exception {
         final CoordinateReferenceSystem sourceCRS = fetchCRS(Option.SOURCE_CRS);
         final CoordinateReferenceSystem targetCRS = fetchCRS(Option.TARGET_CRS);
+        dimension = sourceCRS.getCoordinateSystem().getDimension();
         /*
-         * Read all coordinates, so we can compute the area of interest.
-         * This will be used when searching for a coordinate operation.
+         * Read the coordinates by blocks of fixed size, so we can compute the area of interest without keeping
+         * all points in memory. The area of interest will be used when searching for a coordinate operation.
+         * Files are read twice: once for the area of interest and once for the coordinate operation. Since the
+         * standard input can not be read twice, the area of interest is computed from the first block only and
+         * that block is kept for the coordinate operation.
          */
         GeographicBoundingBox areaOfInterest = null;
-        List<double[]> points = Collections.emptyList();
         final boolean useStandardInput = useStandardInput();
-        if (useStandardInput || !files.isEmpty()) {
-            if (useStandardInput) {
-                try (LineNumberReader in = new LineNumberReader(new InputStreamReader(System.in, encoding))) {
-                    points = readCoordinates(in, "stdin");
+        final boolean hasInput = useStandardInput || !files.isEmpty();
+        final double[] block = hasInput ? new double[BLOCK_SIZE * dimension] : null;
+        LineNumberReader stdin = null;
+        int firstBlockLength = -1;
+        try {
+            if (hasInput) {
+                if (useStandardInput) {
+                    stdin = new LineNumberReader(new InputStreamReader(System.in, encoding));
+                    firstBlockLength = readBlock(stdin, "stdin", block, false);
                 }
-            } else {
-                for (final String file : files) {
-                    try (LineNumberReader in = new LineNumberReader(new InputStreamReader(new FileInputStream(file), encoding))) {
-                        points = readCoordinates(in, file);
+                try {
+                    final GeographicCRS domainOfValidityCRS = ReferencingUtilities.toNormalizedGeographicCRS(sourceCRS);
+                    if (domainOfValidityCRS != null) {
+                        toDomainOfValidity = CRS.findOperation(sourceCRS, domainOfValidityCRS, null).getMathTransform();
+                        domainCoordinates  = new double[BLOCK_SIZE * toDomainOfValidity.getTargetDimensions()];
+                        if (domainCoordinates.length >= 2 * BLOCK_SIZE) {
+                            final double[] bounds = {
+                                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+                            };
+                            if (useStandardInput) {
+                                addToAreaOfInterest(block, firstBlockLength, bounds);
+                            } else {
+                                for (final String file : files) {
+                                    try (LineNumberReader in = open(file)) {
+                                        int length;
+                                        do {
+                                            length = readBlock(in, file, block, true);
+                                            addToAreaOfInterest(block, length, bounds);
+                                        } while (length == BLOCK_SIZE);
+                                    }
+                                }
+                                errorMessage = null;        // Will be reported again during the coordinate operation.
+                                errorCause   = null;
+                            }
+                            if (bounds[0] < bounds[2] && bounds[1] < bounds[3]) {
+                                areaOfInterest = new DefaultGeographicBoundingBox(bounds[0], bounds[2], bounds[1], bounds[3]);
+                            }
+                        }
                     }
+                } catch (FactoryException e) {
+                    warning(e);
                 }
             }
-            try {
-                final GeographicCRS domainOfValidityCRS = ReferencingUtilities.toNormalizedGeographicCRS(sourceCRS);
-                if (domainOfValidityCRS != null) {
-                    toDomainOfValidity = CRS.findOperation(sourceCRS, domainOfValidityCRS, null).getMathTransform();
-                    areaOfInterest = computeAreaOfInterest(points);
-                }
-            } catch (FactoryException e) {
-                warning(e);
+            operation = CRS.findOperation(sourceCRS, targetCRS, areaOfInterest);
+            print(block, stdin, firstBlockLength);
+        } finally {
+            if (stdin != null) {
+                stdin.close();
             }
         }
-        operation = CRS.findOperation(sourceCRS, targetCRS, areaOfInterest);
+        return 0;
+    }
+
+    /**
+     * Prints the header, then transforms the coordinates from the files given in argument or from the standard input.
+     * This method is invoked by {@link #run()} after the coordinate operation has been determined.
+     *
+     * @param  block             a buffer for {@value #BLOCK_SIZE} source points, or {@code null} if there is no input.
+     * @param  stdin             the standard input stream, or {@code null} if the coordinates are read from files.
+     * @param  firstBlockLength  number of points already read from {@code stdin} in the given block.
+     */
+    private void print(final double[] block, final LineNumberReader stdin, final int firstBlockLength) throws Exception {
         /*
          * Prints the header: source CRS, target CRS, operation steps and positional accuracy.
          */
@@ -244,7 +322,7 @@ final class TransformCommand extends FormattedOutputCommand {
          * At this point we finished to write the header. If there is at least one input file,
          * compute the number of digits to format and perform the actual coordinate operations.
          */
-        if (!points.isEmpty()) {
+        if (block != null) {
             ordinateWidth    = 15;                                      // Must be set before computeNumFractionDigits(…).
             coordinateFormat = NumberFormat.getInstance(Locale.US);
             coordinateFormat.setGroupingUsed(false);
@@ -252,12 +330,33 @@ final class TransformCommand extends FormattedOutputCommand {
             out.println();
             printAxes(operation.getTargetCRS().getCoordinateSystem());
             out.println();
-            transform(points);
+            final GeographicBoundingBox bbox;
+            if (toDomainOfValidity != null && (bbox = CRS.getGeographicBoundingBox(operation)) != null) {
+                domainOfValidity = new ImmutableEnvelope(bbox);
+                positionInDomain = new DirectPositionView(domainCoordinates, 0, toDomainOfValidity.getTargetDimensions());
+            }
+            result = new double[BLOCK_SIZE * operation.getMathTransform().getTargetDimensions()];
+            if (stdin != null) {
+                transform(stdin, "stdin", block, firstBlockLength);
+            } else {
+                for (final String file : files) {
+                    try (LineNumberReader in = open(file)) {
+                        transform(in, file, block, -1);
+                    }
+                    if (errorMessage != null) break;
+                }
+            }
             if (errorMessage != null) {
                 error(errorMessage, errorCause);
             }
         }
-        return 0;
+    }
+
+    /**
+     * Opens the given file for reading coordinates.
+     */
+    private LineNumberReader open(final String file) throws IOException {
+        return new LineNumberReader(new InputStreamReader(new FileInputStream(file), encoding));
     }
 
     /**
@@ -512,102 +611,134 @@ final class TransformCommand extends FormattedOutputCommand {
     }
 
     /**
-     * Reads all coordinates.
-     * This method ignores empty and comment lines.
+     * Reads the next block of coordinates in the given array. This method ignores empty and comment lines.
+     * Reading stops when the block is full, at the end of input, at the first line which can not be parsed
+     * (in which case {@link #errorMessage} is set) or at the first line having an unexpected number of
+     * dimensions (in which case {@link #mismatchedDimension} is set, unless {@code skipMismatched} is true).
      *
-     * @param  in        the stream from where to read coordinates.
-     * @param  filename  the filename, for error reporting only.
-     * @return the coordinate values.
+     * @param  in              the stream from where to read coordinates.
+     * @param  filename        the filename, for error reporting only.
+     * @param  block           where to store the coordinate values, with room for {@value #BLOCK_SIZE} points.
+     * @param  skipMismatched  {@code true} for silently skipping the points having an unexpected number of dimensions.
+     * @return number of points read. A value smaller than {@value #BLOCK_SIZE} means that reading stopped.
      */
-    private List<double[]> readCoordinates(final LineNumberReader in, final String filename) throws IOException {
-        final List<double[]> points = new ArrayList<>();
-        try {
-            String line;
-            while ((line = in.readLine()) != null) {
-                final int start = CharSequences.skipLeadingWhitespaces(line, 0, line.length());
-                if (start < line.length() && line.charAt(start) != '#') {
-                    points.add(CharSequences.parseDoubles(line, ','));
+    private int readBlock(final LineNumberReader in, final String filename, final double[] block,
+            final boolean skipMismatched) throws IOException
+    {
+        int count = 0;
+        String line;
+        while (count < BLOCK_SIZE && (line = in.readLine()) != null) {
+            final int start = CharSequences.skipLeadingWhitespaces(line, 0, line.length());
+            if (start < line.length() && line.charAt(start) != '#') {
+                final double[] coordinates;
+                try {
+                    coordinates = CharSequences.parseDoubles(line, ',');
+                } catch (NumberFormatException e) {
+                    errorMessage = Errors.format(Errors.Keys.ErrorInFileAtLine_2, filename, in.getLineNumber());
+                    errorCause = e;
+                    break;
                 }
+                if (coordinates.length != dimension) {
+                    if (skipMismatched) continue;
+                    mismatchedDimension = coordinates.length;
+                    break;
+                }
+                System.arraycopy(coordinates, 0, block, count * dimension, dimension);
+                count++;
             }
-        } catch (NumberFormatException e) {
-            errorMessage = Errors.format(Errors.Keys.ErrorInFileAtLine_2, filename, in.getLineNumber());
-            errorCause = e;
         }
-        return points;
+        return count;
     }
 
     /**
-     * Computes the geographic area of interest from the given points.
-     * This method ignores the points having an unexpected number of dimensions since it is not this
-     * method's job to report those issues (they will be reported by {@link #transform(List)} instead.
-     */
-    private GeographicBoundingBox computeAreaOfInterest(final List<double[]> points) {
-        final int dimension = toDomainOfValidity.getSourceDimensions();
-        final double[] domainCoordinate = new double[toDomainOfValidity.getTargetDimensions()];
-        if (domainCoordinate.length >= 2) {
-            double xmin = Double.POSITIVE_INFINITY;
-            double ymin = Double.POSITIVE_INFINITY;
-            double xmax = Double.NEGATIVE_INFINITY;
-            double ymax = Double.NEGATIVE_INFINITY;
-            for (final double[] coordinates : points) {
-                if (coordinates.length == dimension) {
-                    try {
-                        toDomainOfValidity.transform(coordinates, 0, domainCoordinate, 0, 1);
-                    } catch (TransformException e) {
-                        warning(e);
-                        continue;
-                    }
-                    final double x = domainCoordinate[0];
-                    final double y = domainCoordinate[1];
-                    if (x < xmin) xmin = x;
-                    if (x > xmax) xmax = x;
-                    if (y < ymin) ymin = y;
-                    if (y > ymax) ymax = y;
-                }
+     * Expands the geographic area of interest for including the given points.
+     * Points that can not be transformed to the domain of validity CRS are ignored.
+     *
+     * @param  block   the source coordinates.
+     * @param  count   number of points in the given block.
+     * @param  bounds  the (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+     *                 <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) values to update.
+     */
+    private void addToAreaOfInterest(final double[] block, final int count, final double[] bounds) {
+        try {
+            toDomainOfValidity.transform(block, 0, domainCoordinates, 0, count);
+        } catch (TransformException e) {
+            warning(e);                 // Points that failed are set to NaN, which are ignored below.
+        }
+        final int domainDimension = toDomainOfValidity.getTargetDimensions();
+        for (int i = count * domainDimension; (i -= domainDimension) >= 0;) {
+            final double x = domainCoordinates[i  ];
+            final double y = domainCoordinates[i+1];
+            if (x < bounds[0]) bounds[0] = x;
+            if (y < bounds[1]) bounds[1] = y;
+            if (x > bounds[2]) bounds[2] = x;
+            if (y > bounds[3]) bounds[3] = y;
+        }
+    }
+
+    /**
+     * Transforms all coordinates read from the given stream and prints the results block by block.
+     *
+     * @param  in        the stream from where to read coordinates.
+     * @param  filename  the filename, for error reporting only.
+     * @param  block     a buffer for the source coordinates.
+     * @param  count     number of points already in the given block, or -1 if none.
+     */
+    private void transform(final LineNumberReader in, final String filename, final double[] block, int count)
+            throws IOException, TransformException
+    {
+        do {
+            if (count < 0) {
+                count = readBlock(in, filename, block, false);
             }
-            if (xmin < xmax && ymin < ymax) {
-                return new DefaultGeographicBoundingBox(xmin, xmax, ymin, ymax);
+            transform(block, count);
+            if (mismatchedDimension != 0) {
+                throw new MismatchedDimensionException(Errors.format(Errors.Keys.MismatchedDimensionForCRS_3,
+                            operation.getSourceCRS().getName().getCode(), dimension, mismatchedDimension));
             }
-        }
-        return null;
+            if (count < BLOCK_SIZE || errorMessage != null) break;
+            count = -1;
+        } while (true);
     }
 
     /**
-     * Transforms the given coordinates.
+     * Transforms the given block of coordinates in a single operation, then prints the results.
      */
-    private void transform(final List<double[]> points) throws TransformException {
-        final int dimension    = operation.getSourceCRS().getCoordinateSystem().getDimension();
+    private void transform(final double[] block, final int count) throws TransformException {
+        if (count == 0) {
+            return;
+        }
         final MathTransform mt = operation.getMathTransform();
-        final double[] result  = new double[mt.getTargetDimensions()];
-        final double[] domainCoordinate;
-        final DirectPositionView positionInDomain;
-        final ImmutableEnvelope domainOfValidity;
-        final GeographicBoundingBox bbox;
-        if (toDomainOfValidity != null && (bbox = CRS.getGeographicBoundingBox(operation)) != null) {
-            domainOfValidity = new ImmutableEnvelope(bbox);
-            domainCoordinate = new double[toDomainOfValidity.getTargetDimensions()];
-            positionInDomain = new DirectPositionView(domainCoordinate, 0, domainCoordinate.length);
-        } else {
-            domainOfValidity = null;
-            domainCoordinate = null;
-            positionInDomain = null;
+        final int targetDimension = mt.getTargetDimensions();
+        TransformException failure = null;
+        try {
+            mt.transform(block, 0, result, 0, count);
+        } catch (TransformException e) {
+            failure = e;                // Points that failed are set to NaN. Exception will be thrown after printing.
         }
-        for (final double[] coordinates : points) {
-            if (coordinates.length != dimension) {
-                throw new MismatchedDimensionException(Errors.format(Errors.Keys.MismatchedDimensionForCRS_3,
-                            operation.getSourceCRS().getName().getCode(), dimension, coordinates.length));
+        /*
+         * Verify which source coordinates are outside the domain of validity. A failure to perform a coordinate
+         * transformation is also considered as being out of the domain of validity, since the points that failed
+         * are set to NaN.
+         */
+        if (domainOfValidity != null) {
+            try {
+                toDomainOfValidity.transform(block, 0, domainCoordinates, 0, count);
+            } catch (TransformException e) {
+                warning(e);
             }
+        }
+        for (int p=0; p<count; p++) {
             /*
-             * At this point we got the coordinates and they have the expected number of dimensions.
-             * Now perform the coordinate operation and print each ordinate values.  We will switch
-             * to scientific notation if the coordinate is much larger than expected.
+             * Print each ordinate values. We will switch to scientific notation
+             * if the coordinate is much larger than expected.
              */
-            mt.transform(coordinates, 0, result, 0, 1);
-            for (int i=0; i<result.length; i++) {
+            final int offset = p * targetDimension;
+            for (int i=0; i<targetDimension; i++) {
                 if (i != 0) {
                     out.print(',');
                 }
-                final double value = result[i];
+                final double value = result[offset + i];
                 final String s;
                 if (Math.abs(value) >= thresholdForScientificNotation[i]) {
                     s = Double.toString(value);
@@ -621,25 +752,21 @@ final class TransformCommand extends FormattedOutputCommand {
             }
             /*
              * Append a warning after the transformed coordinate values if the source coordinate was outside
-             * the domain of validity. A failure to perform a coordinate transformation is also considered as
-             * being out of the domain of valididty.
+             * the domain of validity.
              */
             if (domainOfValidity != null) {
-                boolean inside;
-                try {
-                    toDomainOfValidity.transform(coordinates, 0, domainCoordinate, 0, 1);
-                    inside = domainOfValidity.contains(positionInDomain);
-                } catch (TransformException e) {
-                    inside = false;
-                    warning(e);
-                }
-                if (!inside) {
+                positionInDomain.offset = p * positionInDomain.getDimension();
+                if (!domainOfValidity.contains(positionInDomain)) {
                     out.print(",    ");
                     printQuotedText(Errors.getResources(locale).getString(Errors.Keys.OutsideDomainOfValidity), 0, X364.FOREGROUND_RED);
                 }
             }
             out.println();
         }
+        out.flush();
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     /**
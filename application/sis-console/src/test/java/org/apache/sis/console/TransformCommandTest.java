@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.console;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.operation.MathTransform;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.util.CharSequences;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link TransformCommand} sub-command. The inputs are larger than the size of the blocks
+ * of points read by the command, for testing the iteration over many blocks.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(CommandRunnerTest.class)
+public final strictfp class TransformCommandTest extends TestCase {
+    /**
+     * Number of points to transform, chosen for spanning two full blocks and a partial one.
+     */
+    private static final int NUM_POINTS = TransformCommand.BLOCK_SIZE * 2 + 10;
+
+    /**
+     * Returns (latitude, longitude) source coordinates in degrees, as lines of a CSV file.
+     * All points are inside the UTM zone 31.
+     *
+     * @param  count  number of lines to create.
+     * @return the source coordinates, one point per line.
+     */
+    private static List<String> points(final int count) {
+        final List<String> lines = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            lines.add(latitude(i) + ", " + longitude(i));
+        }
+        return lines;
+    }
+
+    /** Latitude of the point at the given index. */
+    private static double latitude(final int i) {
+        return 40 + i * 0.0001;
+    }
+
+    /** Longitude of the point at the given index. */
+    private static double longitude(final int i) {
+        return 3 + (i % 100) * 0.001;
+    }
+
+    /**
+     * Writes the given lines in a temporary file.
+     *
+     * @return the temporary file. Caller shall delete it.
+     */
+    private static Path write(final List<String> lines) throws Exception {
+        final Path file = Files.createTempFile("SIS", ".csv");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Creates the command for transforming the given file (or the standard input if {@code null})
+     * from geographic coordinates to the UTM zone 31 projection.
+     */
+    private static TransformCommand command(final Path file) throws Exception {
+        return (file != null)
+                ? new TransformCommand(0, CommandRunner.TEST, "--sourceCRS", "EPSG:4326", "--targetCRS", "EPSG:32631", file.toString())
+                : new TransformCommand(0, CommandRunner.TEST, "--sourceCRS", "EPSG:4326", "--targetCRS", "EPSG:32631");
+    }
+
+    /**
+     * Verifies the transformed coordinates printed by the given command. The first line after the comment lines
+     * is the axis names. The following lines are transformed coordinates, until the first line which is not made
+     * of numbers. Coordinates are compared with the result of a coordinate operation for the same points.
+     *
+     * @param  test      the command which has been executed.
+     * @param  expected  the expected number of transformed points.
+     */
+    private static void verifyTransformedPoints(final TransformCommand test, final int expected) throws Exception {
+        final MathTransform mt = CRS.findOperation(CRS.forCode("EPSG:4326"), CRS.forCode("EPSG:32631"), null).getMathTransform();
+        final double[] point = new double[2];
+        boolean isAxes = true;
+        int count = 0;
+        for (final CharSequence line : CharSequences.splitOnEOL(test.outputBuffer)) {
+            if (line.length() == 0 || line.charAt(0) == '#') {
+                if (count == 0) continue;
+                break;
+            }
+            if (isAxes) {
+                isAxes = false;
+                continue;
+            }
+            final double[] actual;
+            try {
+                actual = CharSequences.parseDoubles(line, ',');
+            } catch (NumberFormatException e) {
+                break;                      // Error message after the transformed points.
+            }
+            assertEquals("dimension", 2, actual.length);
+            point[0] = latitude (count);
+            point[1] = longitude(count);
+            mt.transform(point, 0, point, 0, 1);
+            assertEquals("x", point[0], actual[0], 0.001);
+            assertEquals("y", point[1], actual[1], 0.001);
+            count++;
+        }
+        assertEquals("Number of transformed points.", expected, count);
+    }
+
+    /**
+     * Tests the transformation of a file containing more points than the size of a block.
+     *
+     * @throws Exception if an error occurred while creating or executing the command.
+     */
+    @Test
+    public void testManyBlocks() throws Exception {
+        final Path file = write(points(NUM_POINTS));
+        try {
+            final TransformCommand test = command(file);
+            assertEquals("exit code", 0, test.run());
+            verifyTransformedPoints(test, NUM_POINTS);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests the transformation of points read from the standard input, with more points than the size of a block.
+     * The standard input is read only once, with the area of interest computed from the first block.
+     *
+     * @throws Exception if an error occurred while creating or executing the command.
+     */
+    @Test
+    @DependsOnMethod("testManyBlocks")
+    public void testManyBlocksFromStandardInput() throws Exception {
+        final StringBuilder buffer = new StringBuilder();
+        for (final String line : points(NUM_POINTS)) {
+            buffer.append(line).append('\n');
+        }
+        final InputStream stdin = System.in;
+        try {
+            System.setIn(new ByteArrayInputStream(buffer.toString().getBytes(StandardCharsets.UTF_8)));
+            final TransformCommand test = command(null);
+            assertEquals("exit code", 0, test.run());
+            verifyTransformedPoints(test, NUM_POINTS);
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    /**
+     * Tests a file having a point with an unexpected number of dimensions after the first block.
+     * The points before that line shall be transformed before the exception is thrown.
+     *
+     * @throws Exception if an error occurred while creating or executing the command.
+     */
+    @Test
+    @DependsOnMethod("testManyBlocks")
+    public void testMismatchedDimension() throws Exception {
+        final int valid = TransformCommand.BLOCK_SIZE + 5;
+        final List<String> lines = points(valid);
+        lines.add("40, 3, 100");
+        lines.addAll(points(5));
+        final Path file = write(lines);
+        try {
+            final TransformCommand test = command(file);
+            try {
+                test.run();
+                fail("Expected an exception for the three-dimensional point.");
+            } catch (MismatchedDimensionException e) {
+                assertEquals(Errors.format(Errors.Keys.MismatchedDimensionForCRS_3, "WGS 84", 2, 3), e.getMessage());
+            }
+            verifyTransformedPoints(test, valid);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests a file having a line that can not be parsed after the first block.
+     * The points before that line shall be transformed, then the error shall be reported
+     * with the line number and the points after that line shall be ignored.
+     *
+     * @throws Exception if an error occurred while creating or executing the command.
+     */
+    @Test
+    @DependsOnMethod("testManyBlocks")
+    public void testParseErrorInLaterBlock() throws Exception {
+        final int valid = TransformCommand.BLOCK_SIZE + 5;
+        final List<String> lines = points(valid);
+        lines.add("40, not a number");
+        lines.addAll(points(5));
+        final Path file = write(lines);
+        try {
+            final TransformCommand test = command(file);
+            assertEquals("exit code", 0, test.run());
+            verifyTransformedPoints(test, valid);
+            final String expected = Errors.getResources(test.locale)
+                    .getString(Errors.Keys.ErrorInFileAtLine_2, file.toString(), valid + 1);
+            final String output = test.outputBuffer.toString();
+            assertTrue(output, output.contains(expected));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+//JDK imports
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//SIS imports
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.index.PackedRTree;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.logging.Logging;
+
+/**
+ * Spatial index of GeoRSS entries which can be queried while new entries are
+ * added. Queries never block: they run on an immutable snapshot made of a
+ * large <cite>base</cite> index (usually memory-mapped from the index file)
+ * and a small <cite>delta</cite> index of recently added entries. Writers
+ * create a new delta index with the new entries, then publish a new snapshot.
+ * When the delta index becomes too large compared to the base index, both
+ * are merged in a new base index which is saved to the index file.
+ *
+ * <p>Entry identifiers are assigned in insertion order and are preserved by
+ * merges, so an identifier received by a visitor stays valid for
+ * {@link #getData(int)} after the index has been modified.</p>
+ *
+ * <p>A file which is memory-mapped by a reader is never replaced. Each merge
+ * writes a new <cite>generation</cite> file next to the index file, with the
+ * generation number inserted before the file extension (for example
+ * {@code georss.3.idx} for generation 3 of {@code georss.idx}). The file of
+ * the previous generation is deleted after the last query using it has
+ * completed. If that deletion fails (for example on platforms which do not
+ * allow the deletion of a file still mapped in memory), it is tried again
+ * after the next merge and by {@link #open(Path, int)}.</p>
+ */
+public final class ConcurrentGeoRSSIndex {
+  /**
+   * Minimal number of entries in the delta index before a merge is
+   * considered.
+   */
+  private static final int MIN_DELTA_SIZE = 1024;
+
+  /**
+   * Ratio between the sizes of the base and delta indexes above which the
+   * delta index is merged into the base index.
+   */
+  private static final int MERGE_RATIO = 16;
+
+  /**
+   * Where to log the deletion of obsolete generation files.
+   */
+  private static final Logger LOGGER = Logging.getLogger("org.apache.sis.index");
+
+  /**
+   * A base index together with the file from which it has been mapped, if
+   * any. The number of users is the number of queries currently running on
+   * this generation, plus one while this generation is the current one. The
+   * file is deleted when the number of users drops to zero.
+   */
+  private final class Generation {
+    /** Index of the oldest entries, with identifiers starting at 0. */
+    final GeoRSSIndex index;
+
+    /** The file mapped by {@link #index}, or {@code null} if none. */
+    final Path file;
+
+    /** Number of running queries, plus one if this is the current generation. */
+    private final AtomicInteger users = new AtomicInteger(1);
+
+    Generation(final GeoRSSIndex index, final Path file) {
+      this.index = index;
+      this.file = file;
+    }
+
+    /**
+     * Registers a new user of this generation, unless this generation has
+     * already been released by all its users.
+     *
+     * @return whether the caller can use this generation
+     */
+    boolean acquire() {
+      int n;
+      do {
+        n = users.get();
+        if (n <= 0) {
+          return false;
+        }
+      } while (!users.compareAndSet(n, n + 1));
+      return true;
+    }
+
+    /**
+     * Unregisters a user of this generation. The last user deletes the file.
+     */
+    void release() {
+      if (users.decrementAndGet() == 0 && file != null) {
+        delete(file);
+      }
+    }
+  }
+
+  /**
+   * An immutable view of the index at some point in time.
+   */
+  private static final class Snapshot {
+    /** Index of the oldest entries, with identifiers starting at 0. */
+    final Generation base;
+
+    /** Index of entries added after the base, or {@code null} if none. */
+    final GeoRSSIndex delta;
+
+    Snapshot(final Generation base, final GeoRSSIndex delta) {
+      this.base = base;
+      this.delta = delta;
+    }
+
+    int size() {
+      return base.index.size() + (delta != null ? delta.size() : 0);
+    }
+  }
+
+  /**
+   * The current snapshot. Readers take a reference to this snapshot once per
+   * query; writers replace it atomically.
+   */
+  private volatile Snapshot snapshot;
+
+  /**
+   * The index file, used as a template for the names of generation files,
+   * or {@code null} if the index is not persisted.
+   */
+  private final Path file;
+
+  /**
+   * The generation number of the current base index. Accessed only by
+   * writers, while holding the lock on {@code this}.
+   */
+  private long generation;
+
+  /**
+   * Files of previous generations which could not be deleted when their last
+   * user released them. Deletion is tried again after each merge.
+   */
+  private final Set<Path> obsolete = new HashSet<Path>();
+
+  /**
+   * Maximal number of children per tree node, or a value smaller than 2 for
+   * the default capacity.
+   */
+  private final int nodeCapacity;
+
+  /**
+   * Entries of the delta index. Accessed only by writers, while holding the
+   * lock on {@code this}.
+   */
+  private final List<QuadTreeData> pending;
+
+  /**
+   * Names of the files of all indexed entries, used for ignoring entries
+   * already indexed when a feed is read again. Created when first needed.
+   * Accessed only by writers, while holding the lock on {@code this}.
+   */
+  private Set<String> fileNames;
+
+  /**
+   * Creates a concurrent index initialized to the given entries. The first
+   * merge will save the index in generation 1 of the given file.
+   *
+   * @param base
+   *          the initial content of the index
+   * @param file
+   *          the file where to save the index after merges, or {@code null}
+   * @param nodeCapacity
+   *          maximal number of children per tree node, or a value smaller
+   *          than 2 for the default capacity
+   */
+  public ConcurrentGeoRSSIndex(final GeoRSSIndex base, final Path file,
+      final int nodeCapacity) {
+    this(base, null, 0, file, nodeCapacity);
+  }
+
+  /**
+   * Creates a concurrent index with a base index mapped from the given
+   * generation file.
+   */
+  private ConcurrentGeoRSSIndex(final GeoRSSIndex base, final Path mapped,
+      final long generation, final Path file, final int nodeCapacity) {
+    this.snapshot = new Snapshot(new Generation(base, mapped), null);
+    this.generation = generation;
+    this.file = file;
+    this.nodeCapacity = nodeCapacity;
+    this.pending = new ArrayList<QuadTreeData>();
+  }
+
+  /**
+   * Loads the most recent generation of the given index file, and deletes
+   * the older generations. The generation 0 is the given file itself.
+   *
+   * @param file
+   *          the index file given to the constructor in a previous run
+   * @param nodeCapacity
+   *          maximal number of children per tree node, or a value smaller
+   *          than 2 for the default capacity
+   * @return the index, or {@code null} if no generation of the given file
+   *         exists
+   * @throws DataStoreException
+   *           if the most recent generation is not a GeoRSS index
+   * @throws IOException
+   *           if an error occurred while reading the directory or the file
+   */
+  public static ConcurrentGeoRSSIndex open(final Path file,
+      final int nodeCapacity) throws DataStoreException, IOException {
+    final List<Long> generations = new ArrayList<Long>();
+    if (Files.isRegularFile(file)) {
+      generations.add(0L);
+    }
+    final Path parent = file.toAbsolutePath().getParent();
+    if (Files.isDirectory(parent)) {
+      final String name = file.getFileName().toString();
+      final int s = name.lastIndexOf('.');
+      final String stem = (s >= 0) ? name.substring(0, s + 1) : name + '.';
+      final String extension = (s >= 0) ? name.substring(s) : "";
+      try (DirectoryStream<Path> siblings = Files.newDirectoryStream(parent, stem + "*" + extension)) {
+        for (final Path sibling : siblings) {
+          final String n = sibling.getFileName().toString();
+          final String number = n.substring(stem.length(), n.length() - extension.length());
+          if (!number.isEmpty() && number.length() < 19 && number.matches("[0-9]+")) {
+            generations.add(Long.valueOf(number));
+          }
+        }
+      }
+    }
+    if (generations.isEmpty()) {
+      return null;
+    }
+    long latest = 0;
+    for (final long g : generations) {
+      latest = Math.max(latest, g);
+    }
+    final Path mapped = generationFile(file, latest);
+    final ConcurrentGeoRSSIndex index = new ConcurrentGeoRSSIndex(
+        GeoRSSIndex.readFromFile(mapped), mapped, latest, file, nodeCapacity);
+    for (final long g : generations) {
+      if (g != latest) {
+        index.delete(generationFile(file, g));
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Returns the file of the given generation of the given index file.
+   */
+  private static Path generationFile(final Path file, final long generation) {
+    if (generation == 0) {
+      return file;
+    }
+    final String name = file.getFileName().toString();
+    final int s = name.lastIndexOf('.');
+    return file.resolveSibling((s >= 0)
+        ? name.substring(0, s) + '.' + generation + name.substring(s)
+        : name + '.' + generation);
+  }
+
+  /**
+   * Deletes the given file of a previous generation. If the file can not be
+   * deleted, remembers it for trying again later.
+   */
+  private void delete(final Path obsoleteFile) {
+    try {
+      Files.deleteIfExists(obsoleteFile);
+      synchronized (obsolete) {
+        obsolete.remove(obsoleteFile);
+      }
+    } catch (IOException e) {
+      Logging.recoverableException(LOGGER, ConcurrentGeoRSSIndex.class, "merge", e);
+      synchronized (obsolete) {
+        obsolete.add(obsoleteFile);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries in this index.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return snapshot.size();
+  }
+
+  /**
+   * Adds the given entries to this index. Entries having the same file name
+   * than an entry already in the index are ignored. Queries executed
+   * concurrently with this method see the index either before or after the
+   * addition, never in an intermediate state.
+   *
+   * @param entries
+   *          the entries to add
+   * @return number of entries added
+   * @throws IOException
+   *           if an error occurred while saving the merged index
+   * @throws DataStoreException
+   *           if the merged index can not be read back
+   */
+  public synchronized int addAll(final List<? extends QuadTreeData> entries)
+      throws IOException, DataStoreException {
+    final Snapshot current = snapshot;
+    if (fileNames == null) {
+      fileNames = new HashSet<String>();
+      for (int i = 0; i < current.base.index.size(); i++) {
+        fileNames.add(current.base.index.getFileName(i));
+      }
+      for (final QuadTreeData data : pending) {
+        fileNames.add(data.getFileName());
+      }
+    }
+    final int count = pending.size();
+    for (final QuadTreeData data : entries) {
+      if (fileNames.add(data.getFileName())) {
+        pending.add(data);
+      }
+    }
+    final int added = pending.size() - count;
+    if (added != 0) {
+      if (pending.size() >= Math.max(MIN_DELTA_SIZE, current.base.index.size() / MERGE_RATIO)) {
+        merge(current.base);
+      } else {
+        snapshot = new Snapshot(current.base, GeoRSSIndex.create(pending, nodeCapacity));
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Merges all pending entries into the base index and saves it, if there
+   * is any pending entries.
+   *
+   * @throws IOException
+   *           if an error occurred while saving the merged index
+   * @throws DataStoreException
+   *           if the merged index can not be read back
+   */
+  public synchronized void flush() throws IOException, DataStoreException {
+    if (!pending.isEmpty()) {
+      merge(snapshot.base);
+    }
+  }
+
+  /**
+   * Creates a new base index with all entries of the given base followed by
+   * the pending entries, then publishes it. If this index is persisted, the
+   * new base is written to the file of the next generation and memory-mapped
+   * from there. The file of the given base is deleted after the last query
+   * using it has completed. Must be invoked while holding the lock on
+   * {@code this}.
+   */
+  private void merge(final Generation current) throws IOException, DataStoreException {
+    final GeoRSSIndex base = current.index;
+    final int baseSize = base.size();
+    final List<QuadTreeData> all = new AbstractList<QuadTreeData>() {
+      @Override
+      public int size() {
+        return baseSize + pending.size();
+      }
+
+      @Override
+      public QuadTreeData get(final int i) {
+        return (i < baseSize) ? base.getData(i) : pending.get(i - baseSize);
+      }
+    };
+    GeoRSSIndex merged = GeoRSSIndex.create(all, nodeCapacity);
+    Path mapped = null;
+    if (file != null) {
+      mapped = generationFile(file, generation + 1);
+      merged.writeToFile(mapped);
+      merged = GeoRSSIndex.readFromFile(mapped);
+      generation++;
+    }
+    snapshot = new Snapshot(new Generation(merged, mapped), null);
+    pending.clear();
+    current.release();
+    final Path[] retry;
+    synchronized (obsolete) {
+      retry = obsolete.toArray(new Path[obsolete.size()]);
+    }
+    for (final Path f : retry) {
+      delete(f);
+    }
+  }
+
+  /**
+   * Returns the current snapshot after registering the caller as a user of
+   * its base generation. Callers must invoke {@code snapshot.base.release()}
+   * when the query is completed.
+   */
+  private Snapshot acquire() {
+    Snapshot s;
+    do {
+      s = snapshot;
+    } while (!s.base.acquire());
+    return s;
+  }
+
+  /**
+   * Returns the entry having the given identifier.
+   *
+   * @param id
+   *          identifier of the entry, as given to a visitor
+   * @return the entry
+   */
+  public QuadTreeData getData(final int id) {
+    final Snapshot s = snapshot;
+    final int baseSize = s.base.index.size();
+    return (id < baseSize) ? s.base.index.getData(id) : s.delta.getData(id - baseSize);
+  }
+
+  /**
+   * Returns the name of the file where the entry's info is saved.
+   *
+   * @param id
+   *          identifier of the entry, as given to a visitor
+   * @return the name of the file where the entry's info is saved
+   */
+  public String getFileName(final int id) {
+    final Snapshot s = snapshot;
+    final int baseSize = s.base.index.size();
+    return (id < baseSize) ? s.base.index.getFileName(id) : s.delta.getFileName(id - baseSize);
+  }
+
+  /**
+   * Returns the latitude of the entry having the given identifier.
+   *
+   * @param id
+   *          identifier of the entry, as given to a visitor
+   * @return latitude of the entry
+   */
+  public double getLatitude(final int id) {
+    final Snapshot s = snapshot;
+    final int baseSize = s.base.index.size();
+    return (id < baseSize) ? s.base.index.getLatitude(id) : s.delta.getLatitude(id - baseSize);
+  }
+
+  /**
+   * Returns the longitude of the entry having the given identifier.
+   *
+   * @param id
+   *          identifier of the entry, as given to a visitor
+   * @return longitude of the entry
+   */
+  public double getLongitude(final int id) {
+    final Snapshot s = snapshot;
+    final int baseSize = s.base.index.size();
+    return (id < baseSize) ? s.base.index.getLongitude(id) : s.delta.getLongitude(id - baseSize);
+  }
+
+  /**
+   * Performs bounding box search on the current snapshot.
+   *
+   * @param searchRegion
+   *          the region to search, in (longitude, latitude) order
+   * @param visitor
+   *          the visitor to notify for each entry found
+   * @return {@code false} if the visitor stopped the search
+   */
+  public boolean queryByBoundingBox(final Envelope2D searchRegion,
+      final PackedRTree.Visitor visitor) {
+    final Snapshot s = acquire();
+    try {
+      if (!s.base.index.queryByBoundingBox(searchRegion, visitor)) {
+        return false;
+      }
+      return s.delta == null || s.delta.queryByBoundingBox(searchRegion,
+          offset(visitor, s.base.index.size()));
+    } finally {
+      s.base.release();
+    }
+  }
+
+  /**
+   * Performs point radius search on the current snapshot.
+   *
+   * @param point
+   *          the center of the circular region, in (longitude, latitude) order
+   * @param radiusKM
+   *          the radius in kilometers
+   * @param visitor
+   *          the visitor to notify for each entry found
+   * @return {@code false} if the visitor stopped the search
+   */
+  public boolean queryByPointRadius(final DirectPosition2D point,
+      final double radiusKM, final PackedRTree.Visitor visitor) {
+    final Snapshot s = acquire();
+    try {
+      if (!s.base.index.queryByPointRadius(point, radiusKM, visitor)) {
+        return false;
+      }
+      return s.delta == null || s.delta.queryByPointRadius(point, radiusKM,
+          offset(visitor, s.base.index.size()));
+    } finally {
+      s.base.release();
+    }
+  }
+
+  /**
+   * Returns a visitor which converts delta identifiers to index identifiers
+   * before to forward them to the given visitor.
+   */
+  private static PackedRTree.Visitor offset(final PackedRTree.Visitor visitor,
+      final int offset) {
+    return new PackedRTree.Visitor() {
+      @Override
+      public boolean visit(final int id) {
+        return visitor.visit(id + offset);
+      }
+    };
+  }
+}
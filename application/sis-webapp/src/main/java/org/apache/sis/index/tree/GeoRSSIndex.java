@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+//JDK imports
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+//SIS imports
+import org.apache.sis.distance.DistanceUtils;
+import org.apache.sis.distance.LatLonPointRadius;
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.index.PackedRTree;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.DataStoreException;
+
+/**
+ * Read-only spatial index of GeoRSS entries, stored in a single binary file.
+ * The file contains a {@link PackedRTree} of entry locations followed by the
+ * coordinates and file names of all entries. Reading the index memory-maps the
+ * file, so the index is available immediately regardless of its size: nothing
+ * is deserialized into objects until a query returns an entry.
+ *
+ * <p>The payload after the tree is made of the number of entries (32 bits
+ * integer) followed by 4 bytes of padding, the (longitude, latitude) of each
+ * entry (64 bits floating point values), the offset of each file name in the
+ * UTF-8 string table (number of entries + 1 integers, padded to 8 bytes), and
+ * the string table. All values are in little-endian byte order.</p>
+ *
+ * <p>This class replaces the {@link QuadTreeWriter} and {@link QuadTreeReader}
+ * formats, which stored one text file per quad tree node.</p>
+ */
+public final class GeoRSSIndex {
+  /**
+   * Byte order of the payload written after the tree.
+   */
+  private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * The tree of entry locations, in (longitude, latitude) order.
+   */
+  private final PackedRTree tree;
+
+  /**
+   * The (longitude, latitude) coordinates of each entry, indexed by
+   * identifier * 2.
+   */
+  private final DoubleBuffer coordinates;
+
+  /**
+   * Offsets of the file name of each entry in {@link #names}. The name of
+   * entry <var>i</var> is the bytes from offset <var>i</var> inclusive to
+   * offset <var>i</var>+1 exclusive.
+   */
+  private final IntBuffer nameOffsets;
+
+  /**
+   * The UTF-8 encoded file names of all entries.
+   */
+  private final ByteBuffer names;
+
+  /**
+   * Creates an index from the given tree and payload buffers.
+   */
+  private GeoRSSIndex(final PackedRTree tree, final DoubleBuffer coordinates,
+      final IntBuffer nameOffsets, final ByteBuffer names) {
+    this.tree = tree;
+    this.coordinates = coordinates;
+    this.nameOffsets = nameOffsets;
+    this.names = names;
+  }
+
+  /**
+   * Creates an index of the given entries. The identifier of each entry is its
+   * position in the given list.
+   *
+   * @param data
+   *          the entries to index
+   * @param nodeCapacity
+   *          maximal number of children per tree node, or a value smaller
+   *          than 2 for the default capacity
+   * @return the index of the given entries
+   */
+  public static GeoRSSIndex create(final List<? extends QuadTreeData> data,
+      final int nodeCapacity) {
+    final PackedRTree.Builder builder = (nodeCapacity >= 2)
+        ? new PackedRTree.Builder(nodeCapacity) : new PackedRTree.Builder();
+    final int n = data.size();
+    final double[] coordinates = new double[n * 2];
+    final int[] offsets = new int[n + 1];
+    final byte[][] encoded = new byte[n][];
+    for (int i = 0; i < n; i++) {
+      final QuadTreeData entry = data.get(i);
+      final double lon = entry.getLatLon().x;
+      final double lat = entry.getLatLon().y;
+      builder.add(lon, lat, lon, lat);
+      coordinates[i * 2] = lon;
+      coordinates[i * 2 + 1] = lat;
+      encoded[i] = entry.getFileName().getBytes(StandardCharsets.UTF_8);
+      offsets[i + 1] = offsets[i] + encoded[i].length;
+    }
+    final ByteBuffer names = ByteBuffer.allocate(offsets[n]);
+    for (final byte[] name : encoded) {
+      names.put(name);
+    }
+    names.clear();
+    builder.setCoordinateReferenceSystem(CommonCRS.WGS84.normalizedGeographic());
+    return new GeoRSSIndex(builder.build(), DoubleBuffer.wrap(coordinates),
+        IntBuffer.wrap(offsets), names);
+  }
+
+  /**
+   * Loads an index from the given file. The file is memory-mapped; this
+   * method does not read the entries.
+   *
+   * @param file
+   *          the file written by {@link #writeToFile(Path)}
+   * @return the index stored in the given file
+   * @throws DataStoreException
+   *           if the file is not a GeoRSS index
+   * @throws IOException
+   *           if an error occurred while reading the file
+   */
+  public static GeoRSSIndex readFromFile(final Path file)
+      throws DataStoreException, IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final PackedRTree tree = PackedRTree.read(channel, file.toString());
+      final long start = channel.position();
+      if (channel.size() - start < 8) {
+        throw new DataStoreContentException("Missing GeoRSS data in " + file);
+      }
+      final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+          start, channel.size() - start).order(BYTE_ORDER);
+      final int n = mapped.getInt(0);
+      final int coordinatesStart = 8;
+      final int offsetsStart = coordinatesStart + n * 2 * 8;
+      final int namesStart = offsetsStart + (((n + 1) * 4 + 7) & ~7);
+      if (n < 0 || namesStart > mapped.capacity()) {
+        throw new DataStoreContentException("Corrupted GeoRSS data in " + file);
+      }
+      mapped.position(coordinatesStart);
+      final DoubleBuffer coordinates = mapped.slice().order(BYTE_ORDER).asDoubleBuffer();
+      coordinates.limit(n * 2);
+      mapped.position(offsetsStart);
+      final IntBuffer offsets = mapped.slice().order(BYTE_ORDER).asIntBuffer();
+      offsets.limit(n + 1);
+      mapped.position(namesStart);
+      final ByteBuffer names = mapped.slice();
+      if (offsets.get(n) > names.capacity()) {
+        throw new DataStoreContentException("Corrupted GeoRSS data in " + file);
+      }
+      return new GeoRSSIndex(tree, coordinates, offsets, names);
+    }
+  }
+
+  /**
+   * Writes this index to the given file. The index is first written to a
+   * temporary file in the same directory, then moved to the given file, so
+   * a reader never sees a partially written index. An existing file is
+   * replaced, so the given file shall not be memory-mapped by an index
+   * in use; {@link ConcurrentGeoRSSIndex} writes each merge to a new file.
+   *
+   * @param file
+   *          the file where to write the index
+   * @throws IOException
+   *           if an error occurred while writing the file
+   */
+  public void writeToFile(final Path file) throws IOException {
+    final Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    final Path tmp = Files.createTempFile(parent, "georss", ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        tree.write(channel);
+        final int n = size();
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + n * 2 * 8
+            + (((n + 1) * 4 + 7) & ~7)).order(BYTE_ORDER);
+        buffer.putInt(n).putInt(0);
+        for (int i = 0; i < n * 2; i++) {
+          buffer.putDouble(coordinates.get(i));
+        }
+        for (int i = 0; i <= n; i++) {
+          buffer.putInt(nameOffsets.get(i));
+        }
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        final ByteBuffer table = names.duplicate();
+        table.clear().limit(nameOffsets.get(n));
+        while (table.hasRemaining()) {
+          channel.write(table);
+        }
+        channel.force(false);
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Returns the number of entries in this index.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return nameOffsets.limit() - 1;
+  }
+
+  /**
+   * Returns the latitude of the entry having the given identifier.
+   *
+   * @param id
+   *          identifier of the entry, as given to the visitor
+   * @return latitude of the entry
+   */
+  public double getLatitude(final int id) {
+    return coordinates.get(id * 2 + 1);
+  }
+
+  /**
+   * Returns the longitude of the entry having the given identifier.
+   *
+   * @param id
+   *          identifier of the entry, as given to the visitor
+   * @return longitude of the entry
+   */
+  public double getLongitude(final int id) {
+    return coordinates.get(id * 2);
+  }
+
+  /**
+   * Returns the name of the file where the entry's info is saved.
+   *
+   * @param id
+   *          identifier of the entry, as given to the visitor
+   * @return the name of the file where the entry's info is saved
+   */
+  public String getFileName(final int id) {
+    final int start = nameOffsets.get(id);
+    final ByteBuffer name = names.duplicate();
+    name.limit(nameOffsets.get(id + 1)).position(start);
+    return StandardCharsets.UTF_8.decode(name).toString();
+  }
+
+  /**
+   * Returns the entry having the given identifier.
+   *
+   * @param id
+   *          identifier of the entry, as given to the visitor
+   * @return the entry
+   */
+  public QuadTreeData getData(final int id) {
+    return new GeoRSSData(getFileName(id), new DirectPosition2D(
+        getLongitude(id), getLatitude(id)));
+  }
+
+  /**
+   * Performs bounding box search. If the region crosses the anti-meridian,
+   * the index is searched on each side of it. A region without CRS is assumed
+   * to be in the index CRS.
+   *
+   * @param searchRegion
+   *          the region to search, in (longitude, latitude) order
+   * @param visitor
+   *          the visitor to notify for each entry found
+   * @return {@code false} if the visitor stopped the search
+   */
+  public boolean queryByBoundingBox(Envelope2D searchRegion,
+      final PackedRTree.Visitor visitor) {
+    if (searchRegion.getCoordinateReferenceSystem() == null) {
+      searchRegion = new Envelope2D(searchRegion);
+      searchRegion.setCoordinateReferenceSystem(tree.getCoordinateReferenceSystem());
+    }
+    for (final Rectangle2D r : searchRegion.toRectangles()) {
+      if (!tree.search(r.getMinX(), r.getMinY(), r.getMaxX(), r.getMaxY(), visitor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Performs point radius search. The index is searched in the rectangular
+   * approximation of the circle, then entries are filtered by their great
+   * circle distance to the point.
+   *
+   * @param point
+   *          the center of the circular region, in (longitude, latitude) order
+   * @param radiusKM
+   *          the radius in kilometers
+   * @param visitor
+   *          the visitor to notify for each entry found
+   * @return {@code false} if the visitor stopped the search
+   */
+  public boolean queryByPointRadius(final DirectPosition2D point,
+      final double radiusKM, final PackedRTree.Visitor visitor) {
+    final Rectangle2D r = new LatLonPointRadius(point, radiusKM)
+        .getRectangularRegionApproximation(360);
+    // The approximation is in the [0 … 360] and [0 … 180] ranges.
+    final double xmin = r.getMinX() - 180, xmax = r.getMaxX() - 180;
+    final double ymin = r.getMinY() - 90, ymax = r.getMaxY() - 90;
+    final PackedRTree.Visitor filter = new PackedRTree.Visitor() {
+      @Override
+      public boolean visit(final int id) {
+        if (DistanceUtils.getHaversineDistance(getLatitude(id),
+            getLongitude(id), point.y, point.x) <= radiusKM) {
+          return visitor.visit(id);
+        }
+        return true;
+      }
+    };
+    if (!tree.search(Math.max(xmin, -180), ymin, Math.min(xmax, 180), ymax, filter)) {
+      return false;
+    }
+    if (xmin < -180 && !tree.search(xmin + 360, ymin, 180, ymax, filter)) {
+      return false;
+    }
+    if (xmax > 180 && !tree.search(-180, ymin, xmax - 360, ymax, filter)) {
+      return false;
+    }
+    return true;
+  }
+}
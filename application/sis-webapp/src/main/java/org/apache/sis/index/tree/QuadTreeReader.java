@@ -28,7 +28,10 @@ import org.apache.sis.geometry.DirectPosition2D;
 /**
  * Class to reload the quad tree index from file.
  *
+ * @deprecated Replaced by the single-file binary format of {@link GeoRSSIndex},
+ *             which is memory-mapped instead of parsed.
  */
+@Deprecated
 public final class QuadTreeReader {
   private QuadTreeReader() {
   }
@@ -19,15 +19,21 @@ package org.apache.sis.services;
 //JDK imports
 import java.awt.geom.Rectangle2D;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -37,28 +43,20 @@ import javax.servlet.http.HttpServletResponse;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.w3c.dom.Text;
 import org.xml.sax.SAXException;
 
 //SIS imports
 import org.apache.sis.geometry.DirectPosition2D;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.distance.DistanceUtils;
+import org.apache.sis.index.tree.ConcurrentGeoRSSIndex;
 import org.apache.sis.index.tree.GeoRSSData;
-import org.apache.sis.index.tree.QuadTree;
-import org.apache.sis.index.tree.QuadTreeData;
-import org.apache.sis.index.tree.QuadTreeReader;
-import org.apache.sis.index.tree.QuadTreeWriter;
+import org.apache.sis.index.tree.GeoRSSIndex;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.logging.Logging;
 
 //ROME imports
 import com.sun.syndication.feed.WireFeed;
@@ -71,34 +69,54 @@ import com.sun.syndication.io.XmlReader;
 /**
  *
  * A location web service that loads data from GeoRSS format (configured via a
- * provided config.xml file), and then loads up a {@link QuadTree} with this
- * information, making it queryable for callers.
+ * provided config.xml file), and then loads up a {@link ConcurrentGeoRSSIndex}
+ * with this information, making it queryable for callers. The index is saved in
+ * a single binary file which is memory-mapped on subsequent starts. New feed
+ * items can be added while the index serves queries, either periodically
+ * (configured by the {@code refresh} element, in minutes) or by a POST request
+ * with the {@code type=ingest} parameter.
  *
  */
 public class LocationServlet extends HttpServlet {
 
   private static final long serialVersionUID = 731743219362175102L;
-  private QuadTree tree;
+
+  /**
+   * Name of the file, in the index directory, where the spatial index is saved.
+   */
+  private static final String INDEX_FILENAME = "georss.idx";
+
+  /**
+   * Where to log the background refresh of feeds.
+   */
+  private static final Logger LOGGER = Logging.getLogger("org.apache.sis.services");
+
+  private ConcurrentGeoRSSIndex index;
   private ServletContext context;
   private String timeToLoad;
   private String qtreeIdxPath;
   private String georssStoragePath;
+  private int capacity = -1;
+  private int refreshMinutes;
+  private final List<String> feedUrls = new ArrayList<String>();
+  private transient ScheduledExecutorService refresher;
 
   /**
    * Read GeoRSS data (location information provide sis-location-config.xml )
-   * and build quad-tree.
+   * and build the spatial index, or load the index saved by a previous run.
+   * If a refresh interval is configured, the feeds are read again periodically
+   * by a background thread and new items are added to the index while it
+   * continues to serve queries.
    *
    * @param config
    *          Servlet configuration file
    * @exception ServletException
    *              General exception for servlet
    */
-  @SuppressWarnings("unchecked")
   public void init(ServletConfig config) throws ServletException {
     this.context = config.getServletContext();
     long startTime = 0;
     long endTime = 0;
-    int capacity = -1, depth = -1;
     this.qtreeIdxPath = this.context
         .getInitParameter("org.apache.sis.services.config.qIndexPath");
     this.georssStoragePath = this.context
@@ -109,129 +127,203 @@ public class LocationServlet extends HttpServlet {
     if (!this.georssStoragePath.endsWith("/"))
       this.georssStoragePath += "/";
 
-    InputStream indexStream = null;
+    final boolean hasConfig = readConfig();
+    final Path indexFile = Paths.get(qtreeIdxPath, INDEX_FILENAME);
+    startTime = System.currentTimeMillis();
     try {
-      indexStream = new FileInputStream(qtreeIdxPath + "node_0.txt");
-    } catch (FileNotFoundException e) {
-      System.out.println("[INFO] Existing qtree index at: ["+qtreeIdxPath+"] not found. Creating new index.");
+      this.index = ConcurrentGeoRSSIndex.open(indexFile, capacity);
+    } catch (DataStoreException | IOException e) {
+      throw new ServletException("Unable to read location index: ["
+          + indexFile + "]", e);
     }
-
-    if (indexStream != null) {
+    if (this.index != null) {
+      endTime = System.currentTimeMillis();
+      this.timeToLoad = "Spatial index of " + index.size()
+          + " entries loaded from index file in "
+          + Long.toString(endTime - startTime) + " milliseconds";
+      System.out.println("[INFO] Finished loading tree from stored index");
+    } else if (hasConfig) {
+      System.out.println("[INFO] Existing index at: ["+indexFile+"] not found. Creating new index.");
       startTime = System.currentTimeMillis();
-      this.tree = QuadTreeReader.readFromFile(qtreeIdxPath, "tree_config.txt",
-          "node_0.txt");
+      this.index = new ConcurrentGeoRSSIndex(GeoRSSIndex.create(
+          new ArrayList<GeoRSSData>(), capacity), indexFile, capacity);
+      ingest(feedUrls);
       try {
-        indexStream.close();
-      } catch (IOException e) {
+        index.flush();
+      } catch (DataStoreException | IOException e) {
         e.printStackTrace();
       }
       endTime = System.currentTimeMillis();
-      this.timeToLoad = "Quad Tree fully loaded from index files in "
+      this.timeToLoad = "Spatial index fully loaded from retrieving GeoRSS files over the network in "
           + Double.toString((endTime - startTime) / 1000L) + " seconds";
-      System.out.println("[INFO] Finished loading tree from stored index");
     } else {
-      startTime = System.currentTimeMillis();
-      WireFeedInput wf = new WireFeedInput(true);
-      // read quad tree properties set in config xml file
-      InputStream configStream = null;
+      throw new ServletException(
+          "Unable to read location service XML config: null!");
+    }
+    if (refreshMinutes > 0 && !feedUrls.isEmpty()) {
+      refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable task) {
+          final Thread thread = new Thread(task, "GeoRSS feeds refresh");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      refresher.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          final int added = ingest(feedUrls);
+          LOGGER.log(Level.FINE, "Feeds refreshed: {0} new entries", added);
+        }
+      }, refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+    }
+  }
+
+  /**
+   * Stops the feeds refresh and saves the entries added since the last save.
+   */
+  @Override
+  public void destroy() {
+    if (refresher != null) {
+      refresher.shutdownNow();
+      refresher = null;
+    }
+    if (index != null) {
       try {
-        configStream = new FileInputStream(this.context
-            .getInitParameter("org.apache.sis.services.config.filePath"));
-      } catch (Exception e) {
+        index.flush();
+      } catch (DataStoreException | IOException e) {
         e.printStackTrace();
       }
+    }
+    super.destroy();
+  }
 
-      if (configStream != null) {
-        DocumentBuilderFactory dbfac = DocumentBuilderFactory.newInstance();
-        try {
-          DocumentBuilder docBuilder = dbfac.newDocumentBuilder();
-          Document configDoc = docBuilder.parse(configStream);
-          NodeList capacityNode = configDoc.getElementsByTagName("capacity");
-          if (capacityNode.item(0) != null) {
-            capacity = Integer.parseInt(capacityNode.item(0).getFirstChild()
-                .getNodeValue());
-          }
+  /**
+   * Reads the tree capacity, the refresh interval in minutes and the feed
+   * URLs from the location service XML config.
+   *
+   * @return whether the configuration file has been read
+   */
+  private boolean readConfig() {
+    InputStream configStream = null;
+    try {
+      configStream = new FileInputStream(this.context
+          .getInitParameter("org.apache.sis.services.config.filePath"));
+    } catch (Exception e) {
+      e.printStackTrace();
+      return false;
+    }
+    DocumentBuilderFactory dbfac = DocumentBuilderFactory.newInstance();
+    try {
+      DocumentBuilder docBuilder = dbfac.newDocumentBuilder();
+      Document configDoc = docBuilder.parse(configStream);
+      NodeList capacityNode = configDoc.getElementsByTagName("capacity");
+      if (capacityNode.item(0) != null) {
+        capacity = Integer.parseInt(capacityNode.item(0).getFirstChild()
+            .getNodeValue());
+      }
+      NodeList refreshNode = configDoc.getElementsByTagName("refresh");
+      if (refreshNode.item(0) != null) {
+        refreshMinutes = Integer.parseInt(refreshNode.item(0).getFirstChild()
+            .getNodeValue().trim());
+      }
+      NodeList urlNodes = configDoc.getElementsByTagName("url");
+      for (int i = 0; i < urlNodes.getLength(); i++) {
+        feedUrls.add(urlNodes.item(i).getFirstChild().getNodeValue().trim());
+      }
+      configStream.close();
+      return true;
+    } catch (ParserConfigurationException e) {
+      e.printStackTrace();
+    } catch (SAXException e) {
+      e.printStackTrace();
+    } catch (IOException e) {
+      e.printStackTrace();
+    } catch (IllegalArgumentException e) {
+      e.printStackTrace();
+    }
+    return false;
+  }
 
-          NodeList depthNode = configDoc.getElementsByTagName("depth");
-          if (depthNode.item(0) != null) {
-            depth = Integer.parseInt(depthNode.item(0).getFirstChild()
-                .getNodeValue());
-          }
-          this.tree = new QuadTree(capacity, depth); // TODO make this
-          // configurable
-
-          NodeList urlNodes = configDoc.getElementsByTagName("url");
-          for (int i = 0; i < urlNodes.getLength(); i++) {
-            // read in georss and build tree
-            String georssUrlStr = urlNodes.item(i).getFirstChild()
-                .getNodeValue();
-            WireFeed feed = null;
-            try {
-              feed = wf.build(new XmlReader(new URL(georssUrlStr)));
-            } catch (Exception e) {
-              System.out.println("[ERROR] Error obtaining geodata url: ["
-                  + georssUrlStr + "]: Message: "+e.getMessage()+": skipping and continuing");
-              continue;
-            }
-
-            Channel c = (Channel) feed;
-            List<Item> items = (List<Item>) c.getItems();
-            for (Item item : items) {
-              GeoRSSModule geoRSSModule = (GeoRSSModule) item
-                  .getModule(GeoRSSModule.GEORSS_GEORSS_URI);
-              if (geoRSSModule == null)
-                geoRSSModule = (GeoRSSModule) item
-                    .getModule(GeoRSSModule.GEORSS_GML_URI);
-              if (geoRSSModule == null)
-                geoRSSModule = (GeoRSSModule) item
-                    .getModule(GeoRSSModule.GEORSS_W3CGEO_URI);
-              // if location from the item cannot be retrieved
-              // then discard it
-              if (geoRSSModule != null && geoRSSModule.getPosition() != null) {
-                String filename = "";
-                if (item.getGuid() != null)
-                  filename = cleanStr(item.getGuid().getValue()) + ".txt";
-                else
-                  filename = cleanStr(item.getLink()) + ".txt";
-
-                GeoRSSData data = new GeoRSSData(filename, new DirectPosition2D(
-                    geoRSSModule.getPosition().getLongitude(),
-                    geoRSSModule.getPosition().getLatitude()));
-                if (this.tree.insert(data)) {
-                  data.saveToFile(item, geoRSSModule, georssStoragePath);
-                } else {
-                  System.out.println("[INFO] Unable to store data at location "
-                      + data.getLatLon().y + ", "
-                      + data.getLatLon().x + " under filename "
-                      + data.getFileName());
-                }
-              }
-            }
-          }
-          configStream.close();
-          endTime = System.currentTimeMillis();
-          this.timeToLoad = "Quad Tree fully loaded from retrieving GeoRSS files over the network in "
-              + Double.toString((endTime - startTime) / 1000L) + " seconds";
-          QuadTreeWriter.writeTreeToFile(tree, qtreeIdxPath);
-        } catch (ParserConfigurationException e) {
-          e.printStackTrace();
-        } catch (SAXException e) {
-          e.printStackTrace();
-        } catch (IOException e) {
-          e.printStackTrace();
-        } catch (IllegalArgumentException e) {
-          e.printStackTrace();
-        }
-      } else {
-        throw new ServletException(
-            "Unable to read location service XML config: null!");
+  /**
+   * Reads the given GeoRSS feeds and adds their new items to the index.
+   * Feeds which can not be read are skipped. This method can be invoked
+   * while the index is serving queries.
+   *
+   * @param urls
+   *          the URLs of the feeds to read
+   * @return number of entries added to the index
+   */
+  private int ingest(final List<String> urls) {
+    final List<GeoRSSData> entries = new ArrayList<GeoRSSData>();
+    for (final String georssUrlStr : urls) {
+      readFeed(georssUrlStr, entries);
+    }
+    try {
+      return index.addAll(entries);
+    } catch (DataStoreException | IOException e) {
+      e.printStackTrace();
+      return 0;
+    }
+  }
+
+  /**
+   * Reads the given GeoRSS feed, saves each item having a location to the
+   * GeoRSS storage directory and adds it to the given list.
+   *
+   * @param georssUrlStr
+   *          the URL of the feed to read
+   * @param entries
+   *          where to add the items read
+   */
+  @SuppressWarnings("unchecked")
+  private void readFeed(final String georssUrlStr, final List<GeoRSSData> entries) {
+    WireFeedInput wf = new WireFeedInput(true);
+    WireFeed feed = null;
+    try {
+      feed = wf.build(new XmlReader(new URL(georssUrlStr)));
+    } catch (Exception e) {
+      System.out.println("[ERROR] Error obtaining geodata url: ["
+          + georssUrlStr + "]: Message: "+e.getMessage()+": skipping and continuing");
+      return;
+    }
+
+    Channel c = (Channel) feed;
+    List<Item> items = (List<Item>) c.getItems();
+    for (Item item : items) {
+      GeoRSSModule geoRSSModule = (GeoRSSModule) item
+          .getModule(GeoRSSModule.GEORSS_GEORSS_URI);
+      if (geoRSSModule == null)
+        geoRSSModule = (GeoRSSModule) item
+            .getModule(GeoRSSModule.GEORSS_GML_URI);
+      if (geoRSSModule == null)
+        geoRSSModule = (GeoRSSModule) item
+            .getModule(GeoRSSModule.GEORSS_W3CGEO_URI);
+      // if location from the item cannot be retrieved
+      // then discard it
+      if (geoRSSModule != null && geoRSSModule.getPosition() != null) {
+        String filename = "";
+        if (item.getGuid() != null)
+          filename = cleanStr(item.getGuid().getValue()) + ".txt";
+        else
+          filename = cleanStr(item.getLink()) + ".txt";
+
+        GeoRSSData data = new GeoRSSData(filename, new DirectPosition2D(
+            geoRSSModule.getPosition().getLongitude(),
+            geoRSSModule.getPosition().getLatitude()));
+        entries.add(data);
+        data.saveToFile(item, geoRSSModule, georssStoragePath);
       }
     }
   }
 
   /**
    * Provide GET requests for Bounding-box and Point-radius search queries.
-   * Return search results to client in xml format.
+   * Return search results to client in xml format, or in JSON format if the
+   * {@code format=json} parameter is given. Results are written as they are
+   * found by the index. The optional {@code offset} and {@code limit}
+   * parameters select a page of results; the index traversal stops as soon
+   * as the limit is reached.
    *
    * @param request
    *          Http Servlet Request
@@ -245,15 +337,20 @@ public class LocationServlet extends HttpServlet {
   public void doGet(HttpServletRequest request, HttpServletResponse response)
       throws ServletException, IOException {
 
-    long beforeTime = 0;
-    long afterTime = 0;
-
-    response.setContentType("text/xml");
-    PrintWriter out = response.getWriter();
-
+    final int offset, limit;
+    try {
+      offset = parseCount(request.getParameter("offset"), 0);
+      limit = parseCount(request.getParameter("limit"), Integer.MAX_VALUE);
+    } catch (NumberFormatException ex) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "Invalid offset or limit: " + ex.getMessage());
+      return;
+    }
     String type = request.getParameter("type");
 
-    List<QuadTreeData> results = new ArrayList<QuadTreeData>();
+    Envelope2D bbox = null;
+    DirectPosition2D point = null;
+    double radiusKM = 0;
     List<String> regions = new ArrayList<String>();
     if (type != null && type.equals("bbox")) {
       String llLat = request.getParameter("llLat");
@@ -263,13 +360,10 @@ public class LocationServlet extends HttpServlet {
 
       if (llLat != null && llLon != null && urLat != null && urLon != null) {
         try {
-          Envelope2D bbox = new Envelope2D(new DirectPosition2D(
+          bbox = new Envelope2D(new DirectPosition2D(
               Double.parseDouble(llLon), Double.parseDouble(llLat)),
               new DirectPosition2D(Double.parseDouble(urLon), Double.parseDouble(urLat)));
 
-          beforeTime = System.currentTimeMillis();
-          results = tree.queryByBoundingBox(bbox);
-          afterTime = System.currentTimeMillis();
           // get the polygon that approximates the region
           Rectangle2D[] rects = bbox.toRectangles();
           for (int i = 0; i < rects.length; i++) {
@@ -293,37 +387,76 @@ public class LocationServlet extends HttpServlet {
       String lon = request.getParameter("lon");
 
       if (radius != null && lat != null && lon != null) {
-
-        DirectPosition2D point = null;
         try {
           point = new DirectPosition2D(Double.parseDouble(lon), Double.parseDouble(lat));
+          radiusKM = Double.parseDouble(radius);
         } catch (NumberFormatException ex) {
+          point = null;
           System.out
               .println("{ERROR] Input parameters were not valid latitudes and longitudes");
         }
 
-        double radiusKM = Double.parseDouble(radius);
-
-        String regionStr = "";
+        if (point != null) {
+          String regionStr = "";
 
-        for (int i = 0; i < 360; i += 10) {
-          DirectPosition2D pt = DistanceUtils.getPointOnGreatCircle(point.y, point.x, radiusKM, i);
+          for (int i = 0; i < 360; i += 10) {
+            DirectPosition2D pt = DistanceUtils.getPointOnGreatCircle(point.y, point.x, radiusKM, i);
+            regionStr += pt.y + "," + pt.x + ",";
+          }
+          DirectPosition2D pt = DistanceUtils.getPointOnGreatCircle(point.y, point.x, radiusKM, 0);
           regionStr += pt.y + "," + pt.x + ",";
+          regions.add(regionStr.substring(0, regionStr.length() - 1));
         }
-        DirectPosition2D pt = DistanceUtils.getPointOnGreatCircle(point.y, point.x, radiusKM, 0);
-        regionStr += pt.y + "," + pt.x + ",";
-        regions.add(regionStr.substring(0, regionStr.length() - 1));
-
-        beforeTime = System.currentTimeMillis();
-        results = tree.queryByPointRadius(point, radiusKM);
-        afterTime = System.currentTimeMillis();
-
       }
     }
-    long timeSeconds = afterTime - beforeTime;
-    // return matches from tree in xml format to client
-    out.write(buildXML(results, regions, timeSeconds));
-    out.close();
+    // stream matches from the index in xml or json format to client
+    final ResultWriter out;
+    response.setCharacterEncoding("UTF-8");
+    if ("json".equals(request.getParameter("format"))) {
+      response.setContentType("application/json");
+      out = new ResultWriter.JSON(index, offset, limit, response.getWriter());
+    } else {
+      response.setContentType("text/xml");
+      out = new ResultWriter.XML(index, offset, limit, response.getWriter());
+    }
+    out.writeStart();
+    final long beforeTime = System.currentTimeMillis();
+    try {
+      if (bbox != null) {
+        index.queryByBoundingBox(bbox, out);
+      } else if (point != null) {
+        index.queryByPointRadius(point, radiusKM, out);
+      }
+    } catch (BackingStoreException e) {
+      throw e.unwrapOrRethrow(IOException.class);
+    }
+    final long afterTime = System.currentTimeMillis();
+    final String indexLoadTime = timeToLoad;
+    timeToLoad = null; // Only need to send this over to the client on initial load
+    out.writeEnd(afterTime - beforeTime, indexLoadTime, regions);
+    response.getWriter().close();
+  }
+
+  /**
+   * Parses an optional non-negative integer parameter.
+   *
+   * @param value
+   *          the parameter value, or {@code null}
+   * @param defaultValue
+   *          the value to return if the parameter is absent
+   * @return the parameter value
+   * @throws NumberFormatException
+   *           if the value is not a non-negative integer
+   */
+  private static int parseCount(final String value, final int defaultValue) {
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+    final int n = Integer.parseInt(value);
+    if (n < 0) {
+      throw new NumberFormatException(value);
+    }
+    return n;
   }
 
   /**
@@ -340,6 +473,10 @@ public class LocationServlet extends HttpServlet {
    */
   public void doPost(HttpServletRequest request, HttpServletResponse response)
       throws ServletException, IOException {
+    if ("ingest".equals(request.getParameter("type"))) {
+      doIngest(request, response);
+      return;
+    }
     response.setContentType("text/html");
     PrintWriter out = response.getWriter();
 
@@ -378,89 +515,41 @@ public class LocationServlet extends HttpServlet {
   }
 
   /**
-   * Builds the XML file to return to client.
+   * Reads feeds again and adds their new items to the index, without
+   * interrupting queries. The optional {@code url} parameters select the
+   * feeds to read; only feeds declared in the location service XML config
+   * are accepted. If no {@code url} parameter is given, all configured feeds
+   * are read. The response gives the number of added entries and the new
+   * index size.
    *
-   * @param filterList
-   *          list of QuadTreeData that are within the search region
-   * @param regions
-   *          the String coordinate representation of the search region
-   * @param time
-   *          the time it took to execute the query
-   * @return XML string
+   * @param request
+   *          Http Servlet Request
+   * @param response
+   *          Http Servlet Response
+   * @exception IOException
+   *              General exception for I/O
    */
-  private String buildXML(final List<QuadTreeData> filterList,
-      final List<String> regions, final long time) {
-    DocumentBuilderFactory dbfac = DocumentBuilderFactory.newInstance();
-
-    try {
-      DocumentBuilder docBuilder = dbfac.newDocumentBuilder();
-      Document doc = docBuilder.newDocument();
-
-      Element root = doc.createElement("root");
-      doc.appendChild(root);
-      for (QuadTreeData geo : filterList) {
-        Element item = doc.createElement("item");
-
-        Element id = doc.createElement("id");
-        Text idText = doc.createTextNode(geo.getFileName());
-        id.appendChild(idText);
-        item.appendChild(id);
-
-        Element lat = doc.createElement("lat");
-        Text latText = doc.createTextNode(Double.toString(geo.getLatLon().y));
-        lat.appendChild(latText);
-        item.appendChild(lat);
-
-        Element lon = doc.createElement("lon");
-        Text lonText = doc.createTextNode(Double.toString(geo.getLatLon().x));
-        lon.appendChild(lonText);
-        item.appendChild(lon);
-
-        root.appendChild(item);
-      }
-
-      Element timeElem = doc.createElement("time");
-      Text timeText = doc.createTextNode(Long.toString(time));
-      timeElem.appendChild(timeText);
-      root.appendChild(timeElem);
-
-      if (timeToLoad != null) {
-        Element indexLoadTimeElem = doc.createElement("indexLoadTime");
-        Text indexLoadTimeText = doc.createTextNode(timeToLoad);
-        indexLoadTimeElem.appendChild(indexLoadTimeText);
-        root.appendChild(indexLoadTimeElem);
-        timeToLoad = null; // Only need to send this over to the client
-        // on initial load
-      }
-
-      Element query = doc.createElement("query");
-      root.appendChild(query);
-      for (String rStr : regions) {
-        Element region = doc.createElement("region");
-        Text regionText = doc.createTextNode(rStr);
-        region.appendChild(regionText);
-        query.appendChild(region);
-      }
-      try {
-        TransformerFactory transfac = TransformerFactory.newInstance();
-        Transformer trans = transfac.newTransformer();
-        trans.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-        trans.setOutputProperty(OutputKeys.INDENT, "yes");
-        StringWriter sw = new StringWriter();
-        StreamResult result = new StreamResult(sw);
-        DOMSource source = new DOMSource(doc);
-        trans.transform(source, result);
-        return sw.toString();
-      } catch (TransformerConfigurationException e) {
-        e.printStackTrace();
-      } catch (TransformerException e) {
-        e.printStackTrace();
+  private void doIngest(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    List<String> urls = feedUrls;
+    final String[] requested = request.getParameterValues("url");
+    if (requested != null) {
+      urls = new ArrayList<String>();
+      for (final String url : requested) {
+        if (!feedUrls.contains(url)) {
+          response.sendError(HttpServletResponse.SC_FORBIDDEN,
+              "Not a configured feed: " + url);
+          return;
+        }
+        urls.add(url);
       }
-    } catch (ParserConfigurationException e) {
-      e.printStackTrace();
     }
-    return null;
-
+    final int added = ingest(urls);
+    response.setContentType("text/xml");
+    PrintWriter out = response.getWriter();
+    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?><ingest><added>"
+        + added + "</added><size>" + index.size() + "</size></ingest>");
+    out.close();
   }
 
   /**
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.services;
+
+//JDK imports
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+//SIS imports
+import org.apache.sis.index.PackedRTree;
+import org.apache.sis.index.tree.ConcurrentGeoRSSIndex;
+import org.apache.sis.util.collection.BackingStoreException;
+
+/**
+ * Writes the entries found by an index query directly to the response, as
+ * they are found. Entries before the requested offset are skipped, and the
+ * query is stopped as soon as the requested number of entries is written.
+ *
+ * <p>Exceptions thrown while writing an entry are wrapped in a
+ * {@link BackingStoreException}, since the visitor can not throw checked
+ * exceptions.</p>
+ */
+abstract class ResultWriter implements PackedRTree.Visitor {
+  /**
+   * The index from which to get the entry values.
+   */
+  private final ConcurrentGeoRSSIndex index;
+
+  /**
+   * Number of entries to skip before to start writing.
+   */
+  private int skip;
+
+  /**
+   * Maximal number of entries to write.
+   */
+  private final int limit;
+
+  /**
+   * Number of entries written so far.
+   */
+  private int count;
+
+  /**
+   * Creates a writer for entries of the given index.
+   *
+   * @param index
+   *          the index from which to get the entry values
+   * @param offset
+   *          number of entries to skip
+   * @param limit
+   *          maximal number of entries to write
+   */
+  ResultWriter(final ConcurrentGeoRSSIndex index, final int offset,
+      final int limit) {
+    this.index = index;
+    this.skip = offset;
+    this.limit = limit;
+  }
+
+  /**
+   * Writes the given entry unless it is before the offset.
+   *
+   * @param id
+   *          identifier of the entry found by the index
+   * @return {@code false} if the limit has been reached
+   */
+  @Override
+  public final boolean visit(final int id) {
+    if (skip > 0) {
+      skip--;
+      return true;
+    }
+    if (count >= limit) {
+      return false;
+    }
+    try {
+      writeItem(index.getFileName(id), index.getLatitude(id),
+          index.getLongitude(id));
+    } catch (IOException e) {
+      throw new BackingStoreException(e);
+    }
+    return ++count < limit;
+  }
+
+  /**
+   * Writes the beginning of the document, before the first entry.
+   */
+  abstract void writeStart() throws IOException;
+
+  /**
+   * Writes an entry.
+   */
+  abstract void writeItem(String id, double lat, double lon) throws IOException;
+
+  /**
+   * Writes the end of the document, after the last entry.
+   *
+   * @param time
+   *          the time it took to execute the query, in milliseconds
+   * @param indexLoadTime
+   *          message about the index loading time, or {@code null}
+   * @param regions
+   *          the String coordinate representation of the search region
+   */
+  abstract void writeEnd(long time, String indexLoadTime, List<String> regions)
+      throws IOException;
+
+  /**
+   * Writes the response in the XML format of the location service, using a
+   * StAX writer. The output is identical to the document previously built
+   * as a DOM tree and serialized by a {@link javax.xml.transform.Transformer}
+   * with indentation enabled on JDK 8: an XML declaration with
+   * {@code standalone="no"}, then each element on its own line without
+   * indentation.
+   */
+  static final class XML extends ResultWriter {
+    /**
+     * The XML declaration, followed by a line separator.
+     */
+    private static final String DECLARATION =
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n";
+
+    /**
+     * The factory of StAX writers, created when first needed.
+     */
+    private static XMLOutputFactory factory;
+
+    /**
+     * Where to write the XML declaration and the final line separator.
+     */
+    private final Writer writer;
+
+    /**
+     * Where to write the XML elements.
+     */
+    private final XMLStreamWriter out;
+
+    /**
+     * Creates a writer of XML documents.
+     */
+    XML(final ConcurrentGeoRSSIndex index, final int offset, final int limit,
+        final Writer out) throws IOException {
+      super(index, offset, limit);
+      this.writer = out;
+      try {
+        this.out = factory().createXMLStreamWriter(out);
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+    }
+
+    /**
+     * Returns the factory of StAX writers.
+     */
+    private static synchronized XMLOutputFactory factory() {
+      if (factory == null) {
+        factory = XMLOutputFactory.newInstance();
+      }
+      return factory;
+    }
+
+    @Override
+    void writeStart() throws IOException {
+      writer.write(DECLARATION);
+      try {
+        out.writeStartElement("root");
+        out.writeCharacters("\n");
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    void writeItem(final String id, final double lat, final double lon)
+        throws IOException {
+      try {
+        out.writeStartElement("item");
+        out.writeCharacters("\n");
+        writeElement("id", id);
+        writeElement("lat", Double.toString(lat));
+        writeElement("lon", Double.toString(lon));
+        out.writeEndElement();
+        out.writeCharacters("\n");
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    void writeEnd(final long time, final String indexLoadTime,
+        final List<String> regions) throws IOException {
+      try {
+        writeElement("time", Long.toString(time));
+        if (indexLoadTime != null) {
+          writeElement("indexLoadTime", indexLoadTime);
+        }
+        if (regions.isEmpty()) {
+          out.writeEmptyElement("query");
+        } else {
+          out.writeStartElement("query");
+          out.writeCharacters("\n");
+          for (final String region : regions) {
+            writeElement("region", region);
+          }
+          out.writeEndElement();
+        }
+        out.writeCharacters("\n");
+        out.writeEndElement();
+        out.writeEndDocument();
+        out.flush();
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+      writer.write('\n');
+      writer.flush();
+    }
+
+    /**
+     * Writes an element containing only the given text, followed by a line
+     * separator. An empty text is written as an empty element.
+     */
+    private void writeElement(final String name, final String text)
+        throws XMLStreamException {
+      if (text.isEmpty()) {
+        out.writeEmptyElement(name);
+      } else {
+        out.writeStartElement(name);
+        out.writeCharacters(text);
+        out.writeEndElement();
+      }
+      out.writeCharacters("\n");
+    }
+  }
+
+  /**
+   * Writes the response as a compact JSON object with {@code items},
+   * {@code time}, {@code indexLoadTime} and {@code regions} properties.
+   */
+  static final class JSON extends ResultWriter {
+    /**
+     * Where to write the JSON document.
+     */
+    private final Writer out;
+
+    /**
+     * Whether at least one item has been written.
+     */
+    private boolean hasItems;
+
+    /**
+     * Creates a writer of JSON documents.
+     */
+    JSON(final ConcurrentGeoRSSIndex index, final int offset, final int limit,
+        final Writer out) {
+      super(index, offset, limit);
+      this.out = out;
+    }
+
+    @Override
+    void writeStart() throws IOException {
+      out.write("{\"items\":[");
+    }
+
+    @Override
+    void writeItem(final String id, final double lat, final double lon)
+        throws IOException {
+      if (hasItems) {
+        out.write(',');
+      }
+      hasItems = true;
+      out.write("{\"id\":");
+      writeString(id);
+      out.write(",\"lat\":");
+      out.write(Double.toString(lat));
+      out.write(",\"lon\":");
+      out.write(Double.toString(lon));
+      out.write('}');
+    }
+
+    @Override
+    void writeEnd(final long time, final String indexLoadTime,
+        final List<String> regions) throws IOException {
+      out.write("],\"time\":");
+      out.write(Long.toString(time));
+      if (indexLoadTime != null) {
+        out.write(",\"indexLoadTime\":");
+        writeString(indexLoadTime);
+      }
+      out.write(",\"regions\":[");
+      for (int i = 0; i < regions.size(); i++) {
+        if (i != 0) {
+          out.write(',');
+        }
+        writeString(regions.get(i));
+      }
+      out.write("]}");
+      out.flush();
+    }
+
+    /**
+     * Writes the given text as a quoted JSON string.
+     */
+    private void writeString(final String text) throws IOException {
+      out.write('"');
+      for (int i = 0; i < text.length(); i++) {
+        final char c = text.charAt(i);
+        switch (c) {
+          case '"':  out.write("\\\""); break;
+          case '\\': out.write("\\\\"); break;
+          case '\n': out.write("\\n"); break;
+          case '\r': out.write("\\r"); break;
+          case '\t': out.write("\\t"); break;
+          default: {
+            if (c < ' ') {
+              out.write(String.format("\\u%04x", (int) c));
+            } else {
+              out.write(c);
+            }
+          }
+        }
+      }
+      out.write('"');
+    }
+  }
+}
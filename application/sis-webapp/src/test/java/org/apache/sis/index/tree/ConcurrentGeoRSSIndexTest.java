@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+import java.util.List;
+import java.util.Random;
+import java.util.ArrayList;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.index.PackedRTree;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ConcurrentGeoRSSIndex}, in particular queries executed while entries are added.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(GeoRSSIndexTest.class)
+public final strictfp class ConcurrentGeoRSSIndexTest extends TestCase {
+    /**
+     * Number of entries in the first base index. Shall be greater than the minimal size
+     * of the delta index, so adding those entries causes a merge.
+     */
+    private static final int BASE_COUNT = 1500;
+
+    /**
+     * A box covering the whole world, for queries expected to return all entries.
+     */
+    private static final Envelope2D WORLD = new Envelope2D(null, -180, -90, 360, 180);
+
+    /**
+     * Returns the identifiers from 0 inclusive to the given value exclusive.
+     */
+    private static SortedSet<Integer> range(final int size) {
+        final SortedSet<Integer> ids = new TreeSet<>();
+        for (int i=0; i<size; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    /**
+     * Deletes the given directory with all the files in it.
+     */
+    private static void deleteAll(final Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (final Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Tests the addition of entries in the delta index, then in a new base index.
+     *
+     * @throws Exception if an error occurred while saving the index.
+     */
+    @Test
+    public void testAddAll() throws Exception {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final List<GeoRSSData> entries = GeoRSSIndexTest.createEntries(random, BASE_COUNT, "entry");
+        final ConcurrentGeoRSSIndex index = new ConcurrentGeoRSSIndex(
+                GeoRSSIndex.create(entries.subList(0, 100), 0), null, 0);
+        assertEquals(100, index.size());
+        assertEquals("Entries already indexed shall be ignored.", 50, index.addAll(entries.subList(50, 150)));
+        assertEquals(150, index.size());
+        for (final int id : new int[] {0, 99, 100, 149}) {
+            assertEquals(entries.get(id).getFileName(), index.getFileName(id));
+            assertEquals(entries.get(id).getFileName(), index.getData(id).getFileName());
+        }
+        SortedSet<Integer> found = new TreeSet<>();
+        assertTrue(index.queryByBoundingBox(WORLD, GeoRSSIndexTest.collector(found)));
+        assertEquals("Base and delta.", range(150), found);
+        /*
+         * Addition of enough entries for causing a merge.
+         */
+        assertEquals(BASE_COUNT - 150, index.addAll(entries));
+        found = new TreeSet<>();
+        assertTrue(index.queryByBoundingBox(new Envelope2D(null, -20, -30, 60, 50), GeoRSSIndexTest.collector(found)));
+        assertEquals("After merge.", GeoRSSIndexTest.expectedInBox(entries, -20, -30, 40, 20), found);
+    }
+
+    /**
+     * Starts a query, adds entries causing a merge while the query is running, then verifies that the
+     * query saw the index as it was before the merge. Also verifies that the file of the previous
+     * generation is kept while the query uses it, and that {@link ConcurrentGeoRSSIndex#open(Path, int)}
+     * loads the most recent generation.
+     *
+     * @throws Exception if an error occurred while writing or reading the index files.
+     */
+    @Test
+    @DependsOnMethod("testAddAll")
+    public void testQueryDuringMerge() throws Exception {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final List<GeoRSSData> before = GeoRSSIndexTest.createEntries(random, BASE_COUNT, "before");
+        final List<GeoRSSData> added  = GeoRSSIndexTest.createEntries(random, BASE_COUNT, "added");
+        final Path directory = Files.createTempDirectory("georss");
+        try {
+            final Path file  = directory.resolve("georss.idx");
+            final Path gen1  = directory.resolve("georss.1.idx");
+            final Path gen2  = directory.resolve("georss.2.idx");
+            final ConcurrentGeoRSSIndex index = new ConcurrentGeoRSSIndex(
+                    GeoRSSIndex.create(new ArrayList<GeoRSSData>(), 0), file, 0);
+            assertEquals(BASE_COUNT, index.addAll(before));
+            assertTrue("Generation 1 shall be saved by the merge.", Files.isRegularFile(gen1));
+            /*
+             * Adds entries from inside the visitor, after the first entry has been found.
+             * The query shall continue on the index as it was before the merge.
+             */
+            final SortedSet<Integer> found = new TreeSet<>();
+            final AtomicBoolean merged = new AtomicBoolean();
+            assertTrue(index.queryByBoundingBox(WORLD, new PackedRTree.Visitor() {
+                @Override public boolean visit(final int id) {
+                    assertTrue("Duplicated entry.", found.add(id));
+                    if (!merged.getAndSet(true)) try {
+                        assertEquals(BASE_COUNT, index.addAll(added));
+                        assertTrue("Generation 2 shall be saved by the merge.", Files.isRegularFile(gen2));
+                        assertTrue("Generation 1 is still used by this query.", Files.isRegularFile(gen1));
+                    } catch (IOException | DataStoreException e) {
+                        throw new AssertionError(e);
+                    }
+                    assertEquals("Identifiers shall be preserved by the merge.",
+                                 before.get(id).getFileName(), index.getFileName(id));
+                    return true;
+                }
+            }));
+            assertTrue(merged.get());
+            assertEquals("Query shall see the index before the merge.", range(BASE_COUNT), found);
+            if (!System.getProperty("os.name", "").startsWith("Windows")) {
+                assertFalse("Generation 1 is no longer used.", Files.exists(gen1));
+            }
+            /*
+             * A new query sees all entries.
+             */
+            found.clear();
+            assertTrue(index.queryByBoundingBox(WORLD, GeoRSSIndexTest.collector(found)));
+            assertEquals(range(2 * BASE_COUNT), found);
+            assertEquals(added.get(7).getFileName(), index.getFileName(BASE_COUNT + 7));
+            /*
+             * Loading the index shall map the most recent generation.
+             */
+            final ConcurrentGeoRSSIndex loaded = ConcurrentGeoRSSIndex.open(file, 0);
+            assertNotNull(loaded);
+            assertEquals(2 * BASE_COUNT, loaded.size());
+            assertEquals(before.get(3).getFileName(), loaded.getFileName(3));
+            assertEquals(added .get(3).getFileName(), loaded.getFileName(BASE_COUNT + 3));
+            assertNull("No index file in an empty directory.", ConcurrentGeoRSSIndex.open(directory.resolve("other.idx"), 0));
+        } finally {
+            deleteAll(directory);
+        }
+    }
+
+    /**
+     * Executes queries in background threads while entries are added. Every query shall see all the
+     * entries of some version of the index, with no entry missing or duplicated.
+     *
+     * @throws Exception if an error occurred while adding entries or in a background thread.
+     */
+    @Test
+    @DependsOnMethod("testQueryDuringMerge")
+    public void testConcurrentQueries() throws Exception {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final ConcurrentGeoRSSIndex index = new ConcurrentGeoRSSIndex(
+                GeoRSSIndex.create(GeoRSSIndexTest.createEntries(random, 200, "base"), 0), null, 0);
+        final AtomicBoolean done = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Future<Integer>> readers = new ArrayList<>();
+            for (int t=0; t<2; t++) {
+                readers.add(executor.submit(new Callable<Integer>() {
+                    @Override public Integer call() {
+                        int count = 0;
+                        do {
+                            final SortedSet<Integer> found = new TreeSet<>();
+                            assertTrue(index.queryByBoundingBox(WORLD, GeoRSSIndexTest.collector(found)));
+                            assertEquals("Inconsistent view.", range(found.size()), found);
+                            count++;
+                        } while (!done.get());
+                        return count;
+                    }
+                }));
+            }
+            for (int i=0; i<30; i++) {
+                assertEquals(100, index.addAll(GeoRSSIndexTest.createEntries(random, 100, "batch" + i + '-')));
+            }
+            done.set(true);
+            for (final Future<Integer> reader : readers) {
+                assertTrue(reader.get() > 0);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdown();
+        }
+        assertEquals(3200, index.size());
+    }
+}
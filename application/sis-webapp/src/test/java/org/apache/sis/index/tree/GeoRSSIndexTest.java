@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index.tree;
+
+import java.util.List;
+import java.util.Random;
+import java.util.ArrayList;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.distance.DistanceUtils;
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.index.PackedRTree;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link GeoRSSIndex}. Query results are compared with a brute-force search,
+ * before and after a round trip through the index file.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class GeoRSSIndexTest extends TestCase {
+    /**
+     * Number of random entries to index.
+     */
+    private static final int COUNT = 2000;
+
+    /**
+     * Creates the given number of entries at random locations. The file name of each entry
+     * is made from its position in the list and contains a non-ASCII character.
+     *
+     * @param  random  the random number generator to use.
+     * @param  count   number of entries to create.
+     * @param  prefix  prefix of the file names, for making them distinct between calls.
+     * @return the entries.
+     */
+    static List<GeoRSSData> createEntries(final Random random, final int count, final String prefix) {
+        final List<GeoRSSData> entries = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            final double lon = random.nextDouble() * 360 - 180;
+            final double lat = random.nextDouble() * 180 -  90;
+            entries.add(new GeoRSSData(prefix + i + "é.txt", new DirectPosition2D(lon, lat)));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns a visitor which adds the identifiers of all entries found in the given set.
+     */
+    static PackedRTree.Visitor collector(final SortedSet<Integer> found) {
+        return new PackedRTree.Visitor() {
+            @Override public boolean visit(final int id) {
+                assertTrue("Duplicated entry.", found.add(id));
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the identifiers of the entries inside the given box, computed by brute force.
+     * The box shall not cross the anti-meridian.
+     */
+    static SortedSet<Integer> expectedInBox(final List<? extends QuadTreeData> entries,
+            final double xmin, final double ymin, final double xmax, final double ymax)
+    {
+        final SortedSet<Integer> expected = new TreeSet<>();
+        for (int i=0; i<entries.size(); i++) {
+            final DirectPosition2D p = entries.get(i).getLatLon();
+            if (p.x >= xmin && p.x <= xmax && p.y >= ymin && p.y <= ymax) {
+                expected.add(i);
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Verifies that the given index contains the given entries and gives the same query results than
+     * a brute-force search, for random boxes, for a box crossing the anti-meridian and for point-radius
+     * queries.
+     */
+    private static void verify(final GeoRSSIndex index, final List<GeoRSSData> entries, final Random random) {
+        assertEquals("size", entries.size(), index.size());
+        for (int i=0; i<entries.size(); i++) {
+            final GeoRSSData entry = entries.get(i);
+            assertEquals("fileName",  entry.getFileName(),  index.getFileName(i));
+            assertEquals("longitude", entry.getLatLon().x,  index.getLongitude(i), STRICT);
+            assertEquals("latitude",  entry.getLatLon().y,  index.getLatitude(i),  STRICT);
+            final QuadTreeData data = index.getData(i);
+            assertEquals("getData", entry.getFileName(), data.getFileName());
+            assertEquals("getData", entry.getLatLon(),   data.getLatLon());
+        }
+        for (int n=0; n<20; n++) {
+            final double x = random.nextDouble() * 300 - 180;
+            final double y = random.nextDouble() * 150 -  90;
+            final double w = random.nextDouble() * 60;
+            final double h = random.nextDouble() * 30;
+            final SortedSet<Integer> found = new TreeSet<>();
+            assertTrue(index.queryByBoundingBox(new Envelope2D(null, x, y, w, h), collector(found)));
+            assertEquals("queryByBoundingBox", expectedInBox(entries, x, y, x+w, y+h), found);
+        }
+        /*
+         * Box from 170°E to 170°W, crossing the anti-meridian.
+         */
+        final SortedSet<Integer> found = new TreeSet<>();
+        final Envelope2D crossing = new Envelope2D(new DirectPosition2D(170, -20), new DirectPosition2D(-170, 20));
+        assertTrue(index.queryByBoundingBox(crossing, collector(found)));
+        final SortedSet<Integer> expected = expectedInBox(entries, 170, -20, 180, 20);
+        expected.addAll(expectedInBox(entries, -180, -20, -170, 20));
+        assertEquals("queryByBoundingBox (anti-meridian)", expected, found);
+        /*
+         * Point-radius queries, with one point close to the anti-meridian.
+         */
+        for (final double[] center : new double[][] {{2.35, 48.85}, {179.5, -10}, {-60, 30}}) {
+            final double radius = 1500;
+            found.clear();
+            expected.clear();
+            assertTrue(index.queryByPointRadius(new DirectPosition2D(center[0], center[1]), radius, collector(found)));
+            for (int i=0; i<entries.size(); i++) {
+                final DirectPosition2D p = entries.get(i).getLatLon();
+                if (DistanceUtils.getHaversineDistance(p.y, p.x, center[1], center[0]) <= radius) {
+                    expected.add(i);
+                }
+            }
+            assertFalse("Test shall find at least one entry.", expected.isEmpty());
+            assertEquals("queryByPointRadius", expected, found);
+        }
+    }
+
+    /**
+     * Tests the queries on an index created in memory.
+     */
+    @Test
+    public void testCreate() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final List<GeoRSSData> entries = createEntries(random, COUNT, "entry");
+        verify(GeoRSSIndex.create(entries, 0), entries, random);
+        verify(GeoRSSIndex.create(entries, 4), entries, random);
+    }
+
+    /**
+     * Writes an index to a file, reads it back and verifies that the index read from the file
+     * contains the same entries and gives the same query results.
+     *
+     * @throws Exception if an error occurred while writing or reading the file.
+     */
+    @Test
+    @DependsOnMethod("testCreate")
+    public void testWriteRead() throws Exception {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final List<GeoRSSData> entries = createEntries(random, COUNT, "entry");
+        final Path file = Files.createTempFile("georss", ".idx");
+        try {
+            GeoRSSIndex.create(entries, 8).writeToFile(file);
+            verify(GeoRSSIndex.readFromFile(file), entries, random);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests the round trip of an empty index through a file.
+     *
+     * @throws Exception if an error occurred while writing or reading the file.
+     */
+    @Test
+    public void testEmpty() throws Exception {
+        final Path file = Files.createTempFile("georss", ".idx");
+        try {
+            GeoRSSIndex.create(new ArrayList<GeoRSSData>(), 0).writeToFile(file);
+            final GeoRSSIndex index = GeoRSSIndex.readFromFile(file);
+            assertEquals(0, index.size());
+            assertTrue(index.queryByBoundingBox(new Envelope2D(null, -180, -90, 360, 180), new PackedRTree.Visitor() {
+                @Override public boolean visit(final int id) {
+                    fail("Unexpected entry " + id);
+                    return false;
+                }
+            }));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
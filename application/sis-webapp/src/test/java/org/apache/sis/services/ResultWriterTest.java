@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ArrayList;
+import java.io.StringWriter;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.apache.sis.geometry.DirectPosition2D;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.index.PackedRTree;
+import org.apache.sis.index.tree.ConcurrentGeoRSSIndex;
+import org.apache.sis.index.tree.GeoRSSData;
+import org.apache.sis.index.tree.GeoRSSIndex;
+import org.apache.sis.index.tree.QuadTreeData;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link ResultWriter}. The XML output is compared with the output of the code used by
+ * {@link LocationServlet} before results were streamed, which built a DOM tree and serialized it.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class ResultWriterTest extends TestCase {
+    /**
+     * The search region used by all tests, from 0°E 40°N to 20°E 50°N.
+     */
+    private static final Envelope2D REGION = new Envelope2D(null, 0, 40, 20, 10);
+
+    /**
+     * The region as formatted by {@link LocationServlet}.
+     */
+    private static final List<String> REGIONS = Collections.singletonList("40.0,0.0,50.0,0.0,50.0,20.0,40.0,20.0,40.0,0.0");
+
+    /**
+     * The message about the index loading time.
+     */
+    private static final String LOAD_TIME = "Spatial index of 6 entries loaded from index file in 3 milliseconds";
+
+    /**
+     * Creates an index of a few entries. Five of them are in {@link #REGION}.
+     * One file name contains characters that need to be escaped in XML and JSON.
+     */
+    private static ConcurrentGeoRSSIndex createIndex() {
+        final List<GeoRSSData> entries = Arrays.asList(
+                new GeoRSSData("a.txt",           new DirectPosition2D( 2.35,   48.85)),
+                new GeoRSSData("b<&>\"é.txt",     new DirectPosition2D(13.4,    45.52)),
+                new GeoRSSData("c.txt",           new DirectPosition2D(-73.98,  40.75)),
+                new GeoRSSData("d.txt",           new DirectPosition2D( 4.35,   50.0)),
+                new GeoRSSData("e.txt",           new DirectPosition2D(10.0,    40.0)),
+                new GeoRSSData("f.txt",           new DirectPosition2D(19.999,  44.0)));
+        return new ConcurrentGeoRSSIndex(GeoRSSIndex.create(entries, 0), null, 0);
+    }
+
+    /**
+     * Returns the entries found by a query on the given index, in the order found by the index.
+     */
+    private static List<QuadTreeData> query(final ConcurrentGeoRSSIndex index) {
+        final List<QuadTreeData> results = new ArrayList<>();
+        index.queryByBoundingBox(REGION, new PackedRTree.Visitor() {
+            @Override public boolean visit(final int id) {
+                results.add(index.getData(id));
+                return true;
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Writes the result of a query on the given index with the given writer.
+     */
+    private static void write(final ConcurrentGeoRSSIndex index, final ResultWriter out, final boolean empty,
+            final String indexLoadTime, final List<String> regions) throws Exception
+    {
+        out.writeStart();
+        if (!empty) {
+            index.queryByBoundingBox(REGION, out);
+        }
+        out.writeEnd(12, indexLoadTime, regions);
+    }
+
+    /**
+     * The code used by {@link LocationServlet} for building the XML response before results were streamed.
+     * The only change is the indentation amount, which is set to 0 for reproducing on all JDK versions the
+     * output of JDK 8. Newer JDKs indent by 4 spaces by default.
+     */
+    private static String buildXML(final List<QuadTreeData> filterList, final List<String> regions,
+            final long time, final String timeToLoad) throws Exception
+    {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = doc.createElement("root");
+        doc.appendChild(root);
+        for (QuadTreeData geo : filterList) {
+            Element item = doc.createElement("item");
+            Element id = doc.createElement("id");
+            id.appendChild(doc.createTextNode(geo.getFileName()));
+            item.appendChild(id);
+            Element lat = doc.createElement("lat");
+            lat.appendChild(doc.createTextNode(Double.toString(geo.getLatLon().y)));
+            item.appendChild(lat);
+            Element lon = doc.createElement("lon");
+            lon.appendChild(doc.createTextNode(Double.toString(geo.getLatLon().x)));
+            item.appendChild(lon);
+            root.appendChild(item);
+        }
+        Element timeElem = doc.createElement("time");
+        timeElem.appendChild(doc.createTextNode(Long.toString(time)));
+        root.appendChild(timeElem);
+        if (timeToLoad != null) {
+            Element indexLoadTimeElem = doc.createElement("indexLoadTime");
+            indexLoadTimeElem.appendChild(doc.createTextNode(timeToLoad));
+            root.appendChild(indexLoadTimeElem);
+        }
+        Element query = doc.createElement("query");
+        root.appendChild(query);
+        for (String rStr : regions) {
+            Element region = doc.createElement("region");
+            region.appendChild(doc.createTextNode(rStr));
+            query.appendChild(region);
+        }
+        Transformer trans = TransformerFactory.newInstance().newTransformer();
+        trans.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+        trans.setOutputProperty(OutputKeys.INDENT, "yes");
+        trans.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "0");
+        StringWriter sw = new StringWriter();
+        trans.transform(new DOMSource(doc), new StreamResult(sw));
+        return sw.toString();
+    }
+
+    /**
+     * Compares the XML output with the output of the previous DOM-based code.
+     *
+     * @throws Exception if an error occurred while writing the XML document.
+     */
+    @Test
+    public void testXML() throws Exception {
+        final ConcurrentGeoRSSIndex index = createIndex();
+        final List<QuadTreeData> expected = query(index);
+        assertEquals("Entries in the search region.", 5, expected.size());
+        StringWriter out = new StringWriter();
+        write(index, new ResultWriter.XML(index, 0, Integer.MAX_VALUE, out), false, LOAD_TIME, REGIONS);
+        assertEquals(buildXML(expected, REGIONS, 12, LOAD_TIME), out.toString());
+        /*
+         * Without result, index loading time and region.
+         */
+        out = new StringWriter();
+        final List<String> none = Collections.emptyList();
+        write(index, new ResultWriter.XML(index, 0, Integer.MAX_VALUE, out), true, null, none);
+        assertEquals(buildXML(Collections.<QuadTreeData>emptyList(), none, 12, null), out.toString());
+    }
+
+    /**
+     * Tests the XML output of a page of results selected by offset and limit.
+     *
+     * @throws Exception if an error occurred while writing the XML document.
+     */
+    @Test
+    @DependsOnMethod("testXML")
+    public void testPaging() throws Exception {
+        final ConcurrentGeoRSSIndex index = createIndex();
+        final List<QuadTreeData> all = query(index);
+        for (final int[] page : new int[][] {{1, 2}, {3, 10}, {5, 1}, {0, 0}}) {
+            final int offset = page[0];
+            final int limit  = page[1];
+            final StringWriter out = new StringWriter();
+            write(index, new ResultWriter.XML(index, offset, limit, out), false, null, REGIONS);
+            final List<QuadTreeData> expected = all.subList(Math.min(offset, all.size()), Math.min(offset + limit, all.size()));
+            assertEquals(buildXML(expected, REGIONS, 12, null), out.toString());
+        }
+    }
+
+    /**
+     * Tests the JSON output.
+     *
+     * @throws Exception if an error occurred while writing the JSON document.
+     */
+    @Test
+    public void testJSON() throws Exception {
+        final ConcurrentGeoRSSIndex index = createIndex();
+        final List<QuadTreeData> all = query(index);
+        final StringWriter out = new StringWriter();
+        write(index, new ResultWriter.JSON(index, 0, 2, out), false, LOAD_TIME, REGIONS);
+        final StringBuilder expected = new StringBuilder("{\"items\":[");
+        for (int i=0; i<2; i++) {
+            final QuadTreeData data = all.get(i);
+            if (i != 0) expected.append(',');
+            expected.append("{\"id\":\"").append(data.getFileName().replace("\"", "\\\""))
+                    .append("\",\"lat\":").append(data.getLatLon().y)
+                    .append(",\"lon\":").append(data.getLatLon().x).append('}');
+        }
+        expected.append("],\"time\":12,\"indexLoadTime\":\"").append(LOAD_TIME)
+                .append("\",\"regions\":[\"").append(REGIONS.get(0)).append("\"]}");
+        assertEquals(expected.toString(), out.toString());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import org.openjdk.jmh.annotations.Param;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.referencing.operation.matrix.Matrix4;
+import org.apache.sis.referencing.operation.transform.DefaultMathTransformFactory;
+import org.apache.sis.referencing.operation.transform.EllipsoidToCentricTransform;
+import org.apache.sis.referencing.operation.transform.MolodenskyTransform;
+
+
+/**
+ * Measures the performance of datum shifts between the WGS84 and ED50 datums.
+ * The benchmarked operations are:
+ *
+ * <ul>
+ *   <li>{@code EllipsoidToCentric}: conversion from three-dimensional geographic coordinates on the
+ *       WGS84 ellipsoid to geocentric coordinates, by {@link EllipsoidToCentricTransform}.</li>
+ *   <li>{@code Molodensky} and {@code AbridgedMolodensky}: three-dimensional datum shift from WGS84
+ *       to ED50 by {@link MolodenskyTransform}.</li>
+ *   <li>{@code Concatenated}: a chain created by {@link DefaultMathTransformFactory} converting
+ *       two-dimensional geographic coordinates on WGS84 to geocentric coordinates, applying a geocentric
+ *       translation, converting to geographic coordinates on ED50 and projecting to UTM zone 31.</li>
+ * </ul>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public class DatumShiftBenchmark extends TransformBenchmark {
+    /**
+     * Geocentric translation from WGS84 to ED50, in metres (EPSG:1133 inverse).
+     */
+    private static final double TX = 87, TY = 98, TZ = 121;
+
+    /**
+     * The operation to benchmark.
+     */
+    @Param({"EllipsoidToCentric", "Molodensky", "AbridgedMolodensky", "Concatenated"})
+    public String operation;
+
+    /**
+     * Number of dimensions of source coordinates: 2 or 3.
+     */
+    private int dimension;
+
+    /**
+     * Creates a new benchmark.
+     */
+    public DatumShiftBenchmark() {
+    }
+
+    /**
+     * Creates the transform identified by {@link #operation}.
+     *
+     * @return the transform to benchmark.
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if a step of the transform can not be inverted.
+     */
+    @Override
+    protected MathTransform createTransform() throws FactoryException, TransformException {
+        final MathTransformFactory factory = new DefaultMathTransformFactory();
+        final Ellipsoid source = CommonCRS.WGS84.ellipsoid();
+        final Ellipsoid target = CommonCRS.ED50 .ellipsoid();
+        switch (operation) {
+            case "EllipsoidToCentric": {
+                dimension = 3;
+                return EllipsoidToCentricTransform.createGeodeticConversion(factory, source, true);
+            }
+            case "Molodensky": {
+                dimension = 3;
+                return MolodenskyTransform.createGeodeticTransformation(factory, source, true, target, true, TX, TY, TZ, false);
+            }
+            case "AbridgedMolodensky": {
+                dimension = 3;
+                return MolodenskyTransform.createGeodeticTransformation(factory, source, true, target, true, TX, TY, TZ, true);
+            }
+            case "Concatenated": {
+                dimension = 2;
+                final Matrix4 translation = new Matrix4();
+                translation.m03 = TX;
+                translation.m13 = TY;
+                translation.m23 = TZ;
+                final ParameterValueGroup pg = factory.getDefaultParameters("Transverse_Mercator");
+                pg.parameter("semi_major").setValue(target.getSemiMajorAxis());
+                pg.parameter("semi_minor").setValue(target.getSemiMinorAxis());
+                pg.parameter("central_meridian").setValue(3);
+                pg.parameter("scale_factor").setValue(0.9996);
+                pg.parameter("false_easting").setValue(500000);
+                MathTransform tr = EllipsoidToCentricTransform.createGeodeticConversion(factory, source, false);
+                tr = factory.createConcatenatedTransform(tr, factory.createAffineTransform(translation));
+                tr = factory.createConcatenatedTransform(tr,
+                        EllipsoidToCentricTransform.createGeodeticConversion(factory, target, false).inverse());
+                return factory.createConcatenatedTransform(tr, factory.createParameterizedTransform(pg));
+            }
+            default: throw new IllegalArgumentException(operation);
+        }
+    }
+
+    /**
+     * Fills the given array with random (<var>longitude</var>, <var>latitude</var>) or
+     * (<var>longitude</var>, <var>latitude</var>, <var>height</var>) coordinates in Europe.
+     *
+     * @param  coordinates  the array to fill.
+     * @param  random       the random number generator to use.
+     */
+    @Override
+    protected void fill(final double[] coordinates, final Random random) {
+        for (int i=0; i<coordinates.length;) {
+            coordinates[i++] = random.nextDouble() *  6;            // Longitude in UTM zone 31.
+            coordinates[i++] = random.nextDouble() * 30 + 36;       // Latitude from 36°N to 66°N.
+            if (dimension == 3) {
+                coordinates[i++] = random.nextDouble() * 2000;      // Ellipsoidal height.
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Param;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.referencing.operation.projection.NormalizedProjection;
+import org.apache.sis.referencing.operation.transform.DefaultMathTransformFactory;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+
+
+/**
+ * Measures the performance of map projections on the WGS84 ellipsoid. There is one benchmark for each
+ * {@link NormalizedProjection} subclass. Each projection can be measured as a whole (including the
+ * normalization and denormalization affine transforms) or as the non-linear kernel only.
+ * Contrarily to the {@code Benchmark} class in the {@code sis-referencing} tests, which compares alternative
+ * implementations of a single projection, this class measures all projections under the JMH harness.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public class MapProjectionBenchmark extends TransformBenchmark {
+    /**
+     * The map projection to benchmark. Each value is the name of a {@link NormalizedProjection} subclass.
+     */
+    @Param({"Mercator", "TransverseMercator", "LambertConicConformal",
+            "AlbersEqualArea", "ObliqueStereographic", "PolarStereographic"})
+    public String projection;
+
+    /**
+     * {@code "complete"} for benchmarking the map projection as created by the factory, or
+     * {@code "kernel"} for benchmarking only the {@link NormalizedProjection} step.
+     */
+    @Param({"complete", "kernel"})
+    public String stage;
+
+    /**
+     * Minimal and maximal longitude and latitude values (in degrees) of the points to project.
+     */
+    private double λmin, λmax, φmin, φmax;
+
+    /**
+     * The transform converting degrees to the radians expected by the kernel,
+     * or {@code null} if benchmarking the complete map projection.
+     */
+    private MathTransform normalize;
+
+    /**
+     * Creates a new benchmark.
+     */
+    public MapProjectionBenchmark() {
+    }
+
+    /**
+     * Creates the map projection identified by {@link #projection}.
+     *
+     * @return the map projection to benchmark.
+     * @throws FactoryException if the projection can not be created.
+     */
+    @Override
+    protected MathTransform createTransform() throws FactoryException {
+        final DefaultMathTransformFactory factory = new DefaultMathTransformFactory();
+        final ParameterValueGroup pg;
+        switch (projection) {
+            case "Mercator": {
+                pg = factory.getDefaultParameters("Mercator_1SP");
+                domain(-180, 180, -70, 70);
+                break;
+            }
+            case "TransverseMercator": {
+                pg = factory.getDefaultParameters("Transverse_Mercator");
+                pg.parameter("central_meridian").setValue(3);
+                pg.parameter("scale_factor").setValue(0.9996);
+                pg.parameter("false_easting").setValue(500000);
+                domain(-3, 9, -80, 84);
+                break;
+            }
+            case "LambertConicConformal": {
+                pg = factory.getDefaultParameters("Lambert_Conformal_Conic_2SP");
+                pg.parameter("central_meridian").setValue(8);
+                pg.parameter("standard_parallel_1").setValue(25);
+                pg.parameter("standard_parallel_2").setValue(40);
+                domain(-32, 48, 18, 50);
+                break;
+            }
+            case "AlbersEqualArea": {
+                pg = factory.getDefaultParameters("Albers_Conic_Equal_Area");
+                pg.parameter("longitude_of_center").setValue(-96);
+                pg.parameter("standard_parallel_1").setValue(29.5);
+                pg.parameter("standard_parallel_2").setValue(45.5);
+                domain(-130, -60, 20, 55);
+                break;
+            }
+            case "ObliqueStereographic": {
+                pg = factory.getDefaultParameters("Oblique_Stereographic");
+                pg.parameter("central_meridian").setValue(5.38763888888889);
+                pg.parameter("latitude_of_origin").setValue(52.15616055555555);
+                pg.parameter("scale_factor").setValue(0.9999079);
+                domain(0, 10, 47, 57);
+                break;
+            }
+            case "PolarStereographic": {
+                pg = factory.getDefaultParameters("Polar_Stereographic");
+                pg.parameter("latitude_of_origin").setValue(90);
+                pg.parameter("scale_factor").setValue(0.994);
+                domain(-180, 180, 60, 90);
+                break;
+            }
+            default: throw new IllegalArgumentException(projection);
+        }
+        final Ellipsoid ellipsoid = CommonCRS.WGS84.ellipsoid();
+        pg.parameter("semi_major").setValue(ellipsoid.getSemiMajorAxis());
+        pg.parameter("semi_minor").setValue(ellipsoid.getSemiMinorAxis());
+        final MathTransform complete = factory.createParameterizedTransform(pg, null);
+        switch (stage) {
+            case "complete": {
+                normalize = null;
+                return complete;
+            }
+            case "kernel": {
+                final List<MathTransform> steps = MathTransforms.getSteps(complete);
+                for (int i=0; i<steps.size(); i++) {
+                    final MathTransform step = steps.get(i);
+                    if (step instanceof NormalizedProjection) {
+                        normalize = MathTransforms.identity(2);
+                        for (int j=0; j<i; j++) {
+                            normalize = MathTransforms.concatenate(normalize, steps.get(j));
+                        }
+                        return step;
+                    }
+                }
+                throw new IllegalStateException("No kernel in " + complete);
+            }
+            default: throw new IllegalArgumentException(stage);
+        }
+    }
+
+    /**
+     * Sets the domain of the points to project, in degrees.
+     */
+    private void domain(final double λmin, final double λmax, final double φmin, final double φmax) {
+        this.λmin = λmin;
+        this.λmax = λmax;
+        this.φmin = φmin;
+        this.φmax = φmax;
+    }
+
+    /**
+     * Fills the given array with random (<var>longitude</var>, <var>latitude</var>) coordinates
+     * in the domain of the map projection. If only the kernel is benchmarked, the coordinates
+     * are converted to the normalized values expected by the kernel.
+     *
+     * @param  coordinates  the array to fill.
+     * @param  random       the random number generator to use.
+     */
+    @Override
+    protected void fill(final double[] coordinates, final Random random) {
+        for (int i=0; i<coordinates.length;) {
+            coordinates[i++] = λmin + random.nextDouble() * (λmax - λmin);
+            coordinates[i++] = φmin + random.nextDouble() * (φmax - φmin);
+        }
+        if (normalize != null) try {
+            normalize.transform(coordinates, 0, coordinates, 0, coordinates.length / 2);
+        } catch (TransformException e) {
+            throw new IllegalStateException(e);             // Should never happen with affine transforms.
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * Base class of benchmarks measuring the throughput of a {@link MathTransform} on arrays of coordinates.
+ * Subclasses provide the transforms to measure and the domain of source coordinates. This base class
+ * measures the forward and inverse transforms, for both the {@code double[]} and {@code float[]} paths.
+ * Results are reported as number of arrays of {@value #NUM_POINTS} points transformed per second.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public abstract class TransformBenchmark {
+    /**
+     * Number of points to transform in each benchmark invocation.
+     */
+    protected static final int NUM_POINTS = 100000;
+
+    /**
+     * Seed of the random number generator, fixed for making the benchmarks reproducible.
+     */
+    private static final long SEED = 6476139846917845L;
+
+    /**
+     * The transform to benchmark and its inverse.
+     */
+    private MathTransform forward, inverse;
+
+    /**
+     * Source coordinates in the domain of the forward transform, and the result of the forward transform.
+     * The later is used as the source coordinates of the inverse transform.
+     */
+    private double[] sources, targets;
+
+    /**
+     * Same coordinates than {@link #sources} and {@link #targets}, but as single-precision values.
+     */
+    private float[] sourcesAsFloats, targetsAsFloats;
+
+    /**
+     * Destination array where to write the transform results.
+     * This array is large enough for the forward and inverse transforms.
+     */
+    private double[] result;
+
+    /**
+     * Same as {@link #result}, but as single-precision values.
+     */
+    private float[] resultAsFloats;
+
+    /**
+     * Creates a new benchmark.
+     */
+    protected TransformBenchmark() {
+    }
+
+    /**
+     * Creates the transform to benchmark. This method is invoked after JMH assigned the parameter values.
+     *
+     * @return the transform to benchmark.
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if a step of the transform can not be inverted.
+     */
+    protected abstract MathTransform createTransform() throws FactoryException, TransformException;
+
+    /**
+     * Fills the given array with random coordinates in the domain of validity of the transform.
+     *
+     * @param  coordinates  the array to fill, with the source dimension of the transform to benchmark.
+     * @param  random       the random number generator to use.
+     */
+    protected abstract void fill(double[] coordinates, Random random);
+
+    /**
+     * Creates the transforms and the coordinates to transform.
+     *
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if the sample coordinates can not be transformed.
+     */
+    @Setup
+    public void setup() throws FactoryException, TransformException {
+        forward = createTransform();
+        inverse = forward.inverse();
+        final int srcDim = forward.getSourceDimensions();
+        final int tgtDim = forward.getTargetDimensions();
+        sources = new double[NUM_POINTS * srcDim];
+        targets = new double[NUM_POINTS * tgtDim];
+        fill(sources, new Random(SEED));
+        forward.transform(sources, 0, targets, 0, NUM_POINTS);
+        sourcesAsFloats = toFloats(sources);
+        targetsAsFloats = toFloats(targets);
+        result          = new double[NUM_POINTS * Math.max(srcDim, tgtDim)];
+        resultAsFloats  = new float [result.length];
+    }
+
+    /**
+     * Returns a copy of the given array as single-precision floating point values.
+     */
+    private static float[] toFloats(final double[] values) {
+        final float[] copy = new float[values.length];
+        for (int i=0; i<values.length; i++) {
+            copy[i] = (float) values[i];
+        }
+        return copy;
+    }
+
+    /**
+     * Benchmarks the forward transform on double-precision coordinates.
+     *
+     * @return the destination array, for preventing the JVM to optimize away the computation.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public double[] forwardDouble() throws TransformException {
+        forward.transform(sources, 0, result, 0, NUM_POINTS);
+        return result;
+    }
+
+    /**
+     * Benchmarks the inverse transform on double-precision coordinates.
+     *
+     * @return the destination array, for preventing the JVM to optimize away the computation.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public double[] inverseDouble() throws TransformException {
+        inverse.transform(targets, 0, result, 0, NUM_POINTS);
+        return result;
+    }
+
+    /**
+     * Benchmarks the forward transform on single-precision coordinates.
+     *
+     * @return the destination array, for preventing the JVM to optimize away the computation.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public float[] forwardFloat() throws TransformException {
+        forward.transform(sourcesAsFloats, 0, resultAsFloats, 0, NUM_POINTS);
+        return resultAsFloats;
+    }
+
+    /**
+     * Benchmarks the inverse transform on single-precision coordinates.
+     *
+     * @return the destination array, for preventing the JVM to optimize away the computation.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Benchmark
+    public float[] inverseFloat() throws TransformException {
+        inverse.transform(targetsAsFloats, 0, resultAsFloats, 0, NUM_POINTS);
+        return resultAsFloats;
+    }
+}
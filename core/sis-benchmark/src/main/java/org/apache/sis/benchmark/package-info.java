@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <a href="http://openjdk.java.net/projects/code-tools/jmh/">JMH</a> benchmarks for Apache SIS.
+ * Those benchmarks measure the performance of the code as released, under the warm-up and forking
+ * control of the JMH harness. They complement the hand-written {@code main} methods in the test
+ * directories (for example the {@code Benchmark} class in the map projection tests), which are still
+ * used for comparing implementation alternatives that require editing the code before each run.
+ * The benchmarks are built only on explicit request:
+ *
+ * {@preformat shell
+ *   mvn install --activate-profiles benchmark
+ *   java -jar core/sis-benchmark/target/benchmarks.jar -prof gc
+ * }
+ *
+ * The {@code -prof gc} option reports the allocation rate together with the number of operations per second.
+ * A subset of the benchmarks can be executed by giving a regular expression on the command line,
+ * and the parameters can be restricted with the {@code -p} option. Example:
+ *
+ * {@preformat shell
+ *   java -jar benchmarks.jar MapProjectionBenchmark -p projection=Mercator,TransverseMercator
+ * }
+ *
+ * Random coordinates are generated with a fixed seed, so the same points are transformed in every run.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+package org.apache.sis.benchmark;
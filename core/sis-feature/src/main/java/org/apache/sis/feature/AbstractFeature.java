@@ -344,6 +344,52 @@ public abstract class AbstractFeature implements Serializable {
      */
     public abstract void setPropertyValue(final String name, final Object value) throws IllegalArgumentException;
 
+    /**
+     * Returns the value for the property at the given index. This method is equivalent to
+     * {@link #getPropertyValue(String)} but avoids the lookup of the property by its name.
+     * The index shall have been obtained by <code>{@linkplain #getType()}.{@linkplain
+     * DefaultFeatureType#indexOf(String) indexOf}(name)</code> on the type of this feature.
+     *
+     * <p>The default implementation gets the property name at the given index, then delegates
+     * to {@link #getPropertyValue(String)}. Subclasses should override this method with a more
+     * efficient implementation if they can.</p>
+     *
+     * @param  index  index of the attribute or association, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @return the value for the given property, or {@code null} if none.
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     *
+     * @see DefaultFeatureType#indexOf(String)
+     *
+     * @since 0.8
+     */
+    public Object getPropertyValue(final int index) {
+        return getPropertyValue(type.nameAt(index));
+    }
+
+    /**
+     * Sets the value for the property at the given index. This method is equivalent to
+     * {@link #setPropertyValue(String, Object)} but avoids the lookup of the property by its name.
+     * The index shall have been obtained by <code>{@linkplain #getType()}.{@linkplain
+     * DefaultFeatureType#indexOf(String) indexOf}(name)</code> on the type of this feature.
+     *
+     * <p>The default implementation gets the property name at the given index, then delegates
+     * to {@link #setPropertyValue(String, Object)}. Subclasses should override this method with
+     * a more efficient implementation if they can.</p>
+     *
+     * @param  index  index of the attribute or association, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @param  value  the new value for the given attribute (may be {@code null}).
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     * @throws ClassCastException if the value is not assignable to the expected value class.
+     * @throws IllegalArgumentException if the given value is not valid for a reason other than its type.
+     *
+     * @see DefaultFeatureType#indexOf(String)
+     *
+     * @since 0.8
+     */
+    public void setPropertyValue(final int index, final Object value) throws IllegalArgumentException {
+        setPropertyValue(type.nameAt(index), value);
+    }
+
     /**
      * Executes the parameterless operation of the given name and returns the value of its result.
      * This is a convenience method for sub-classes where some properties may be operations that
@@ -39,6 +39,7 @@ import org.apache.sis.util.collection.Containers;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.internal.feature.Resources;
+import org.apache.sis.util.resources.Errors;
 
 // Branch-dependent imports
 import org.apache.sis.internal.jdk8.JDK8;
@@ -199,6 +200,14 @@ public class DefaultFeatureType extends AbstractIdentifiedType implements Featur
      */
     private transient Map<String, Integer> indices;
 
+    /**
+     * Names of the properties at each index in the {@link #indices} map, ignoring aliases and operations.
+     * This is the inverse of the {@code indices} map and shall not be modified after construction.
+     *
+     * @see #indexOf(String)
+     */
+    private transient String[] names;
+
     /**
      * Value in {@link #indices} map for parameterless operations. Those operations are not stored
      * in feature instances, but can be handled as virtual attributes computed on-the-fly.
@@ -365,6 +374,7 @@ public class DefaultFeatureType extends AbstractIdentifiedType implements Featur
         isSimple = true;
         int index = 0;
         int mandatory = 0;                                                  // Count of mandatory properties.
+        final List<String> names = new ArrayList<>(byName.size());
         for (final Map.Entry<String,AbstractIdentifiedType> entry : byName.entrySet()) {
             final int minimumOccurs, maximumOccurs;
             final AbstractIdentifiedType property = entry.getValue();
@@ -385,6 +395,7 @@ public class DefaultFeatureType extends AbstractIdentifiedType implements Featur
             if (maximumOccurs != 0) {
                 isSimple &= (maximumOccurs == 1);
                 indices.put(entry.getKey(), index++);
+                names.add(entry.getKey());
                 if (minimumOccurs != 0) {
                     mandatory++;
                 }
@@ -428,6 +439,7 @@ public class DefaultFeatureType extends AbstractIdentifiedType implements Featur
          */
         byName       = CollectionsExt.compact(byName);
         indices      = CollectionsExt.compact(indices);
+        this.names   = names.toArray(new String[names.size()]);
         assignableTo = CollectionsExt.unmodifiableOrCopy(assignableTo);
         /*
          * Rational for choosing whether the feature is sparse: By default, java.util.HashMap implementation creates
@@ -869,6 +881,57 @@ public class DefaultFeatureType extends AbstractIdentifiedType implements Featur
         throw new IllegalArgumentException(AbstractFeature.propertyNotFound(this, getName(), name));
     }
 
+    /**
+     * Returns the index of the attribute or association of the given name in features of this type.
+     * The returned index can be given to {@link AbstractFeature#getPropertyValue(int)} and
+     * {@link AbstractFeature#setPropertyValue(int, Object)} for features of this exact type
+     * (not a sub-type) in order to avoid the cost of looking up the property by its name.
+     * Data store readers can resolve the indices once for a feature type, then use them for
+     * all features of that type.
+     *
+     * <p>Aliases are resolved to the index of the property that they designate.
+     * Operations have no index since their values are not stored in features.</p>
+     *
+     * @param  name  the name of the attribute or association.
+     * @return index of the property of the given name, from 0 inclusive to the number of attributes
+     *         and associations exclusive.
+     * @throws IllegalArgumentException if the given argument is not an attribute or association name
+     *         of this feature type.
+     *
+     * @see AbstractFeature#getPropertyValue(int)
+     * @see AbstractFeature#setPropertyValue(int, Object)
+     *
+     * @since 0.8
+     */
+    public int indexOf(final String name) throws IllegalArgumentException {
+        final Integer index = indices.get(name);
+        if (index != null && index >= 0) {
+            return index;
+        }
+        if (index == null) {
+            throw new IllegalArgumentException(AbstractFeature.propertyNotFound(this, getName(), name));
+        }
+        throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "name", name));
+    }
+
+    /**
+     * Returns the name of the attribute or association at the given index.
+     * This is the converse of {@link #indexOf(String)}.
+     *
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     */
+    final String nameAt(final int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the number of attributes and associations, which is the upper bound (exclusive)
+     * of values returned by {@link #indexOf(String)}.
+     */
+    final int indexCount() {
+        return names.length;
+    }
+
     /**
      * Returns the map from names to indices in an array of properties.
      * This is used for {@link DenseFeature} implementation.
@@ -179,6 +179,27 @@ final class DenseFeature extends AbstractFeature implements Cloneable {
         if (index < 0) {
             return getOperationValue(name);
         }
+        return getValueAt(index);
+    }
+
+    /**
+     * Returns the value for the property at the given index.
+     *
+     * @param  index  index of the attribute or association, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @return the value for the given property, or {@code null} if none.
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     */
+    @Override
+    public Object getPropertyValue(final int index) {
+        ArgumentChecks.ensureValidIndex(type.indexCount(), index);
+        return getValueAt(index);
+    }
+
+    /**
+     * Implementation of {@link #getPropertyValue(String)} and {@link #getPropertyValue(int)}
+     * for a valid non-negative index.
+     */
+    private Object getValueAt(final int index) {
         if (properties != null) {
             final Object element = properties[index];
             if (element != null) {
@@ -193,7 +214,7 @@ final class DenseFeature extends AbstractFeature implements Cloneable {
                 }
             }
         }
-        return getDefaultValue(name);
+        return getDefaultValue(type.nameAt(index));
     }
 
     /**
@@ -205,13 +226,36 @@ final class DenseFeature extends AbstractFeature implements Cloneable {
      * @throws IllegalArgumentException if the given value can not be assigned for another reason.
      */
     @Override
-    public void setPropertyValue(final String name, Object value) throws IllegalArgumentException {
+    public void setPropertyValue(final String name, final Object value) throws IllegalArgumentException {
         ArgumentChecks.ensureNonNull("name", name);
         final int index = getIndex(name);
         if (index < 0) {
             setOperationValue(name, value);
             return;
         }
+        setValueAt(index, name, value);
+    }
+
+    /**
+     * Sets the value for the property at the given index.
+     *
+     * @param  index  index of the attribute or association, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @param  value  the new value for the given attribute (may be {@code null}).
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     * @throws ClassCastException if the value is not assignable to the expected value class.
+     * @throws IllegalArgumentException if the given value can not be assigned for another reason.
+     */
+    @Override
+    public void setPropertyValue(final int index, final Object value) throws IllegalArgumentException {
+        ArgumentChecks.ensureValidIndex(type.indexCount(), index);
+        setValueAt(index, type.nameAt(index), value);
+    }
+
+    /**
+     * Implementation of {@link #setPropertyValue(String, Object)} and {@link #setPropertyValue(int, Object)}
+     * for a valid non-negative index.
+     */
+    private void setValueAt(final int index, final String name, Object value) {
         if (properties == null) {
             final int n = indices.size();
             properties = (value != null) ? new Object[n] : new Property[n];
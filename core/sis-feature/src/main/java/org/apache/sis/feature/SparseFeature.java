@@ -227,6 +227,27 @@ final class SparseFeature extends AbstractFeature implements Cloneable {
         if (index < 0) {
             return getOperationValue(name);
         }
+        return getValueAt(index);
+    }
+
+    /**
+     * Returns the value for the property at the given index.
+     *
+     * @param  index  index of the attribute or association, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @return the value for the given property, or {@code null} if none.
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     */
+    @Override
+    public Object getPropertyValue(final int index) {
+        ArgumentChecks.ensureValidIndex(type.indexCount(), index);
+        return getValueAt(index);
+    }
+
+    /**
+     * Implementation of {@link #getPropertyValue(String)} and {@link #getPropertyValue(int)}
+     * for a valid non-negative index.
+     */
+    private Object getValueAt(final Integer index) {
         final Object element = properties.get(index);
         if (element != null) {
             if (valuesKind == VALUES) {
@@ -243,7 +264,7 @@ final class SparseFeature extends AbstractFeature implements Cloneable {
         } else if (properties.containsKey(index)) {
             return null;                                                // Null has been explicitely set.
         } else {
-            return getDefaultValue(name);
+            return getDefaultValue(type.nameAt(index));
         }
     }
 
@@ -263,6 +284,29 @@ final class SparseFeature extends AbstractFeature implements Cloneable {
             setOperationValue(name, value);
             return;
         }
+        setValueAt(index, name, value);
+    }
+
+    /**
+     * Sets the value for the property at the given index.
+     *
+     * @param  index  index of the attribute or association, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @param  value  the new value for the given attribute (may be {@code null}).
+     * @throws IndexOutOfBoundsException if the given index is out of bounds.
+     * @throws ClassCastException if the value is not assignable to the expected value class.
+     * @throws IllegalArgumentException if the given value can not be assigned for another reason.
+     */
+    @Override
+    public void setPropertyValue(final int index, final Object value) throws IllegalArgumentException {
+        ArgumentChecks.ensureValidIndex(type.indexCount(), index);
+        setValueAt(index, type.nameAt(index), value);
+    }
+
+    /**
+     * Implementation of {@link #setPropertyValue(String, Object)} and {@link #setPropertyValue(int, Object)}
+     * for a valid non-negative index.
+     */
+    private void setValueAt(final Integer index, final String name, final Object value) {
         if (valuesKind == VALUES) {
             final Object previous = properties.put(index, value);
             /*
@@ -166,6 +166,52 @@ public abstract strictfp class FeatureTestCase extends TestCase {
         assertEquals("COMMUNE",     "Bagneux", feature.getPropertyValue("COMMUNE"));
     }
 
+    /**
+     * Tests the {@link AbstractFeature#getPropertyValue(int)} and {@link AbstractFeature#setPropertyValue(int, Object)}
+     * methods with indices given by {@link DefaultFeatureType#indexOf(String)}.
+     */
+    @Test
+    @DependsOnMethod("testGetProperty")
+    public void testPropertyIndex() {
+        final DefaultFeatureType type = new DefaultFeatureType(
+                Collections.singletonMap(DefaultFeatureType.NAME_KEY, "My shapefile"), false, null,
+                DefaultAttributeTypeTest.attribute("COMMUNE"),
+                DefaultAttributeTypeTest.attribute("REF_INSEE"),
+                DefaultAttributeTypeTest.attribute("CODE_POSTAL"));
+
+        assertEquals("COMMUNE",     0, type.indexOf("COMMUNE"));
+        assertEquals("REF_INSEE",   1, type.indexOf("REF_INSEE"));
+        assertEquals("CODE_POSTAL", 2, type.indexOf("CODE_POSTAL"));
+        try {
+            type.indexOf("DEPARTEMENT");
+            fail("Shall not find a non-existent property.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("DEPARTEMENT"));
+        }
+
+        feature = createFeature(type);
+        feature.setPropertyValue(0, "Bagneux");
+        feature.setPropertyValue(type.indexOf("REF_INSEE"), "92007");
+        feature.setPropertyValue("CODE_POSTAL", "92220");
+
+        assertEquals("COMMUNE",     "Bagneux", feature.getPropertyValue("COMMUNE"));
+        assertEquals("REF_INSEE",   "92007",   feature.getPropertyValue(1));
+        assertEquals("CODE_POSTAL", "92220",   feature.getPropertyValue(2));
+        try {
+            feature.getPropertyValue(3);
+            fail("Shall not accept an index out of bounds.");
+        } catch (IndexOutOfBoundsException e) {
+            // This is the expected exception.
+        }
+        try {
+            feature.setPropertyValue(0, 2000);
+            fail("Shall not be allowed to set a value of the wrong type.");
+        } catch (ClassCastException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("COMMUNE"));
+        }
+        assertEquals("Property shall not have been modified.", "Bagneux", feature.getPropertyValue(0));
+    }
+
     /**
      * Tests the {@link AbstractFeature#getPropertyValue(String)} method on a simple feature without super-types.
      * This method:
@@ -24,6 +24,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Collection;
 import java.lang.reflect.Method;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
 import org.opengis.annotation.UML;
 import org.opengis.metadata.citation.Citation;
@@ -58,7 +61,19 @@ import static org.apache.sis.util.collection.Containers.hashMapCapacity;
  * The getter methods declared in a GeoAPI interface, together with setter methods (if any)
  * declared in the SIS implementation. An instance of {@code PropertyAccessor} gives access
  * to all public properties of an instance of a metadata object. It uses reflection for this
- * purpose, a little bit like the <cite>Java Beans</cite> framework.
+ * purpose, a little bit like the <cite>Java Beans</cite> framework. The getter and setter methods
+ * are invoked through {@link MethodHandle}s when possible, since this is much faster than
+ * {@link Method#invoke(Object, Object...)} for the many calls done by {@code equals} and {@code hashCode}.
+ * Methods for which no handle can be created (for example methods declared in a non-public class)
+ * are invoked by reflection.
+ *
+ * <div class="note"><b>Note:</b>
+ * method handles do not throw the same exceptions than reflection for invalid arguments given to a setter.
+ * A metadata object which is not an instance of the class declaring the setter causes a {@link ClassCastException},
+ * and a {@code null} value for a property of primitive type causes a {@link NullPointerException}. Reflection
+ * throws {@link IllegalArgumentException} in both cases. The later case does not happen with the
+ * {@link #set(int, Object, Object, int) set(…)} method, which replaces {@code null} values by
+ * {@linkplain Numbers#valueOfNil nil values} (e.g. NaN) for primitive types.</div>
  *
  * <p>This accessor groups the properties in two categories:</p>
  *
@@ -175,6 +190,20 @@ class PropertyAccessor {
      */
     private final Method[] setters;
 
+    /**
+     * Method handles for invoking the {@linkplain #getters} with {@code (Object)Object} signature.
+     * This array has the same length than {@link #getters}. An element may be {@code null} if the
+     * method handle can not be created, in which case we fallback on reflection.
+     */
+    private final MethodHandle[] getterHandles;
+
+    /**
+     * Method handles for invoking the {@linkplain #setters} with {@code (Object,Object)void} signature,
+     * or {@code null} if there is no setter. A {@code null} element means that there is no setter or that
+     * we need to fallback on reflection.
+     */
+    private final MethodHandle[] setterHandles;
+
     /**
      * The JavaBeans property names. They are computed at construction time, {@linkplain String#intern() interned}
      * then cached. Those names are often the same than field names (at least in SIS implementation), so it is
@@ -359,6 +388,43 @@ class PropertyAccessor {
             elementTypes[i] = Numbers.primitiveToWrapper(elementType);
         }
         this.setters = setters;
+        getterHandles = new MethodHandle[getters.length];
+        for (int i=0; i<getterHandles.length; i++) {
+            getterHandles[i] = toHandle(getters[i], GETTER_TYPE);
+        }
+        if (setters != null) {
+            setterHandles = new MethodHandle[setters.length];
+            for (int i=0; i<setterHandles.length; i++) {
+                if (setters[i] != null) {
+                    setterHandles[i] = toHandle(setters[i], SETTER_TYPE);
+                }
+            }
+        } else {
+            setterHandles = null;
+        }
+    }
+
+    /**
+     * The signature of method handles for getter methods, after the receiver and return types have been erased.
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * The signature of method handles for setter methods, after the receiver and argument types have been erased.
+     */
+    private static final MethodType SETTER_TYPE = MethodType.methodType(Void.TYPE, Object.class, Object.class);
+
+    /**
+     * Returns a method handle for the given getter or setter with the given erased signature,
+     * or {@code null} if the method is not accessible that way. In the later case, the caller
+     * shall fallback on reflection.
+     */
+    private static MethodHandle toHandle(final Method method, final MethodType type) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
     }
 
     /**
@@ -682,7 +748,39 @@ class PropertyAccessor {
      * @throws BackingStoreException if the implementation threw a checked exception.
      */
     Object get(final int index, final Object metadata) throws BackingStoreException {
-        return (index >= 0 && index < allCount) ? get(getters[index], metadata) : null;
+        return (index >= 0 && index < allCount) ? getAt(index, metadata) : null;
+    }
+
+    /**
+     * Gets the value of the property at the given index, using the method handle if available.
+     * The given index shall be valid. The exceptions are handled in the same way than
+     * {@link #get(Method, Object)}.
+     *
+     * @param  index     the index of the property for which to get a value.
+     * @param  metadata  the metadata object to query.
+     * @throws BackingStoreException if the implementation threw a checked exception.
+     */
+    private Object getAt(final int index, final Object metadata) throws BackingStoreException {
+        final MethodHandle handle = getterHandles[index];
+        if (handle == null) {
+            return get(getters[index], metadata);
+        }
+        try {
+            return handle.invokeExact(metadata);
+        } catch (ClassCastException e) {
+            /*
+             * Same case than IllegalArgumentException in get(Method, Object):
+             * the getter is not defined for the class of the given metadata.
+             */
+            if (!getters[index].getDeclaringClass().isInstance(metadata)) {
+                return null;
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BackingStoreException(e);
+        }
     }
 
     /**
@@ -769,7 +867,10 @@ class PropertyAccessor {
      *                   as one of the {@code RETURN_*} constants.
      * @return the old value, or {@code null} if {@code returnValue} was {@code RETURN_NULL}.
      * @throws UnmodifiableMetadataException if the property for the given key is read-only.
-     * @throws ClassCastException if the given value is not of the expected type.
+     * @throws ClassCastException if the given value is not of the expected type, or (if the setter
+     *         is invoked through a method handle) if the metadata is not an instance of the setter class.
+     * @throws IllegalArgumentException if the setter is invoked by reflection and the metadata
+     *         is not an instance of the setter class.
      * @throws BackingStoreException if the implementation threw a checked exception.
      */
     Object set(final int index, final Object metadata, final Object value, final int mode)
@@ -791,12 +892,12 @@ class PropertyAccessor {
                         break;
                     }
                     case APPEND: {
-                        oldValue = get(getter, metadata);
+                        oldValue = getAt(index, metadata);
                         snapshot = null;
                         break;
                     }
                     case RETURN_PREVIOUS: {
-                        oldValue = get(getter, metadata);
+                        oldValue = getAt(index, metadata);
                         if (oldValue instanceof Collection<?>) {
                             if (oldValue instanceof List<?>) {
                                 snapshot = snapshot((List<?>) oldValue);
@@ -833,7 +934,7 @@ class PropertyAccessor {
                     }
                 }
                 if (changed) {
-                    set(setter, metadata, newValues);
+                    setAt(index, metadata, newValues);
                 }
                 return (mode == APPEND) ? changed : snapshot;
             }
@@ -878,6 +979,35 @@ class PropertyAccessor {
         }
     }
 
+    /**
+     * Sets the value of the property at the given index, using the method handle if available.
+     * The given index shall be valid and a setter shall exist for that index. This method does
+     * not attempt any conversion of argument values.
+     *
+     * @param  index      the index of the property for which to set a value.
+     * @param  metadata   the metadata object to modify.
+     * @param  newValues  the argument to give to the setter, as an array of length 1.
+     * @throws ClassCastException if the metadata is not an instance of the class declaring the setter
+     *         and the setter is invoked through a method handle.
+     * @throws NullPointerException if the setter expects a primitive type, the value is null and the
+     *         setter is invoked through a method handle.
+     * @throws BackingStoreException if the implementation threw a checked exception.
+     */
+    private void setAt(final int index, final Object metadata, final Object[] newValues) throws BackingStoreException {
+        final MethodHandle handle = setterHandles[index];
+        if (handle == null) {
+            set(setters[index], metadata, newValues);
+            return;
+        }
+        try {
+            handle.invokeExact(metadata, newValues[0]);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BackingStoreException(e);
+        }
+    }
+
     /**
      * Converts a value to the type required by a setter method.
      * The values are converted in-place in the {@code newValues} array. We use an array instead
@@ -1093,7 +1223,7 @@ class PropertyAccessor {
         int count = 0;
         // Use 'standardCount' instead of 'allCount' for ignoring deprecated methods.
         for (int i=0; i<standardCount; i++) {
-            final Object value = get(getters[i], metadata);
+            final Object value = getAt(i, metadata);
             if (!valuePolicy.isSkipped(value)) {
                 switch (mode) {
                     case COUNT_FIRST:{
@@ -1137,9 +1267,8 @@ class PropertyAccessor {
         assert type.isInstance(metadata1) : metadata1;
         assert type.isInstance(metadata2) : metadata2;
         for (int i=0; i<standardCount; i++) {
-            final Method method = getters[i];
-            final Object value1 = get(method, metadata1);
-            final Object value2 = get(method, metadata2);
+            final Object value1 = getAt(i, metadata1);
+            final Object value2 = getAt(i, metadata2);
             if (isNullOrEmpty(value1) && isNullOrEmpty(value2)) {
                 /*
                  * Consider empty collections/arrays as equal to null.
@@ -1201,12 +1330,11 @@ class PropertyAccessor {
                          */
                         continue;
                     }
-                    final Method getter = getters[i];
-                    final Object source = get(getter, metadata);
+                    final Object source = getAt(i, metadata);
                     final Object target = freezer.clone(source);
                     if (source != target) {
                         arguments[0] = target;
-                        set(setter, metadata, arguments);
+                        setAt(i, metadata, arguments);
                         /*
                          * We invoke the set(…) method variant that do not perform type conversion
                          * because we don't want it to replace the immutable collection created
@@ -1245,12 +1373,12 @@ class PropertyAccessor {
             for (int i=0; i<allCount; i++) {
                 final Method setter = setters[i];
                 if (setter != null && !setter.isAnnotationPresent(Deprecated.class)) {
-                    Object value = get(getters[i], metadata);
+                    Object value = getAt(i, metadata);
                     if (value != null) {
                         value = copier.copyAny(elementTypes[i], value);
                         if (value != null) {
                             arguments[0] = value;
-                            set(setter, copy, arguments);
+                            setAt(i, copy, arguments);
                         }
                     }
                 }
@@ -1271,7 +1399,7 @@ class PropertyAccessor {
         assert type.isInstance(metadata) : metadata;
         int code = type.hashCode();
         for (int i=0; i<standardCount; i++) {
-            final Object value = get(getters[i], metadata);
+            final Object value = getAt(i, metadata);
             if (!isNullOrEmpty(value)) {
                 code += value.hashCode();
             }
@@ -17,6 +17,11 @@
 package org.apache.sis.metadata.sql;
 
 import java.util.Map;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -43,9 +48,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLNonTransientException;
 import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
 import org.opengis.annotation.UML;
 import org.opengis.util.CodeList;
 import org.apache.sis.metadata.MetadataStandard;
+import org.apache.sis.metadata.TypeValuePolicy;
 import org.apache.sis.metadata.KeyNamePolicy;
 import org.apache.sis.metadata.ValueExistencePolicy;
 import org.apache.sis.internal.system.Modules;
@@ -57,7 +64,9 @@ import org.apache.sis.internal.metadata.sql.SQLBuilder;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
+import org.apache.sis.util.collection.Cache;
 import org.apache.sis.util.collection.Containers;
+import org.apache.sis.util.collection.BackingStoreException;
 import org.apache.sis.util.collection.CodeListSet;
 import org.apache.sis.util.collection.WeakValueHashMap;
 import org.apache.sis.util.logging.WarningListeners;
@@ -152,6 +161,12 @@ public class MetadataSource implements AutoCloseable {
      */
     private static final int EXTRA_DELAY = 500_000000;
 
+    /**
+     * Maximal number of identifiers in the {@code IN (…)} clause of a single query
+     * executed by {@link #lookup(Class, Collection)}.
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
     /**
      * The metadata standard to be used for constructing the database schema.
      */
@@ -265,6 +280,42 @@ public class MetadataSource implements AutoCloseable {
      */
     private final WeakValueHashMap<CacheKey,Object> pool;
 
+    /**
+     * Identifiers found by previous calls to {@link #search(Object)}, indexed by the SQL query used for the search.
+     * Since the query contains the values of all metadata properties (with dependencies replaced by their own
+     * identifiers), it can be used as a key computed from the metadata content. Only successful searches are
+     * cached, because records may be added in the database but are never modified by this package.
+     * Modifications or deletions done outside this package are not detected.
+     *
+     * <p>This cache may be shared by many {@code MetadataSource} instances. It contains only identifiers of
+     * committed records; results found during a transaction are kept in {@link #uncommittedResults} until
+     * the transaction is committed.</p>
+     *
+     * @see #search(String, Set, Map, Statement, SQLBuilder)
+     */
+    private final Cache<String,String> searchResults;
+
+    /**
+     * Identifiers found by searches executed during the current transaction of a {@link MetadataWriter},
+     * or {@code null} if no transaction is in progress. Those identifiers may reference records added by
+     * the transaction, so they are moved to {@link #searchResults} only after a successful commit and are
+     * discarded on rollback. This map is never shared with other {@code MetadataSource} instances.
+     * Every access to this field must be synchronized on {@code this}.
+     *
+     * @see #beginTransaction()
+     * @see #endTransaction(boolean)
+     */
+    private Map<String,String> uncommittedResults;
+
+    /**
+     * Records fetched in advance by {@link #lookup(Class, Collection)}, for avoiding one query per record.
+     * Values are (column, value) pairs with case-insensitive column names.
+     * Every access to this map must be synchronized on {@code this}.
+     *
+     * @see #readColumn(LookupInfo, Method, Dispatcher)
+     */
+    private final Map<CacheKey, Map<String,Object>> prefetched;
+
     /**
      * Some information about last used objects. Cached on assumption that the same information
      * will be used more than once before to move to another metadata object.
@@ -370,6 +421,8 @@ public class MetadataSource implements AutoCloseable {
         this.statements   = new CachedStatement[maxStatements - 1];
         this.tableColumns = new HashMap<>();
         this.pool         = new WeakValueHashMap<>(CacheKey.class);
+        this.searchResults = new Cache<>(100, 1000, true);
+        this.prefetched   = new HashMap<>();
         this.listeners    = new WarningListeners<>(this);
         this.lastUsed     = new ThreadLocal<LookupInfo>() {
             @Override protected LookupInfo initialValue() {
@@ -401,6 +454,8 @@ public class MetadataSource implements AutoCloseable {
         tableColumns = new HashMap<>();
         classloader  = source.classloader;
         pool         = source.pool;
+        searchResults = source.searchResults;
+        prefetched   = new HashMap<>();
         lastUsed     = source.lastUsed;
         listeners    = new WarningListeners<>(this, source.listeners);
     }
@@ -611,6 +666,14 @@ public class MetadataSource implements AutoCloseable {
      * Searches for the given metadata in the database. If such metadata is found, then its
      * identifier (primary key) is returned. Otherwise this method returns {@code null}.
      *
+     * <div class="note"><b>Limitation:</b>
+     * identifiers found by this method are cached and shared with all copies created by the
+     * {@linkplain #MetadataSource(MetadataSource) copy constructor}. The cache is never invalidated,
+     * because this package never deletes or modifies existing records. If another application deletes
+     * or modifies records in the same database, then this method may return an identifier which does not
+     * reference the given metadata anymore, or which does not exist anymore. A new {@code MetadataSource}
+     * (not a copy) must be created after such changes.</div>
+     *
      * @param  metadata  the metadata to search for.
      * @return the identifier of the given metadata, or {@code null} if none.
      * @throws MetadataStoreException if the metadata object does not implement a metadata interface
@@ -727,8 +790,15 @@ public class MetadataSource implements AutoCloseable {
          * If more than one record is found, the identifier of the first one will be selected add a warning
          * will be logged.
          */
-        String identifier = null;
-        try (ResultSet rs = stmt.executeQuery(helper.toString())) {
+        final String query = helper.toString();
+        String identifier = searchResults.get(query);
+        if (identifier == null && uncommittedResults != null) {
+            identifier = uncommittedResults.get(query);
+        }
+        if (identifier != null) {
+            return identifier;
+        }
+        try (ResultSet rs = stmt.executeQuery(query)) {
             while (rs.next()) {
                 final String candidate = rs.getString(1);
                 if (candidate != null) {
@@ -742,9 +812,69 @@ public class MetadataSource implements AutoCloseable {
                 }
             }
         }
+        if (identifier != null) {
+            if (uncommittedResults != null) {
+                uncommittedResults.put(query, identifier);
+            } else {
+                searchResults.put(query, identifier);
+            }
+        }
         return identifier;
     }
 
+    /**
+     * Closes all cached statements, together with the result sets that they may keep open.
+     * The connection is kept open. This method is invoked by {@link MetadataWriter} before
+     * a transaction which may alter tables, because some databases (e.g. Derby) refuse to
+     * execute {@code ALTER TABLE} statements while a result set on that table is open.
+     *
+     * @throws SQLException if an error occurred while closing a statement.
+     */
+    final void closeStatements() throws SQLException {
+        assert Thread.holdsLock(this);
+        for (int i=0; i < statements.length; i++) {
+            final CachedStatement statement = statements[i];
+            if (statement != null) {
+                statements[i] = null;
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * Invoked by {@link MetadataWriter} after a transaction has been started on the {@linkplain #connection()
+     * connection}. Search results found until the end of the transaction will not be visible to other threads
+     * or to other {@code MetadataSource} instances sharing the same cache.
+     */
+    final void beginTransaction() {
+        assert Thread.holdsLock(this);
+        uncommittedResults = new HashMap<>();
+    }
+
+    /**
+     * Invoked by {@link MetadataWriter} after a transaction has been committed or rolled back.
+     * If the transaction has been committed, then the search results found during the transaction
+     * are added to the cache. Otherwise they are discarded, since they may reference records that
+     * do not exist anymore. In the later case, the cached list of table columns is also discarded
+     * since the transaction may have created tables or columns.
+     *
+     * @param  committed  {@code true} if the transaction has been committed, or {@code false} if rolled back.
+     */
+    final void endTransaction(final boolean committed) {
+        assert Thread.holdsLock(this);
+        final Map<String,String> results = uncommittedResults;
+        uncommittedResults = null;
+        if (committed) {
+            if (results != null) {
+                for (final Map.Entry<String,String> entry : results.entrySet()) {
+                    searchResults.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } else {
+            tableColumns.clear();
+        }
+    }
+
     /**
      * Returns the set of all columns in a table, or an empty set if none (never {@code null}).
      * Because each table should have at least the {@value #ID_COLUMN} column, an empty set of
@@ -868,6 +998,222 @@ public class MetadataSource implements AutoCloseable {
         return type.cast(value);
     }
 
+    /**
+     * Returns implementations of the specified metadata interface filled with the data referenced by the
+     * specified identifiers. This method is equivalent to invoking {@link #lookup(Class, String)} for each
+     * identifier, except that:
+     *
+     * <ul>
+     *   <li>The records and all their dependencies are fetched in advance with one query per table
+     *       and per level in the metadata tree, instead than one query per record.</li>
+     *   <li>The returned metadata are fully materialized instances of the implementation classes
+     *       (for example {@link org.apache.sis.metadata.iso.citation.DefaultCitation}) instead than
+     *       proxies querying the database when a property value is requested.</li>
+     * </ul>
+     *
+     * This method is preferable to {@code lookup(Class, String)} when a large amount of metadata
+     * are going to be read in their totality.
+     *
+     * @param  <T>          the parameterized type of the {@code type} argument.
+     * @param  type         the interface to implement (e.g. {@link org.opengis.metadata.citation.Citation}).
+     * @param  identifiers  the identifiers of the records for the metadata entities to be created.
+     * @return implementations of the required interface, in the same order than the given identifiers.
+     * @throws MetadataStoreException if a SQL query failed.
+     */
+    public <T> List<T> lookup(final Class<T> type, final Collection<String> identifiers) throws MetadataStoreException {
+        ArgumentChecks.ensureNonNull("type", type);
+        ArgumentChecks.ensureNonNull("identifiers", identifiers);
+        final List<T> metadata = new ArrayList<>(identifiers.size());
+        if (!type.isInterface() || !standard.isMetadata(type) || isControlledVocabulary(type)) {
+            for (final String identifier : identifiers) {
+                metadata.add(lookup(type, identifier));
+            }
+            return metadata;
+        }
+        final Set<CacheKey> loaded = new HashSet<>();
+        try {
+            synchronized (this) {
+                prefetch(type, identifiers, loaded);
+            }
+            final Map<Object,Object> done = new IdentityHashMap<>();
+            for (final String identifier : identifiers) {
+                metadata.add(type.cast(materialize(lookup(type, identifier), done)));
+            }
+        } catch (SQLException e) {
+            throw new MetadataStoreException(e.getLocalizedMessage(), Exceptions.unwrap(e));
+        } catch (BackingStoreException e) {
+            throw e.unwrapOrRethrow(MetadataStoreException.class);
+        } finally {
+            synchronized (this) {
+                prefetched.keySet().removeAll(loaded);
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Fetches in advance the records for the given identifiers together with all their dependencies.
+     * The tree of dependencies is traversed breadth-first, with one {@code SELECT … WHERE ID IN (…)}
+     * query per table for each level.
+     *
+     * @param  type         the interface of the metadata to fetch.
+     * @param  identifiers  the identifiers of the records to fetch.
+     * @param  loaded       where to add the keys of records added in the {@link #prefetched} map.
+     * @throws SQLException if an error occurred while querying the database.
+     */
+    private void prefetch(final Class<?> type, final Collection<String> identifiers, final Set<CacheKey> loaded)
+            throws SQLException
+    {
+        assert Thread.holdsLock(this);
+        Map<Class<?>, Set<String>> pending = new LinkedHashMap<>();
+        for (final String identifier : identifiers) {
+            addPending(pending, type, identifier);
+        }
+        while (!pending.isEmpty()) {
+            final Map<Class<?>, Set<String>> next = new LinkedHashMap<>();
+            for (final Map.Entry<Class<?>, Set<String>> entry : pending.entrySet()) {
+                final Class<?> subType = entry.getKey();
+                final String   table   = getTableName(subType);
+                if (getExistingColumns(table).isEmpty()) {
+                    continue;                   // Table does not exist; let lookup(…) report the error.
+                }
+                final Map<String,Class<?>> types = standard.asTypeMap(subType, NAME_POLICY, TypeValuePolicy.ELEMENT_TYPE);
+                final List<String> toFetch = new ArrayList<>(entry.getValue().size());
+                for (final String identifier : entry.getValue()) {
+                    if (!prefetched.containsKey(new CacheKey(subType, identifier))) {
+                        toFetch.add(identifier);
+                    }
+                }
+                for (int lower=0; lower < toFetch.size(); lower += MAX_BATCH_SIZE) {
+                    final int upper = Math.min(lower + MAX_BATCH_SIZE, toFetch.size());
+                    final SQLBuilder helper = helper();
+                    helper.clear().append("SELECT * FROM ").appendIdentifier(schema, table)
+                            .append(" WHERE ").append(ID_COLUMN).append(" IN (");
+                    for (int i=lower; i<upper; i++) {
+                        if (i != lower) helper.append(", ");
+                        helper.append('?');
+                    }
+                    try (PreparedStatement stmt = connection().prepareStatement(helper.append(')').toString())) {
+                        for (int i=lower; i<upper; i++) {
+                            stmt.setString(i - lower + 1, toFetch.get(i));
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            final ResultSetMetaData md = rs.getMetaData();
+                            final int numColumns = md.getColumnCount();
+                            while (rs.next()) {
+                                final Map<String,Object> row = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                                for (int i=1; i<=numColumns; i++) {
+                                    Object value = rs.getObject(i);
+                                    if (value instanceof java.sql.Array) {
+                                        final java.sql.Array array = (java.sql.Array) value;
+                                        value = array.getArray();
+                                        array.free();
+                                    }
+                                    final String column = md.getColumnLabel(i);
+                                    row.put(column, value);
+                                    /*
+                                     * If the value is a foreigner key to another metadata, remember that we will need
+                                     * to fetch the referenced record in the next iteration of the outer loop.
+                                     */
+                                    final Class<?> elementType = types.get(column);
+                                    if (value != null && elementType != null && standard.isMetadata(elementType)
+                                            && !isControlledVocabulary(elementType))
+                                    {
+                                        if (value.getClass().isArray()) {
+                                            final int length = Array.getLength(value);
+                                            for (int j=0; j<length; j++) {
+                                                final Object element = Array.get(value, j);
+                                                if (element != null) {
+                                                    addPending(next, elementType, element.toString());
+                                                }
+                                            }
+                                        } else {
+                                            addPending(next, elementType, value.toString());
+                                        }
+                                    }
+                                }
+                                final CacheKey key = new CacheKey(subType, rs.getString(ID_COLUMN));
+                                if (!prefetched.containsKey(key)) {
+                                    prefetched.put(key, row);
+                                    loaded.add(key);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            pending = next;
+        }
+    }
+
+    /**
+     * Returns a copy of the given metadata where all proxies created by {@link #lookup(Class, String)} have been
+     * replaced by instances of the implementation classes. Values that are not proxies are returned unchanged.
+     *
+     * @param  value  the value to materialize.
+     * @param  done   the proxies already materialized, for sharing instances and for supporting cyclic graphs.
+     * @return the materialized value.
+     * @throws MetadataStoreException if an implementation class can not be instantiated.
+     */
+    private Object materialize(final Object value, final Map<Object,Object> done) throws MetadataStoreException {
+        if (!(value instanceof MetadataProxy)) {
+            return value;
+        }
+        Object copy = done.get(value);
+        if (copy == null) {
+            final Class<?> type = standard.getInterface(value.getClass());
+            final Class<?> impl = standard.getImplementation(type);
+            if (impl == null) {
+                return value;
+            }
+            try {
+                copy = impl.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new MetadataStoreException(Errors.format(Errors.Keys.UnsupportedImplementation_1, impl), e);
+            }
+            done.put(value, copy);                  // Need to be first in case of cyclic graphs.
+            final Map<String,Object> target = standard.asValueMap(copy, type,
+                    KeyNamePolicy.JAVABEANS_PROPERTY, ValueExistencePolicy.ALL);
+            for (final Map.Entry<String,Object> entry : standard.asValueMap(value, type,
+                    KeyNamePolicy.JAVABEANS_PROPERTY, ValueExistencePolicy.NON_EMPTY).entrySet())
+            {
+                Object property = entry.getValue();
+                if (property instanceof Collection<?>) {
+                    final List<Object> elements = new ArrayList<>(((Collection<?>) property).size());
+                    for (final Object element : (Collection<?>) property) {
+                        elements.add(materialize(element, done));
+                    }
+                    property = elements;
+                } else {
+                    property = materialize(property, done);
+                }
+                target.put(entry.getKey(), property);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Adds the given identifier in the map of records to fetch, grouped by the tables where they are stored.
+     */
+    private static void addPending(final Map<Class<?>, Set<String>> pending, final Class<?> type, final String identifier) {
+        final Class<?> subType = subType(type, identifier);
+        Set<String> identifiers = pending.get(subType);
+        if (identifiers == null) {
+            identifiers = new LinkedHashSet<>();
+            pending.put(subType, identifiers);
+        }
+        identifiers.add(identifier);
+    }
+
+    /**
+     * Returns {@code true} if the given type is a code list or an enumeration.
+     * Values of those types are not stored in metadata tables.
+     */
+    private static boolean isControlledVocabulary(final Class<?> type) {
+        return CodeList.class.isAssignableFrom(type) || type.isEnum();
+    }
+
     /**
      * Gets the {@link LookupInfo} instance for call to the {@link #readColumn(LookupInfo, Method, Dispatcher)} method.
      * The call to those two methods must be in the same thread, and no other metadata object shall be queried between
@@ -909,9 +1255,17 @@ public class MetadataSource implements AutoCloseable {
         final boolean  isArray;
         Object value;
         synchronized (this) {
+            final Map<String,Object> row;
             if (!getExistingColumns(tableName).contains(columnName)) {
                 value   = null;
                 isArray = false;
+            } else if ((row = prefetched.get(new CacheKey(type, toSearch.identifier))) != null) {
+                /*
+                 * The record has been fetched in advance by lookup(Class, Collection).
+                 * Arrays have already been converted from java.sql.Array to Java arrays.
+                 */
+                value   = row.get(columnName);
+                isArray = (value != null) && value.getClass().isArray();
             } else {
                 /*
                  * Prepares the statement and executes the SQL query in this synchronized block.
@@ -1197,13 +1551,7 @@ public class MetadataSource implements AutoCloseable {
     @Override
     public synchronized void close() throws MetadataStoreException {
         try {
-            for (int i=0; i < statements.length; i++) {
-                final CachedStatement statement = statements[i];
-                if (statement != null) {
-                    statement.close();
-                    statements[i] = null;
-                }
-            }
+            closeStatements();
             if (connection != null) {
                 connection.close();
                 connection = null;
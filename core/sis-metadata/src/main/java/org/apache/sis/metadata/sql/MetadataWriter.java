@@ -185,9 +185,11 @@ public class MetadataWriter extends MetadataSource {
         String identifier = proxy(metadata);
         if (identifier == null) try {
             synchronized (this) {
+                closeStatements();                      // Derby can not alter a table having an open ResultSet.
                 final Connection connection = connection();
                 connection.setAutoCommit(false);
-                boolean success = false;
+                beginTransaction();
+                boolean success = false, committed = false;
                 try {
                     try (Statement stmt = connection.createStatement()) {
                         if (metadata instanceof CodeList<?>) {
@@ -198,10 +200,15 @@ public class MetadataWriter extends MetadataSource {
                     }
                     success = true;
                 } finally {
-                    if (success) {
-                        connection.commit();
-                    } else {
-                        connection.rollback();
+                    try {
+                        if (success) {
+                            connection.commit();
+                            committed = true;
+                        } else {
+                            connection.rollback();
+                        }
+                    } finally {
+                        endTransaction(committed);      // Cache search results only if committed.
                     }
                     connection.setAutoCommit(true);
                 }
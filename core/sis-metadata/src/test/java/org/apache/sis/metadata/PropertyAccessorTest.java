@@ -26,6 +26,7 @@ import java.util.Date;
 
 import org.opengis.metadata.Identifier;
 import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
 import org.opengis.metadata.citation.Series;
 import org.opengis.metadata.citation.Citation;
 import org.opengis.metadata.citation.CitationDate;
@@ -55,6 +56,7 @@ import org.apache.sis.metadata.iso.citation.DefaultCitation;
 import org.apache.sis.metadata.iso.citation.HardCodedCitations;
 import org.apache.sis.metadata.iso.content.DefaultAttributeGroup;
 import org.apache.sis.metadata.iso.content.DefaultCoverageDescription;
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
 import org.apache.sis.metadata.iso.identification.AbstractIdentification;
 import org.apache.sis.metadata.iso.identification.DefaultAssociatedResource;
 import org.apache.sis.metadata.iso.identification.DefaultDataIdentification;
@@ -639,6 +641,88 @@ public final strictfp class PropertyAccessorTest extends TestCase {
         assertEquals("Metadata with two values.", baseCode + title.hashCode() + Arrays.asList(alternateTitle).hashCode(), hashCode);
     }
 
+    /**
+     * Tests getting and setting a property of primitive type through method handles.
+     * Also verifies the exceptions thrown for invalid arguments, which are not the same
+     * than the exceptions thrown by reflection (see {@link #testSetThroughReflection()}).
+     */
+    @Test
+    @DependsOnMethod("testSet")
+    public void testSetThroughMethodHandle() {
+        final DefaultGeographicBoundingBox instance = new DefaultGeographicBoundingBox();
+        final PropertyAccessor accessor = new PropertyAccessor(HardCodedCitations.ISO_19115,
+                GeographicBoundingBox.class, DefaultGeographicBoundingBox.class, DefaultGeographicBoundingBox.class);
+        final int index = accessor.indexOf("westBoundLongitude", true);
+        assertNull(accessor.set(index, instance, 10.0, RETURN_NULL));
+        assertEquals("westBoundLongitude", 10.0, accessor.get(index, instance));
+        assertEquals("westBoundLongitude", 10.0, instance.getWestBoundLongitude(), STRICT);
+        assertNull(accessor.set(index, instance, null, RETURN_NULL));     // Replaced by NaN.
+        assertTrue("westBoundLongitude", Double.isNaN(instance.getWestBoundLongitude()));
+        assertNull(accessor.set(index, instance, 10.0, RETURN_NULL));
+        try {
+            accessor.set(index, new DefaultCitation(), 20.0, RETURN_NULL);
+            fail("Metadata of wrong class.");
+        } catch (ClassCastException e) {
+            // This is the expected exception.
+        }
+        assertNull("Metadata of wrong class.", accessor.get(index, new DefaultCitation()));
+        assertEquals("westBoundLongitude", 10.0, instance.getWestBoundLongitude(), STRICT);
+    }
+
+    /**
+     * Tests getting and setting a property through reflection. This fallback is used when the getter
+     * or setter is declared in a non-public class or interface, in which case no method handle can be
+     * created. This test performs the same operations than {@link #testSetThroughMethodHandle()}.
+     */
+    @Test
+    @DependsOnMethod("testSet")
+    public void testSetThroughReflection() {
+        final HiddenMetadataImpl instance = new HiddenMetadataImpl();
+        final PropertyAccessor accessor = new PropertyAccessor(HardCodedCitations.ISO_19115,
+                HiddenMetadata.class, HiddenMetadataImpl.class, HiddenMetadataImpl.class);
+        final int index = accessor.indexOf("value", true);
+        assertNull(accessor.set(index, instance, 10.0, RETURN_NULL));
+        assertEquals("value", 10.0, accessor.get(index, instance));
+        assertEquals("value", 10.0, instance.getValue(), STRICT);
+        assertNull(accessor.set(index, instance, null, RETURN_NULL));     // Replaced by NaN.
+        assertTrue("value", Double.isNaN(instance.getValue()));
+        assertNull(accessor.set(index, instance, 10.0, RETURN_NULL));
+        try {
+            accessor.set(index, new DefaultCitation(), 20.0, RETURN_NULL);
+            fail("Metadata of wrong class.");
+        } catch (IllegalArgumentException e) {
+            // This is the expected exception.
+        }
+        assertNull("Metadata of wrong class.", accessor.get(index, new DefaultCitation()));
+        assertEquals("value", 10.0, instance.getValue(), STRICT);
+    }
+
+    /**
+     * A metadata interface which is not public, for testing the fallback on reflection.
+     */
+    interface HiddenMetadata {
+        /** Returns an arbitrary value. */
+        double getValue();
+    }
+
+    /**
+     * A non-public implementation of {@link HiddenMetadata}.
+     */
+    private static final class HiddenMetadataImpl implements HiddenMetadata {
+        /** The property value. */
+        private double value;
+
+        /** Returns the property value. */
+        @Override public double getValue() {
+            return value;
+        }
+
+        /** Sets the property value. */
+        public void setValue(final double value) {
+            this.value = value;
+        }
+    }
+
     /**
      * Tests {@link PropertyAccessor#toString()}. The {@code toString()}
      * method is only for debugging purpose, but we test it anyway.
@@ -16,6 +16,8 @@
  */
 package org.apache.sis.metadata.sql;
 
+import java.util.List;
+import java.util.Arrays;
 import java.util.Collections;
 import javax.sql.DataSource;
 import org.opengis.metadata.distribution.Format;
@@ -54,6 +56,7 @@ public final strictfp class MetadataSourceTest extends TestCase {
         try (MetadataSource source = new MetadataSource(MetadataStandard.ISO_19115, ds, "metadata", null)) {
             source.install();
             verifyFormats(source);
+            verifyBatchLookup(source);
             testSearch(source);
         } finally {
             TestDatabase.drop(ds);
@@ -76,6 +79,26 @@ public final strictfp class MetadataSourceTest extends TestCase {
         verify(source.lookup(Format.class, "CSV-MF"),  "CSV",     "OGC Moving Features Encoding Extension: Simple Comma-Separated Values (CSV)");
     }
 
+    /**
+     * Tests {@link MetadataSource#lookup(Class, java.util.Collection)} by fetching many {@link Format}
+     * instances in a single call. The formats shall be fully materialized implementation instances.
+     *
+     * @param  source  the instance to test.
+     * @throws MetadataStoreException if an error occurred while querying the database.
+     */
+    @TestStep
+    public static void verifyBatchLookup(final MetadataSource source) throws MetadataStoreException {
+        final List<Format> formats = source.lookup(Format.class, Arrays.asList("PNG", "GeoTIFF", "CSV-MF"));
+        assertEquals(3, formats.size());
+        for (final Format format : formats) {
+            assertTrue("format", format instanceof DefaultFormat);
+            assertTrue("specification", ((DefaultFormat) format).getFormatSpecificationCitation() instanceof DefaultCitation);
+        }
+        verify(formats.get(0), "PNG",     "PNG (Portable Network Graphics) Specification");
+        verify(formats.get(1), "GeoTIFF", "GeoTIFF Coverage Encoding Profile");
+        verify(formats.get(2), "CSV",     "OGC Moving Features Encoding Extension: Simple Comma-Separated Values (CSV)");
+    }
+
     /**
      * Verifies properties of the given format.
      *
@@ -102,6 +125,7 @@ public final strictfp class MetadataSourceTest extends TestCase {
         format.setFormatSpecificationCitation(specification);
 
         assertEquals("PNG", source.search(format));
+        assertEquals("PNG", source.search(format));             // Should be found in the cache.
         specification.setTitle(null);
         assertNull(source.search(format));
     }
@@ -16,7 +16,10 @@
  */
 package org.apache.sis.metadata.sql;
 
+import java.util.List;
+import java.util.Arrays;
 import java.util.Collections;
+import java.net.URI;
 import javax.sql.DataSource;
 import org.postgresql.ds.PGSimpleDataSource;
 import org.opengis.metadata.citation.Citation;
@@ -28,7 +31,13 @@ import org.opengis.metadata.citation.Telephone;
 import org.apache.sis.internal.metadata.sql.TestDatabase;
 import org.apache.sis.metadata.iso.citation.HardCodedCitations;
 import org.apache.sis.metadata.iso.citation.DefaultTelephone;
+import org.apache.sis.metadata.iso.citation.DefaultCitation;
+import org.apache.sis.metadata.iso.citation.DefaultContact;
+import org.apache.sis.metadata.iso.citation.DefaultOnlineResource;
+import org.apache.sis.metadata.iso.citation.DefaultOrganisation;
+import org.apache.sis.metadata.iso.citation.DefaultResponsibleParty;
 import org.apache.sis.metadata.MetadataStandard;
+import org.apache.sis.util.ComparisonMode;
 import org.apache.sis.test.TestUtilities;
 import org.apache.sis.test.TestCase;
 import org.apache.sis.test.DependsOn;
@@ -72,7 +81,9 @@ public final strictfp class MetadataWriterTest extends TestCase {
             write();
             search();
             read();
+            readAll();
             readWriteDeprecated();
+            addAfterRollback();
             source.close();
         } finally {
             TestDatabase.drop(ds);
@@ -96,7 +107,9 @@ public final strictfp class MetadataWriterTest extends TestCase {
             write();
             search();
             read();
+            readAll();
             readWriteDeprecated();
+            addAfterRollback();
         } finally {
             source.close();
         }
@@ -185,6 +198,21 @@ public final strictfp class MetadataWriterTest extends TestCase {
         assertEquals("EPSG", source.search(c));
     }
 
+    /**
+     * Reads known entries in the database in a single call, then compares with the original metadata.
+     *
+     * @throws MetadataStoreException if an error occurred while reading the database.
+     */
+    private void readAll() throws MetadataStoreException {
+        final List<Citation> c = source.lookup(Citation.class, Arrays.asList("EPSG", "SIS", "ISO 19115"));
+        assertEquals(3, c.size());
+        assertTrue("Expected fully materialized metadata.", c.get(0) instanceof DefaultCitation);
+        final MetadataStandard std = MetadataStandard.ISO_19115;
+        assertTrue("EPSG",      std.equals(HardCodedCitations.EPSG,      c.get(0), ComparisonMode.BY_CONTRACT));
+        assertTrue("SIS",       std.equals(HardCodedCitations.SIS,       c.get(1), ComparisonMode.BY_CONTRACT));
+        assertTrue("ISO 19115", std.equals(HardCodedCitations.ISO_19115, c.get(2), ComparisonMode.BY_CONTRACT));
+    }
+
     /**
      * Read and write a metadata object containing deprecated properties.
      * The metadata tested by this method is:
@@ -208,4 +236,49 @@ public final strictfp class MetadataWriterTest extends TestCase {
         final Telephone check = source.lookup(Telephone.class, "01.02.03.04");
         assertEquals("01.02.03.04", TestUtilities.getSingleton(check.getVoices()));
     }
+
+    /**
+     * Adds a metadata which fails part-way, then adds the same metadata again. The failed attempt inserts
+     * an online resource, then finds that record again by a search for an equal online resource, before
+     * to fail on the insertion of the citation (title too long). The search result shall not stay in the
+     * cache after the rollback, otherwise the second attempt would reference a record that does not exist.
+     *
+     * <p>A similar metadata is added first for creating the tables and columns, because some databases
+     * (e.g. HSQLDB) commit the transaction when a table is created.</p>
+     *
+     * @throws MetadataStoreException if an error occurred while writing or reading the database.
+     */
+    private void addAfterRollback() throws MetadataStoreException {
+        final URI setup = URI.create("http://sis.apache.org/setup");
+        assertNotNull(source.add(citationForRollback(setup, "Rollback setup", "Setup party")));
+        final URI linkage = URI.create("http://sis.apache.org/rollback");
+        final char[] title = new char[2000];                // Longer than the "maximumValueLength" default value.
+        Arrays.fill(title, 'A');
+        try {
+            source.add(citationForRollback(linkage, new String(title), "Rollback party"));
+            fail("Expected a failure because of the title length.");
+        } catch (MetadataStoreException e) {
+            // This is the expected exception.
+        }
+        assertNull("Rolled back record.", source.search(new DefaultOnlineResource(linkage)));
+        final String id = source.add(citationForRollback(linkage, "Rollback test", "Rollback party"));
+        assertEquals(id, source.search(citationForRollback(linkage, "Rollback test", "Rollback party")));
+        final String resource = source.search(new DefaultOnlineResource(linkage));
+        assertNotNull("Committed record.", resource);
+        assertEquals(linkage, source.lookup(OnlineResource.class, resource).getLinkage());
+    }
+
+    /**
+     * Creates a citation containing two distinct but equal online resources:
+     * one in the citation and one in the contact information of the cited party.
+     */
+    private static DefaultCitation citationForRollback(final URI linkage, final String title, final String party) {
+        final DefaultResponsibleParty p = new DefaultResponsibleParty(Role.POINT_OF_CONTACT);
+        p.setParties(Collections.singleton(new DefaultOrganisation(party,
+                null, null, new DefaultContact(new DefaultOnlineResource(linkage)))));
+        final DefaultCitation c = new DefaultCitation(title);
+        c.setOnlineResources(Collections.singleton(new DefaultOnlineResource(linkage)));
+        c.getCitedResponsibleParties().add(p);
+        return c;
+    }
 }
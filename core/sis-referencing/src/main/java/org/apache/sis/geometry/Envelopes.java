@@ -21,6 +21,7 @@ package org.apache.sis.geometry;
  * support Java2D (e.g. Android),  or applications that do not need it may want to avoid to
  * force installation of the Java2D module (e.g. JavaFX/SWT).
  */
+import java.util.Arrays;
 import org.opengis.geometry.Envelope;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.MismatchedDimensionException;
@@ -36,11 +37,13 @@ import org.opengis.referencing.operation.NoninvertibleTransformException;
 import org.opengis.util.FactoryException;
 import org.apache.sis.util.Static;
 import org.apache.sis.util.Utilities;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.ComparisonMode;
 import org.apache.sis.util.logging.Logging;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.referencing.CRS;
 import org.apache.sis.referencing.operation.transform.AbstractMathTransform;
+import org.apache.sis.referencing.operation.transform.LinearTransform;
 import org.apache.sis.internal.referencing.CoordinateOperations;
 import org.apache.sis.internal.referencing.DirectPositionView;
 import org.apache.sis.internal.referencing.Formulas;
@@ -86,7 +89,7 @@ import static org.apache.sis.util.StringBuilders.trimFractionalPart;
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
  * @author  Johann Sorel (Geomatys)
- * @version 0.5
+ * @version 0.8
  *
  * @see org.apache.sis.metadata.iso.extent.Extents
  * @see CRS
@@ -95,6 +98,13 @@ import static org.apache.sis.util.StringBuilders.trimFractionalPart;
  * @module
  */
 public final class Envelopes extends Static {
+    /**
+     * Maximal number of points to sample in a single call to {@link MathTransform#transform(double[], int,
+     * double[], int, int)} by {@link #transform(MathTransform, double[], int, double[], int, int)}.
+     * This determines the size of the buffers shared by all envelopes in a chunk.
+     */
+    private static final int BULK_BUFFER_SIZE = 4096;
+
     /**
      * Do not allow instantiation of this class.
      */
@@ -414,6 +424,229 @@ public final class Envelopes extends Static {
         return transformed;
     }
 
+    /**
+     * Transforms many envelopes using the given math transform. This method is equivalent to invoking
+     * {@link #transform(MathTransform, Envelope)} for each envelope, but is more efficient when there is
+     * many envelopes to transform: the points sampled in all envelopes (corners, edge midpoints and centers)
+     * are transformed with a few calls to {@link MathTransform#transform(double[], int, double[], int, int)}
+     * using buffers shared by all envelopes, and the points added for the curve extremums are transformed
+     * in a second batch.
+     *
+     * <p>Envelopes are packed in arrays as sequences of lower corner coordinates followed by upper corner
+     * coordinates. For example two-dimensional envelopes are stored as (<var>x</var><sub>min</sub>,
+     * <var>y</var><sub>min</sub>, <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) tuples.
+     * The source and target arrays may be the same.</p>
+     *
+     * <p>The result may be slightly larger than the one computed by {@code transform(MathTransform, Envelope)},
+     * because all candidate extremum points are added to the envelope instead than only the ones that are still
+     * outside the envelope after the previous points have been added. Envelopes spanning the anti-meridian are
+     * not supported.</p>
+     *
+     * @param  transform     the transform to use.
+     * @param  srcEnvelopes  the array containing the source envelopes.
+     * @param  srcOff        the offset to the first envelope to be transformed in the source array.
+     * @param  dstEnvelopes  the array into which the transformed envelopes are stored.
+     * @param  dstOff        the offset to the location of the first transformed envelope in the destination array.
+     * @param  numEnvelopes  the number of envelopes to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     *
+     * @see #transform(MathTransform, Envelope)
+     *
+     * @since 0.8
+     */
+    public static void transform(final MathTransform transform, double[] srcEnvelopes, int srcOff,
+            final double[] dstEnvelopes, int dstOff, final int numEnvelopes) throws TransformException
+    {
+        ensureNonNull("transform",    transform);
+        ensureNonNull("srcEnvelopes", srcEnvelopes);
+        ensureNonNull("dstEnvelopes", dstEnvelopes);
+        ArgumentChecks.ensurePositive("numEnvelopes", numEnvelopes);
+        final int sourceDim = transform.getSourceDimensions();
+        final int targetDim = transform.getTargetDimensions();
+        final int srcLength = 2 * sourceDim;
+        final int dstLength = 2 * targetDim;
+        ArgumentChecks.ensureValidIndexRange(srcEnvelopes.length, srcOff, srcOff + numEnvelopes * srcLength);
+        ArgumentChecks.ensureValidIndexRange(dstEnvelopes.length, dstOff, dstOff + numEnvelopes * dstLength);
+        if (numEnvelopes == 0) {
+            return;
+        }
+        if (transform.isIdentity()) {
+            System.arraycopy(srcEnvelopes, srcOff, dstEnvelopes, dstOff, numEnvelopes * srcLength);
+            return;
+        }
+        if (sourceDim >= 20) {          // Maximal value supported by Formulas.pow3(int) is 19.
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.ExcessiveNumberOfDimensions_1));
+        }
+        /*
+         * If the source and target arrays are the same, the envelopes written in a chunk may overwrite
+         * source envelopes of next chunks not yet read. In such case, copy the source envelopes first.
+         */
+        if (srcEnvelopes == dstEnvelopes && (dstOff > srcOff || dstLength > srcLength)) {
+            srcEnvelopes = Arrays.copyOfRange(srcEnvelopes, srcOff, srcOff + numEnvelopes * srcLength);
+            srcOff = 0;
+        }
+        /*
+         * Allocates the buffers shared by all envelopes. Sampled points are indexed in base 3 in the same way
+         * than transform(MathTransform, Envelope, double[]), with digits mapped to minimal (0), maximal (1)
+         * or median (2) ordinate values. The last dimension is the least significant digit.
+         */
+        final int      numPts      = Formulas.pow3(sourceDim);
+        final int      chunkSize   = Math.min(numEnvelopes, Math.max(1, BULK_BUFFER_SIZE / numPts));
+        final double[] source      = new double[chunkSize * srcLength];
+        final double[] points      = new double[chunkSize * numPts * sourceDim];
+        final double[] ordinates   = new double[chunkSize * numPts * targetDim];
+        final Matrix[] derivatives = new Matrix[numPts];
+        final DirectPositionView pointView = new DirectPositionView(points, 0, sourceDim);
+        final CurveExtremum extremum = new CurveExtremum();
+        boolean isDerivativeSupported = !(transform instanceof LinearTransform);
+        boolean isDerivativeFailureLogged = false;              // For logging only the first failure.
+        double[] extraPoints  = null;                           // Curve extremums to transform in a second batch.
+        int[]    extraOwners  = null;                           // Index of the envelope of each extremum point.
+        for (int done = 0; done < numEnvelopes;) {
+            final int n = Math.min(chunkSize, numEnvelopes - done);
+            System.arraycopy(srcEnvelopes, srcOff, source, 0, n * srcLength);
+            srcOff += n * srcLength;
+            /*
+             * Sample the points of all envelopes in the chunk, then transform all of them in one call.
+             */
+            int p = 0;
+            for (int e=0; e<n; e++) {
+                final int lower = e * srcLength;
+                for (int pointIndex = 0; pointIndex < numPts; pointIndex++) {
+                    int indexBase3 = pointIndex;
+                    for (int dim = sourceDim; --dim >= 0; indexBase3 /= 3) {
+                        points[p + dim] = ordinate(source, lower, sourceDim, dim, indexBase3 % 3);
+                    }
+                    p += sourceDim;
+                }
+            }
+            transform.transform(points, 0, ordinates, 0, n * numPts);
+            /*
+             * Compute the envelopes of transformed points. The result is written directly in the destination array.
+             */
+            for (int e=0; e<n; e++) {
+                final int env = dstOff + e * dstLength;
+                int offset = e * numPts * targetDim;
+                System.arraycopy(ordinates, offset, dstEnvelopes, env, targetDim);
+                System.arraycopy(ordinates, offset, dstEnvelopes, env + targetDim, targetDim);
+                for (int pointIndex = 1; pointIndex < numPts; pointIndex++) {
+                    offset += targetDim;
+                    for (int j=0; j<targetDim; j++) {
+                        final double value = ordinates[offset + j];
+                        if (value < dstEnvelopes[env + j]) dstEnvelopes[env + j] = value;
+                        if (value > dstEnvelopes[env + targetDim + j]) dstEnvelopes[env + targetDim + j] = value;
+                    }
+                }
+            }
+            /*
+             * Use the derivatives for approximating the transform behavior between each sampled point and the
+             * neighbor median points by cubic curves, then find the curve extremums. Points at the extremums
+             * which would expand an envelope are collected for transformation in a single batch. If the
+             * derivative can not be computed at a point, only the envelope containing that point is computed
+             * without extremums, as in transform(MathTransform, Envelope, double[]). Derivatives are disabled
+             * for all remaining envelopes only if the transform does not support this operation at all.
+             */
+            int numExtra = 0;
+            if (isDerivativeSupported) {
+                if (extraPoints == null) {
+                    extraPoints = new double[chunkSize * sourceDim];
+                    extraOwners = new int[chunkSize];
+                }
+                nextEnv: for (int e=0; e<n; e++) {
+                    final int first = e * numPts;
+                    for (int pointIndex = 0; pointIndex < numPts; pointIndex++) {
+                        pointView.offset = (first + pointIndex) * sourceDim;
+                        try {
+                            derivatives[pointIndex] = transform.derivative(pointView);
+                        } catch (UnsupportedOperationException ex) {
+                            isDerivativeSupported = false;
+                            break nextEnv;
+                        } catch (TransformException ex) {
+                            if (!isDerivativeFailureLogged) {
+                                isDerivativeFailureLogged = true;
+                                recoverableException(Envelopes.class, ex);
+                            }
+                            continue nextEnv;
+                        }
+                    }
+                    final int lower = e * srcLength;
+                    final int env   = dstOff + e * dstLength;
+                    for (int pointIndex = 0; pointIndex < numPts; pointIndex++) {
+                        final Matrix D1 = derivatives[pointIndex];
+                        int indexBase3 = pointIndex, power3 = 1;
+                        for (int i = sourceDim; --i >= 0; indexBase3 /= 3, power3 *= 3) {
+                            final int digitBase3 = indexBase3 % 3;
+                            if (digitBase3 == 2) continue;      // Already located on the median along dimension i.
+                            final int medianIndex = pointIndex + power3 * (2 - digitBase3);
+                            final Matrix D2 = derivatives[medianIndex];
+                            final double xmin = source[lower + i];
+                            final double xmax = source[lower + sourceDim + i];
+                            final double x2   = 0.5 * (xmin + xmax);
+                            final double x1   = (digitBase3 == 0) ? xmin : xmax;
+                            final int offset1 = targetDim * (first + pointIndex);
+                            final int offset2 = targetDim * (first + medianIndex);
+                            for (int j=0; j<targetDim; j++) {
+                                extremum.resolve(x1, ordinates[offset1 + j], D1.getElement(j,i),
+                                                 x2, ordinates[offset2 + j], D2.getElement(j,i));
+                                boolean isP2 = false;
+                                do {                            // Executed exactly twice, one for each extremum point.
+                                    final double x = isP2 ? extremum.ex2 : extremum.ex1;
+                                    if (x > xmin && x < xmax) {
+                                        final double y = isP2 ? extremum.ey2 : extremum.ey1;
+                                        if (y < dstEnvelopes[env + j] || y > dstEnvelopes[env + targetDim + j]) {
+                                            /*
+                                             * Same approach than in transform(MathTransform, Envelope, double[]):
+                                             * project the point on the envelope border vis-à-vis the extremum.
+                                             */
+                                            if (numExtra == extraOwners.length) {
+                                                extraOwners = Arrays.copyOf(extraOwners, numExtra * 2);
+                                                extraPoints = Arrays.copyOf(extraPoints, numExtra * 2 * sourceDim);
+                                            }
+                                            final int xp = numExtra * sourceDim;
+                                            for (int ib3 = pointIndex, dim = sourceDim; --dim >= 0; ib3 /= 3) {
+                                                extraPoints[xp + dim] = (dim == i) ? x : ordinate(source, lower, sourceDim, dim, ib3 % 3);
+                                            }
+                                            extraOwners[numExtra++] = env;
+                                        }
+                                    }
+                                } while ((isP2 = !isP2) == true);
+                            }
+                        }
+                    }
+                }
+            }
+            if (numExtra != 0) {
+                final double[] extraOrdinates = new double[numExtra * targetDim];
+                transform.transform(extraPoints, 0, extraOrdinates, 0, numExtra);
+                for (int k=0; k<numExtra; k++) {
+                    final int env = extraOwners[k];
+                    for (int j=0; j<targetDim; j++) {
+                        final double value = extraOrdinates[k * targetDim + j];
+                        if (value < dstEnvelopes[env + j]) dstEnvelopes[env + j] = value;
+                        if (value > dstEnvelopes[env + targetDim + j]) dstEnvelopes[env + targetDim + j] = value;
+                    }
+                }
+            }
+            dstOff += n * dstLength;
+            done   += n;
+        }
+    }
+
+    /**
+     * Returns the minimal (digit 0), maximal (digit 1) or median (digit 2) ordinate value
+     * along the given dimension of an envelope packed in the given array.
+     */
+    private static double ordinate(final double[] envelopes, final int lower, final int dimension,
+            final int dim, final int digitBase3)
+    {
+        switch (digitBase3) {
+            case 0:  return envelopes[lower + dim];
+            case 1:  return envelopes[lower + dimension + dim];
+            case 2:  return 0.5 * (envelopes[lower + dim] + envelopes[lower + dimension + dim]);
+            default: throw new AssertionError(digitBase3);      // Should never happen.
+        }
+    }
+
     /**
      * Transforms an envelope using the given coordinate operation.
      * The transformation is only approximative: the returned envelope may be bigger than the
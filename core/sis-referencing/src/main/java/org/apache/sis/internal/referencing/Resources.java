@@ -187,6 +187,12 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short IgnoredServiceProvider_3 = 19;
 
+        /**
+         * The “{0}” snapshot has been created from EPSG dataset version {1} while the database has
+         * version {2}. The snapshot is ignored.
+         */
+        public static final short IgnoredSnapshot_3 = 81;
+
         /**
          * Coordinate system of class ‘{0}’ can not have axis in the {1} direction.
          */
@@ -475,6 +481,12 @@ public final class Resources extends IndexedResourceBundle {
          * Parameter values have not been specified.
          */
         public static final short UnspecifiedParameterValues = 70;
+
+        /**
+         * Objects are created from the “{0}” snapshot of EPSG dataset version {1}, which has not yet
+         * been compared with the version of the database.
+         */
+        public static final short UnverifiedSnapshot_2 = 82;
     }
 
     /**
@@ -53,6 +53,7 @@ import org.apache.sis.internal.jdk8.JDK8;
  * </ul>
  *
  * The main concrete subclass is {@link DatumShiftGridFile.Float}.
+ * Large grids may be read in place by {@link DatumShiftGridMapped}.
  *
  * @author  Martin Desruisseaux (Geomatys)
  * @version 0.8
@@ -79,11 +80,7 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
      */
     static final Cache<Object, DatumShiftGridFile<?,?>> CACHE = new Cache<Object, DatumShiftGridFile<?,?>>(4, 32*1024, true) {
         @Override protected int cost(final DatumShiftGridFile<?,?> grid) {
-            int p = 1;
-            for (final Object array : grid.getData()) {
-                p *= Array.getLength(array);
-            }
-            return p;
+            return grid.cost();
         }
     };
 
@@ -235,6 +232,32 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
      */
     protected abstract Object[] getData();
 
+    /**
+     * Returns an estimation of the amount of data held in memory by this grid, for {@link #CACHE} management.
+     * The default implementation returns the product of the lengths of the arrays returned by {@link #getData()}.
+     * Subclasses which do not store their data in the Java heap should override this method.
+     *
+     * @return an estimation of the amount of data held in memory.
+     */
+    int cost() {
+        int p = 1;
+        for (final Object array : getData()) {
+            p *= Array.getLength(array);
+        }
+        return p;
+    }
+
+    /**
+     * Returns {@code true} if at least some values of this grid are memory-mapped instead than copied in the
+     * Java heap. The data of such grids are not compared with the data of other grids by {@link #useSharedData()},
+     * since the comparison would read the whole file.
+     *
+     * @return whether this grid reads at least some of its values from a memory-mapped file.
+     */
+    boolean isMapped() {
+        return false;
+    }
+
     /**
      * Suggests a precision for the translation values in this grid.
      * The default implementation returns a value smaller than the accuracy.
@@ -375,7 +398,7 @@ public abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quanti
         /**
          * Creates a new grid of the same geometry than the given grid but using a different data array.
          */
-        private Float(final DatumShiftGridFile<C,T> grid, final float[][] offsets) {
+        Float(final DatumShiftGridFile<C,T> grid, final float[][] offsets) {
             super(grid);
             this.offsets = offsets;
         }
@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.referencing.provider;
+
+import java.util.Arrays;
+import java.nio.file.Path;
+import javax.measure.Quantity;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.apache.sis.internal.referencing.Resources;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A datum shift grid made of a hierarchy of sub-grids, as found in some NTv2 files.
+ * The sub-grids may have different resolutions: the first grids typically cover a large area
+ * with a coarse resolution, and the next grids cover smaller areas with finer resolution.
+ * Each point is interpolated in the finest sub-grid containing that point.
+ *
+ * <p>This group exposes a virtual grid having the resolution of the first root grid and covering all root grids.
+ * The {@link #interpolateInCell interpolateInCell(…)} method converts the grid indices of that virtual grid into
+ * the grid indices of the sub-grid to use, then converts the interpolated translation back to units of cells of the
+ * virtual grid. Consequently this class can be used by
+ * {@link org.apache.sis.referencing.operation.transform.InterpolatedTransform} like any other grid.</p>
+ *
+ * <div class="section">Spatial index</div>
+ * The sub-grids are organized in a tree where the children of each grid are the grids nested inside it.
+ * Children are sorted by their minimal <var>x</var> value, which allow to stop the search for a child
+ * containing a point as soon as a child starts after that point. The search starts from the root grids
+ * and descends in the tree until no child contains the point.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ *
+ * @param <C>  dimension of the coordinate unit (usually {@link javax.measure.quantity.Angle}).
+ * @param <T>  dimension of the translation unit (usually {@link javax.measure.quantity.Angle}).
+ *
+ * @since 0.8
+ * @module
+ */
+public final class DatumShiftGridGroup<C extends Quantity<C>, T extends Quantity<T>> extends DatumShiftGridFile<C,T> {
+    /**
+     * Serial number for inter-operability with different versions.
+     */
+    private static final long serialVersionUID = 2874372963396146447L;
+
+    /**
+     * All sub-grids, including the root grids.
+     */
+    private final DatumShiftGridFile<C,T>[] subgrids;
+
+    /**
+     * Indices of the root grids (grids without parent), sorted by {@link #xmin} values.
+     */
+    private final int[] roots;
+
+    /**
+     * Indices of the children of each sub-grid, sorted by {@link #xmin} values.
+     */
+    private final int[][] children;
+
+    /**
+     * Conversion factors from the grid indices of this group to the grid indices of each sub-grid.
+     * The conversion is {@code subgridX = gridX * scaleX[i] + offsetX[i]} and likewise for <var>y</var>.
+     */
+    private final double[] scaleX, scaleY, offsetX, offsetY;
+
+    /**
+     * Bounds of each sub-grid, in units of grid cells of this group.
+     * Those bounds include the centers of the cells on the sub-grid borders.
+     */
+    private final double[] xmin, xmax, ymin, ymax;
+
+    /**
+     * Creates a new group for the given sub-grids.
+     * Callers should use {@link #create(DatumShiftGridFile[], int[], ParameterDescriptorGroup, Path[])} instead.
+     */
+    private DatumShiftGridGroup(final DatumShiftGridFile<C,T>[] subgrids, final int[] parents,
+            final double[] geometry, final ParameterDescriptorGroup descriptor, final Path... files)
+            throws NoninvertibleTransformException
+    {
+        super(subgrids[0].getCoordinateUnit(), subgrids[0].getTranslationUnit(), subgrids[0].isCellValueRatio(),
+              geometry[0], geometry[1], geometry[2], geometry[3], (int) geometry[4], (int) geometry[5], descriptor, files);
+        this.subgrids = subgrids;
+        final int n = subgrids.length;
+        scaleX  = new double[n];
+        scaleY  = new double[n];
+        offsetX = new double[n];
+        offsetY = new double[n];
+        xmin    = new double[n];
+        xmax    = new double[n];
+        ymin    = new double[n];
+        ymax    = new double[n];
+        for (int i=0; i<n; i++) {
+            final double[] g = origin(subgrids[i]);
+            scaleX [i] = geometry[2] / g[2];
+            scaleY [i] = geometry[3] / g[3];
+            offsetX[i] = (geometry[0] - g[0]) / g[2];
+            offsetY[i] = (geometry[1] - g[1]) / g[3];
+            final int[] size = subgrids[i].getGridSize();
+            double lower = (g[0] - geometry[0]) / geometry[2];
+            double upper = lower + (size[0] - 1) / scaleX[i];
+            xmin[i] = Math.min(lower, upper);
+            xmax[i] = Math.max(lower, upper);
+            lower = (g[1] - geometry[1]) / geometry[3];
+            upper = lower + (size[1] - 1) / scaleY[i];
+            ymin[i] = Math.min(lower, upper);
+            ymax[i] = Math.max(lower, upper);
+        }
+        /*
+         * Build the tree of sub-grids. The children of each node are sorted by their minimal x value
+         * for allowing indexOf(…) to stop the search early.
+         */
+        final int[] count = new int[n + 1];
+        for (final int p : parents) {
+            count[p + 1]++;
+        }
+        final int[][] nodes = new int[n + 1][];
+        for (int i=0; i<=n; i++) {
+            nodes[i] = new int[count[i]];
+            count[i] = 0;
+        }
+        for (int i=0; i<n; i++) {
+            final int p = parents[i] + 1;
+            nodes[p][count[p]++] = i;
+        }
+        for (final int[] node : nodes) {
+            sortByMinX(node);
+        }
+        roots    = nodes[0];
+        children = Arrays.copyOfRange(nodes, 1, n + 1);
+    }
+
+    /**
+     * Creates a group for the given sub-grids. If there is only one sub-grid, then that grid is returned directly.
+     * The first sub-grid shall be a root grid, and its resolution will be the resolution of the group.
+     *
+     * @param  subgrids    the sub-grids. All grids shall use the same units.
+     * @param  parents     for each sub-grid, index of the parent grid or -1 if the sub-grid is a root.
+     * @param  descriptor  the parameter descriptor of the provider that created the grids.
+     * @param  files       the file(s) from which the grids have been loaded.
+     * @return the group of sub-grids, or the singleton sub-grid.
+     * @throws IllegalArgumentException if the sub-grids do not use the same units, or a parent index is invalid.
+     * @throws NoninvertibleTransformException if a grid geometry is not invertible.
+     */
+    static <C extends Quantity<C>, T extends Quantity<T>> DatumShiftGridFile<C,T> create(
+            final DatumShiftGridFile<C,T>[] subgrids, final int[] parents,
+            final ParameterDescriptorGroup descriptor, final Path... files) throws NoninvertibleTransformException
+    {
+        if (subgrids.length == 1) {
+            return subgrids[0];
+        }
+        final DatumShiftGridFile<C,T> first = subgrids[0];
+        for (int i=0; i<subgrids.length; i++) {
+            final DatumShiftGridFile<C,T> grid = subgrids[i];
+            if (!grid.getCoordinateUnit().equals(first.getCoordinateUnit()) ||
+                !grid.getTranslationUnit().equals(first.getTranslationUnit()) ||
+                grid.isCellValueRatio() != first.isCellValueRatio() ||
+                grid.getTranslationDimensions() != first.getTranslationDimensions())
+            {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.MismatchedGridGeometry_2, 0, i));
+            }
+            final int p = parents[i];
+            if (p < -1 || p >= subgrids.length || p == i || (i == 0 && p >= 0)) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "parents[" + i + ']', p));
+            }
+        }
+        /*
+         * The virtual grid has the resolution of the first root grid, and covers all root grids.
+         * Compute the grid indices of root grid bounds relative to the first root grid origin,
+         * then shift the origin for having all indices positive.
+         */
+        final double[] geometry = origin(first);
+        double minX = 0, maxX = 0, minY = 0, maxY = 0;
+        for (int i=0; i<subgrids.length; i++) {
+            if (parents[i] < 0) {
+                final double[] g = origin(subgrids[i]);
+                final int[] size = subgrids[i].getGridSize();
+                for (int corner=0; corner<4; corner++) {
+                    final double x = (g[0] + ((corner & 1) == 0 ? 0 : (size[0] - 1) * g[2]) - geometry[0]) / geometry[2];
+                    final double y = (g[1] + ((corner & 2) == 0 ? 0 : (size[1] - 1) * g[3]) - geometry[1]) / geometry[3];
+                    minX = Math.min(minX, x); maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y); maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        minX = Math.floor(minX);
+        minY = Math.floor(minY);
+        geometry[0] += minX * geometry[2];
+        geometry[1] += minY * geometry[3];
+        geometry[4]  = Math.ceil(maxX) - minX + 1;
+        geometry[5]  = Math.ceil(maxY) - minY + 1;
+        return new DatumShiftGridGroup<>(subgrids, parents, geometry, descriptor, files);
+    }
+
+    /**
+     * Returns (<var>x₀</var>, <var>y₀</var>, <var>Δx</var>, <var>Δy</var>) for the given grid,
+     * followed by two spare elements. This method assumes that the conversion from grid indices
+     * to "real world" coordinates is a scale and a translation on each axis, as in NTv2 files.
+     *
+     * @throws IllegalArgumentException if the conversion contains rotation or shear terms.
+     */
+    private static double[] origin(final DatumShiftGridFile<?,?> grid) throws NoninvertibleTransformException {
+        final Matrix m = grid.getCoordinateToGrid().inverse().getMatrix();
+        if (m.getElement(0,1) != 0 || m.getElement(1,0) != 0) {
+            throw new IllegalArgumentException(Resources.format(Resources.Keys.NotAnAffineTransform));
+        }
+        return new double[] {m.getElement(0,2), m.getElement(1,2), m.getElement(0,0), m.getElement(1,1), 0, 0};
+    }
+
+    /**
+     * Sorts the given indices of sub-grids by increasing {@link #xmin} values.
+     * We use an insertion sort since the number of children is usually small.
+     */
+    private void sortByMinX(final int[] indices) {
+        for (int i=1; i<indices.length; i++) {
+            final int v = indices[i];
+            final double key = xmin[v];
+            int j = i;
+            while (--j >= 0 && xmin[indices[j]] > key) {
+                indices[j+1] = indices[j];
+            }
+            indices[j+1] = v;
+        }
+    }
+
+    /**
+     * Returns a new group with the same geometry than this group but different data arrays.
+     */
+    @Override
+    protected DatumShiftGridFile<C,T> setData(final Object[] other) {
+        final DatumShiftGridGroup<C,T> group = new DatumShiftGridGroup<>(this);
+        for (int i=0; i<subgrids.length; i++) {
+            group.subgrids[i] = subgrids[i].setData((Object[]) other[i]);
+        }
+        return group;
+    }
+
+    /**
+     * Creates a copy of the given group with a new (initially identical) array of sub-grids.
+     */
+    private DatumShiftGridGroup(final DatumShiftGridGroup<C,T> other) {
+        super(other);
+        subgrids = other.subgrids.clone();
+        roots    = other.roots;
+        children = other.children;
+        scaleX   = other.scaleX;
+        scaleY   = other.scaleY;
+        offsetX  = other.offsetX;
+        offsetY  = other.offsetY;
+        xmin     = other.xmin;
+        xmax     = other.xmax;
+        ymin     = other.ymin;
+        ymax     = other.ymax;
+    }
+
+    /**
+     * Returns the data of all sub-grids. This method is for cache management, {@link #equals(Object)}
+     * and {@link #hashCode()} implementations only and should not be invoked in other context.
+     */
+    @Override
+    protected Object[] getData() {
+        final Object[] data = new Object[subgrids.length];
+        for (int i=0; i<data.length; i++) {
+            data[i] = subgrids[i].getData();
+        }
+        return data;
+    }
+
+    /**
+     * Returns the sum of the costs of all sub-grids.
+     */
+    @Override
+    int cost() {
+        int cost = 0;
+        for (final DatumShiftGridFile<C,T> grid : subgrids) {
+            cost += grid.cost();
+        }
+        return cost;
+    }
+
+    /**
+     * Returns {@code true} if at least one sub-grid is memory-mapped. A group may mix mapped and copied
+     * sub-grids if some of them could not be mapped.
+     */
+    @Override
+    boolean isMapped() {
+        for (final DatumShiftGridFile<C,T> grid : subgrids) {
+            if (grid.isMapped()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of sub-grids in this group.
+     *
+     * @return number of sub-grids.
+     */
+    public int getSubgridCount() {
+        return subgrids.length;
+    }
+
+    /**
+     * Returns the index of the finest sub-grid containing the given point. If no sub-grid contains
+     * the point, then this method returns the root grid nearest to the point, which will be used for
+     * extrapolation.
+     *
+     * @param  gridX  first grid ordinate of the point, in units of cells of this group.
+     * @param  gridY  second grid ordinate of the point, in units of cells of this group.
+     * @return index of the sub-grid to use for interpolating the given point.
+     */
+    public int indexOf(final double gridX, final double gridY) {
+        int found = -1;
+        int[] candidates = roots;
+search: for (;;) {
+            for (final int i : candidates) {
+                if (xmin[i] > gridX) break;                         // Children are sorted by 'xmin'.
+                if (gridX <= xmax[i] && gridY >= ymin[i] && gridY <= ymax[i]) {
+                    found = i;
+                    candidates = children[i];
+                    continue search;
+                }
+            }
+            break;
+        }
+        if (found < 0) {
+            double min = Double.POSITIVE_INFINITY;
+            for (final int i : roots) {
+                final double dx = Math.max(0, Math.max(xmin[i] - gridX, gridX - xmax[i]));
+                final double dy = Math.max(0, Math.max(ymin[i] - gridY, gridY - ymax[i]));
+                final double d  = dx*dx + dy*dy;
+                if (!(d >= min)) {                                  // Use '!' for accepting NaN.
+                    min = d;
+                    found = i;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Interpolates the translation to apply in the given sub-grid. This method is equivalent to
+     * {@link #interpolateInCell(double, double, double[])} but without searching the sub-grid.
+     * It allows callers to group points by sub-grid for better locality of memory accesses.
+     *
+     * @param  index   index of the sub-grid, as returned by {@link #indexOf(double, double)}.
+     * @param  gridX   first grid ordinate of the point, in units of cells of this group.
+     * @param  gridY   second grid ordinate of the point, in units of cells of this group.
+     * @param  vector  a pre-allocated array where to write the translation vector.
+     */
+    public void interpolateInSubgrid(final int index, final double gridX, final double gridY, final double[] vector) {
+        final double sx = scaleX[index];
+        final double sy = scaleY[index];
+        subgrids[index].interpolateInCell(gridX * sx + offsetX[index], gridY * sy + offsetY[index], vector);
+        vector[0] /= sx;
+        vector[1] /= sy;
+    }
+
+    /**
+     * Interpolates the translation to apply for the given grid indices.
+     * The interpolation is done in the finest sub-grid containing the point.
+     *
+     * @param  gridX   first grid ordinate of the point for which to get the translation.
+     * @param  gridY   second grid ordinate of the point for which to get the translation.
+     * @param  vector  a pre-allocated array where to write the translation vector.
+     */
+    @Override
+    public void interpolateInCell(final double gridX, final double gridY, final double[] vector) {
+        interpolateInSubgrid(indexOf(gridX, gridY), gridX, gridY, vector);
+    }
+
+    /**
+     * Returns the derivative at the given grid indices.
+     * The derivative is computed in the finest sub-grid containing the point.
+     *
+     * @param  gridX  first grid ordinate of the point for which to get the translation.
+     * @param  gridY  second grid ordinate of the point for which to get the translation.
+     * @return the derivative at the given location.
+     */
+    @Override
+    public Matrix derivativeInCell(final double gridX, final double gridY) {
+        final int i = indexOf(gridX, gridY);
+        final double[] scale = {scaleX[i], scaleY[i]};
+        final Matrix derivative = subgrids[i].derivativeInCell(gridX * scale[0] + offsetX[i], gridY * scale[1] + offsetY[i]);
+        for (int j=Math.min(derivative.getNumRow(), scale.length); --j >= 0;) {
+            for (int k=0; k<scale.length; k++) {
+                final double identity = (j == k) ? 1 : 0;
+                derivative.setElement(j, k, (derivative.getElement(j, k) - identity) * scale[k] / scale[j] + identity);
+            }
+        }
+        return derivative;
+    }
+
+    /**
+     * Returns the number of shift dimension.
+     */
+    @Override
+    public int getTranslationDimensions() {
+        return subgrids[0].getTranslationDimensions();
+    }
+
+    /**
+     * Returns the translation interpolated at the center of the given cell of this group.
+     * The value is interpolated in the finest sub-grid containing the cell center.
+     *
+     * @param  dim    the dimension for which to get an average value.
+     * @param  gridX  the grid index along the <var>x</var> axis, in units of cells of this group.
+     * @param  gridY  the grid index along the <var>y</var> axis, in units of cells of this group.
+     * @return the offset at the given dimension in the grid cell at the given index.
+     */
+    @Override
+    public double getCellValue(final int dim, final int gridX, final int gridY) {
+        final double[] vector = new double[getTranslationDimensions()];
+        interpolateInCell(gridX, gridY, vector);
+        return vector[dim];
+    }
+
+    /**
+     * Returns the finest precision of all sub-grids, in units of cells of this group.
+     *
+     * @return a precision for the translation values in this grid.
+     */
+    @Override
+    public double getCellPrecision() {
+        double precision = Double.POSITIVE_INFINITY;
+        for (int i=0; i<subgrids.length; i++) {
+            final double p = subgrids[i].getCellPrecision();
+            precision = Math.min(precision, Math.min(p / Math.abs(scaleX[i]), p / Math.abs(scaleY[i])));
+        }
+        return precision;
+    }
+}
@@ -21,8 +21,11 @@ import java.util.logging.LogRecord;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.nio.file.NoSuchFileException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import org.opengis.util.FactoryException;
 import org.apache.sis.util.resources.Errors;
@@ -37,7 +40,7 @@ import org.apache.sis.referencing.factory.MissingFactoryResourceException;
  * Base class of datum shift grid loaders.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.7
  * @module
  */
@@ -136,6 +139,33 @@ class DatumShiftGridLoader {
         buffer.position(p);
     }
 
+    /**
+     * Maps in memory the given amount of bytes starting at the current {@linkplain #buffer} position.
+     * After this method call, the buffer is empty and the channel is positioned after the mapped region,
+     * so the next read operation will continue after the mapped data. The mapping stay valid after the
+     * channel has been closed.
+     *
+     * @param  length  number of bytes to map.
+     * @param  order   the byte order of the {@code float} values in the file.
+     * @return a read-only view over the mapped region, or {@code null} if the channel is not a file channel.
+     * @throws EOFException if the file does not contain the requested amount of bytes.
+     * @throws IOException if an other kind of error occurred while mapping the file.
+     */
+    final FloatBuffer map(final long length, final ByteOrder order) throws IOException {
+        if (!(channel instanceof FileChannel) || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        final FileChannel fc = (FileChannel) channel;
+        final long start = fc.position() - buffer.remaining();
+        if (start + length > fc.size()) {
+            throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, file));
+        }
+        final FloatBuffer data = fc.map(FileChannel.MapMode.READ_ONLY, start, length).order(order).asFloatBuffer();
+        fc.position(start + length);
+        buffer.clear().limit(0);
+        return data;
+    }
+
     /**
      * Logs a message about a grid which is about to be loaded.
      *
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.referencing.provider;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import javax.measure.Unit;
+import javax.measure.Quantity;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.apache.sis.math.DecimalFunctions;
+
+
+/**
+ * An implementation of {@link DatumShiftGridFile} which reads the offset values directly from a memory-mapped file.
+ * Contrarily to {@link DatumShiftGridFile.Float}, this class does not copy the grid in the Java heap: values are
+ * read in place when {@link #getCellValue(int, int, int)} is invoked, and the operating system loads the file pages
+ * only when they are accessed. This is suitable for large national grids, which can be opened instantaneously and
+ * kept in the {@link #CACHE} at almost no memory cost.
+ *
+ * <p>The values read from the file are divided by a constant for each dimension, then converted to {@code double}
+ * in the same way than {@code DatumShiftGridFile.Float}. Consequently the two implementations return identical
+ * values for the same file.</p>
+ *
+ * <p>The layout of values in the mapped file is described by the following properties, all in units of
+ * {@code float} values:</p>
+ * <ul>
+ *   <li>{@code offsets[dim]}: index of the first value (at grid index 0,0) for dimension {@code dim}.</li>
+ *   <li>{@code cellStride}: distance between two consecutive cells in a row.</li>
+ *   <li>{@code rowStride}: distance between two consecutive rows.</li>
+ * </ul>
+ *
+ * Instances of this class are serialized as {@link DatumShiftGridFile.Float} instances,
+ * since mapped buffers can not be serialized.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class DatumShiftGridMapped<C extends Quantity<C>, T extends Quantity<T>> extends DatumShiftGridFile<C,T> {
+    /**
+     * Serial number for inter-operability with different versions.
+     */
+    private static final long serialVersionUID = 7633898461294447510L;
+
+    /**
+     * Minimal file size, in bytes, for memory-mapping a datum shift grid file. Smaller files are loaded
+     * in {@code float[]} arrays, which is cheap for small grids and give a chance to
+     * {@link DatumShiftGridCompressed} to reduce the memory usage.
+     */
+    static final long MAPPING_THRESHOLD = 1 << 20;
+
+    /**
+     * The mapped values for each dimension. Different dimensions may share the same buffer.
+     * All accesses use absolute {@code get(int)} methods, which make this buffer safe for
+     * concurrent reads.
+     */
+    private final transient FloatBuffer[] data;
+
+    /**
+     * Index in the {@linkplain #data} buffer of the first value for each dimension.
+     */
+    private final int[] offsets;
+
+    /**
+     * Distance between two consecutive cells in a row, and between two consecutive rows,
+     * in units of {@code float} values.
+     */
+    private final int cellStride, rowStride;
+
+    /**
+     * The values by which to divide the values read from the file for each dimension.
+     * This is typically the cell size, since {@link #isCellValueRatio()} is {@code true}
+     * for NADCON and NTv2 grids.
+     */
+    private final double[] divisors;
+
+    /**
+     * Index in the {@linkplain #data} buffer of the first accuracy value for each dimension,
+     * or {@code null} if the file does not provide accuracy values. Those values are divided
+     * by the same {@linkplain #divisors} than the offset values.
+     */
+    private final int[] accuracyOffsets;
+
+    /**
+     * Creates a new datum shift grid reading the values in the given buffers.
+     * If {@code accuracyOffsets} is null, then the loader is responsible for
+     * assigning a value to the {@link #accuracy} field.
+     */
+    DatumShiftGridMapped(final Unit<C> coordinateUnit,
+                         final Unit<T> translationUnit,
+                         final boolean isCellValueRatio,
+                         final double x0, final double y0,
+                         final double Δx, final double Δy,
+                         final int    nx, final int    ny,
+                         final ParameterDescriptorGroup descriptor,
+                         final FloatBuffer[] data, final int[] offsets,
+                         final int cellStride, final int rowStride,
+                         final double[] divisors, final int[] accuracyOffsets,
+                         final Path... files) throws NoninvertibleTransformException
+    {
+        super(coordinateUnit, translationUnit, isCellValueRatio, x0, y0, Δx, Δy, nx, ny, descriptor, files);
+        this.data            = data;
+        this.offsets         = offsets;
+        this.cellStride      = cellStride;
+        this.rowStride       = rowStride;
+        this.divisors        = divisors;
+        this.accuracyOffsets = accuracyOffsets;
+    }
+
+    /**
+     * Returns {@code this} since the mapped data are already shared by the operating system
+     * between all grids mapping the same file. This method should not be invoked anyway,
+     * because the loaders do not try to share the data of mapped grids.
+     */
+    @Override
+    protected DatumShiftGridFile<C,T> setData(final Object[] other) {
+        return this;
+    }
+
+    /**
+     * Returns direct references (not cloned) to the mapped buffers. This method is for
+     * {@link #equals(Object)} and {@link #hashCode()} implementations only and should not
+     * be invoked in other context.
+     */
+    @Override
+    @SuppressWarnings("ReturnOfCollectionOrArrayField")
+    protected Object[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns a nominal cost for the {@link #CACHE}, since the mapped data do not reside in the Java heap.
+     */
+    @Override
+    int cost() {
+        return 1;
+    }
+
+    /**
+     * Returns {@code true} since the values of this grid are memory-mapped.
+     */
+    @Override
+    boolean isMapped() {
+        return true;
+    }
+
+    /**
+     * Returns the number of shift dimension.
+     */
+    @Override
+    public int getTranslationDimensions() {
+        return data.length;
+    }
+
+    /**
+     * Returns the cell value at the given dimension and grid index.
+     * This method performs the same conversions than {@link DatumShiftGridFile.Float#getCellValue(int, int, int)}.
+     *
+     * @param  dim    the dimension for which to get an average value.
+     * @param  gridX  the grid index along the <var>x</var> axis, from 0 inclusive to {@link #nx} exclusive.
+     * @param  gridY  the grid index along the <var>y</var> axis, from 0 inclusive to {@code  ny} exclusive.
+     * @return the offset at the given dimension in the grid cell at the given index.
+     */
+    @Override
+    public double getCellValue(final int dim, final int gridX, final int gridY) {
+        final float value = data[dim].get(offsets[dim] + gridX*cellStride + gridY*rowStride);
+        return DecimalFunctions.floatToDouble((float) (value / divisors[dim]));
+    }
+
+    /**
+     * Suggests a precision for the translation values in this grid. If the file provides accuracy values,
+     * then the best accuracy is computed when this method is first invoked rather than at loading time,
+     * for avoiding to read the whole file before it is needed.
+     *
+     * @return a precision for the translation values in this grid.
+     */
+    @Override
+    public synchronized double getCellPrecision() {
+        if (accuracyOffsets != null && Double.isNaN(accuracy)) {
+            final int ny = getGridSize()[1];
+            for (int gridY=0; gridY<ny; gridY++) {
+                for (int gridX=0; gridX<nx; gridX++) {
+                    final int i = gridX*cellStride + gridY*rowStride;
+                    double value = Double.POSITIVE_INFINITY;
+                    for (int dim=0; dim<accuracyOffsets.length; dim++) {
+                        value = Math.min(value, data[dim].get(accuracyOffsets[dim] + i) / divisors[dim]);
+                    }
+                    if (value > 0 && !(value >= accuracy)) {        // Use '!' for replacing the initial NaN.
+                        accuracy = value;
+                    }
+                }
+            }
+        }
+        return super.getCellPrecision();
+    }
+
+    /**
+     * Replaces this grid by a {@link DatumShiftGridFile.Float} instance for serialization,
+     * since the mapped buffers can not be serialized.
+     *
+     * @return the object to serialize in place of this grid.
+     */
+    protected Object writeReplace() {
+        getCellPrecision();                             // Ensure that the accuracy is computed.
+        final int ny = getGridSize()[1];
+        final float[][] values = new float[data.length][nx * ny];
+        for (int dim=0; dim<values.length; dim++) {
+            final float[] array = values[dim];
+            for (int gridY=0; gridY<ny; gridY++) {
+                for (int gridX=0; gridX<nx; gridX++) {
+                    array[gridX + gridY*nx] = (float) (data[dim].get(offsets[dim] + gridX*cellStride + gridY*rowStride) / divisors[dim]);
+                }
+            }
+        }
+        return new Float<>(this, values);
+    }
+}
@@ -157,28 +157,16 @@ public final class NADCON extends AbstractProvider {
             try {
                 grid = handler.peek();
                 if (grid == null) {
-                    final Loader loader;
-                    Path file = latitudeShifts;
+                    final boolean map;
                     try {
-                        // Note: buffer size must be divisible by the size of 'float' data type.
-                        final ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
-                        final FloatBuffer fb = buffer.asFloatBuffer();
-                        try (ReadableByteChannel in = Files.newByteChannel(rlat)) {
-                            DatumShiftGridLoader.log(NADCON.class, CharSequences.commonPrefix(
-                                    latitudeShifts.toString(), longitudeShifts.toString()).toString() + '…');
-                            loader = new Loader(in, buffer, file);
-                            loader.readGrid(fb, null, longitudeShifts);
-                        }
-                        buffer.clear();
-                        file = longitudeShifts;
-                        try (ReadableByteChannel in = Files.newByteChannel(rlon)) {
-                            new Loader(in, buffer, file).readGrid(fb, loader, null);
-                        }
-                    } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
-                        throw DatumShiftGridLoader.canNotLoad("NADCON", file, e);
+                        map = Files.size(rlat) + Files.size(rlon) >= DatumShiftGridMapped.MAPPING_THRESHOLD;
+                    } catch (IOException e) {
+                        throw DatumShiftGridLoader.canNotLoad("NADCON", latitudeShifts, e);
+                    }
+                    grid = load(rlat, rlon, latitudeShifts, longitudeShifts, map);
+                    if (!(grid instanceof DatumShiftGridMapped<?,?>)) {
+                        grid = grid.useSharedData();
                     }
-                    grid = DatumShiftGridCompressed.compress(loader.grid, null, loader.grid.accuracy);
-                    grid = grid.useSharedData();
                 }
             } finally {
                 handler.putAndUnlock(grid);
@@ -187,6 +175,50 @@ public final class NADCON extends AbstractProvider {
         return grid.castTo(Angle.class, Angle.class);
     }
 
+    /**
+     * Loads the grid from the given files without looking in the cache. If {@code map} is {@code true} and
+     * both files are binary files on the default file system, then this method memory-maps the grid values
+     * instead than copying them in {@code float[]} arrays. Otherwise this method fallbacks on the copy.
+     *
+     * @param  rlat             absolute path to the latitude shifts file.
+     * @param  rlon             absolute path to the longitude shifts file.
+     * @param  latitudeShifts   name of the grid file for latitude shifts.
+     * @param  longitudeShifts  name of the grid file for longitude shifts.
+     * @param  map              whether to memory-map the grid values.
+     */
+    static DatumShiftGridFile<Angle,Angle> load(final Path rlat, final Path rlon,
+            final Path latitudeShifts, final Path longitudeShifts, final boolean map) throws FactoryException
+    {
+        Path file = latitudeShifts;
+        try (ReadableByteChannel inLat = Files.newByteChannel(rlat);
+             ReadableByteChannel inLon = Files.newByteChannel(rlon))
+        {
+            DatumShiftGridLoader.log(NADCON.class, CharSequences.commonPrefix(
+                    latitudeShifts.toString(), longitudeShifts.toString()).toString() + '…');
+            // Note: buffer size must be divisible by the size of 'float' data type.
+            final ByteBuffer bufLat = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+            final ByteBuffer bufLon = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+            final FloatBuffer fbLat = bufLat.asFloatBuffer();
+            final FloatBuffer fbLon = bufLon.asFloatBuffer();
+            final Loader latitude = new Loader(inLat, bufLat, file);
+            file = longitudeShifts;
+            final Loader longitude = new Loader(inLon, bufLon, file);
+            if (map) {
+                final DatumShiftGridFile<Angle,Angle> grid = longitude.mapGrid(latitude, longitudeShifts);
+                if (grid != null) {
+                    return grid;
+                }
+            }
+            file = latitudeShifts;
+            latitude.readGrid(fbLat, null, longitudeShifts);
+            file = longitudeShifts;
+            longitude.readGrid(fbLon, latitude, null);
+            return DatumShiftGridCompressed.compress(latitude.grid, null, latitude.grid.accuracy);
+        } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
+            throw DatumShiftGridLoader.canNotLoad("NADCON", file, e);
+        }
+    }
+
 
 
 
@@ -395,12 +427,7 @@ public final class NADCON extends AbstractProvider {
                         true, x0, y0, Δx, Δy, nx, ny, PARAMETERS, file, longitudeShifts);
                 grid.accuracy = SECOND_PRECISION / DEGREES_TO_SECONDS;
             } else {
-                if (x0 != latitudeShifts.x0 || Δx != latitudeShifts.Δx || nx != latitudeShifts.nx ||
-                    y0 != latitudeShifts.y0 || Δy != latitudeShifts.Δy || ny != latitudeShifts.ny || nz != latitudeShifts.nz)
-                {
-                    throw new FactoryException(Errors.format(Errors.Keys.MismatchedGridGeometry_2,
-                            latitudeShifts.file.getFileName(), file.getFileName()));
-                }
+                ensureSameGeometry(latitudeShifts);
                 dim   = 0;                                              // Dimension of longitudes
                 scale = -DEGREES_TO_SECONDS * Δx;                       // NADCON shifts are positive west.
                 grid  = latitudeShifts.grid;                            // Continue writing in existing grid.
@@ -448,6 +475,62 @@ public final class NADCON extends AbstractProvider {
             }
         }
 
+        /**
+         * Ensures that the grid described by this loader has the same geometry than the given grid.
+         *
+         * @param  latitudeShifts  the loader for the latitude shifts file.
+         */
+        private void ensureSameGeometry(final Loader latitudeShifts) throws FactoryException {
+            if (x0 != latitudeShifts.x0 || Δx != latitudeShifts.Δx || nx != latitudeShifts.nx ||
+                y0 != latitudeShifts.y0 || Δy != latitudeShifts.Δy || ny != latitudeShifts.ny || nz != latitudeShifts.nz)
+            {
+                throw new FactoryException(Errors.format(Errors.Keys.MismatchedGridGeometry_2,
+                        latitudeShifts.file.getFileName(), file.getFileName()));
+            }
+        }
+
+        /**
+         * Creates a grid reading the values in place in memory-mapped files. This method shall be invoked
+         * on the loader for the longitude shifts file, before any call to {@code readGrid(…)}. The files
+         * can be mapped only if they are binary files on the default file system.
+         *
+         * <p>Each row of the mapped files begins with a separator value, followed by the {@code nx} shift values.
+         * The separator values are verified by this method.
+         * The conversions from seconds of angle to cell units are done by {@link DatumShiftGridMapped} when the
+         * values are requested, using the same formulas than {@link #readGrid(FloatBuffer, Loader, Path)}.</p>
+         *
+         * @param  latitudeShifts   the loader for the latitude shifts file.
+         * @param  longitudeShifts  the file for the longitude grid.
+         * @return the mapped grid, or {@code null} if the files can not be mapped.
+         */
+        final DatumShiftGridFile<Angle,Angle> mapGrid(final Loader latitudeShifts, final Path longitudeShifts)
+                throws IOException, FactoryException, NoninvertibleTransformException
+        {
+            if (ascii != null || latitudeShifts.ascii != null) {
+                return null;
+            }
+            ensureSameGeometry(latitudeShifts);
+            final long length = (nx + 1) * (long) ny * DATA_SIZE;
+            final FloatBuffer lon = map(length, ByteOrder.LITTLE_ENDIAN);
+            if (lon == null) return null;
+            final FloatBuffer lat = latitudeShifts.map(length, ByteOrder.LITTLE_ENDIAN);
+            if (lat == null) return null;
+            /*
+             * The first float of every row is a separator which is expected to be zero, as verified by readGrid(…).
+             * Checking it here protects against corrupted files or files which are not NADCON grids. This touches
+             * only one value per row, which is negligible compared to the cost of reading the whole grid.
+             */
+            for (int i = ny * (nx + 1); (i -= nx + 1) >= 0;) {
+                if (lon.get(i) != 0) throw unexpectedFormat();
+                if (lat.get(i) != 0) throw latitudeShifts.unexpectedFormat();
+            }
+            final DatumShiftGridMapped<Angle,Angle> grid = new DatumShiftGridMapped<>(Units.DEGREE, Units.DEGREE,
+                    true, x0, y0, Δx, Δy, nx, ny, PARAMETERS, new FloatBuffer[] {lon, lat}, new int[] {1, 1}, 1, nx + 1,
+                    new double[] {-DEGREES_TO_SECONDS * Δx, DEGREES_TO_SECONDS * Δy}, null, latitudeShifts.file, longitudeShifts);
+            grid.accuracy = SECOND_PRECISION / DEGREES_TO_SECONDS;
+            return grid;
+        }
+
         /**
          * Invoked when the given {@code FloatBuffer} buffer is empty. This method requests one {@code float}
          * from the channel, but the channel will usually give us as many data as the buffer can contain.
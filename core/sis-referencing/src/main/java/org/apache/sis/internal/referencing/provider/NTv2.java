@@ -26,6 +26,7 @@ import java.util.logging.LogRecord;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.channels.ReadableByteChannel;
@@ -143,15 +144,15 @@ public final class NTv2 extends AbstractProvider {
             try {
                 grid = handler.peek();
                 if (grid == null) {
-                    try (ReadableByteChannel in = Files.newByteChannel(resolved)) {
-                        DatumShiftGridLoader.log(NTv2.class, file);
-                        final Loader loader = new Loader(in, file);
-                        grid = loader.readGrid();
-                        loader.reportWarnings();
+                    try {
+                        final boolean map = Files.size(resolved) >= DatumShiftGridMapped.MAPPING_THRESHOLD;
+                        grid = load(resolved, file, map);
                     } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
                         throw DatumShiftGridLoader.canNotLoad("NTv2", file, e);
                     }
-                    grid = grid.useSharedData();
+                    if (!grid.isMapped()) {
+                        grid = grid.useSharedData();
+                    }
                 }
             } finally {
                 handler.putAndUnlock(grid);
@@ -160,6 +161,28 @@ public final class NTv2 extends AbstractProvider {
         return grid.castTo(Angle.class, Angle.class);
     }
 
+    /**
+     * Loads the grid from the given file without looking in the cache. If {@code map} is {@code true},
+     * then this method memory-maps the grid values instead than copying them in {@code float[]} arrays.
+     * The mapping may not be possible if the file is not on the default file system, in which case this
+     * method fallbacks on the copy.
+     *
+     * @param  resolved  the absolute path to the file to read.
+     * @param  file      name of the datum shift grid file, used for logging and error reporting.
+     * @param  map       whether to memory-map the grid values.
+     */
+    static DatumShiftGridFile<Angle,Angle> load(final Path resolved, final Path file, final boolean map)
+            throws IOException, FactoryException, NoninvertibleTransformException
+    {
+        try (ReadableByteChannel in = Files.newByteChannel(resolved)) {
+            DatumShiftGridLoader.log(NTv2.class, file);
+            final Loader loader = new Loader(in, file);
+            final DatumShiftGridFile<Angle,Angle> grid = loader.readAllGrids(map);
+            loader.reportWarnings();
+            return grid;
+        }
+    }
+
 
 
 
@@ -168,7 +191,7 @@ public final class NTv2 extends AbstractProvider {
      *
      * @author  Simon Reynard (Geomatys)
      * @author  Martin Desruisseaux (Geomatys)
-     * @version 0.7
+     * @version 0.8
      * @since   0.7
      * @module
      */
@@ -238,10 +261,16 @@ public final class NTv2 extends AbstractProvider {
 
         /**
          * Number of grids remaining in the file. This value is set in the constructor,
-         * then decremented at every call to {@link #readGrid()}.
+         * then decremented at every call to {@link #readGrid(boolean)}.
          */
         private int remainingGrids;
 
+        /**
+         * Values of the {@code "SUB_NAME"} and {@code "PARENT"} records of the last grid read by
+         * {@link #readGrid(boolean)}, or {@code null} if those records were not present.
+         */
+        private String subgridName, parentName;
+
         /**
          * Creates a new reader for the given channel.
          * This constructor parses the header immediately, but does not read any grid.
@@ -269,18 +298,50 @@ public final class NTv2 extends AbstractProvider {
             }
         }
 
+        /**
+         * Reads all grids in the file. If the file contains more than one grid, then the grids are organized
+         * in a hierarchy using the {@code "SUB_NAME"} and {@code "PARENT"} records. Grids having no parent,
+         * or a parent not found in the file (typically {@code "NONE"}), are root grids.
+         *
+         * @param  map  whether to memory-map the grid values instead than copying them in arrays.
+         */
+        final DatumShiftGridFile<Angle,Angle> readAllGrids(final boolean map)
+                throws IOException, FactoryException, NoninvertibleTransformException
+        {
+            final int n = remainingGrids;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            final DatumShiftGridFile<Angle,Angle>[] grids = new DatumShiftGridFile[n];
+            final String[] parentNames = new String[n];
+            final Map<String,Integer> indices = new HashMap<>();
+            for (int i=0; i<n; i++) {
+                grids[i] = readGrid(map);
+                parentNames[i] = parentName;
+                if (subgridName != null && indices.put(subgridName, i) != null) {
+                    throw new FactoryException(Errors.format(Errors.Keys.DuplicatedElement_1, subgridName));
+                }
+            }
+            final int[] parents = new int[n];
+            for (int i=0; i<n; i++) {
+                final Integer p = (parentNames[i] != null) ? indices.get(parentNames[i]) : null;
+                parents[i] = (p != null) ? p : -1;
+            }
+            return DatumShiftGridGroup.create(grids, parents, PARAMETERS, file);
+        }
+
         /**
          * Reads the next grid, starting at the current position. A NTv2 file can have many grids.
          * This can be used for grids having different resolutions depending on the geographic area.
          * The first grid can cover a large area with a coarse resolution, and next grids cover smaller
-         * areas overlapping the first grid but with finer resolution.
-         *
-         * Current SIS implementation does not yet handle the above-cited hierarchy of grids.
-         * For now we just take the first one.
+         * areas overlapping the first grid but with finer resolution. The hierarchy of grids is built
+         * by {@link #readAllGrids(boolean)}.
          *
          * <p>NTv2 grids contain also information about shifts accuracy. This is not yet handled by SIS.</p>
+         *
+         * @param  map  whether to memory-map the grid values instead than copying them in arrays.
          */
-        final DatumShiftGridFile<Angle,Angle> readGrid() throws IOException, FactoryException, NoninvertibleTransformException {
+        final DatumShiftGridFile<Angle,Angle> readGrid(final boolean map)
+                throws IOException, FactoryException, NoninvertibleTransformException
+        {
             if (--remainingGrids < 0) {
                 throw new FactoryException(Errors.format(Errors.Keys.CanNotRead_1, file));
             }
@@ -328,7 +389,22 @@ public final class NTv2 extends AbstractProvider {
              * divide translation values by dx or dy at reading time. Note that this free us from reversing the
              * sign of longitude translations; instead, this reversal will be handled by grid.coordinateToGrid
              * MathTransform and its inverse.
+             *
+             * If the grid can be mapped in memory, the values of each cell are read in place in the following order:
+             * latitude shift, longitude shift, latitude accuracy, longitude accuracy. The division by dx and dy is
+             * done by DatumShiftGridMapped when the values are requested.
              */
+            subgridName = (String) header.get("SUB_NAME");
+            parentName  = (String) header.get("PARENT");
+            if (map) {
+                final FloatBuffer data = map(count * (long) RECORD_LENGTH, buffer.order());
+                if (data != null) {
+                    header.keySet().retainAll(Arrays.asList(overviewKeys));
+                    return new DatumShiftGridMapped<>(unit, unit, true, -xmin, ymin, -dx, dy, width, height, PARAMETERS,
+                            new FloatBuffer[] {data, data}, new int[] {1, 0}, 4, 4 * width,
+                            new double[] {dx, dy}, new int[] {3, 2}, file);
+                }
+            }
             final DatumShiftGridFile.Float<Angle,Angle> grid = new DatumShiftGridFile.Float<>(2,
                     unit, unit, true, -xmin, ymin, -dx, dy, width, height, PARAMETERS, file);
             @SuppressWarnings("MismatchedReadAndWriteOfArray") final float[] tx = grid.offsets[0];
@@ -22,11 +22,19 @@ import java.util.List;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.WeakHashMap;
 import java.util.IdentityHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.LogRecord;
 import java.lang.ref.WeakReference;
 import java.lang.ref.PhantomReference;
@@ -218,6 +226,12 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
      */
     private int remainingDAOs;
 
+    /**
+     * The maximal amount of Data Access Objects to use concurrently, as given at construction time.
+     * This is used for determining the number of concurrent tasks in {@link #prefetch(Class, Collection)}.
+     */
+    private final int maxConcurrentQueries;
+
     /**
      * {@code true} if the call to {@link #closeExpired()} is scheduled for future execution in the background
      * cleaner thread. A value of {@code true} implies that this factory contains at least one active data access.
@@ -297,6 +311,7 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
          * object (using the same key), then the default Cache implementation considers that situation as an
          * error unless the above property has been set to 'true'.
          */
+        this.maxConcurrentQueries = maxConcurrentQueries;
         remainingDAOs = maxConcurrentQueries;
         cache = new Cache<>(20, maxStrongReferences, false);
         cache.setKeyCollisionAllowed(true);
@@ -680,6 +695,126 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
         }
     }
 
+    /**
+     * Creates in advance the objects for the given codes and stores them in the cache.
+     * This method can be invoked at application start-up time for warming the cache with the objects
+     * known to be frequently used, in order to avoid the database access latency on first use.
+     *
+     * <p>Objects are created in parallel using up to {@code maxConcurrentQueries} Data Access Objects
+     * (the value given at construction time), each task querying its own DAO. Each object is created
+     * as by a call to {@link #createObject(String)} (or the method for the given type), so the objects
+     * on which it depends (datum, coordinate system, operation method, <i>etc.</i>) are still fetched
+     * by separated queries. This method does not batch those queries (the EPSG factory batches only
+     * the queries for the names of the axes of a coordinate system).
+     * The tasks are executed by a pool of daemon threads shared by all factories.
+     * Objects that can not be created are logged and skipped; they do not prevent the creation of other objects.</p>
+     *
+     * <p>If the thread invoking this method is interrupted, then no new code is given to the tasks and this method
+     * throws an exception. The worker threads are not interrupted, so the queries in progress are completed
+     * normally and their results are still cached.</p>
+     *
+     * @param  type   the type of objects to create, for example {@code CoordinateReferenceSystem.class}.
+     * @param  codes  the authority codes of the objects to create.
+     * @return number of objects successfully created or found in the cache.
+     * @throws FactoryException if this method has been interrupted before completion.
+     *
+     * @since 0.8
+     */
+    public int prefetch(final Class<? extends IdentifiedObject> type, final Collection<String> codes)
+            throws FactoryException
+    {
+        ArgumentChecks.ensureNonNull("type",  type);
+        ArgumentChecks.ensureNonNull("codes", codes);
+        final AuthorityFactoryProxy<?> proxy = AuthorityFactoryProxy.getInstance(type);
+        final Iterator<String> it = codes.iterator();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final int numTasks = Math.min(maxConcurrentQueries, codes.size());
+        final List<Future<Integer>> results = new ArrayList<>(numTasks);
+        int count = 0;
+        try {
+            for (int i=0; i<numTasks; i++) {
+                results.add(PrefetchExecutor.INSTANCE.submit(new Callable<Integer>() {
+                    @Override public Integer call() {
+                        int count = 0;
+                        String code;
+                        while ((code = next(it, cancelled)) != null) {
+                            try {
+                                create(proxy, code);
+                                count++;
+                            } catch (FactoryException | RuntimeException e) {
+                                Logging.recoverableException(Logging.getLogger(Loggers.CRS_FACTORY),
+                                        ConcurrentAuthorityFactory.class, "prefetch", e);
+                            }
+                        }
+                        return count;
+                    }
+                }));
+            }
+            for (final Future<Integer> result : results) {
+                count += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FactoryException(e.getLocalizedMessage(), e);
+        } catch (ExecutionException | RejectedExecutionException e) {
+            throw new FactoryException(e.getLocalizedMessage(), e);
+        } finally {
+            /*
+             * Stop giving codes to the tasks if we did not complete normally. We do not interrupt the
+             * worker threads since they may be in the middle of a JDBC operation, and an interruption
+             * could close the connection used by the Data Access Object.
+             */
+            cancelled.set(true);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the next code to prefetch, or {@code null} if none or if the prefetch has been cancelled.
+     * The given iterator is shared by all tasks created by {@link #prefetch(Class, Collection)}.
+     */
+    private static String next(final Iterator<String> it, final AtomicBoolean cancelled) {
+        synchronized (it) {
+            return (!cancelled.get() && it.hasNext()) ? it.next() : null;
+        }
+    }
+
+    /**
+     * Holder of the executor used by {@link #prefetch(Class, Collection)}, created only when first needed.
+     * The pool has a fixed maximal number of threads, which are daemon threads terminated after one minute
+     * of inactivity. This class is also the task which stops the pool at shutdown time.
+     */
+    private static final class PrefetchExecutor implements ThreadFactory, Callable<Object> {
+        /** Maximal number of threads in the pool. Tasks in excess wait in the queue. */
+        private static final int MAX_THREADS = 8;
+
+        /** The executor shared by all {@code ConcurrentAuthorityFactory} instances. */
+        static final ThreadPoolExecutor INSTANCE;
+        static {
+            final PrefetchExecutor factory = new PrefetchExecutor();
+            INSTANCE = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 1, TimeUnit.MINUTES,
+                                              new LinkedBlockingQueue<Runnable>(), factory);
+            INSTANCE.allowCoreThreadTimeOut(true);
+            Shutdown.register(factory);
+        }
+
+        /** Creates a new daemon thread for the pool. */
+        @Override public Thread newThread(final Runnable task) {
+            final Thread thread = new Thread(task, "ConcurrentAuthorityFactory prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        /**
+         * Stops accepting new tasks. Invoked at shutdown time only. The threads are not interrupted
+         * for the same reason than in {@code prefetch(…)}; tasks already submitted are completed.
+         */
+        @Override public Object call() {
+            INSTANCE.shutdown();
+            return null;
+        }
+    }
+
     /**
      * Returns the database or specification that defines the codes recognized by this factory.
      * The default implementation performs the following steps:
@@ -1635,7 +1770,8 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
     /**
      * Returns an object from a code using the given proxy. This method first checks in the cache.
      * If no object exists in the cache for the given code, then a lock is created and the object
-     * creation is delegated to the {@linkplain #getDataAccess() Data Access Object}.
+     * creation is delegated to {@link #createWithoutDataAccess(Class, String)} if possible,
+     * or to the {@linkplain #getDataAccess() Data Access Object} otherwise.
      * The result is then stored in the cache and returned.
      *
      * @param  <T>    the type of the object to be returned.
@@ -1654,12 +1790,14 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
             try {
                 value = handler.peek();
                 if (!type.isInstance(value)) {
-                    final T result;
-                    final DAO factory = getDataAccess();
-                    try {
-                        result = proxy.create(factory, key.code);
-                    } finally {
-                        release(null, type, code);
+                    T result = createWithoutDataAccess(type, key.code);
+                    if (result == null) {
+                        final DAO factory = getDataAccess();
+                        try {
+                            result = proxy.create(factory, key.code);
+                        } finally {
+                            release(null, type, code);
+                        }
                     }
                     if (isCacheable(code, result)) {
                         value = result;                                 // For the finally block below.
@@ -1965,6 +2103,44 @@ public abstract class ConcurrentAuthorityFactory<DAO extends GeodeticAuthorityFa
         return true;
     }
 
+    /**
+     * Creates an object without Data Access Object, or returns {@code null} if this factory can not do so.
+     * This method is invoked by the {@code createFoo(String)} methods when the requested object is not in
+     * the cache, before to fetch a Data Access Object. A non-null value is cached and returned, so the Data
+     * Access Object is not used at all. This is useful for subclasses that can create some objects from a
+     * faster source than the Data Access Objects, for example a precomputed snapshot of a database.
+     *
+     * <p>The default implementation always returns {@code null}.</p>
+     *
+     * @param  <T>   the type of the object to create.
+     * @param  type  the type of the object to create.
+     * @param  code  the {@linkplain #normalizeCode(String) normalized} authority code.
+     * @return the object for the given code, or {@code null} for delegating to a Data Access Object.
+     * @throws FactoryException if an error occurred while creating the object.
+     *
+     * @since 0.8
+     */
+    protected <T> T createWithoutDataAccess(Class<T> type, String code) throws FactoryException {
+        return null;
+    }
+
+    /**
+     * Returns whether an object of the given type is in the cache for the given code.
+     * This method does not create the object and does not wait for an object being created by another thread.
+     * Subclasses can use this method for avoiding to fetch information needed only for creating objects
+     * that are already cached.
+     *
+     * @param  type  the type of the object, for example {@code CoordinateSystemAxis.class}.
+     * @param  code  the authority code of the object.
+     * @return whether an object of the given type is cached for the given code.
+     * @throws FactoryException if the given code can not be normalized.
+     *
+     * @since 0.8
+     */
+    protected final boolean isCached(final Class<?> type, final String code) throws FactoryException {
+        return type.isInstance(cache.peek(new Key(type, normalizeCode(code))));
+    }
+
     /**
      * Prints the cache content to the given writer.
      * Keys are sorted by numerical order if possible, or alphabetical order otherwise.
@@ -2247,27 +2247,42 @@ addURIs:    for (int i=0; ; i++) {
             throws SQLException, FactoryException
     {
         int i = 0;
-        final CoordinateSystemAxis[] axes = new CoordinateSystemAxis[dimension];
+        final String[] codes = new String[dimension];
+        final int[] nameCodes = new int[dimension];
+        int missing = 0;
         try (ResultSet result = executeQuery("AxisOrder",
-                "SELECT COORD_AXIS_CODE" +
+                "SELECT COORD_AXIS_CODE, COORD_AXIS_NAME_CODE" +
                 " FROM [Coordinate Axis]" +
                 " WHERE COORD_SYS_CODE = ?" +
                 " ORDER BY [ORDER]", cs))
         {
             while (result.next()) {
-                final String axis = getString(cs, result, 1);
-                if (i < axes.length) {
+                if (i < codes.length) {
                     /*
                      * If 'i' is out of bounds, an exception will be thrown after the loop.
                      * We do not want to thrown an ArrayIndexOutOfBoundsException here.
                      */
-                    axes[i] = owner.createCoordinateSystemAxis(axis);
+                    codes[i] = getString(cs, result, 1);
+                    if (!owner.isAxisCached(codes[i])) {
+                        nameCodes[missing++] = getInteger(cs, result, 2);
+                    }
                 }
                 ++i;
             }
         }
-        if (i != axes.length) {
-            throw new FactoryDataException(error().getString(Errors.Keys.MismatchedDimension_2, axes.length, i));
+        if (i != codes.length) {
+            throw new FactoryDataException(error().getString(Errors.Keys.MismatchedDimension_2, codes.length, i));
+        }
+        /*
+         * Fetch all axis names in a single query before to create the axes, instead than one query per axis.
+         * The names found will be cached, so the calls to 'createCoordinateSystemAxis(…)' below will not need
+         * to query the "Coordinate Axis Name" table again. Axes already in the cache of the owner do not need
+         * their names, so the query is skipped if all axes are cached.
+         */
+        loadAxisNames(nameCodes, missing);
+        final CoordinateSystemAxis[] axes = new CoordinateSystemAxis[dimension];
+        for (i=0; i<axes.length; i++) {
+            axes[i] = owner.createCoordinateSystemAxis(codes[i]);
         }
         return axes;
     }
@@ -2336,6 +2351,69 @@ addURIs:    for (int i=0; ; i++) {
         return returnValue;
     }
 
+    /**
+     * Loads in the {@link #axisNames} cache the names and descriptions of all given axis name codes
+     * which are not already cached. All missing names are fetched with a single {@code IN (…)} query.
+     *
+     * @param  codes  the EPSG codes of the axis names to load. This array may contain duplicated values.
+     * @param  count  number of valid elements in the {@code codes} array.
+     */
+    private void loadAxisNames(final int[] codes, final int count) throws SQLException {
+        assert Thread.holdsLock(this);
+        final Set<Integer> missing = new LinkedHashSet<>();
+        for (int i=0; i<count; i++) {
+            final int code = codes[i];
+            if (!axisNames.containsKey(code)) {
+                missing.add(code);
+            }
+        }
+        final int n = missing.size();
+        if (n != 0) {
+            final StringBuilder sql = new StringBuilder(
+                    "SELECT COORD_AXIS_NAME_CODE, COORD_AXIS_NAME, DESCRIPTION, REMARKS" +
+                    " FROM [Coordinate Axis Name]" +
+                    " WHERE COORD_AXIS_NAME_CODE IN (?");
+            for (int i=1; i<n; i++) {
+                sql.append(", ?");
+            }
+            final int[] keys = new int[n];
+            int i = 0;
+            for (final Integer code : missing) {
+                keys[i++] = code;
+            }
+            try (ResultSet result = executeQuery("Coordinate Axis Name#" + n, sql.append(')').toString(), keys)) {
+                while (result.next()) {
+                    final int    code = result.getInt(1);
+                    final String name = getOptionalString(result, 2);
+                    if (name != null) {
+                        axisNames.put(code, new AxisName(name, getAxisDescription(result, 3)));
+                    }
+                }
+            }
+            /*
+             * Names not found by above query are left absent from the cache.
+             * The error will be reported by getAxisName(Integer) when needed.
+             */
+        }
+    }
+
+    /**
+     * Returns the concatenation of the description and remarks found in the given columns.
+     *
+     * @param  result  the result set to fetch values from.
+     * @param  column  index of the {@code DESCRIPTION} column, followed by the {@code REMARKS} column.
+     */
+    private static String getAxisDescription(final ResultSet result, final int column) throws SQLException {
+        String description = getOptionalString(result, column);
+        String remarks     = getOptionalString(result, column + 1);
+        if (description == null) {
+            description = remarks;
+        } else if (remarks != null) {
+            description += System.lineSeparator() + remarks;
+        }
+        return description;
+    }
+
     /**
      * Returns the name and description for the specified {@link CoordinateSystemAxis} code.
      * Many axes share the same name and description, so it is worth to cache them.
@@ -2350,15 +2428,8 @@ addURIs:    for (int i=0; ; i++) {
                     " WHERE COORD_AXIS_NAME_CODE = ?", code))
             {
                 while (result.next()) {
-                    final String name  = getString(code,   result, 1);
-                    String description = getOptionalString(result, 2);
-                    String remarks     = getOptionalString(result, 3);
-                    if (description == null) {
-                        description = remarks;
-                    } else if (remarks != null) {
-                        description += System.lineSeparator() + remarks;
-                    }
-                    final AxisName axis = new AxisName(name, description);
+                    final String name = getString(code, result, 1);
+                    final AxisName axis = new AxisName(name, getAxisDescription(result, 2));
                     returnValue = ensureSingleton(axis, returnValue, code);
                 }
             }
@@ -20,6 +20,8 @@ import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.concurrent.TimeUnit;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -27,11 +29,17 @@ import java.sql.SQLException;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.FileNotFoundException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.opengis.util.NameFactory;
 import org.opengis.util.FactoryException;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
 import org.opengis.referencing.crs.CRSFactory;
 import org.opengis.referencing.crs.CRSAuthorityFactory;
 import org.opengis.referencing.cs.CSFactory;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
 import org.opengis.referencing.cs.CSAuthorityFactory;
 import org.opengis.referencing.datum.DatumFactory;
 import org.opengis.referencing.datum.DatumAuthorityFactory;
@@ -41,7 +49,9 @@ import org.opengis.referencing.operation.MathTransformFactory;
 import org.apache.sis.internal.metadata.sql.Initializer;
 import org.apache.sis.internal.referencing.DeferredCoordinateOperation;
 import org.apache.sis.internal.referencing.Resources;
+import org.apache.sis.internal.system.DataDirectory;
 import org.apache.sis.internal.system.DefaultFactories;
+import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.referencing.factory.ConcurrentAuthorityFactory;
 import org.apache.sis.referencing.factory.UnavailableFactoryException;
@@ -95,11 +105,42 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
      */
     private static final Set<String> CODESPACES = Collections.singleton(Constants.EPSG);
 
+    /**
+     * The name of the snapshot file searched in the {@code $SIS_DATA/Databases} directory
+     * if no snapshot has been specified at construction time.
+     */
+    private static final String SNAPSHOT_FILE = "EPSG.snapshot";
+
     /**
      * The factory to use for creating {@link Connection}s to the EPSG database.
+     * May be {@code null} if this factory uses only a {@linkplain #snapshot}.
      */
     protected final DataSource dataSource;
 
+    /**
+     * Precomputed EPSG definitions to use before to query the database, or {@code null} if none.
+     * This field is reset to {@code null} if the snapshot has been created from an EPSG dataset
+     * version different than the version of the database.
+     *
+     * @see EPSGSnapshot
+     * @see #snapshotVerified
+     */
+    private volatile EPSGSnapshot snapshot;
+
+    /**
+     * Whether the EPSG dataset version of the {@linkplain #snapshot} has been compared with the version
+     * of the database. This check is performed when a Data Access Object is created for other reasons,
+     * since it requires a connection to the database. Objects can be created from the snapshot before
+     * this check; this flag is set only after a successful comparison.
+     */
+    private volatile boolean snapshotVerified;
+
+    /**
+     * Whether a warning has been logged for objects created from a {@linkplain #snapshot} not yet
+     * {@linkplain #snapshotVerified verified}. This warning is logged at most once per factory.
+     */
+    private volatile boolean snapshotUnverifiedLogged;
+
     /**
      * The factory to use for creating {@link org.opengis.util.GenericName} instances.
      */
@@ -228,6 +269,10 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
      *   <td>{@link InstallationScriptProvider}</td>
      *   <td>A provider of SQL scripts to use if {@code EPSGFactory} needs to create the database.</td>
      *  </tr><tr>
+     *   <td>{@code snapshot}</td>
+     *   <td>{@link Path}</td>
+     *   <td>A file created by {@link EPSGSnapshot#write EPSGSnapshot.write(…)} for creating objects without JDBC.</td>
+     *  </tr><tr>
      *   <td>{@code locale}</td>
      *   <td>{@link Locale}</td>
      *   <td>The locale for producing error messages on a <cite>best effort</cite> basis.</td>
@@ -242,8 +287,14 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
      *       the schema that contains the EPSG tables.</li>
      *   <li>If no {@code locale} is specified, this constructor defaults to the
      *       {@linkplain Locale#getDefault(Locale.Category) display locale}.</li>
+     *   <li>If no {@code snapshot} is specified, this constructor uses the {@code "EPSG.snapshot"} file
+     *       in the {@code $SIS_DATA/Databases} directory if that file exists.</li>
      * </ul>
      *
+     * <p>If a snapshot is available, objects found in the snapshot are created without connection to the database.
+     * If no data source is available, then this factory uses only the snapshot and codes not found in the snapshot
+     * cause a {@link NoSuchAuthorityCodeException}.</p>
+     *
      * @param  properties  the data source, authority factories and other configuration properties,
      *                     or {@code null} for the default values.
      * @throws ClassCastException if a property value is not of the expected class.
@@ -260,28 +311,67 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
         schema         = (String)                     properties.get("schema");
         catalog        = (String)                     properties.get("catalog");
         scriptProvider = (InstallationScriptProvider) properties.get("scriptProvider");
+        Path snapshotFile = (Path)                    properties.get("snapshot");
         if (locale == null) {
             locale = Locale.getDefault(Locale.Category.DISPLAY);
         }
         this.locale = locale;
-        if (ds == null) try {
-            ds = Initializer.getDataSource();
-            if (ds == null) {
-                throw new UnavailableFactoryException(Initializer.unspecified(locale));
-            }
-        } catch (Exception e) {
-            throw new UnavailableFactoryException(message(e), e);
-        }
-        dataSource   = ds;
         nameFactory  = factory(NameFactory.class,                "nameFactory",  properties);
         datumFactory = factory(DatumFactory.class,               "datumFactory", properties);
         csFactory    = factory(CSFactory.class,                  "csFactory",    properties);
         crsFactory   = factory(CRSFactory.class,                 "crsFactory",   properties);
         copFactory   = factory(CoordinateOperationFactory.class, "copFactory",   properties);
         mtFactory    = factory(MathTransformFactory.class,       "mtFactory",    properties);
+        if (snapshotFile == null) {
+            snapshotFile = defaultSnapshot();
+        }
+        snapshot = (snapshotFile != null) ? openSnapshot(snapshotFile) : null;
+        if (ds == null) try {
+            ds = Initializer.getDataSource();
+            if (ds == null && snapshot == null) {
+                throw new UnavailableFactoryException(Initializer.unspecified(locale));
+            }
+        } catch (Exception e) {
+            if (snapshot == null) {
+                throw new UnavailableFactoryException(message(e), e);
+            }
+            Logging.recoverableException(Logging.getLogger(Loggers.CRS_FACTORY), EPSGFactory.class, "<init>", e);
+        }
+        dataSource = ds;
         super.setTimeout(10, TimeUnit.SECONDS);
     }
 
+    /**
+     * Returns the snapshot file in the {@code $SIS_DATA/Databases} directory, or {@code null} if none.
+     */
+    private static Path defaultSnapshot() {
+        try {
+            final Path dir = DataDirectory.DATABASES.getDirectory();
+            if (dir != null) {
+                final Path file = dir.resolve(SNAPSHOT_FILE);
+                if (Files.isRegularFile(file)) {
+                    return file;
+                }
+            }
+        } catch (SecurityException e) {
+            Logging.recoverableException(Logging.getLogger(Loggers.CRS_FACTORY), EPSGFactory.class, "<init>", e);
+        }
+        return null;
+    }
+
+    /**
+     * Opens the given snapshot file. If the file can not be read, logs a warning and returns {@code null}
+     * in which case this factory will use only the database.
+     */
+    private EPSGSnapshot openSnapshot(final Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new EPSGSnapshot(channel, file.toString(), this);
+        } catch (IOException e) {
+            Logging.unexpectedException(Logging.getLogger(Loggers.CRS_FACTORY), EPSGFactory.class, "<init>", e);
+            return null;
+        }
+    }
+
     /**
      * Returns the factory for the given key if it exists, or the default factory instance otherwise.
      */
@@ -431,6 +521,11 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
     protected EPSGDataAccess newDataAccess() throws FactoryException {
         UnavailableFactoryException exception;
         Connection connection = null;
+        if (dataSource == null) {
+            exception = new UnavailableFactoryException(Initializer.unspecified(locale));
+            exception.setUnavailableFactory(this);
+            throw exception;
+        }
         try {
             connection = dataSource.getConnection();
             Logging.log(EPSGFactory.class, "newDataAccess", Initializer.connected(connection.getMetaData()));
@@ -452,7 +547,11 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
                 }
             }
             if (tr.isTableFound()) {
-                return newDataAccess(connection, tr);
+                final EPSGDataAccess dao = newDataAccess(connection, tr);
+                if (snapshot != null && !snapshotVerified) {
+                    verifySnapshot(dao);
+                }
+                return dao;
             } else {
                 connection.close();
                 exception = new UnavailableFactoryException(SQLTranslator.tableNotFound(locale));
@@ -524,4 +623,99 @@ public class EPSGFactory extends ConcurrentAuthorityFactory<EPSGDataAccess> impl
     protected boolean isCacheable(String code, Object object) {
         return !(object instanceof DeferredCoordinateOperation);
     }
+
+    /**
+     * Creates an object from the snapshot, if any. This method returns {@code null} if the object
+     * is not in the snapshot, in which case the object will be created from the EPSG database.
+     * If there is no database, then this method throws an exception instead.
+     * The snapshot is ignored after a Data Access Object has found that it has been created
+     * from an EPSG dataset version different than the version of the database.
+     * This method never connects to the database. Consequently if a database is available
+     * but no Data Access Object has been created yet, the snapshot version is not verified;
+     * a warning is logged the first time that an object is created in such situation.
+     *
+     * @return the object from the snapshot, or {@code null} if none.
+     * @throws FactoryException if the object can not be created from the snapshot.
+     *
+     * @since 0.8
+     */
+    @Override
+    protected <T> T createWithoutDataAccess(final Class<T> type, final String code) throws FactoryException {
+        final EPSGSnapshot snapshot = this.snapshot;
+        if (snapshot != null) {
+            final T object = snapshot.create(type, code);
+            if (object != null) {
+                if (dataSource != null && !snapshotVerified && !snapshotUnverifiedLogged) {
+                    logUnverifiedSnapshot(snapshot);
+                }
+                return object;
+            }
+            if (dataSource != null) {
+                return null;
+            }
+            throw new NoSuchAuthorityCodeException(Resources.forLocale(locale).getString(
+                    Resources.Keys.NoSuchAuthorityCode_3, Constants.EPSG, type, code), Constants.EPSG, code);
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the coordinate system axis of the given code is in the cache of this factory.
+     * This is used by {@link EPSGDataAccess} for fetching the names of only the axes not yet cached.
+     */
+    final boolean isAxisCached(final String code) throws FactoryException {
+        return isCached(CoordinateSystemAxis.class, code);
+    }
+
+    /**
+     * Logs a warning saying that objects are created from a snapshot whose EPSG dataset version has not yet
+     * been compared with the database version. This is done only once, since the version will be verified
+     * when a Data Access Object will be created.
+     *
+     * @param  snapshot  the snapshot from which an object has been created.
+     */
+    private void logUnverifiedSnapshot(final EPSGSnapshot snapshot) {
+        synchronized (this) {
+            if (snapshotUnverifiedLogged) {
+                return;
+            }
+            snapshotUnverifiedLogged = true;
+        }
+        final LogRecord record = Resources.forLocale(locale).getLogRecord(Level.WARNING,
+                Resources.Keys.UnverifiedSnapshot_2, snapshot.filename, snapshot.datasetVersion);
+        record.setLoggerName(Loggers.CRS_FACTORY);
+        Logging.log(EPSGFactory.class, "createObject", record);
+    }
+
+    /**
+     * Compares the EPSG dataset version of the snapshot with the version of the database seen by the given
+     * Data Access Object. If the versions differ, logs a warning and discards the snapshot. If the database
+     * version can not be obtained, then the snapshot is kept and the check will be done again with the next
+     * Data Access Object. This method is invoked only when a Data Access Object has been created for other
+     * reasons, so creating objects from the snapshot never opens a connection to the database.
+     *
+     * @param  dao  a Data Access Object just created for this factory.
+     */
+    private void verifySnapshot(final EPSGDataAccess dao) {
+        final String version = EPSGSnapshot.datasetVersion(dao.getAuthority());
+        if (version.isEmpty()) {
+            return;                                 // Version unknown; try again with the next DAO.
+        }
+        final EPSGSnapshot snapshot;
+        synchronized (this) {
+            snapshot = this.snapshot;
+            if (snapshot == null || snapshotVerified) {
+                return;
+            }
+            snapshotVerified = true;
+            if (version.equals(snapshot.datasetVersion)) {
+                return;
+            }
+            this.snapshot = null;
+        }
+        final LogRecord record = Resources.forLocale(locale).getLogRecord(Level.WARNING,
+                Resources.Keys.IgnoredSnapshot_3, snapshot.filename, snapshot.datasetVersion, version);
+        record.setLoggerName(Loggers.CRS_FACTORY);
+        Logging.log(EPSGFactory.class, "newDataAccess", record);
+    }
 }
@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.factory.sql;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.io.IOException;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.text.ParseException;
+import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.AuthorityFactory;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.crs.CRSFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.CSFactory;
+import org.opengis.referencing.datum.Datum;
+import org.opengis.referencing.datum.DatumFactory;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.apache.sis.io.wkt.Convention;
+import org.apache.sis.io.wkt.WKTFormat;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.ComparisonMode;
+import org.apache.sis.util.Utilities;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A precomputed snapshot of EPSG definitions, for creating geodetic objects without JDBC connection.
+ * The snapshot is a binary file containing the <cite>Well Known Text</cite> (WKT) 2 representation of
+ * coordinate reference systems, datums, ellipsoids and prime meridians, indexed by EPSG code.
+ * The file is memory-mapped, so opening a snapshot reads only its header. Objects are created by parsing
+ * their WKT when first requested, which is much faster than the SQL queries needed for assembling a CRS
+ * from the EPSG tables and does not require the EPSG database to be installed.
+ *
+ * <p>A snapshot is created by {@link #write(AuthorityFactory, WritableByteChannel)}, typically from an
+ * {@link EPSGFactory} connected to the EPSG database. Objects that can not be represented in WKT without
+ * loss of information are omitted from the snapshot; {@code EPSGFactory} creates them from the database.
+ * Objects created from a snapshot may have less metadata than objects created from the database
+ * (for example no alias), but the same identifiers, domain of validity and numerical values.</p>
+ *
+ * <div class="section">File format</div>
+ * All integers are stored in little-endian byte order.
+ * The file starts with a header containing the {@linkplain #MAGIC_NUMBER magic number}, the format
+ * {@linkplain #VERSION version}, the length of the EPSG dataset version string and the number of sections,
+ * followed by the kind, number of entries and text length of each section, then the EPSG dataset version
+ * encoded in UTF-8. Then each section contains the sorted EPSG codes, the offsets of the WKT of each entry
+ * (with one more offset for the end of the last entry), and the WKT encoded in UTF-8. The dataset version
+ * and each section are padded to a multiple of 4 bytes.
+ *
+ * <div class="section">Multi-threading</div>
+ * This class is thread-safe. Each thread parsing WKT concurrently uses its own parser,
+ * taken from a pool of parsers.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class EPSGSnapshot {
+    /**
+     * The magic number identifying snapshot files ({@code "SISE"} in ASCII).
+     */
+    private static final int MAGIC_NUMBER = 0x53495345;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Number of bytes in an {@code int} value.
+     */
+    private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+    /**
+     * The kinds of objects stored in a snapshot, in the order to be tried by {@link #create(Class, String)}.
+     * The ordinal values are stored in the file and shall not be changed.
+     */
+    private static final Class<?>[] KINDS = {
+        CoordinateReferenceSystem.class,
+        Datum.class,
+        Ellipsoid.class,
+        PrimeMeridian.class
+    };
+
+    /**
+     * Index in {@link #KINDS} of each section.
+     */
+    private final int[] kinds;
+
+    /**
+     * Sorted EPSG codes of each section.
+     */
+    private final IntBuffer[] codes;
+
+    /**
+     * Offsets of the WKT of each entry in {@link #texts}, for each section.
+     */
+    private final IntBuffer[] offsets;
+
+    /**
+     * WKT encoded in UTF-8, for each section.
+     */
+    private final ByteBuffer[] texts;
+
+    /**
+     * The version of the EPSG dataset from which this snapshot has been created, or an empty string if unknown.
+     * {@link EPSGFactory} ignores the snapshot if this version is not the same than the database version.
+     */
+    final String datasetVersion;
+
+    /**
+     * The file name, used for error messages only.
+     */
+    final String filename;
+
+    /**
+     * The factory which will use this snapshot, for getting the object factories given to the parsers.
+     */
+    private final EPSGFactory factory;
+
+    /**
+     * The parsers of WKT which are not currently in use. A parser is removed from this pool before use
+     * and added back after use, so each thread parsing WKT concurrently uses a different parser.
+     * The number of parsers is at most the maximal number of threads which have parsed WKT concurrently.
+     */
+    private final ConcurrentLinkedDeque<WKTFormat> parsers;
+
+    /**
+     * Opens a snapshot from the given channel. The channel is positioned after the snapshot
+     * on return, and can be closed without invalidating this snapshot.
+     *
+     * @param  channel   the channel from which to map the snapshot.
+     * @param  filename  the file name, used for error messages only.
+     * @param  factory   the factory which will use this snapshot, for getting the object factories.
+     * @throws IOException if an error occurred while reading the file, or if the file is not a snapshot.
+     */
+    EPSGSnapshot(final FileChannel channel, final String filename, final EPSGFactory factory) throws IOException {
+        long position = channel.position();
+        final ByteBuffer header = read(channel, position, 4 * INT_SIZE, filename);
+        if (header.getInt() != MAGIC_NUMBER) {
+            throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "EPSG snapshot", filename));
+        }
+        final int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException(Errors.format(Errors.Keys.UnsupportedFormatVersion_2, "EPSG snapshot", version));
+        }
+        final int versionLength = header.getInt();
+        final int n = header.getInt();
+        if (versionLength < 0 || versionLength > Short.MAX_VALUE || n < 0 || n > KINDS.length) {
+            throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "EPSG snapshot", filename));
+        }
+        position += 4 * INT_SIZE;
+        final ByteBuffer sections = read(channel, position, 3 * INT_SIZE * n + pad(versionLength), filename);
+        position += 3 * INT_SIZE * n + pad(versionLength);
+        kinds   = new int[n];
+        codes   = new IntBuffer[n];
+        offsets = new IntBuffer[n];
+        texts   = new ByteBuffer[n];
+        for (int i=0; i<n; i++) {
+            final int kind   = sections.getInt();
+            final int count  = sections.getInt();
+            final int length = sections.getInt();
+            if (kind < 0 || kind >= KINDS.length || count < 0 || length < 0) {
+                throw new IOException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "EPSG snapshot", filename));
+            }
+            final long size = (2L * count + 1) * INT_SIZE + pad(length);
+            if (position + size > channel.size()) {
+                throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, filename));
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+            kinds[i] = kind;
+            final int textStart = (2 * count + 1) * INT_SIZE;
+            buffer.limit(count * INT_SIZE);
+            codes[i] = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            buffer.limit(textStart).position(count * INT_SIZE);
+            offsets[i] = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            buffer.limit(textStart + length).position(textStart);
+            texts[i] = buffer.slice();
+            position += size;
+        }
+        final byte[] versionBytes = new byte[versionLength];
+        sections.get(versionBytes);
+        datasetVersion = new String(versionBytes, StandardCharsets.UTF_8);
+        channel.position(position);
+        this.filename = filename;
+        this.factory = factory;
+        parsers = new ConcurrentLinkedDeque<>();
+    }
+
+    /**
+     * Reads the given number of bytes at the given position.
+     */
+    private static ByteBuffer read(final FileChannel channel, long position, final int length, final String filename)
+            throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, filename));
+            }
+            position += n;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Returns the given length rounded to the next multiple of 4 bytes.
+     */
+    private static int pad(final int length) {
+        return (length + (INT_SIZE - 1)) & ~(INT_SIZE - 1);
+    }
+
+    /**
+     * Creates the object of the given type for the given EPSG code, or returns {@code null} if the snapshot
+     * does not contain such object. If the code is found in more than one section (for example a CRS and a
+     * datum having the same code), then the first object assignable to the given type is returned.
+     *
+     * @param  <T>   the type of object to create.
+     * @param  type  the type of object to create.
+     * @param  code  the EPSG code, without {@code "EPSG:"} prefix.
+     * @return the object, or {@code null} if not found.
+     * @throws FactoryException if the WKT of the object can not be parsed.
+     */
+    <T> T create(final Class<T> type, final String code) throws FactoryException {
+        final int key;
+        try {
+            key = Integer.parseInt(code);
+        } catch (NumberFormatException e) {
+            return null;                                    // Codes that are not integers are not in the snapshot.
+        }
+        for (int i=0; i<kinds.length; i++) {
+            final Class<?> kind = KINDS[kinds[i]];
+            if (type.isAssignableFrom(kind) || kind.isAssignableFrom(type)) {
+                final IntBuffer c = codes[i];
+                int lower = 0, upper = c.limit() - 1;
+                while (lower <= upper) {
+                    final int mid = (lower + upper) >>> 1;
+                    final int value = c.get(mid);
+                    if (value < key) {
+                        lower = mid + 1;
+                    } else if (value > key) {
+                        upper = mid - 1;
+                    } else {
+                        final Object object = parse(i, mid);
+                        if (type.isInstance(object)) {
+                            return type.cast(object);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the WKT of the given entry in the given section.
+     */
+    private Object parse(final int section, final int entry) throws FactoryException {
+        final IntBuffer o = offsets[section];
+        final int start = o.get(entry);
+        final byte[] bytes = new byte[o.get(entry + 1) - start];
+        final ByteBuffer buffer = texts[section].duplicate();
+        buffer.position(start);
+        buffer.get(bytes);
+        final String wkt = new String(bytes, StandardCharsets.UTF_8);
+        WKTFormat parser = parsers.poll();
+        if (parser == null) {
+            parser = new WKTFormat(null, null);
+            parser.setFactory(CRSFactory.class,           factory.crsFactory);
+            parser.setFactory(CSFactory.class,            factory.csFactory);
+            parser.setFactory(DatumFactory.class,         factory.datumFactory);
+            parser.setFactory(MathTransformFactory.class, factory.mtFactory);
+        }
+        final Object object;
+        try {
+            object = parser.parseObject(wkt);
+        } catch (ParseException e) {
+            throw new FactoryException(e.getLocalizedMessage(), e);
+        }
+        parsers.push(parser);                   // Recycle only after success, for discarding any inconsistent state.
+        return object;
+    }
+
+    /**
+     * Writes a snapshot of the coordinate reference systems, datums, ellipsoids and prime meridians provided
+     * by the given factory. This method creates all objects declared by
+     * {@link AuthorityFactory#getAuthorityCodes(Class)} and formats them in WKT 2 format.
+     * Objects having codes that are not integers, that can not be created, or that can not be formatted
+     * in WKT and parsed back to an equivalent object (ignoring metadata) are omitted.
+     * The {@linkplain Citation#getEdition() edition} of the factory {@linkplain AuthorityFactory#getAuthority()
+     * authority} is stored in the snapshot as the EPSG dataset version.
+     *
+     * <p>This operation may take a long time, since it creates all objects of the EPSG geodetic dataset.
+     * The channel is not closed by this method.</p>
+     *
+     * @param  factory  the factory from which to get the objects, usually an {@link EPSGFactory}.
+     * @param  out      the channel where to write the snapshot.
+     * @return number of objects written.
+     * @throws FactoryException if an error occurred while fetching the authority codes.
+     * @throws IOException if an error occurred while writing the snapshot.
+     */
+    public static int write(final AuthorityFactory factory, final WritableByteChannel out)
+            throws FactoryException, IOException
+    {
+        ArgumentChecks.ensureNonNull("factory", factory);
+        ArgumentChecks.ensureNonNull("out",     out);
+        final WKTFormat format = new WKTFormat(Locale.US, TimeZone.getTimeZone("UTC"));
+        format.setConvention(Convention.WKT2);
+        format.setIndentation(WKTFormat.SINGLE_LINE);
+        final int n = KINDS.length;
+        final int[][]    sectionCodes = new int[n][];
+        final byte[][][] sectionTexts = new byte[n][][];
+        int total = 0;
+        for (int k=0; k<n; k++) {
+            @SuppressWarnings("unchecked")
+            final Class<? extends IdentifiedObject> kind = (Class<? extends IdentifiedObject>) KINDS[k];
+            final String[] keys = factory.getAuthorityCodes(kind).toArray(new String[0]);
+            final int[]    c = new int[keys.length];
+            final byte[][] t = new byte[keys.length][];
+            int count = 0;
+            for (final String key : keys) {
+                final int code;
+                try {
+                    code = Integer.parseInt(key.substring(key.lastIndexOf(':') + 1).trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                final String wkt;
+                try {
+                    final IdentifiedObject object = factory.createObject(key);
+                    if (!kind.isInstance(object)) continue;
+                    wkt = format.format(object);
+                    if (format.getWarnings() != null) continue;
+                    final Object parsed = format.parseObject(wkt);
+                    if (format.getWarnings() != null || !kind.isInstance(parsed)
+                            || !Utilities.deepEquals(object, parsed, ComparisonMode.IGNORE_METADATA))
+                    {
+                        continue;
+                    }
+                } catch (FactoryException | ParseException | RuntimeException e) {
+                    continue;                   // Object omitted from the snapshot; will be created from the database.
+                }
+                c[count]   = code;
+                t[count++] = wkt.getBytes(StandardCharsets.UTF_8);
+            }
+            sortByCode(c, t, count);
+            sectionCodes[k] = Arrays.copyOf(c, count);
+            sectionTexts[k] = Arrays.copyOf(t, count);
+            total += count;
+        }
+        /*
+         * Write the header, then all sections.
+         */
+        final byte[] version = datasetVersion(factory.getAuthority()).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate((4 + 3*n) * INT_SIZE + pad(version.length)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC_NUMBER).putInt(VERSION).putInt(version.length).putInt(n);
+        for (int k=0; k<n; k++) {
+            int length = 0;
+            for (final byte[] t : sectionTexts[k]) {
+                length += t.length;
+            }
+            buffer.putInt(k).putInt(sectionCodes[k].length).putInt(length);
+        }
+        buffer.put(version).position(buffer.limit());
+        writeFully(out, (ByteBuffer) buffer.flip());
+        for (int k=0; k<n; k++) {
+            final int[]    c = sectionCodes[k];
+            final byte[][] t = sectionTexts[k];
+            buffer = ByteBuffer.allocate((2 * c.length + 1) * INT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (final int code : c) {
+                buffer.putInt(code);
+            }
+            int offset = 0;
+            buffer.putInt(offset);
+            for (final byte[] wkt : t) {
+                buffer.putInt(offset += wkt.length);
+            }
+            writeFully(out, (ByteBuffer) buffer.flip());
+            for (final byte[] wkt : t) {
+                writeFully(out, ByteBuffer.wrap(wkt));
+            }
+            writeFully(out, ByteBuffer.allocate(pad(offset) - offset));
+        }
+        return total;
+    }
+
+    /**
+     * Returns the version of the EPSG dataset described by the given authority, or an empty string if unknown.
+     * This is the {@linkplain Citation#getEdition() edition} of the authority of an EPSG factory.
+     *
+     * @param  authority  the authority of the factory, or {@code null} if unknown.
+     * @return the EPSG dataset version, or an empty string if unknown.
+     */
+    static String datasetVersion(final Citation authority) {
+        if (authority != null) {
+            final InternationalString edition = authority.getEdition();
+            if (edition != null) {
+                return edition.toString();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Sorts the given codes in increasing order, together with their WKT.
+     */
+    private static void sortByCode(final int[] codes, final byte[][] texts, final int count) {
+        final long[] keys = new long[count];
+        for (int i=0; i<count; i++) {
+            keys[i] = ((long) codes[i] << Integer.SIZE) | i;
+        }
+        Arrays.sort(keys);
+        final byte[][] sorted = new byte[count][];
+        for (int i=0; i<count; i++) {
+            final int index = (int) keys[i];
+            codes[i]  = (int) (keys[i] >> Integer.SIZE);
+            sorted[i] = texts[index];
+        }
+        System.arraycopy(sorted, 0, texts, 0, count);
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer.
+     */
+    private static void writeFully(final WritableByteChannel out, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -47,6 +47,7 @@ import org.apache.sis.referencing.operation.transform.AbstractMathTransform;
 import org.apache.sis.referencing.operation.transform.AbstractMathTransform2D;
 import org.apache.sis.referencing.operation.transform.ContextualParameters;
 import org.apache.sis.referencing.operation.transform.DefaultMathTransformFactory;
+import org.apache.sis.referencing.operation.transform.IterationStrategy;
 import org.apache.sis.referencing.operation.transform.MathTransformProvider;
 import org.apache.sis.internal.referencing.provider.MapProjection;
 import org.apache.sis.internal.metadata.ReferencingServices;
@@ -765,19 +766,39 @@ public abstract class NormalizedProjection extends AbstractMathTransform2D imple
         }
 
         /**
-         * Inverse transforms an arbitrary amount of coordinates. This method optimizes the
-         * case where conversions can be applied by a loop with indices in increasing order.
+         * Inverse transforms an arbitrary amount of coordinates. If a point can not be converted,
+         * the remaining points are delegated to the super-class method which will set the
+         * untransformable points to NaN.
          */
         @Override
         public void transform(final double[] srcPts, int srcOff,
                               final double[] dstPts, int dstOff, int numPts) throws TransformException
         {
-            if (srcPts == dstPts && srcOff < dstOff) {
+            int inc = DIMENSION;
+            if (srcPts == dstPts && IterationStrategy.suggest(srcOff, DIMENSION, dstOff, DIMENSION, numPts)
+                                        == IterationStrategy.DESCENDING)
+            {
+                srcOff += (numPts - 1) * DIMENSION;
+                dstOff += (numPts - 1) * DIMENSION;
+                inc = -DIMENSION;
+            }
+            try {
+                while (numPts > 0) {
+                    inverseTransform(srcPts, srcOff, dstPts, dstOff);
+                    srcOff += inc;
+                    dstOff += inc;
+                    numPts--;
+                }
+            } catch (ProjectionException e) {
+                /*
+                 * The remaining points include the one that failed. In descending order,
+                 * they are the points before the failed point inclusive.
+                 */
+                if (inc < 0) {
+                    srcOff -= (numPts - 1) * DIMENSION;
+                    dstOff -= (numPts - 1) * DIMENSION;
+                }
                 super.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-            } else while (--numPts >= 0) {
-                inverseTransform(srcPts, srcOff, dstPts, dstOff);
-                srcOff += DIMENSION;
-                dstOff += DIMENSION;
             }
         }
 
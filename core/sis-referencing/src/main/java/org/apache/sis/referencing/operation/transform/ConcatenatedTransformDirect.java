@@ -27,7 +27,7 @@ import org.opengis.referencing.operation.TransformException;
  * of an intermediate buffer in some case.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.5
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -69,16 +69,81 @@ class ConcatenatedTransformDirect extends ConcatenatedTransform {
     }
 
     /**
-     * Transforms many coordinates in a list of ordinal values.
+     * Transforms many coordinates in a list of ordinal values. If the array is large, then the coordinates
+     * are transformed by blocks of {@value #MAXIMUM_BUFFER_SIZE} ordinates, applying {@link #transform2}
+     * on a block immediately after {@link #transform1}. Compared to applying each step on the whole array,
+     * this allows the second step to find the coordinates still in the CPU cache. This is significant for
+     * the (normalize) → (map projection) → (denormalize) chains created for every map projection.
+     *
+     * <p>If a block can not be transformed but the step nevertheless declares having been able to process
+     * all coordinate points (setting to NaN those that can't be transformed), then this method continues
+     * with the next blocks and propagates the first exception at the end.</p>
      */
     @Override
-    public void transform(final double[] srcPts, final int srcOff,
-                          final double[] dstPts, final int dstOff,
-                          final int numPts) throws TransformException
+    public void transform(final double[] srcPts, int srcOff,
+                          final double[] dstPts, int dstOff,
+                          int numPts) throws TransformException
     {
         assert isValid();
-        transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-        transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+        final int dimension = transform1.getSourceDimensions();
+        int numBuf = MAXIMUM_BUFFER_SIZE / dimension;
+        /*
+         * Blocks are processed in ascending order, so we can use them only if the ascending iteration strategy
+         * is safe in case of overlapping arrays. Since the source and target dimensions are the same, this is
+         * the case when the target coordinates are written at or before the source coordinates.
+         */
+        if (numPts <= numBuf || numBuf == 0 || (srcPts == dstPts &&
+                IterationStrategy.suggest(srcOff, dimension, dstOff, dimension, numPts) != IterationStrategy.ASCENDING))
+        {
+            transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+            transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+            return;
+        }
+        TransformException failure = null;
+        do {
+            if (numBuf > numPts) {
+                numBuf = numPts;
+            }
+            try {
+                transform1.transform(srcPts, srcOff, dstPts, dstOff, numBuf);
+            } catch (TransformException exception) {
+                failure = merge(failure, exception, transform1);
+            }
+            try {
+                transform2.transform(dstPts, dstOff, dstPts, dstOff, numBuf);
+            } catch (TransformException exception) {
+                failure = merge(failure, exception, transform2);
+            }
+            srcOff += numBuf * dimension;
+            dstOff += numBuf * dimension;
+        } while ((numPts -= numBuf) != 0);
+        if (failure != null) {
+            failure.setLastCompletedTransform(this);
+            throw failure;
+        }
+    }
+
+    /**
+     * Rethrows the given exception if the given step did not complete its work, or otherwise
+     * returns the first exception with the other ones added as suppressed exceptions.
+     *
+     * @param  failure    the first exception previously thrown, or {@code null} if none.
+     * @param  exception  the exception thrown by the given step.
+     * @param  step       the step which thrown the exception.
+     * @return the exception to propagate after all blocks have been processed.
+     * @throws TransformException the given exception if the step did not process all points.
+     */
+    private static TransformException merge(final TransformException failure, final TransformException exception,
+            final MathTransform step) throws TransformException
+    {
+        if (exception.getLastCompletedTransform() != step) {
+            throw exception;
+        } else if (failure == null) {
+            return exception;                           // Keep only the first exception.
+        } else {
+            failure.addSuppressed(exception);
+            return failure;
+        }
     }
 
     /**
@@ -38,6 +38,7 @@ import org.apache.sis.internal.referencing.Formulas;
 import org.apache.sis.internal.referencing.DirectPositionView;
 import org.apache.sis.internal.referencing.provider.NTv2;
 import org.apache.sis.internal.referencing.provider.DatumShiftGridFile;
+import org.apache.sis.internal.referencing.provider.DatumShiftGridGroup;
 
 
 /**
@@ -313,6 +314,10 @@ public class InterpolatedTransform extends DatumShiftTransform {
     public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
+        if (numPts > 1 && grid instanceof DatumShiftGridGroup<?,?>) {
+            transformBySubgrids((DatumShiftGridGroup<?,?>) grid, srcPts, srcOff, dstPts, dstOff, numPts);
+            return;
+        }
         int inc = dimension;
         if (srcPts == dstPts) {
             switch (IterationStrategy.suggest(srcOff, inc, dstOff, inc, numPts)) {
@@ -358,6 +363,60 @@ public class InterpolatedTransform extends DatumShiftTransform {
         }
     }
 
+    /**
+     * Transforms an arbitrary amount of coordinates using a grid made of many sub-grids.
+     * This method first finds the sub-grid of each point, then processes the points grouped by sub-grid.
+     * When the points are spread over many sub-grids, this ordering keeps the data of the sub-grid being
+     * used in the processor cache instead than alternating between distant regions of memory.
+     */
+    private void transformBySubgrids(final DatumShiftGridGroup<?,?> group, double[] srcPts, int srcOff,
+                                     final double[] dstPts, final int dstOff, final int numPts)
+    {
+        if (srcPts == dstPts && srcOff != dstOff) {
+            /*
+             * Points are not processed in sequential order, so no iteration strategy can avoid overwriting
+             * source coordinates before they are read (except when each point is overwritten by itself).
+             */
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts*dimension);
+            srcOff = 0;
+        }
+        /*
+         * Find the sub-grid of each point, then sort the point indices by sub-grid
+         * using a counting sort (stable, so points in the same sub-grid stay in order).
+         */
+        final int[] subgrids = new int[numPts];
+        final int[] start = new int[group.getSubgridCount() + 1];
+        for (int i=0; i<numPts; i++) {
+            final int s = srcOff + i*dimension;
+            start[(subgrids[i] = group.indexOf(srcPts[s], srcPts[s+1])) + 1]++;
+        }
+        for (int i=1; i<start.length; i++) {
+            start[i] += start[i-1];
+        }
+        final int[] order = new int[numPts];
+        for (int i=0; i<numPts; i++) {
+            order[start[subgrids[i]]++] = i;
+        }
+        final double[] vector = new double[dimension];
+        for (final int i : order) {
+            final int s = srcOff + i*dimension;
+            final int d = dstOff + i*dimension;
+            final double x = srcPts[s  ];
+            final double y = srcPts[s+1];
+            group.interpolateInSubgrid(subgrids[i], x, y, vector);
+            if (dimension > GRID_DIMENSION) {
+                System.arraycopy(srcPts, s + GRID_DIMENSION,
+                                 dstPts, d + GRID_DIMENSION,
+                                      dimension - GRID_DIMENSION);
+                int k = dimension;
+                do dstPts[d + --k] += vector[k];
+                while (k > GRID_DIMENSION);
+            }
+            dstPts[d+1] = y + vector[1];
+            dstPts[d  ] = x + vector[0];
+        }
+    }
+
     /*
      * NOTE: we do not bother to override the methods expecting a 'float' array because those methods should
      *       be rarely invoked. Since there is usually LinearTransforms before and after this transform, the
@@ -51,7 +51,7 @@ import org.apache.sis.util.Static;
  * GeoAPI factory interfaces instead.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  *
  * @see MathTransformFactory
  *
@@ -449,4 +449,129 @@ public final class MathTransforms extends Static {
         }
         return derivative;
     }
+
+    /**
+     * Transforms a list of coordinate points using many threads. This method has the same contract than
+     * {@link MathTransform#transform(double[], int, double[], int, int)} (including the support of
+     * overlapping source and destination ranges in the same array), but splits large arrays in chunks
+     * which are transformed concurrently in a fork-join pool. This is worth only for large arrays,
+     * typically more than 10000 points; smaller arrays are transformed in the current thread.
+     *
+     * <p>The given transform must be thread-safe, which is the case of all Apache SIS implementations.
+     * If some points can not be transformed, the behavior in each chunk is the same than the behavior
+     * of the transform in a single-threaded call (for example setting the untransformable points to NaN).
+     * The first exception (in array order) is thrown after all chunks have been processed, with exceptions
+     * from other chunks added as {@linkplain TransformException#getSuppressed() suppressed exceptions}.</p>
+     *
+     * @param  transform  the transform to apply.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     *                    May be the same than {@code srcPts}.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     *
+     * @see MathTransform#transform(double[], int, double[], int, int)
+     *
+     * @since 0.8
+     */
+    public static void transformParallel(final MathTransform transform,
+                                         final double[] srcPts, final int srcOff,
+                                         final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        if (numPts <= ParallelTransformTask.CHUNK_SIZE) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else {
+            ParallelTransformTask.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate points using many threads. This method has the same contract than
+     * {@link MathTransform#transform(float[], int, float[], int, int)}, but splits large arrays in chunks
+     * which are transformed concurrently. See {@link #transformParallel(MathTransform, double[], int, double[],
+     * int, int)} for more information.
+     *
+     * @param  transform  the transform to apply.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     *                    May be the same than {@code srcPts}.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     *
+     * @since 0.8
+     */
+    public static void transformParallel(final MathTransform transform,
+                                         final float[] srcPts, final int srcOff,
+                                         final float[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        if (numPts <= ParallelTransformTask.CHUNK_SIZE) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else {
+            ParallelTransformTask.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate points from a {@code double[]} array to a {@code float[]} array
+     * using many threads. See {@link #transformParallel(MathTransform, double[], int, double[], int, int)}
+     * for more information.
+     *
+     * @param  transform  the transform to apply.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     *
+     * @since 0.8
+     */
+    public static void transformParallel(final MathTransform transform,
+                                         final double[] srcPts, final int srcOff,
+                                         final float [] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        if (numPts <= ParallelTransformTask.CHUNK_SIZE) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else {
+            ParallelTransformTask.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate points from a {@code float[]} array to a {@code double[]} array
+     * using many threads. See {@link #transformParallel(MathTransform, double[], int, double[], int, int)}
+     * for more information.
+     *
+     * @param  transform  the transform to apply.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     *
+     * @since 0.8
+     */
+    public static void transformParallel(final MathTransform transform,
+                                         final float [] srcPts, final int srcOff,
+                                         final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        if (numPts <= ParallelTransformTask.CHUNK_SIZE) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else {
+            ParallelTransformTask.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.internal.jdk8.JDK8;
+
+
+/**
+ * A fork-join task transforming a range of points in an array of coordinates.
+ * The range is split recursively in two halves until the number of points is not greater than
+ * {@link #CHUNK_SIZE}, then each chunk is given to the {@code MathTransform.transform(…, int numPts)}
+ * method of the wrapped transform. Consequently each chunk benefits from the buffering, iteration
+ * strategy and NaN-on-failure policy implemented by the transform itself.
+ *
+ * <p>The source and destination arrays can be {@code double[]} or {@code float[]}, in any combination
+ * supported by the {@link MathTransform} interface. This class does not check for overlapping ranges;
+ * this verification must be done by {@link #transform(MathTransform, Object, int, Object, int, int)}
+ * before to create the tasks.</p>
+ *
+ * <p>Failures are recorded instead than thrown, because {@link RecursiveAction#compute()} can not throw
+ * checked exceptions. After all chunks completed, the first failure (in array order) is rethrown with
+ * the other failures added as {@linkplain Throwable#getSuppressed() suppressed exceptions}.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@SuppressWarnings("serial")                             // Not intended to be serialized.
+final class ParallelTransformTask extends RecursiveAction {
+    /**
+     * Number of points below which a range is not split anymore. This value must be large enough for
+     * amortizing the cost of task creation and scheduling, and for letting the transforms make good use
+     * of their internal buffers (which are {@value AbstractMathTransform#MAXIMUM_BUFFER_SIZE} ordinates).
+     */
+    static final int CHUNK_SIZE = 8192;
+
+    /**
+     * The transform to apply on each chunk.
+     */
+    private final MathTransform transform;
+
+    /**
+     * The source and destination arrays, as {@code double[]} or {@code float[]}.
+     */
+    private final Object srcPts, dstPts;
+
+    /**
+     * Offsets in the source and destination arrays of the first point to transform by this task.
+     */
+    private final int srcOff, dstOff;
+
+    /**
+     * Number of points to transform by this task.
+     */
+    private final int numPts;
+
+    /**
+     * The first exception thrown by this task or any sub-task, or {@code null} if none.
+     */
+    private TransformException failure;
+
+    /**
+     * Creates a new task for transforming the given range of points.
+     */
+    private ParallelTransformTask(final MathTransform transform,
+                                  final Object srcPts, final int srcOff,
+                                  final Object dstPts, final int dstOff, final int numPts)
+    {
+        this.transform = transform;
+        this.srcPts    = srcPts;
+        this.srcOff    = srcOff;
+        this.dstPts    = dstPts;
+        this.dstOff    = dstOff;
+        this.numPts    = numPts;
+    }
+
+    /**
+     * Transforms the points, splitting the work in sub-tasks if the range is large.
+     */
+    @Override
+    protected void compute() {
+        if (numPts <= CHUNK_SIZE) {
+            try {
+                transformChunk();
+            } catch (TransformException e) {
+                failure = e;
+            }
+            return;
+        }
+        final int half = numPts >>> 1;
+        final ParallelTransformTask lower = new ParallelTransformTask(transform,
+                srcPts, srcOff, dstPts, dstOff, half);
+        final ParallelTransformTask upper = new ParallelTransformTask(transform,
+                srcPts, srcOff + half * transform.getSourceDimensions(),
+                dstPts, dstOff + half * transform.getTargetDimensions(), numPts - half);
+        ForkJoinTask.invokeAll(lower, upper);
+        failure = merge(lower.failure, upper.failure);
+    }
+
+    /**
+     * Transforms all points in the range of this task in a single call to the wrapped transform.
+     */
+    private void transformChunk() throws TransformException {
+        if (srcPts instanceof double[]) {
+            if (dstPts instanceof double[]) {
+                transform.transform((double[]) srcPts, srcOff, (double[]) dstPts, dstOff, numPts);
+            } else {
+                transform.transform((double[]) srcPts, srcOff, (float[]) dstPts, dstOff, numPts);
+            }
+        } else {
+            if (dstPts instanceof double[]) {
+                transform.transform((float[]) srcPts, srcOff, (double[]) dstPts, dstOff, numPts);
+            } else {
+                transform.transform((float[]) srcPts, srcOff, (float[]) dstPts, dstOff, numPts);
+            }
+        }
+    }
+
+    /**
+     * Merges the failures of two consecutive ranges. If both ranges failed, the failure of the second range
+     * is added as a suppressed exception of the first one. If at least one range has not been completed
+     * (i.e. the transform gave up before to set all untransformable points to NaN), then the merged exception
+     * does not declare the transform as completed.
+     */
+    private TransformException merge(final TransformException first, final TransformException second) {
+        if (first  == null) return second;
+        if (second == null) return first;
+        first.addSuppressed(second);
+        if (second.getLastCompletedTransform() != transform) {
+            first.setLastCompletedTransform(second.getLastCompletedTransform());
+        }
+        return first;
+    }
+
+    /**
+     * Transforms a list of coordinate points using many threads. The source and destination arrays can be
+     * {@code double[]} or {@code float[]}. The array may be the same, in which case this method verifies if
+     * the source and destination ranges overlap. Since the order in which chunks are executed is undetermined,
+     * the {@link IterationStrategy#ASCENDING ASCENDING} and {@link IterationStrategy#DESCENDING DESCENDING}
+     * strategies do not apply here: overlapping ranges are always resolved by a temporary buffer, except in
+     * the common case where each point is overwritten in place by its own transformed value.
+     *
+     * @param  transform  the transform to apply.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     * @param  dstOff     the offset to the location of the first transformed point in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if a point can not be transformed.
+     */
+    static void transform(final MathTransform transform, Object srcPts, int srcOff,
+                          Object dstPts, int dstOff, final int numPts) throws TransformException
+    {
+        final int srcDim = transform.getSourceDimensions();
+        final int dstDim = transform.getTargetDimensions();
+        Object dstFinal = null;
+        int    offFinal = 0;
+        if (srcPts == dstPts && (srcOff != dstOff || srcDim != dstDim)
+                && srcOff < dstOff + numPts * dstDim
+                && dstOff < srcOff + numPts * srcDim)
+        {
+            final IterationStrategy strategy = IterationStrategy.suggest(srcOff, srcDim, dstOff, dstDim, numPts);
+            if (strategy == IterationStrategy.BUFFER_TARGET || (!strategy.needBuffer && srcDim > dstDim)) {
+                dstFinal = dstPts;
+                offFinal = dstOff;
+                dstPts   = (dstPts instanceof double[]) ? new double[numPts * dstDim] : new float[numPts * dstDim];
+                dstOff   = 0;
+            } else {
+                final int length = numPts * srcDim;
+                final Object copy = (srcPts instanceof double[]) ? new double[length] : new float[length];
+                System.arraycopy(srcPts, srcOff, copy, 0, length);
+                srcPts = copy;
+                srcOff = 0;
+            }
+        }
+        final ParallelTransformTask task = new ParallelTransformTask(transform, srcPts, srcOff, dstPts, dstOff, numPts);
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        } else {
+            JDK8.commonPool().invoke(task);
+        }
+        if (dstFinal != null) {
+            System.arraycopy(dstPts, 0, dstFinal, offFinal, numPts * dstDim);
+        }
+        if (task.failure != null) {
+            throw task.failure;
+        }
+    }
+}
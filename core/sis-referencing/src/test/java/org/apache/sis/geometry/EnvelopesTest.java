@@ -16,19 +16,26 @@
  */
 package org.apache.sis.geometry;
 
+import java.util.Arrays;
 import java.util.Collections;
 import org.opengis.geometry.Envelope;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.Matrix;
 import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.CommonCRS;
 import org.apache.sis.referencing.crs.DefaultCompoundCRS;
 import org.apache.sis.referencing.crs.HardCodedCRS;
+import org.apache.sis.referencing.operation.transform.AbstractMathTransform;
 import org.apache.sis.referencing.operation.transform.MathTransformWrapper;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.junit.Test;
 
+import static org.apache.sis.internal.referencing.Formulas.LINEAR_TOLERANCE;
 import static org.apache.sis.test.ReferencingAssert.*;
 import static org.opengis.test.Validators.validate;
 
@@ -171,4 +178,119 @@ public final strictfp class EnvelopesTest extends TransformTestCase<GeneralEnvel
         assertEquals( -80, env2D.getMinimum(1), 0);
         assertEquals(  80, env2D.getMaximum(1), 0);
     }
+
+    /**
+     * Tests {@link Envelopes#transform(MathTransform, double[], int, double[], int, int)}
+     * by comparing with the result of {@link Envelopes#transform(MathTransform, Envelope)}
+     * for each envelope.
+     *
+     * @throws FactoryException if an error occurred while creating the operation.
+     * @throws TransformException if an error occurred while transforming the envelopes.
+     *
+     * @since 0.8
+     */
+    @Test
+    @DependsOnMethod("testTransform")
+    public void testBulkTransform() throws FactoryException, TransformException {
+        final MathTransform transform = CommonCRS.WGS84.universal(10, -123.5).getConversionFromBase().getMathTransform();
+        final double[] envelopes = {
+            -20, -126,  40, -120,
+             10, -125,  11, -124,
+            -60, -130, -50, -110,
+             45, -123,  45, -123
+        };
+        final int n = envelopes.length / 4;
+        final double[] actual = new double[envelopes.length + 4];
+        Envelopes.transform(transform, envelopes, 0, actual, 4, n);
+        for (int i=0; i<n; i++) {
+            final GeneralEnvelope env = new GeneralEnvelope(2);
+            env.setEnvelope(Arrays.copyOfRange(envelopes, i*4, (i+1)*4));
+            final GeneralEnvelope expected = Envelopes.transform(transform, env);
+            for (int j=0; j<2; j++) {
+                assertEquals("min", expected.getMinimum(j), actual[4 + i*4 + j],     LINEAR_TOLERANCE);
+                assertEquals("max", expected.getMaximum(j), actual[4 + i*4 + j + 2], LINEAR_TOLERANCE);
+            }
+        }
+        /*
+         * Same test with source and target in the same array.
+         */
+        final double[] inPlace = Arrays.copyOf(envelopes, actual.length);
+        Envelopes.transform(transform, inPlace, 0, inPlace, 4, n);
+        assertArrayEquals(Arrays.copyOfRange(actual, 4, actual.length), Arrays.copyOfRange(inPlace, 4, inPlace.length), 0);
+    }
+
+    /**
+     * Tests {@link Envelopes#transform(MathTransform, double[], int, double[], int, int)} when the derivative
+     * can not be computed at a point of the first envelope. The curve extremums shall still be searched in
+     * the next envelopes; otherwise the second envelope below would miss the extremum at the equator.
+     *
+     * @throws FactoryException if an error occurred while creating the operation.
+     * @throws TransformException if an error occurred while transforming the envelopes.
+     *
+     * @since 0.8
+     */
+    @Test
+    @DependsOnMethod("testBulkTransform")
+    public void testBulkTransformWithDerivativeFailure() throws FactoryException, TransformException {
+        final MathTransform transform = new DerivativeFailure(
+                CommonCRS.WGS84.universal(10, -123.5).getConversionFromBase().getMathTransform());
+        final double[] envelopes = {
+             81, -126,  82, -120,           // Derivative fails in this envelope.
+            -20, -126,  40, -120            // Extremum of easting at the equator.
+        };
+        final int n = envelopes.length / 4;
+        final double[] actual = new double[envelopes.length];
+        Envelopes.transform(transform, envelopes, 0, actual, 0, n);
+        for (int i=0; i<n; i++) {
+            final GeneralEnvelope env = new GeneralEnvelope(2);
+            env.setEnvelope(Arrays.copyOfRange(envelopes, i*4, (i+1)*4));
+            final GeneralEnvelope expected = Envelopes.transform(transform, env);
+            for (int j=0; j<2; j++) {
+                assertEquals("min", expected.getMinimum(j), actual[i*4 + j],     LINEAR_TOLERANCE);
+                assertEquals("max", expected.getMaximum(j), actual[i*4 + j + 2], LINEAR_TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * A transform which can not compute the derivative at latitudes higher than 80°,
+     * for simulating a transform having a singularity at the poles.
+     */
+    private static final class DerivativeFailure extends AbstractMathTransform {
+        /** The transform on which to delegate the work. */
+        private final MathTransform transform;
+
+        /** Creates a new transform delegating its work to the given two-dimensional transform. */
+        DerivativeFailure(final MathTransform transform) {
+            this.transform = transform;
+        }
+
+        /** Returns the number of source dimensions, which is 2. */
+        @Override public int getSourceDimensions() {
+            return 2;
+        }
+
+        /** Returns the number of target dimensions, which is 2. */
+        @Override public int getTargetDimensions() {
+            return 2;
+        }
+
+        /** Transforms the given point, failing if the derivative is requested at a latitude higher than 80°. */
+        @Override
+        public Matrix transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff,
+                final boolean derivate) throws TransformException
+        {
+            Matrix derivative = null;
+            if (derivate) {
+                if (srcPts[srcOff] > 80) {
+                    throw new TransformException("Can not compute the derivative near the pole.");
+                }
+                derivative = transform.derivative(new DirectPosition2D(srcPts[srcOff], srcPts[srcOff + 1]));
+            }
+            if (dstPts != null) {
+                transform.transform(srcPts, srcOff, dstPts, dstOff, 1);
+            }
+            return derivative;
+        }
+    }
 }
@@ -20,7 +20,14 @@ import java.util.Locale;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import javax.measure.quantity.Angle;
 import org.opengis.geometry.Envelope;
 import org.opengis.util.FactoryException;
@@ -29,6 +36,7 @@ import org.apache.sis.referencing.operation.matrix.Matrix3;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.geometry.Envelopes;
 import org.apache.sis.measure.Units;
+import org.apache.sis.test.DependsOnMethod;
 import org.junit.Test;
 
 import static org.apache.sis.test.Assert.*;
@@ -184,6 +192,95 @@ public final strictfp class NADCONTest extends DatumShiftTestCase {
     }
 
 
+    /**
+     * Tests loading binary grid files with memory-mapping. This test writes a synthetic grid in temporary
+     * binary files, then verifies that the values read in place in the mapped files are identical to the
+     * values copied in {@code float[]} arrays by the default loader.
+     *
+     * @throws IOException if an error occurred while writing or loading the grid.
+     * @throws FactoryException if an error occurred while computing the grid.
+     * @throws TransformException if an error occurred while testing a point.
+     */
+    @Test
+    @DependsOnMethod("testLoader")
+    public void testMappedBinaryLoader() throws IOException, FactoryException, TransformException {
+        final Path latitudeShifts  = Files.createTempFile("SIS", ".las");
+        final Path longitudeShifts = Files.createTempFile("SIS", ".los");
+        try {
+            writeBinaryGrid(latitudeShifts,  24, 5, 0.5f);
+            writeBinaryGrid(longitudeShifts, 24, 5, -1.25f);
+            final DatumShiftGridFile<Angle,Angle> expected, grid;
+            expected = NADCON.load(latitudeShifts, longitudeShifts, latitudeShifts, longitudeShifts, false);
+            grid     = NADCON.load(latitudeShifts, longitudeShifts, latitudeShifts, longitudeShifts, true);
+            assertInstanceOf("Should be mapped.", DatumShiftGridMapped.class, grid);
+            NTv2Test.assertDataEquals(expected, grid);
+            assertEquals("cellPrecision", expected.getCellPrecision(), grid.getCellPrecision(), STRICT);
+        } finally {
+            Files.delete(latitudeShifts);
+            Files.delete(longitudeShifts);
+        }
+    }
+
+    /**
+     * Tests that memory-mapping rejects a file with an invalid row separator, like the default loader does.
+     *
+     * @throws IOException if an error occurred while writing the grid.
+     */
+    @Test
+    @DependsOnMethod("testMappedBinaryLoader")
+    public void testMappedCorruptedSeparator() throws IOException {
+        final Path latitudeShifts  = Files.createTempFile("SIS", ".las");
+        final Path longitudeShifts = Files.createTempFile("SIS", ".los");
+        try {
+            final int nx = 24, ny = 5;
+            writeBinaryGrid(latitudeShifts,  nx, ny, 0.5f);
+            writeBinaryGrid(longitudeShifts, nx, ny, -1.25f);
+            try (SeekableByteChannel c = Files.newByteChannel(longitudeShifts, StandardOpenOption.WRITE)) {
+                c.position(ny * (nx + 1) * (Float.SIZE / Byte.SIZE));      // Separator of the last row.
+                c.write(ByteBuffer.allocate(Float.SIZE / Byte.SIZE).order(ByteOrder.LITTLE_ENDIAN).putFloat(0, 3));
+            }
+            try {
+                NADCON.load(latitudeShifts, longitudeShifts, latitudeShifts, longitudeShifts, true);
+                fail("Should not accept a corrupted file.");
+            } catch (FactoryException e) {
+                assertNotNull(e.getMessage());
+            }
+        } finally {
+            Files.delete(latitudeShifts);
+            Files.delete(longitudeShifts);
+        }
+    }
+
+    /**
+     * Writes a synthetic grid in NADCON binary format. The grid covers a small area in Kansas
+     * with cells of 0.25°, and the shift values vary linearly with the grid indices.
+     *
+     * @param  file    where to write the grid.
+     * @param  nx      number of cells along the longitude axis. Shall be at least 23.
+     * @param  ny      number of cells along the latitude axis.
+     * @param  factor  a factor to apply on the shift values, in seconds of angle.
+     * @throws IOException if an error occurred while writing the file.
+     */
+    private static void writeBinaryGrid(final Path file, final int nx, final int ny, final float factor) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((nx + 1) * (ny + 1) * (Float.SIZE / Byte.SIZE));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("NADCON EXTRACTED REGION".getBytes(StandardCharsets.US_ASCII));
+        buffer.position(64);
+        buffer.putInt(nx).putInt(ny).putInt(1);
+        buffer.putFloat(-100).putFloat(0.25f).putFloat(37.5f).putFloat(0.25f).putFloat(0);
+        buffer.position((nx + 1) * (Float.SIZE / Byte.SIZE));
+        for (int y=0; y<ny; y++) {
+            buffer.putFloat(0);                                 // Separator at the beginning of each row.
+            for (int x=0; x<nx; x++) {
+                buffer.putFloat(factor * (x + 0.125f*y));
+            }
+        }
+        buffer.flip();
+        try (WritableByteChannel c = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            c.write(buffer);
+        }
+    }
+
 
 
     //////////////////////////////////////////////////
@@ -16,6 +16,8 @@
  */
 package org.apache.sis.internal.referencing.provider;
 
+import java.util.Arrays;
+import java.util.Random;
 import java.net.URISyntaxException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -28,11 +30,17 @@ import java.nio.charset.StandardCharsets;
 import javax.measure.quantity.Angle;
 import org.opengis.geometry.Envelope;
 import org.opengis.util.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
 import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.operation.transform.InterpolatedTransform;
+import org.apache.sis.internal.system.DefaultFactories;
 import org.apache.sis.referencing.operation.matrix.Matrix3;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.geometry.Envelopes;
 import org.apache.sis.measure.Units;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
 import org.junit.Test;
 
 import static org.apache.sis.test.Assert.*;
@@ -156,6 +164,117 @@ public final strictfp class NTv2Test extends DatumShiftTestCase {
     }
 
 
+    /**
+     * Tests loading the grid file with memory-mapping. The values read in place in the mapped file
+     * shall be identical to the values copied in {@code float[]} arrays by the default loader.
+     *
+     * @throws URISyntaxException if the URL to the test file can not be converted to a path.
+     * @throws IOException if an error occurred while loading the grid.
+     * @throws FactoryException if an error occurred while computing the grid.
+     * @throws TransformException if an error occurred while testing the point.
+     */
+    @Test
+    @DependsOnMethod("testLoader")
+    public void testMappedLoader() throws URISyntaxException, IOException, FactoryException, TransformException {
+        final Path file = getResource(TEST_FILE);
+        final DatumShiftGridFile<Angle,Angle> expected = NTv2.load(file, file, false);
+        final DatumShiftGridFile<Angle,Angle> grid     = NTv2.load(file, file, true);
+        assertInstanceOf("Should be mapped.", DatumShiftGridMapped.class, grid);
+        assertTrue ("isMapped", grid.isMapped());
+        assertFalse("isMapped", expected.isMapped());
+        assertDataEquals(expected, grid);
+        assertEquals("cellPrecision", expected.getCellPrecision(), grid.getCellPrecision(), STRICT);
+    }
+
+    /**
+     * Tests loading a file containing a coarse grid with a nested finer grid. Points inside the nested grid
+     * shall be interpolated in that grid, and other points in the coarse grid. The shift values vary linearly
+     * with the coordinates, so bilinear interpolations give exact values. This method also verifies that the
+     * {@link InterpolatedTransform} batch path, which groups points by sub-grid, gives the same results than
+     * the transformation of points one by one.
+     *
+     * @throws IOException if an error occurred while writing or loading the grid.
+     * @throws FactoryException if an error occurred while computing the grid.
+     * @throws TransformException if an error occurred while transforming a point.
+     */
+    @Test
+    public void testMultiGrids() throws IOException, FactoryException, TransformException {
+        final Path file = Files.createTempFile("SIS", ".gsb");
+        try {
+            writeMultiGrids(file);
+            final DatumShiftGridFile<Angle,Angle> grid = NTv2.load(file, file, false);
+            assertInstanceOf("Should have sub-grids.", DatumShiftGridGroup.class, grid);
+            assertEquals("subgridCount", 2, ((DatumShiftGridGroup<?,?>) grid).getSubgridCount());
+            assertArrayEquals("gridSize", new int[] {11, 11}, grid.getGridSize());
+            /*
+             * (λ,φ) = (-1440″, 1440″) is inside the nested grid, and (-500″, 3000″) is only in the coarse grid.
+             * Longitude shifts in the file are positive west, which is the reason for the negative signs below.
+             */
+            assertArrayEquals("nested", new double[] {-(4 + 0.002*1440), 3 + 0.002*1440},
+                    grid.interpolateAt(-1440, 1440), 1E-5);
+            assertArrayEquals("coarse", new double[] {-(2 + 0.001*500), 1 + 0.001*3000},
+                    grid.interpolateAt(-500, 3000), 1E-5);
+            final DatumShiftGridFile<Angle,Angle> mapped = NTv2.load(file, file, true);
+            assertTrue ("isMapped", mapped.isMapped());
+            assertFalse("isMapped", grid.isMapped());
+            assertDataEquals(grid, mapped);
+            /*
+             * Compare the batch transformation with the transformation of points one by one.
+             */
+            final MathTransform tr = InterpolatedTransform.createGeodeticTransformation(
+                    DefaultFactories.forBuildin(MathTransformFactory.class), grid);
+            final Random random = TestUtilities.createRandomNumberGenerator();
+            final double[] points = new double[200];
+            for (int i=0; i<points.length;) {
+                points[i++] = -random.nextDouble();         // Longitude in degrees.
+                points[i++] =  random.nextDouble();         // Latitude in degrees.
+            }
+            final double[] expected = new double[points.length];
+            for (int i=0; i<points.length; i += 2) {
+                tr.transform(points, i, expected, i, 1);
+            }
+            final double[] actual = new double[points.length];
+            tr.transform(points, 0, actual, 0, points.length / 2);
+            assertArrayEquals("transform", expected, actual, STRICT);
+            tr.transform(points, 0, points, 2, points.length / 2 - 1);
+            assertArrayEquals("overlapping", Arrays.copyOf(expected, expected.length - 2),
+                    Arrays.copyOfRange(points, 2, points.length), STRICT);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Asserts that the given grids have the same geometry and the same cell values.
+     * The sample point given by {@link FranceGeocentricInterpolationTest#samplePoint(int)}
+     * shall also be interpolated to the same values.
+     *
+     * @param  expected  the grid loaded in memory.
+     * @param  actual    the grid to compare with the expected grid.
+     * @throws TransformException if an error occurred while interpolating the sample point.
+     */
+    static void assertDataEquals(final DatumShiftGridFile<?,?> expected, final DatumShiftGridFile<?,?> actual)
+            throws TransformException
+    {
+        assertEquals("translationDimensions", expected.getTranslationDimensions(), actual.getTranslationDimensions());
+        assertArrayEquals("gridSize", expected.getGridSize(), actual.getGridSize());
+        assertEquals("coordinateToGrid", expected.getCoordinateToGrid(), actual.getCoordinateToGrid());
+        final int[] size = expected.getGridSize();
+        for (int dim=0; dim < expected.getTranslationDimensions(); dim++) {
+            for (int y=0; y<size[1]; y++) {
+                for (int x=0; x<size[0]; x++) {
+                    assertEquals("cellValue", expected.getCellValue(dim, x, y), actual.getCellValue(dim, x, y), STRICT);
+                }
+            }
+        }
+        final double[] position = expected.getDomainOfValidity().getUpperCorner().getCoordinate();
+        final double[] lower    = expected.getDomainOfValidity().getLowerCorner().getCoordinate();
+        for (int i=0; i<position.length; i++) {
+            position[i] = (position[i] * 2 + lower[i]) / 3;
+        }
+        assertArrayEquals("interpolateAt", expected.interpolateAt(position), actual.interpolateAt(position), STRICT);
+    }
+
 
 
     //////////////////////////////////////////////////
@@ -232,6 +351,60 @@ public final strictfp class NTv2Test extends DatumShiftTestCase {
         }
     }
 
+    /**
+     * Writes a NTv2 file with a coarse grid of 11×11 cells of 360″ covering [0 … 3600″] in latitude and
+     * longitude (positive west), and a nested grid of 9×9 cells of 90″ covering [1080 … 1800″].
+     * The latitude and longitude shifts (in seconds) are 1 + 0.001φ and 2 + 0.001λ in the coarse grid,
+     * and 3 + 0.002φ and 4 + 0.002λ in the nested grid.
+     *
+     * @param  out  where to write the test file.
+     * @throws IOException if an error occurred while writing the test file.
+     */
+    private static void writeMultiGrids(final Path out) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        writeString(buffer, "NUM_OREC"); buffer.putInt(5); nextRecord(buffer);
+        writeString(buffer, "NUM_SREC"); buffer.putInt(9); nextRecord(buffer);
+        writeString(buffer, "NUM_FILE"); buffer.putInt(2); nextRecord(buffer);
+        writeString(buffer, "GS_TYPE");  writeString(buffer, "SECONDS");
+        writeString(buffer, "VERSION");  writeString(buffer, "SIS_TEST");
+        writeSubGrid(buffer, "COARSE", "NONE",   0, 3600, 360, 1, 0.001f);
+        writeSubGrid(buffer, "NESTED", "COARSE", 1080, 1800, 90, 3, 0.002f);
+        writeString(buffer, "END");
+        nextRecord(buffer);
+        try (WritableByteChannel c = Files.newByteChannel(out, StandardOpenOption.WRITE)) {
+            buffer.flip();
+            c.write(buffer);
+        }
+    }
+
+    /**
+     * Writes a square sub-grid for {@link #writeMultiGrids(Path)}.
+     * The latitude shifts are {@code base + factor*φ} and the longitude shifts are {@code base + 1 + factor*λ}.
+     */
+    private static void writeSubGrid(final ByteBuffer buffer, final String name, final String parent,
+            final int min, final int max, final int inc, final float base, final float factor)
+    {
+        final int n = (max - min) / inc + 1;
+        writeString(buffer, "SUB_NAME"); writeString(buffer, name);
+        writeString(buffer, "PARENT");   writeString(buffer, parent);
+        writeString(buffer, "S_LAT");    buffer.putDouble(min);
+        writeString(buffer, "N_LAT");    buffer.putDouble(max);
+        writeString(buffer, "E_LONG");   buffer.putDouble(min);
+        writeString(buffer, "W_LONG");   buffer.putDouble(max);
+        writeString(buffer, "LAT_INC");  buffer.putDouble(inc);
+        writeString(buffer, "LONG_INC"); buffer.putDouble(inc);
+        writeString(buffer, "GS_COUNT"); buffer.putInt(n * n); nextRecord(buffer);
+        for (int φ = min; φ <= max; φ += inc) {
+            for (int λ = min; λ <= max; λ += inc) {             // From east to west.
+                buffer.putFloat(base     + factor * φ);
+                buffer.putFloat(base + 1 + factor * λ);
+                buffer.putFloat(ACCURACY);
+                buffer.putFloat(ACCURACY);
+            }
+        }
+    }
+
     /**
      * Writes the given string in the given buffer. It is caller's responsibility to ensure that the
      * string does not occupy more than 8 bytes in US-ASCII encoding.
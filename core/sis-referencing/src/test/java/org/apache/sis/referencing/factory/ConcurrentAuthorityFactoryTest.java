@@ -17,14 +17,18 @@
 package org.apache.sis.referencing.factory;
 
 import java.util.List;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import org.opengis.util.FactoryException;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
 import org.apache.sis.internal.system.Loggers;
 import org.apache.sis.util.logging.Logging;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -36,7 +40,7 @@ import static org.junit.Assume.assumeTrue;
  * Tests {@link ConcurrentAuthorityFactory}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.7
  * @module
  */
@@ -147,6 +151,54 @@ public final strictfp class ConcurrentAuthorityFactoryTest extends TestCase {
         assertTrue  ("Worker should be disposed.",  createdDAOs.get(0).isClosed());
     }
 
+    /**
+     * Tests {@link ConcurrentAuthorityFactory#prefetch(Class, java.util.Collection)}.
+     * The objects created in parallel shall be available in the cache afterward,
+     * as reported by {@link ConcurrentAuthorityFactory#isCached(Class, String)}.
+     *
+     * @throws FactoryException if an error occurred while creating an object.
+     */
+    @Test
+    public void testPrefetch() throws FactoryException {
+        final Mock factory = new Mock();
+        final List<String> codes = Arrays.asList("84", "4326", "4979", "5714", "9905", "6326", "6422");
+        assertFalse(factory.isCached(IdentifiedObject.class, "4326"));
+        assertEquals(codes.size(), factory.prefetch(IdentifiedObject.class, codes));
+        assertTrue (factory.isCached(IdentifiedObject.class, "4326"));
+        assertFalse(factory.isCached(CoordinateSystemAxis.class, "4326"));
+        final List<AuthorityFactoryMock> createdDAOs = factory.createdDAOs();
+        assertFalse("Expected at least one DAO.", createdDAOs.isEmpty());
+        for (final String code : codes) {
+            assertNotNull(factory.createObject(code));
+        }
+        assertEquals("Expected no new DAO.", createdDAOs, factory.createdDAOs());
+    }
+
+    /**
+     * Tests {@link ConcurrentAuthorityFactory#prefetch(Class, java.util.Collection)} invoked by an interrupted thread.
+     * The method shall throw an exception and restore the interrupted status, but the factory shall still be usable.
+     *
+     * @throws FactoryException if an error occurred while creating an object.
+     */
+    @Test
+    @DependsOnMethod("testPrefetch")
+    public void testInterruptedPrefetch() throws FactoryException {
+        final Mock factory = new Mock();
+        final List<String> codes = Arrays.asList("84", "4326", "4979", "5714", "9905", "6326", "6422");
+        Thread.currentThread().interrupt();
+        try {
+            factory.prefetch(IdentifiedObject.class, codes);
+            fail("Expected an exception since the thread has been interrupted.");
+        } catch (FactoryException e) {
+            assertTrue("cause", e.getCause() instanceof InterruptedException);
+        } finally {
+            assertTrue("Interrupted status shall be restored.", Thread.interrupted());
+        }
+        for (final String code : codes) {
+            assertNotNull(factory.createObject(code));
+        }
+    }
+
     /**
      * Sleeps and ensures that the sleep time did not exceeded the timeout. The sleep time could be greater if the test
      * machine is under heavy load (for example a Jenkins server), in which case we will cancel the test without failure.
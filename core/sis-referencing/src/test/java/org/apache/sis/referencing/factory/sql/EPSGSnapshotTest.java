@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.factory.sql;
+
+import java.util.Collections;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.internal.util.Constants;
+import org.apache.sis.util.ComparisonMode;
+import org.apache.sis.util.Utilities;
+
+// Test dependencies
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.apache.sis.test.TestUtilities.getSingleton;
+
+
+/**
+ * Tests {@link EPSGSnapshot}. This test creates a snapshot from the EPSG factory available in the
+ * test environment (usually the fallback providing a few hard-coded definitions), then verifies
+ * that an {@link EPSGFactory} using that snapshot creates equivalent objects.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(EPSGFactoryTest.class)
+public final strictfp class EPSGSnapshotTest extends TestCase {
+    /**
+     * Writes a snapshot, then creates objects from it.
+     *
+     * @throws Exception if an error occurred while writing or reading the snapshot.
+     */
+    @Test
+    public void testWriteRead() throws Exception {
+        final CRSAuthorityFactory source = CRS.getAuthorityFactory(Constants.EPSG);
+        final Path file = Files.createTempFile("SIS", ".snapshot");
+        try {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                assertTrue("count", EPSGSnapshot.write(source, out) > 0);
+            }
+            final EPSGFactory factory = new EPSGFactory(Collections.singletonMap("snapshot", file));
+            try {
+                try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                    final EPSGSnapshot snapshot = new EPSGSnapshot(in, file.toString(), factory);
+                    assertEquals("datasetVersion", EPSGSnapshot.datasetVersion(source.getAuthority()), snapshot.datasetVersion);
+                    assertEquals("position", in.size(), in.position());
+                }
+                for (final String code : new String[] {"4326", "4979", "32631", "6326", "7030", "8901"}) {
+                    assertTrue(code, Utilities.deepEquals(source.createObject(code),
+                            factory.createObject(code), ComparisonMode.APPROXIMATIVE));
+                }
+                final GeographicCRS crs = factory.createGeographicCRS("4326");
+                assertEquals("identifier", "4326", getSingleton(crs.getIdentifiers()).getCode());
+                assertSame("Shall be cached.", crs, factory.createGeographicCRS("EPSG:4326"));
+                assertTrue("datum", Utilities.deepEquals(crs.getDatum(),
+                        factory.createGeodeticDatum("6326"), ComparisonMode.IGNORE_METADATA));
+                assertNotNull(factory.createProjectedCRS("32631"));
+                if (factory.dataSource == null) try {
+                    factory.createGeographicCRS("6326");
+                    fail("6326 is a datum code, not a CRS code.");
+                } catch (NoSuchAuthorityCodeException e) {
+                    assertEquals("6326", e.getAuthorityCode());
+                }
+            } finally {
+                factory.close();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -180,6 +180,29 @@ public final strictfp class LambertConicConformalTest extends MapProjectionTestC
         verifyDerivative(toRadians(10), toRadians(60));
     }
 
+    /**
+     * Verifies that the conversion of arrays of points gives the same results than the conversion of
+     * each point individually, for both the ellipsoidal and spherical formulas.
+     *
+     * @throws TransformException if an error occurred while projecting a point.
+     */
+    @Test
+    @DependsOnMethod("testSpecialLatitudes")
+    public void testArrayConversions() throws TransformException {
+        final double[] points = {
+            toRadians(  0), toRadians(  0),
+            toRadians( 15), toRadians( 30),
+            toRadians(-10), toRadians( 45),
+            toRadians(100), toRadians(-60),
+            toRadians(-45), toRadians( 85),
+            NaN,            toRadians( 20)
+        };
+        createNormalizedProjection(true, 40);
+        verifyArrayConversions(points);
+        createNormalizedProjection(false, 40);
+        verifyArrayConversions(points);
+    }
+
     /**
      * Tests the <cite>"Lambert Conic Conformal (1SP)"</cite> case (EPSG:9801).
      * This test is defined in GeoAPI conformance test suite.
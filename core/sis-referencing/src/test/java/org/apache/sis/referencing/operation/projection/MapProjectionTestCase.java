@@ -16,6 +16,7 @@
  */
 package org.apache.sis.referencing.operation.projection;
 
+import java.util.Arrays;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.datum.Ellipsoid;
 import org.opengis.referencing.operation.MathTransform;
@@ -24,6 +25,7 @@ import org.apache.sis.parameter.Parameters;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.internal.referencing.provider.MapProjection;
 import org.apache.sis.referencing.operation.DefaultOperationMethod;
+import org.apache.sis.referencing.operation.transform.AbstractMathTransform;
 import org.apache.sis.referencing.operation.transform.CoordinateDomain;
 import org.apache.sis.referencing.operation.transform.MathTransformTestCase;
 import org.apache.sis.referencing.operation.transform.MathTransformFactoryMock;
@@ -207,4 +209,63 @@ abstract strictfp class MapProjectionTestCase extends MathTransformTestCase {
         }
         verifyInDomain(domain, randomSeed);
     }
+
+    /**
+     * Verifies that the conversion of an array of points gives the same results than the conversion of each
+     * point individually, for both the forward and inverse projections. The array is converted in-place twice:
+     * once with the same source and target offsets, and once with a target offset greater than the source offset
+     * in the same array (which requires the points to be converted in descending order). Points that can not be
+     * converted are expected to be set to NaN, with an exception thrown after all conversions.
+     *
+     * @param  points  (λ,φ) coordinates in radians of the points to convert. This array is not modified.
+     * @throws TransformException if the inverse projection is not supported.
+     */
+    final void verifyArrayConversions(final double[] points) throws TransformException {
+        final double[] projected = verifyArrayConversion("transform", (AbstractMathTransform) transform, points);
+        verifyArrayConversion("inverse", (AbstractMathTransform) transform.inverse(), projected);
+    }
+
+    /**
+     * Implementation of {@link #verifyArrayConversions(double[])} for one direction.
+     * The array of points is converted in-place in copies of the given array.
+     *
+     * @return the result of the array conversion.
+     */
+    private double[] verifyArrayConversion(final String message, final AbstractMathTransform tr, final double[] points)
+            throws TransformException
+    {
+        final double[] expected = new double[points.length];
+        boolean hasFailure = false;
+        for (int i=0; i<points.length; i += 2) {
+            try {
+                tr.transform(points, i, expected, i, false);
+            } catch (ProjectionException e) {
+                expected[i] = expected[i+1] = Double.NaN;
+                hasFailure = true;
+            }
+        }
+        final double[] actual = points.clone();
+        try {
+            tr.transform(actual, 0, actual, 0, points.length / 2);
+            assertFalse("Expected a ProjectionException.", hasFailure);
+        } catch (ProjectionException e) {
+            assertTrue("Unexpected ProjectionException.", hasFailure);
+        }
+        assertArrayEquals(message, expected, actual, tolerance);
+        /*
+         * Same conversion, but with the target shifted by one point in the same array.
+         * Points must be converted in descending order for not overwriting source points not yet converted.
+         */
+        final int shift = NormalizedProjection.DIMENSION;
+        final double[] shifted = new double[points.length + shift];
+        System.arraycopy(points, 0, shifted, 0, points.length);
+        try {
+            tr.transform(shifted, 0, shifted, shift, points.length / 2);
+            assertFalse("Expected a ProjectionException.", hasFailure);
+        } catch (ProjectionException e) {
+            assertTrue("Unexpected ProjectionException.", hasFailure);
+        }
+        assertArrayEquals(message, expected, Arrays.copyOfRange(shifted, shift, shifted.length), tolerance);
+        return actual;
+    }
 }
@@ -141,6 +141,30 @@ public final strictfp class TransverseMercatorTest extends MapProjectionTestCase
         verifyDerivative(toRadians(+6), toRadians(60));
     }
 
+    /**
+     * Verifies that the conversion of arrays of points gives the same results than the conversion of
+     * each point individually. One point is outside the domain of validity, for testing the fallback
+     * to the super-class method which sets the points that can not be converted to NaN.
+     *
+     * @throws TransformException if an error occurred while projecting a point.
+     */
+    @Test
+    @DependsOnMethod("testEllipsoidalDerivative")
+    public void testArrayConversions() throws TransformException {
+        final double[] points = {
+            toRadians(  0), toRadians(  0),
+            toRadians( -3), toRadians( 30),
+            toRadians( +6), toRadians( 60),
+            toRadians( 85), toRadians( 10),         // Outside domain of validity.
+            toRadians(-20), toRadians(-45),
+            toRadians( 40), toRadians( 80)
+        };
+        createNormalizedProjection(true, 0);
+        verifyArrayConversions(points);
+        createNormalizedProjection(false, 0);
+        verifyArrayConversions(points);
+    }
+
     /**
      * Verifies that deserialized projections work as expected. This implies that deserialization
      * recomputed the internal transient fields, especially the series expansion coefficients.
@@ -16,11 +16,13 @@
  */
 package org.apache.sis.referencing.operation.transform;
 
+import java.util.Arrays;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.referencing.operation.matrix.Matrix4;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.DependsOn;
 import org.junit.Test;
 
@@ -31,7 +33,7 @@ import static org.opengis.test.Assert.*;
  * Tests the {@link ConcatenatedTransform} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -78,6 +80,33 @@ public final strictfp class ConcatenatedTransformTest extends MathTransformTestC
         verifyTransform(source, target);
     }
 
+    /**
+     * Tests {@link ConcatenatedTransformDirect} on an array large enough for being transformed by blocks,
+     * including with source and target ranges overlapping in the same array.
+     *
+     * @throws TransformException if an error occurred while transforming the test coordinates.
+     */
+    @Test
+    @DependsOnMethod("testDirect2D")
+    public void testDirectByBlocks() throws TransformException {
+        final AffineTransform2D first  = new AffineTransform2D(2, 0, 0, 3, 2.00, 4.00);
+        final AffineTransform2D second = new AffineTransform2D(0, 1, 1, 0, 0.25, 0.75);
+        final MathTransform tr = new ConcatenatedTransformDirect(first, second);
+        final int numPts = AbstractMathTransform.MAXIMUM_BUFFER_SIZE * 3 + 7;
+        final double[] source = new double[(numPts + 4) * 2];
+        for (int i=0; i<source.length; i++) {
+            source[i] = i * 0.5;
+        }
+        final double[] expected = new double[numPts * 2];
+        first .transform(source,   2, expected, 0, numPts);
+        second.transform(expected, 0, expected, 0, numPts);
+        for (int dstOff = 0; dstOff <= 8; dstOff += 2) {
+            final double[] array = source.clone();
+            tr.transform(array, 2, array, dstOff, numPts);
+            assertArrayEquals(expected, Arrays.copyOfRange(array, dstOff, dstOff + numPts*2), 0);
+        }
+    }
+
     /**
      * Tests the concatenation of two affine transforms than can not be represented as a
      * {@link ConcatenatedTransformDirect}. The slower {@link ConcatenatedTransform} shall be used.
@@ -17,11 +17,17 @@
 package org.apache.sis.referencing.operation.transform;
 
 import java.util.List;
+import java.util.Random;
+import java.util.Arrays;
 import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.referencing.operation.matrix.Matrices;
 import org.apache.sis.referencing.operation.matrix.Matrix2;
 import org.apache.sis.referencing.operation.matrix.Matrix3;
 import org.apache.sis.referencing.operation.matrix.Matrix4;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 
@@ -32,7 +38,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests {@link MathTransforms}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.6
+ * @version 0.8
  * @since   0.5
  * @module
  */
@@ -120,4 +126,205 @@ public final strictfp class MathTransformsTest extends TestCase {
             0,  0,  0,  0,  0,  0,  1
         }), MathTransforms.getMatrix(r), STRICT);
     }
+
+    /**
+     * Tests {@link MathTransforms#transformParallel(MathTransform, double[], int, double[], int, int)}
+     * by comparing with the result of the single-threaded method, including with overlapping ranges
+     * in the same array.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    public void testTransformParallel() throws TransformException {
+        final MathTransform tr = createConcatenateAndPassThrough();
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final int numPts = ParallelTransformTask.CHUNK_SIZE * 5 + 17;
+        final double[] source = new double[(numPts + 10) * 3];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble() * 10;
+        }
+        final double[] expected = new double[numPts * 3];
+        tr.transform(source, 6, expected, 0, numPts);
+        /*
+         * Distinct source and target arrays.
+         */
+        final double[] actual = new double[numPts * 3];
+        MathTransforms.transformParallel(tr, source, 6, actual, 0, numPts);
+        assertArrayEquals("Distinct arrays", expected, actual, STRICT);
+        /*
+         * Overlapping ranges in the same array: target before, at the same index or after the source.
+         */
+        for (int dstOff = 0; dstOff <= 12; dstOff += 3) {
+            final double[] array = source.clone();
+            MathTransforms.transformParallel(tr, array, 6, array, dstOff, numPts);
+            assertArrayEquals("Same array", expected, Arrays.copyOfRange(array, dstOff, dstOff + numPts*3), STRICT);
+        }
+    }
+
+    /**
+     * Tests the {@code float[]} variants of {@code MathTransforms.transformParallel(…)}
+     * by comparing with the result of the single-threaded methods.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    @DependsOnMethod("testTransformParallel")
+    public void testTransformParallelFloat() throws TransformException {
+        final MathTransform tr = createConcatenateAndPassThrough();
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final int numPts = ParallelTransformTask.CHUNK_SIZE * 3 + 5;
+        final double[] sourceD = new double[numPts * 3];
+        final float[]  sourceF = new float [numPts * 3];
+        for (int i=0; i<sourceD.length; i++) {
+            sourceD[i] = sourceF[i] = random.nextFloat() * 10;
+        }
+        final float[]  expectedF = new float [numPts * 3];
+        final double[] expectedD = new double[numPts * 3];
+        final float[]  actualF   = new float [numPts * 3];
+        final double[] actualD   = new double[numPts * 3];
+
+        tr.transform(sourceF, 0, expectedF, 0, numPts);
+        MathTransforms.transformParallel(tr, sourceF, 0, actualF, 0, numPts);
+        assertArrayEquals("float[] → float[]", expectedF, actualF, 0f);
+
+        tr.transform(sourceD, 0, expectedF, 0, numPts);
+        MathTransforms.transformParallel(tr, sourceD, 0, actualF, 0, numPts);
+        assertArrayEquals("double[] → float[]", expectedF, actualF, 0f);
+
+        tr.transform(sourceF, 0, expectedD, 0, numPts);
+        MathTransforms.transformParallel(tr, sourceF, 0, actualD, 0, numPts);
+        assertArrayEquals("float[] → double[]", expectedD, actualD, STRICT);
+        /*
+         * Overlapping ranges in the same float[] array.
+         */
+        tr.transform(sourceF, 0, expectedF, 0, numPts);
+        final float[] array = Arrays.copyOf(sourceF, sourceF.length + 6);
+        MathTransforms.transformParallel(tr, array, 0, array, 6, numPts);
+        assertArrayEquals("Same array", expectedF, Arrays.copyOfRange(array, 6, array.length), 0f);
+    }
+
+    /**
+     * Tests {@code MathTransforms.transformParallel(…)} with a transform having different source
+     * and target dimensions, in which case the offsets of chunks differ in the source and target arrays.
+     *
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Test
+    @DependsOnMethod("testTransformParallel")
+    public void testTransformParallelDimensionChange() throws TransformException {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final int numPts = ParallelTransformTask.CHUNK_SIZE * 4 + 3;
+        for (int srcDim = 2; srcDim <= 3; srcDim++) {
+            final int dstDim = 5 - srcDim;
+            final MathTransform tr = new FailingTransform(srcDim, dstDim);
+            final double[] source = new double[(numPts + 4) * 3];       // Large enough for the largest dimension.
+            for (int i=0; i<source.length; i++) {
+                source[i] = random.nextDouble() * 10;
+            }
+            final double[] expected = new double[numPts * dstDim];
+            tr.transform(source, srcDim, expected, 0, numPts);
+
+            final double[] actual = new double[numPts * dstDim];
+            MathTransforms.transformParallel(tr, source, srcDim, actual, 0, numPts);
+            assertArrayEquals("Distinct arrays", expected, actual, STRICT);
+            /*
+             * Overlapping ranges in the same array: target before, at the same index or after the source.
+             */
+            for (int dstOff = 0; dstOff <= 4*dstDim; dstOff += dstDim) {
+                final double[] array = source.clone();
+                MathTransforms.transformParallel(tr, array, srcDim, array, dstOff, numPts);
+                assertArrayEquals("Same array", expected,
+                        Arrays.copyOfRange(array, dstOff, dstOff + numPts*dstDim), STRICT);
+            }
+        }
+    }
+
+    /**
+     * Tests {@code MathTransforms.transformParallel(…)} with a transform which fails on some points
+     * in different chunks. The points that can not be transformed shall be set to NaN, the other
+     * points shall be transformed and the first exception shall be thrown after all chunks are done.
+     */
+    @Test
+    @DependsOnMethod("testTransformParallel")
+    public void testTransformParallelFailures() {
+        final MathTransform tr = new FailingTransform(2, 3);
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final int numPts = ParallelTransformTask.CHUNK_SIZE * 5 + 11;
+        final double[] source = new double[numPts * 2];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble() * 10;
+        }
+        final int[] failures = {3, ParallelTransformTask.CHUNK_SIZE * 2 + 100, numPts - 1};
+        for (final int i : failures) {
+            source[i * 2] = -1;                             // Negative values can not be transformed.
+        }
+        final double[] expected = new double[numPts * 3];
+        try {
+            tr.transform(source, 0, expected, 0, numPts);
+            fail("Expected a TransformException.");
+        } catch (TransformException e) {
+            assertSame("lastCompletedTransform", tr, e.getLastCompletedTransform());
+        }
+        final double[] actual = new double[numPts * 3];
+        try {
+            MathTransforms.transformParallel(tr, source, 0, actual, 0, numPts);
+            fail("Expected a TransformException.");
+        } catch (TransformException e) {
+            assertSame("lastCompletedTransform", tr, e.getLastCompletedTransform());
+            assertEquals("suppressed", failures.length - 1, e.getSuppressed().length);
+        }
+        for (final int i : failures) {
+            for (int j=0; j<3; j++) {
+                assertTrue("Expected NaN.", Double.isNaN(actual[i*3 + j]));
+            }
+        }
+        assertArrayEquals("Transformed points", expected, actual, STRICT);
+    }
+
+    /**
+     * A thread-safe transform which fails on points having a negative first coordinate.
+     * Each target coordinate is a function of all source coordinates.
+     */
+    private static final strictfp class FailingTransform extends AbstractMathTransform {
+        /** The source and target dimensions. */
+        private final int sourceDimension, targetDimension;
+
+        /** Creates a transform for the given dimensions. */
+        FailingTransform(final int sourceDimension, final int targetDimension) {
+            this.sourceDimension = sourceDimension;
+            this.targetDimension = targetDimension;
+        }
+
+        /** Returns the source dimension. */
+        @Override public int getSourceDimensions() {
+            return sourceDimension;
+        }
+
+        /** Returns the target dimension. */
+        @Override public int getTargetDimensions() {
+            return targetDimension;
+        }
+
+        /** Transforms a point, or throws an exception if the first coordinate is negative. */
+        @Override
+        public Matrix transform(final double[] srcPts, final int srcOff,
+                                final double[] dstPts, final int dstOff,
+                                final boolean derivate) throws TransformException
+        {
+            final double first = srcPts[srcOff];
+            if (first < 0) {
+                throw new TransformException("Negative coordinate.");
+            }
+            double sum = 0;
+            for (int i=0; i<sourceDimension; i++) {
+                sum += srcPts[srcOff + i] * (i + 1);
+            }
+            if (dstPts != null) {
+                for (int i=0; i<targetDimension; i++) {
+                    dstPts[dstOff + i] = sum * (i + 1) + first;
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -24,13 +24,16 @@ import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import javax.xml.bind.DatatypeConverter;
+import org.apache.sis.internal.system.Shutdown;
 
 // Branch-dependent imports
 import java.util.Objects;
@@ -573,4 +576,37 @@ public final class JDK8 {
     public static BufferedWriter newBufferedWriter(final Path path) throws IOException {
         return Files.newBufferedWriter(path, StandardCharsets.UTF_8);
     }
+
+    /**
+     * Returns a fork-join pool shared by all Apache SIS parallel computations.
+     * Placeholder for {@code ForkJoinPool.commonPool()}, which is available only on JDK8.
+     * The pool is created when first needed. Worker threads are daemon threads, so this pool
+     * does not prevent the JVM from exiting. The pool is also registered for {@link Shutdown},
+     * so its threads are stopped when Apache SIS is stopped by an OSGi or Servlet container
+     * before the JVM exits. This pool shall be used only for tasks that do not block on I/O.
+     *
+     * @return the shared fork-join pool.
+     *
+     * @since 0.8
+     */
+    public static ForkJoinPool commonPool() {
+        return CommonPool.INSTANCE;
+    }
+
+    /**
+     * Holder of the pool returned by {@link #commonPool()}, created only when first needed.
+     * This class is also the task which stops the pool at shutdown time.
+     */
+    private static final class CommonPool implements Callable<Object> {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool();
+        static {
+            Shutdown.register(new CommonPool());
+        }
+
+        /** Stops the worker threads. Invoked at shutdown time only. */
+        @Override public Object call() {
+            INSTANCE.shutdownNow();
+            return null;
+        }
+    }
 }
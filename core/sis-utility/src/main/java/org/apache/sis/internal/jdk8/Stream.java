@@ -20,6 +20,8 @@ import java.util.List;
 import java.util.LinkedList;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 
 /**
@@ -33,6 +35,11 @@ public final class Stream<T> implements AutoCloseable {
      */
     private final Spliterator<T> it;
 
+    /**
+     * Whether {@link #forEach(Consumer)} is allowed to process the elements in parallel.
+     */
+    private final boolean parallel;
+
     /**
      * The handles to execute when this stream is closed.
      */
@@ -41,8 +48,9 @@ public final class Stream<T> implements AutoCloseable {
     /**
      * Wraps the given iterator.
      */
-    Stream(final Spliterator<T> it) {
+    Stream(final Spliterator<T> it, final boolean parallel) {
         this.it = it;
+        this.parallel = parallel;
     }
 
     /**
@@ -59,6 +67,69 @@ public final class Stream<T> implements AutoCloseable {
         return null;
     }
 
+    /**
+     * Returns whether this stream would execute in parallel.
+     *
+     * @return whether this stream is parallel.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Performs an action for each element of this stream, in no particular order.
+     * If this stream is parallel, the elements are processed in the shared fork-join pool
+     * after partitioning the iterator with {@link Spliterator#trySplit()}.
+     *
+     * @param  action  a non-interfering action to perform on the elements.
+     */
+    public void forEach(final Consumer<? super T> action) {
+        if (parallel) {
+            final ForEach<T> task = new ForEach<>(it, action);
+            if (ForkJoinTask.inForkJoinPool()) {
+                task.invoke();
+            } else {
+                JDK8.commonPool().invoke(task);
+            }
+        } else {
+            it.forEachRemaining(action);
+        }
+    }
+
+    /**
+     * The task executed by {@link Stream#forEach(Consumer)} for parallel streams.
+     * Splits the iterator as much as it accepts, then processes each part in a separated task.
+     */
+    @SuppressWarnings("serial")
+    private static final class ForEach<T> extends RecursiveAction {
+        /** The elements to process. */
+        private final Spliterator<T> it;
+
+        /** The action to perform on each element. */
+        private final Consumer<? super T> action;
+
+        /** Creates a new task for the given elements. */
+        ForEach(final Spliterator<T> it, final Consumer<? super T> action) {
+            this.it = it;
+            this.action = action;
+        }
+
+        /** Forks a task for each part split from the iterator, then processes the remaining part. */
+        @Override protected void compute() {
+            final List<ForEach<T>> forks = new LinkedList<>();
+            Spliterator<T> part;
+            while ((part = it.trySplit()) != null) {
+                final ForEach<T> task = new ForEach<>(part, action);
+                task.fork();
+                forks.add(task);
+            }
+            it.forEachRemaining(action);
+            for (final ForEach<T> task : forks) {
+                task.join();
+            }
+        }
+    }
+
     /**
      * Performs an action for each element of this stream.
      *
@@ -191,6 +191,20 @@ public class OptionKey<T> implements Serializable {
      */
     public static final OptionKey<ByteBuffer> BYTE_BUFFER = new OptionKey<>("BYTE_BUFFER", ByteBuffer.class);
 
+    /**
+     * Whether {@link org.apache.sis.storage.DataStore}s are allowed to map the file content in memory.
+     * If {@link Boolean#TRUE}, data stores reading large blocks of uncompressed values (for example the
+     * variables of a netCDF file in classic format) may transfer those values directly from a
+     * {@linkplain java.nio.MappedByteBuffer memory-mapped buffer} instead of reading them through
+     * the {@link #BYTE_BUFFER}. This option is ignored if the storage is not a file.
+     *
+     * <p>Memory mapping avoids intermediate copies and seek operations, but the mapped memory is released
+     * only when the buffer is garbage-collected. Consequently this option is disabled by default.</p>
+     *
+     * @since 0.8
+     */
+    public static final OptionKey<Boolean> MEMORY_MAPPING = new OptionKey<>("MEMORY_MAPPING", Boolean.class);
+
     /**
      * The number of spaces to use for indentation when formatting text files in WKT or XML formats.
      * A value of {@value org.apache.sis.io.wkt.WKTFormat#SINGLE_LINE} means to format the whole WKT
@@ -80,8 +80,9 @@ public final strictfp class OptionKeyTest extends TestCase {
      */
     @Test
     public void testSerialization() {
-        assertSame(URL_ENCODING, assertSerializedEquals(URL_ENCODING));
-        assertSame(BYTE_BUFFER,  assertSerializedEquals(BYTE_BUFFER ));
+        assertSame(URL_ENCODING,   assertSerializedEquals(URL_ENCODING));
+        assertSame(BYTE_BUFFER,    assertSerializedEquals(BYTE_BUFFER   ));
+        assertSame(MEMORY_MAPPING, assertSerializedEquals(MEMORY_MAPPING));
     }
 
     /**
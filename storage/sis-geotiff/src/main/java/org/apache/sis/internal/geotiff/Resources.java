@@ -76,6 +76,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short ConstantValueRequired_3 = 3;
 
+        /**
+         * Tile or strip {1} of TIFF image “{0}” is corrupted.
+         */
+        public static final short CorruptedTile_2 = 26;
+
         /**
          * No value specified for the “{0}” TIFF tag. The {1} default value will be used.
          */
@@ -170,6 +175,12 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnknownCRS_1 = 22;
 
+        /**
+         * Can not read pixel values of TIFF image “{0}” because the “{1}” compression is not
+         * supported.
+         */
+        public static final short UnsupportedCompression_2 = 27;
+
         /**
          * Coordinate system kind {0} is unsupported.
          */
@@ -185,10 +196,22 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnsupportedGeoKeyStorage_1 = 21;
 
+        /**
+         * Can not read pixel values of TIFF image “{0}” because predictor {1} is not supported for
+         * this sample format.
+         */
+        public static final short UnsupportedPredictor_2 = 29;
+
         /**
          * TIFF file “{0}” uses an unsupported map projection.
          */
         public static final short UnsupportedProjectionMethod_1 = 23;
+
+        /**
+         * Can not read pixel values of TIFF image “{0}” because samples of {1} bits with {2} samples
+         * per pixel are not supported.
+         */
+        public static final short UnsupportedSampleModel_3 = 28;
     }
 
     /**
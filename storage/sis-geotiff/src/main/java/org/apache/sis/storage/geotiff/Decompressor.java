@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+
+
+/**
+ * Decompresses the content of a tile or a strip. Each subclass handles one {@link Compression} method.
+ * Instances of this class are stateless and can be used concurrently by many threads.
+ *
+ * <p>Decompressors are tolerant to truncated data: if the compressed stream ends before the output array
+ * has been filled, the remaining output bytes are left unchanged (usually zero). This behavior matches
+ * the one of other TIFF libraries, since some writers omit the trailing rows of the last strip.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+abstract class Decompressor {
+    /**
+     * The decompressor for uncompressed data, which only copies the bytes.
+     */
+    static final Decompressor NONE = new Copy();
+
+    /**
+     * For subclass constructors.
+     */
+    Decompressor() {
+    }
+
+    /**
+     * Returns the decompressor for the given compression method,
+     * or {@code null} if the given method is not supported.
+     *
+     * @param  compression  the compression method, or {@code null} if unknown.
+     * @return the decompressor for the given method, or {@code null} if none.
+     */
+    static Decompressor forCompression(final Compression compression) {
+        if (compression != null) {
+            switch (compression) {
+                case NONE:     return NONE;
+                case PACKBITS: return PackBits.INSTANCE;
+                case LZW:      return LZW.INSTANCE;
+                case DEFLATE:  return Deflate.INSTANCE;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decompresses the given input bytes into the given output array.
+     *
+     * @param  input   the compressed bytes.
+     * @param  length  number of valid bytes in the {@code input} array.
+     * @param  output  where to write the decompressed bytes.
+     * @return number of bytes written in the {@code output} array.
+     * @throws DataFormatException if the compressed data are corrupted.
+     */
+    abstract int uncompress(byte[] input, int length, byte[] output) throws DataFormatException;
+
+    /**
+     * Uncompressed data. This decompressor only copies the bytes.
+     */
+    private static final class Copy extends Decompressor {
+        /** Copies the input bytes to the output array. */
+        @Override int uncompress(final byte[] input, final int length, final byte[] output) {
+            final int n = Math.min(length, output.length);
+            System.arraycopy(input, 0, output, 0, n);
+            return n;
+        }
+    }
+
+    /**
+     * PackBits compression, a byte-oriented run length scheme. Each run starts with a header byte <var>n</var>:
+     *
+     * <ul>
+     *   <li>If <var>n</var> is in the [0 … 127] range, the next <var>n</var>+1 bytes are copied literally.</li>
+     *   <li>If <var>n</var> is in the [-127 … -1] range, the next byte is repeated 1-<var>n</var> times.</li>
+     *   <li>If <var>n</var> is -128, nothing is done.</li>
+     * </ul>
+     */
+    private static final class PackBits extends Decompressor {
+        /** The unique instance. */
+        static final PackBits INSTANCE = new PackBits();
+
+        /** Decodes the runs until the input is exhausted or the output is full. */
+        @Override int uncompress(final byte[] input, final int length, final byte[] output) {
+            int ip = 0, op = 0;
+            while (ip < length && op < output.length) {
+                final int n = input[ip++];
+                if (n >= 0) {
+                    final int count = Math.min(Math.min(n + 1, length - ip), output.length - op);
+                    System.arraycopy(input, ip, output, op, count);
+                    ip += n + 1;
+                    op += count;
+                } else if (n != -128) {
+                    if (ip >= length) break;
+                    final int end = Math.min(op + 1 - n, output.length);
+                    final byte b = input[ip++];
+                    while (op < end) {
+                        output[op++] = b;
+                    }
+                }
+            }
+            return op;
+        }
+    }
+
+    /**
+     * Lempel-Ziv &amp; Welch compression as specified in TIFF 6.0 section 13. Codes are read with the most
+     * significant bit first, starting with a length of 9 bits. The code length is incremented one code
+     * <em>before</em> the table is full ("early change"), up to a maximum of 12 bits.
+     *
+     * <p>The old-style LZW variant written by some pre-6.0 libraries (with bits in reverse order)
+     * is not supported.</p>
+     */
+    private static final class LZW extends Decompressor {
+        /** The unique instance. */
+        static final LZW INSTANCE = new LZW();
+
+        /** Code for clearing the table, end of information and first code available for new entries. */
+        private static final int CLEAR_CODE = 256, EOI_CODE = 257, FIRST_CODE = 258;
+
+        /** Maximal number of bits in a code, and maximal number of entries in the table. */
+        private static final int MAX_CODE_SIZE = 12, TABLE_SIZE = 1 << MAX_CODE_SIZE;
+
+        /** Decodes the LZW codes until the end of information code or the output is full. */
+        @Override int uncompress(final byte[] input, final int length, final byte[] output) throws DataFormatException {
+            /*
+             * The table entry for a code is defined by the code of its prefix, the last byte appended
+             * to that prefix, the first byte of the string and the string length. The first 256 entries
+             * are the single-byte strings. Codes 256 and 257 are reserved and have no entry.
+             */
+            final short[] prefix  = new short[TABLE_SIZE];
+            final byte [] suffix  = new byte [TABLE_SIZE];
+            final byte [] first   = new byte [TABLE_SIZE];
+            final int  [] lengths = new int  [TABLE_SIZE];
+            for (int i=0; i<256; i++) {
+                suffix [i] = (byte) i;
+                first  [i] = (byte) i;
+                lengths[i] = 1;
+            }
+            int ip = 0, op = 0;
+            int bits = 0, bitCount = 0;
+            int codeSize = 9, next = FIRST_CODE, old = -1;
+            while (op < output.length) {
+                while (bitCount < codeSize) {
+                    if (ip >= length) {
+                        return op;                          // Tolerate missing EOI code.
+                    }
+                    bits = (bits << Byte.SIZE) | (input[ip++] & 0xFF);
+                    bitCount += Byte.SIZE;
+                }
+                bitCount -= codeSize;
+                final int code = (bits >>> bitCount) & ((1 << codeSize) - 1);
+                if (code == EOI_CODE) {
+                    break;
+                }
+                if (code == CLEAR_CODE) {
+                    codeSize = 9;
+                    next = FIRST_CODE;
+                    old  = -1;
+                    continue;
+                }
+                if (old < 0) {
+                    if (code >= CLEAR_CODE) {
+                        throw new DataFormatException();
+                    }
+                    output[op++] = (byte) code;
+                    old = code;
+                    continue;
+                }
+                /*
+                 * If the code is already in the table, the new entry is the previous string followed
+                 * by the first byte of the current string. If the code is the one of the entry being
+                 * created (the "KwKwK" case), the first byte of the current string is the first byte
+                 * of the previous string. Any other code is invalid.
+                 */
+                final byte head;
+                if (code < next) {
+                    head = first[code];
+                } else if (code == next) {
+                    head = first[old];
+                } else {
+                    throw new DataFormatException();
+                }
+                if (next < TABLE_SIZE) {
+                    prefix [next] = (short) old;
+                    suffix [next] = head;
+                    first  [next] = first[old];
+                    lengths[next] = lengths[old] + 1;
+                    if (++next == (1 << codeSize) - 1 && codeSize < MAX_CODE_SIZE) {
+                        codeSize++;
+                    }
+                }
+                /*
+                 * Write the string backward, from its last byte to its first byte, by following the chain
+                 * of prefixes. Bytes that would be written after the end of the output array are dropped.
+                 */
+                final int end = op + lengths[code];
+                int c = code;
+                for (int i = end; --i >= op;) {
+                    if (i < output.length) {
+                        output[i] = suffix[c];
+                    }
+                    c = prefix[c];
+                }
+                op = Math.min(end, output.length);
+                old = code;
+            }
+            return op;
+        }
+    }
+
+    /**
+     * Deflate compression, like ZIP format. Decompression is delegated to {@link Inflater}.
+     */
+    private static final class Deflate extends Decompressor {
+        /** The unique instance. */
+        static final Deflate INSTANCE = new Deflate();
+
+        /** Inflates the data using a new {@link Inflater} for each call, for thread safety. */
+        @Override int uncompress(final byte[] input, final int length, final byte[] output) throws DataFormatException {
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(input, 0, length);
+                int op = 0;
+                while (op < output.length && !inflater.finished()) {
+                    final int n = inflater.inflate(output, op, output.length - op);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;                              // Truncated data.
+                    }
+                    op += n;
+                }
+                return op;
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.sis.storage.geotiff;
 
 import java.util.Locale;
 import java.io.IOException;
+import java.awt.image.RenderedImage;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.logging.LogRecord;
@@ -150,6 +151,42 @@ public class GeoTiffStore extends DataStore {
         return metadata;
     }
 
+    /**
+     * Returns the image at the given index in the TIFF file. The returned image is lazy: tiles (or strips)
+     * are read and decompressed only when first requested, and only the tiles intersecting the requested
+     * region are read. Decompressed tiles are kept in a cache of bounded size.
+     *
+     * <p>The returned image can be used by many threads simultaneously. When the store has been opened
+     * on a file, tiles are fetched with positional reads that do not block each other, and the tiles
+     * of a region request are decompressed in parallel.</p>
+     *
+     * <p>Current implementation supports the uncompressed, PackBits, LZW and Deflate compression methods.
+     * Errors that occur while reading a tile are reported by a {@link org.apache.sis.util.collection.BackingStoreException}
+     * wrapping the {@link IOException} or {@link DataStoreException}.</p>
+     *
+     * @param  index  index of the image to read, starting from 0.
+     * @return the image at the given index.
+     * @throws IndexOutOfBoundsException if the given index is negative or greater than the number of images.
+     * @throws DataStoreException if an error occurred while reading the image properties,
+     *         or if the image uses a compression method or a sample layout not supported by SIS.
+     *
+     * @since 0.8
+     */
+    public synchronized RenderedImage getImage(final int index) throws DataStoreException {
+        final Reader reader = reader();
+        try {
+            final ImageFileDirectory dir = reader.getImageFileDirectory(index);
+            if (dir == null) {
+                throw new IndexOutOfBoundsException(errors().getString(Errors.Keys.IndexOutOfBounds_1, index));
+            }
+            return dir.getImage();
+        } catch (IOException e) {
+            throw new DataStoreException(errors().getString(Errors.Keys.CanNotRead_1, reader.input.filename), e);
+        } catch (ArithmeticException e) {
+            throw new DataStoreContentException(getLocale(), Constants.GEOTIFF, reader.input.filename, null).initCause(e);
+        }
+    }
+
     /**
      * Returns the parameters used to open this GeoTIFF data store.
      * If non-null, the parameters are described by {@link GeoTiffStoreProvider#getOpenParameters()}
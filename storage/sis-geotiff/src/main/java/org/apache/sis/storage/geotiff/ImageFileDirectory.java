@@ -24,6 +24,17 @@ import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.NoSuchElementException;
 import java.nio.charset.Charset;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
 import javax.measure.Unit;
 import javax.measure.quantity.Length;
 import org.opengis.metadata.citation.DateType;
@@ -310,6 +321,19 @@ final class ImageFileDirectory {
      */
     private Compression compression;
 
+    /**
+     * The operator applied on the sample values before compression.
+     * 1 = no prediction scheme (default), 2 = horizontal differencing, 3 = floating point predictor.
+     */
+    private short predictor = 1;
+
+    /**
+     * The image, created when first requested.
+     *
+     * @see #getImage()
+     */
+    private TiledImage image;
+
     /**
      * References the {@link GeoKeys} needed for building the Coordinate Reference System.
      * This is a GeoTIFF extension to the TIFF specification.
@@ -529,6 +553,16 @@ final class ImageFileDirectory {
                 }
                 break;
             }
+            /*
+             * A mathematical operator applied to the image data before compression.
+             * 1 = no prediction, 2 = horizontal differencing, 3 = floating point predictor.
+             */
+            case Tags.Predictor: {
+                final short value = type.readShort(input(), count);
+                if (value < 1 || value > 3) return value;   // Cause a warning to be reported by the caller.
+                predictor = value;
+                break;
+            }
             /*
              * The logical order of bits within a byte. If this value is 2, then
              * bits order shall be reversed in every bytes before decompression.
@@ -1098,7 +1132,7 @@ final class ImageFileDirectory {
          * then we set a bit for preventing the 'switch' block to perform a calculation but we let the code performs
          * the other checks in order to get an exception to be thrown with a good message.
          */
-        int missing = !isPlanar && compression.equals(Compression.NONE) ? 0 : 0b1000;
+        int missing = !isPlanar && compression == Compression.NONE ? 0 : 0b1000;
         if (tileWidth      < 0)     missing |= 0b0001;
         if (tileHeight     < 0)     missing |= 0b0010;
         if (tileByteCounts == null) missing |= 0b0100;
@@ -1163,6 +1197,136 @@ final class ImageFileDirectory {
         }
     }
 
+    /**
+     * Returns the image described by this IFD. The image is created when first requested,
+     * but pixel values are read only when tiles are requested.
+     *
+     * @return the image described by this IFD.
+     * @throws DataStoreContentException if the image uses a compression or a sample layout not supported by SIS.
+     * @throws ArithmeticException if the image is too large.
+     */
+    final RenderedImage getImage() throws DataStoreContentException {
+        if (image == null) {
+            final Decompressor decompressor = Decompressor.forCompression(compression);
+            if (decompressor == null) {
+                throw new DataStoreContentException(reader.resources().getString(Resources.Keys.UnsupportedCompression_2,
+                        filename(), (compression != null) ? compression.name() : '?'));
+            }
+            /*
+             * Select the Java2D data type from the number of bits per sample. Samples of less than 8 bits
+             * are supported only if there is only one sample per pixel, in which case many pixels are packed
+             * in each byte. Otherwise all integer types are stored in arrays of the type of same size, except
+             * 32 bits unsigned integers which are stored as signed integers since Java2D has no better type.
+             */
+            boolean packed = false;
+            int dataType = -1;
+            switch (bitsPerSample) {
+                case 1:
+                case 2:
+                case 4: {
+                    if (samplesPerPixel == 1 && sampleFormat != FLOAT) {
+                        dataType = DataBuffer.TYPE_BYTE;
+                        packed = true;
+                    }
+                    break;
+                }
+                case Byte.SIZE: {
+                    if (sampleFormat != FLOAT) dataType = DataBuffer.TYPE_BYTE;
+                    break;
+                }
+                case Short.SIZE: {
+                    if (sampleFormat != FLOAT) dataType = (sampleFormat == SIGNED) ? DataBuffer.TYPE_SHORT : DataBuffer.TYPE_USHORT;
+                    break;
+                }
+                case Integer.SIZE: {
+                    dataType = (sampleFormat == FLOAT) ? DataBuffer.TYPE_FLOAT : DataBuffer.TYPE_INT;
+                    break;
+                }
+                case Double.SIZE: {
+                    if (sampleFormat == FLOAT) dataType = DataBuffer.TYPE_DOUBLE;
+                    break;
+                }
+            }
+            if (dataType < 0) {
+                throw new DataStoreContentException(reader.resources().getString(Resources.Keys.UnsupportedSampleModel_3,
+                        filename(), bitsPerSample, samplesPerPixel));
+            }
+            /*
+             * The horizontal differencing predictor is supported only for integer types of at least 8 bits.
+             * The floating point predictor is not yet supported.
+             */
+            final boolean differencing = (predictor == 2);
+            if (predictor != 1 && (!differencing || packed || sampleFormat == FLOAT)) {
+                throw new DataStoreContentException(reader.resources().getString(
+                        Resources.Keys.UnsupportedPredictor_2, filename(), predictor));
+            }
+            final int width  = JDK8.toIntExact(imageWidth);
+            final int height = JDK8.toIntExact(imageHeight);
+            final int tileHeight = Math.min(this.tileHeight, height);   // A single strip may be declared higher than the image.
+            final SampleModel sampleModel;
+            final int numPlanes;
+            if (packed) {
+                sampleModel = new MultiPixelPackedSampleModel(dataType, tileWidth, tileHeight, bitsPerSample);
+                numPlanes = 1;
+            } else if (isPlanar && samplesPerPixel > 1) {
+                sampleModel = new BandedSampleModel(dataType, tileWidth, tileHeight, samplesPerPixel);
+                numPlanes = samplesPerPixel;
+            } else {
+                final int[] offsets = new int[samplesPerPixel];
+                for (int i=0; i<offsets.length; i++) offsets[i] = i;
+                sampleModel = new PixelInterleavedSampleModel(dataType, tileWidth, tileHeight,
+                        samplesPerPixel, JDK8.multiplyExact(tileWidth, (int) samplesPerPixel), offsets);
+                numPlanes = 1;
+            }
+            image = new TiledImage(reader, width, height, tileWidth, tileHeight, tileOffsets, tileByteCounts,
+                    numPlanes, bitsPerSample, differencing, reverseBitsOrder, decompressor, sampleModel,
+                    createColorModel(dataType, packed));
+        }
+        return image;
+    }
+
+    /**
+     * Creates the colors to use for rendering the image, or returns {@code null} if none.
+     * This method handles palette-color, grayscale and RGB images. Other images (for example
+     * multi-bands scientific data) have no color model.
+     *
+     * @param  dataType  the Java2D type of sample values.
+     * @param  packed    whether many pixels are packed in each byte.
+     */
+    private ColorModel createColorModel(final int dataType, final boolean packed) {
+        final boolean isIntegral = (dataType == DataBuffer.TYPE_BYTE || dataType == DataBuffer.TYPE_USHORT);
+        if (samplesPerPixel == 1) {
+            if (isIntegral && (colorMap != null || packed)) {
+                final int n = 1 << bitsPerSample;
+                final byte[] r = new byte[n];
+                final byte[] g = new byte[n];
+                final byte[] b = new byte[n];
+                for (int i=0; i<n; i++) {
+                    if (colorMap != null) {
+                        // ColorMap values are 16 bits intensities, and we want 8 bits.
+                        r[i] = (byte) (colorMap.intValue(i)       >>> Byte.SIZE);
+                        g[i] = (byte) (colorMap.intValue(i +   n) >>> Byte.SIZE);
+                        b[i] = (byte) (colorMap.intValue(i + 2*n) >>> Byte.SIZE);
+                    } else {
+                        int v = i * 255 / (n - 1);
+                        if (photometricInterpretation == 0) v = 255 - v;        // WhiteIsZero
+                        r[i] = g[i] = b[i] = (byte) v;
+                    }
+                }
+                return new IndexColorModel(bitsPerSample, n, r, g, b);
+            }
+            return new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY),
+                    false, false, Transparency.OPAQUE, dataType);
+        }
+        if (photometricInterpretation == 2 && isIntegral && (samplesPerPixel == 3 || samplesPerPixel == 4)) {
+            final boolean hasAlpha = (samplesPerPixel == 4);
+            final boolean isAlphaPremultiplied = hasAlpha && extraSamples != null && extraSamples.intValue(0) == 1;
+            return new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), hasAlpha, isAlphaPremultiplied,
+                    hasAlpha ? Transparency.TRANSLUCENT : Transparency.OPAQUE, dataType);
+        }
+        return null;
+    }
+
     /**
      * Completes the metadata with the information stored in the field of this IFD.
      * This method is invoked only if the user requested the ISO 19115 metadata.
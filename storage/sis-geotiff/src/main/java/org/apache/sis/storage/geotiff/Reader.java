@@ -23,7 +23,10 @@ import java.util.Set;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.io.IOException;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.text.ParseException;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
@@ -67,6 +70,15 @@ final class Reader extends GeoTIFF {
      */
     private final long origin;
 
+    /**
+     * The channel to use for reading tiles with positional reads, or {@code null} if the channel is not a
+     * {@link FileChannel}. Positional reads do not modify the channel position, so they can be performed
+     * concurrently by many threads without locking and without interfering with the {@linkplain #input}.
+     *
+     * @see #readFully(long, byte[], int)
+     */
+    private final FileChannel fileChannel;
+
     /**
      * A multiplication factor for the size of pointers, expressed as a power of 2.
      * The pointer size in bytes is given by {@code Integer.BYTES << pointerExpansion}.
@@ -140,6 +152,7 @@ final class Reader extends GeoTIFF {
         this.origin   = input.getStreamPosition();
         this.metadata = new MetadataBuilder();
         this.doneIFD  = new HashSet<>();
+        this.fileChannel = (input.channel instanceof FileChannel) ? (FileChannel) input.channel : null;
         /*
          * A TIFF file begins with either "II" (0x4949) or "MM" (0x4D4D) characters.
          * Those characters identify the byte order. Note that we do not need to care
@@ -363,6 +376,40 @@ final class Reader extends GeoTIFF {
         }
     }
 
+    /**
+     * Reads bytes at the given offset, typically the compressed content of a tile or a strip.
+     * This method can be invoked from any thread. If the input is a {@link FileChannel}, then
+     * this method uses positional reads which can be executed concurrently by many threads.
+     * Otherwise this method synchronizes on the {@link GeoTiffStore} since the {@linkplain #input}
+     * is shared with the methods reading metadata.
+     *
+     * <p>Note: a thread interrupted during a positional read causes the channel to be closed,
+     * as specified by {@link java.nio.channels.InterruptibleChannel}.</p>
+     *
+     * @param  offset  position of the first byte to read, relative to the beginning of the TIFF file.
+     * @param  dest    where to store the bytes.
+     * @param  length  number of bytes to read.
+     * @throws IOException if an error (including EOF) occurred while reading the stream.
+     */
+    final void readFully(final long offset, final byte[] dest, final int length) throws IOException {
+        if (fileChannel != null) {
+            long position = JDK8.addExact(input.channelOffset, JDK8.addExact(origin, offset));
+            final ByteBuffer buffer = ByteBuffer.wrap(dest, 0, length);
+            while (buffer.hasRemaining()) {
+                final int n = fileChannel.read(buffer, position);
+                if (n < 0) {
+                    throw new EOFException(errors().getString(Errors.Keys.UnexpectedEndOfFile_1, input.filename));
+                }
+                position += n;
+            }
+            return;
+        }
+        synchronized (owner) {
+            input.seek(JDK8.addExact(origin, offset));
+            input.readFully(dest, 0, length);
+        }
+    }
+
     /**
      * Logs a warning about a tag that can not be read, but does not interrupt the TIFF reading.
      *
@@ -0,0 +1,638 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Vector;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.sis.internal.geotiff.Resources;
+import org.apache.sis.internal.system.Shutdown;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.util.resources.Errors;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.JDK8;
+
+
+/**
+ * A rendered image which reads and decompresses the tiles of a TIFF file only when first requested.
+ * Strips are handled as tiles having the same width than the image. Decoded tiles are kept in a cache
+ * where the most recently used tiles are retained by strong references up to a {@linkplain #CACHE_SIZE
+ * maximal amount of memory}; eldest tiles are retained only by weak references.
+ *
+ * <p>Requesting a region of the image with {@link #getData(Rectangle)} or {@link #copyData(WritableRaster)}
+ * reads only the tiles intersecting that region. Consequently a small window can be read efficiently from
+ * a very large tiled image.</p>
+ *
+ * <p>This class is thread-safe. If the TIFF file is read from a {@link java.nio.channels.FileChannel}, tiles are
+ * read with positional reads which can be executed concurrently. Otherwise tiles are read under a lock on the
+ * {@link GeoTiffStore}. In all cases the decompression is done without lock, and two threads requesting the
+ * same tile will wait for the tile to be read only once. When a region intersecting many tiles not yet in the
+ * cache is requested, those tiles are read and decompressed in parallel by a pool of daemon threads shared by
+ * all images, by batches small enough for staying in the part of the cache retained by strong references until
+ * they are copied. Those threads are never interrupted, since an interruption during a read operation on a
+ * {@code FileChannel} would close the channel shared by all readers of the TIFF file.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class TiledImage implements RenderedImage {
+    /**
+     * Maximal amount of memory, in bytes, used by the tiles retained by strong references in the cache.
+     */
+    static final int CACHE_SIZE = 64 << 20;
+
+    /**
+     * The reader to use for fetching the compressed tile content.
+     */
+    private final Reader reader;
+
+    /**
+     * The image size in pixels.
+     */
+    private final int width, height;
+
+    /**
+     * The tile size in pixels. The tile height may be smaller than the value declared in the TIFF file
+     * if the image contains a single row of tiles, for avoiding the allocation of unused rows.
+     */
+    private final int tileWidth, tileHeight;
+
+    /**
+     * Number of tiles along the <var>x</var> and <var>y</var> axes.
+     */
+    private final int numXTiles, numYTiles;
+
+    /**
+     * Maximal number of tiles to load in parallel before to copy them in a raster. This is chosen for fitting
+     * in half the {@linkplain #CACHE_SIZE cache size}, so the loaded tiles are still strongly referenced when copied.
+     */
+    private final int tilesPerBatch;
+
+    /**
+     * For each tile, the byte offset of that tile and the number of (compressed) bytes in that tile.
+     * If the image is planar, the tiles of the first band are stored first, followed by the tiles
+     * of the second band, <i>etc.</i>
+     */
+    private final org.apache.sis.math.Vector tileOffsets, tileByteCounts;
+
+    /**
+     * Number of bands stored in separated planes, or 1 if all bands are interleaved in a single plane.
+     */
+    private final int numPlanes;
+
+    /**
+     * Number of samples in a row of a tile, for a single plane. This is the tile width multiplied
+     * by the number of samples per pixel if the bands are interleaved.
+     */
+    private final int samplesPerRow;
+
+    /**
+     * Number of bytes in a decompressed row of a tile, for a single plane.
+     */
+    private final int bytesPerRow;
+
+    /**
+     * Distance between a sample and the sample of the same band in the previous pixel, in number of samples,
+     * if the horizontal differencing predictor shall be reverted after decompression. Otherwise 0.
+     */
+    private final int predictorStride;
+
+    /**
+     * Whether the bits order shall be reversed in every bytes before decompression.
+     */
+    private final boolean reverseBitsOrder;
+
+    /**
+     * The method to use for decompressing the tiles.
+     */
+    private final Decompressor decompressor;
+
+    /**
+     * The layout of sample values in a single tile.
+     */
+    private final SampleModel sampleModel;
+
+    /**
+     * The colors to use for rendering the image, or {@code null} if none.
+     */
+    private final ColorModel colorModel;
+
+    /**
+     * The tiles decoded so far, indexed by the tile number in row-major order.
+     */
+    private final Cache<Integer,Raster> tiles;
+
+    /**
+     * Creates a new image for the given tiles.
+     *
+     * @param reader            the reader to use for fetching the compressed tile content.
+     * @param width             the image width in pixels.
+     * @param height            the image height in pixels.
+     * @param tileWidth         the tile width in pixels.
+     * @param tileHeight        the tile height in pixels, not greater than the image height.
+     * @param tileOffsets       for each tile, the offset of the tile from the beginning of the TIFF file.
+     * @param tileByteCounts    for each tile, the number of compressed bytes.
+     * @param numPlanes         number of bands stored in separated planes, or 1 if bands are interleaved.
+     * @param bitsPerSample     number of bits per sample value.
+     * @param predictor         whether the horizontal differencing predictor has been applied.
+     * @param reverseBitsOrder  whether the bits order shall be reversed in every bytes.
+     * @param decompressor      the method to use for decompressing the tiles.
+     * @param sampleModel       the layout of a single tile.
+     * @param colorModel        the colors to use for rendering the image, or {@code null} if none.
+     */
+    TiledImage(final Reader reader, final int width, final int height, final int tileWidth, final int tileHeight,
+               final org.apache.sis.math.Vector tileOffsets, final org.apache.sis.math.Vector tileByteCounts,
+               final int numPlanes, final int bitsPerSample, final boolean predictor, final boolean reverseBitsOrder,
+               final Decompressor decompressor, final SampleModel sampleModel, final ColorModel colorModel)
+    {
+        numXTiles = numTiles(width,  tileWidth);
+        numYTiles = numTiles(height, tileHeight);
+        this.reader           = reader;
+        this.width            = width;
+        this.height           = height;
+        this.tileWidth        = tileWidth;
+        this.tileHeight       = tileHeight;
+        this.tileOffsets      = tileOffsets;
+        this.tileByteCounts   = tileByteCounts;
+        this.numPlanes        = numPlanes;
+        this.samplesPerRow    = tileWidth * (sampleModel.getNumBands() / numPlanes);
+        this.bytesPerRow      = JDK8.toIntExact(((long) samplesPerRow * bitsPerSample + (Byte.SIZE - 1)) / Byte.SIZE);
+        this.predictorStride  = predictor ? samplesPerRow / tileWidth : 0;
+        this.reverseBitsOrder = reverseBitsOrder;
+        this.decompressor     = decompressor;
+        this.sampleModel      = sampleModel;
+        this.colorModel       = colorModel;
+        final long tileCost = (long) tileWidth * tileHeight * sampleModel.getNumDataElements()
+                            * Math.max(1, DataBuffer.getDataTypeSize(sampleModel.getDataType()) / Byte.SIZE);
+        tilesPerBatch = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (CACHE_SIZE / 2) / tileCost));
+        this.tiles = new Cache<Integer,Raster>(16, CACHE_SIZE, false) {
+            @Override protected int cost(final Raster tile) {
+                final DataBuffer buffer = tile.getDataBuffer();
+                return buffer.getSize() * buffer.getNumBanks() * (DataBuffer.getDataTypeSize(buffer.getDataType()) / Byte.SIZE);
+            }
+        };
+    }
+
+    /**
+     * Returns the number of tiles needed for covering the given number of pixels.
+     * The computation is done with {@code long} integers for avoiding overflow.
+     */
+    private static int numTiles(final int size, final int tileSize) {
+        return (int) ((size + (tileSize - 1L)) / tileSize);
+    }
+
+    /**
+     * Returns {@code null} since this image is not computed from other images.
+     */
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    /**
+     * Returns {@link Image#UndefinedProperty} since this image does not define any property.
+     */
+    @Override
+    public Object getProperty(final String name) {
+        return Image.UndefinedProperty;
+    }
+
+    /**
+     * Returns {@code null} since this image does not define any property.
+     */
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    /**
+     * Returns the colors to use for rendering the image, or {@code null} if none.
+     */
+    @Override
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    /**
+     * Returns the layout of pixel values. This is the sample model of a single tile.
+     */
+    @Override
+    public SampleModel getSampleModel() {
+        return sampleModel;
+    }
+
+    /** Image and tile geometry. The image and the tile grid start at (0,0). */
+    @Override public int getWidth()           {return width;}
+    @Override public int getHeight()          {return height;}
+    @Override public int getMinX()            {return 0;}
+    @Override public int getMinY()            {return 0;}
+    @Override public int getNumXTiles()       {return numXTiles;}
+    @Override public int getNumYTiles()       {return numYTiles;}
+    @Override public int getMinTileX()        {return 0;}
+    @Override public int getMinTileY()        {return 0;}
+    @Override public int getTileWidth()       {return tileWidth;}
+    @Override public int getTileHeight()      {return tileHeight;}
+    @Override public int getTileGridXOffset() {return 0;}
+    @Override public int getTileGridYOffset() {return 0;}
+
+    /**
+     * Returns the tile at the given index, reading and decompressing it if it is not already in the cache.
+     *
+     * @param  tileX  the tile column, from 0 inclusive to {@link #getNumXTiles()} exclusive.
+     * @param  tileY  the tile row, from 0 inclusive to {@link #getNumYTiles()} exclusive.
+     * @return the tile at the given index.
+     * @throws IndexOutOfBoundsException if a tile index is out of bounds.
+     * @throws BackingStoreException if an error occurred while reading the tile.
+     *         The cause is a {@link IOException} or a {@link DataStoreException}.
+     */
+    @Override
+    public Raster getTile(final int tileX, final int tileY) {
+        if (tileX < 0 || tileX >= numXTiles || tileY < 0 || tileY >= numYTiles) {
+            throw new IndexOutOfBoundsException(Errors.format(Errors.Keys.IndexOutOfBounds_1,
+                    (tileX < 0 || tileX >= numXTiles) ? tileX : tileY));
+        }
+        final Integer key = tileY * numXTiles + tileX;
+        Raster tile = tiles.peek(key);
+        if (tile == null) {
+            final Cache.Handler<Raster> handler = tiles.lock(key);
+            try {
+                tile = handler.peek();
+                if (tile == null) {
+                    tile = readTile(tileX, tileY);
+                }
+            } catch (IOException | DataStoreException e) {
+                throw new BackingStoreException(e);
+            } finally {
+                handler.putAndUnlock(tile);
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Reads and decompresses the tile at the given index. This method reads one tile for each plane.
+     */
+    private Raster readTile(final int tileX, final int tileY) throws IOException, DataStoreException {
+        final int     tileIndex = tileY * numXTiles + tileX;
+        final int     planeSize = numXTiles * numYTiles;
+        final int     length    = bytesPerRow * tileHeight;
+        final int     dataType  = sampleModel.getDataType();
+        final int     numValues = samplesPerRow * tileHeight;
+        final Object[] banks    = new Object[numPlanes];
+        final ByteOrder order   = reader.input.buffer.order();
+        for (int plane=0; plane<numPlanes; plane++) {
+            final int  i      = plane * planeSize + tileIndex;
+            final long offset = tileOffsets.longValue(i);
+            final int  count  = JDK8.toIntExact(tileByteCounts.longValue(i));
+            final byte[] data = new byte[length];
+            if (decompressor == Decompressor.NONE && !reverseBitsOrder) {
+                reader.readFully(offset, data, Math.min(count, length));        // Uncompressed: read in place.
+            } else {
+                final byte[] compressed = new byte[count];
+                reader.readFully(offset, compressed, count);
+                if (reverseBitsOrder) {
+                    for (int j=0; j<count; j++) {
+                        compressed[j] = (byte) (Integer.reverse(compressed[j]) >>> (Integer.SIZE - Byte.SIZE));
+                    }
+                }
+                try {
+                    decompressor.uncompress(compressed, count, data);
+                } catch (DataFormatException e) {
+                    throw new DataStoreContentException(reader.resources().getString(
+                            Resources.Keys.CorruptedTile_2, reader.input.filename, i), e);
+                }
+            }
+            banks[plane] = toArray(data, dataType, numValues, order);
+        }
+        return Raster.createWritableRaster(sampleModel, createDataBuffer(banks, dataType, numValues),
+                new Point(tileX * tileWidth, tileY * tileHeight));
+    }
+
+    /**
+     * Converts the given decompressed bytes to an array of the Java type for the given data type,
+     * then reverts the horizontal differencing predictor if needed.
+     */
+    private Object toArray(final byte[] data, final int dataType, final int numValues, final ByteOrder order) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data).order(order);
+        final int stride = predictorStride;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE: {
+                if (stride != 0) {
+                    for (int row=0; row < numValues; row += samplesPerRow) {
+                        final int end = row + samplesPerRow;
+                        for (int j = row + stride; j < end; j++) data[j] += data[j - stride];
+                    }
+                }
+                return data;
+            }
+            case DataBuffer.TYPE_SHORT:
+            case DataBuffer.TYPE_USHORT: {
+                final short[] array = new short[numValues];
+                buffer.asShortBuffer().get(array);
+                if (stride != 0) {
+                    for (int row=0; row < numValues; row += samplesPerRow) {
+                        final int end = row + samplesPerRow;
+                        for (int j = row + stride; j < end; j++) array[j] += array[j - stride];
+                    }
+                }
+                return array;
+            }
+            case DataBuffer.TYPE_INT: {
+                final int[] array = new int[numValues];
+                buffer.asIntBuffer().get(array);
+                if (stride != 0) {
+                    for (int row=0; row < numValues; row += samplesPerRow) {
+                        final int end = row + samplesPerRow;
+                        for (int j = row + stride; j < end; j++) array[j] += array[j - stride];
+                    }
+                }
+                return array;
+            }
+            case DataBuffer.TYPE_FLOAT: {
+                final float[] array = new float[numValues];
+                buffer.asFloatBuffer().get(array);
+                return array;
+            }
+            case DataBuffer.TYPE_DOUBLE: {
+                final double[] array = new double[numValues];
+                buffer.asDoubleBuffer().get(array);
+                return array;
+            }
+            default: throw new AssertionError(dataType);
+        }
+    }
+
+    /**
+     * Wraps the given arrays (one per plane) in a data buffer of the given type.
+     * For packed sample models, the number of values is the number of bytes.
+     */
+    private DataBuffer createDataBuffer(final Object[] banks, final int dataType, int numValues) {
+        final int n = banks.length;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE: {
+                numValues = ((byte[]) banks[0]).length;
+                return new DataBufferByte(copy(banks, new byte[n][]), numValues);
+            }
+            case DataBuffer.TYPE_SHORT:  return new DataBufferShort (copy(banks, new short [n][]), numValues);
+            case DataBuffer.TYPE_USHORT: return new DataBufferUShort(copy(banks, new short [n][]), numValues);
+            case DataBuffer.TYPE_INT:    return new DataBufferInt   (copy(banks, new int   [n][]), numValues);
+            case DataBuffer.TYPE_FLOAT:  return new DataBufferFloat (copy(banks, new float [n][]), numValues);
+            case DataBuffer.TYPE_DOUBLE: return new DataBufferDouble(copy(banks, new double[n][]), numValues);
+            default: throw new AssertionError(dataType);
+        }
+    }
+
+    /**
+     * Copies the references to the given arrays in an array of the specific type.
+     */
+    private static <T> T[] copy(final Object[] banks, final T[] target) {
+        System.arraycopy(banks, 0, target, 0, banks.length);
+        return target;
+    }
+
+    /**
+     * Returns a copy of the whole image in a single raster.
+     * Callers should avoid this method for large images.
+     */
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(width, height));
+    }
+
+    /**
+     * Returns a copy of the given region of the image. Only the tiles intersecting the region are read.
+     *
+     * @param  region  the region of the image to return.
+     * @return a copy of the given region.
+     */
+    @Override
+    public Raster getData(final Rectangle region) {
+        final WritableRaster raster = Raster.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(region.width, region.height), region.getLocation());
+        return copyData(raster);
+    }
+
+    /**
+     * Copies an arbitrary region of the image into the given raster. The region is the raster bounds.
+     * If the given raster is {@code null}, then a raster for the whole image is created.
+     * Only the tiles intersecting the raster bounds are read.
+     *
+     * @param  raster  the raster where to copy the image data, or {@code null}.
+     * @return the given raster, or a new raster if the given one was null.
+     * @throws BackingStoreException if an error occurred while reading a tile, or if the current thread
+     *         has been interrupted while waiting for the tiles. The cause is an {@link IOException}
+     *         (an {@link InterruptedIOException} in the later case) or a {@link DataStoreException}.
+     */
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = Raster.createWritableRaster(sampleModel.createCompatibleSampleModel(width, height), null);
+        }
+        final Rectangle region = raster.getBounds().intersection(new Rectangle(width, height));
+        if (!region.isEmpty()) {
+            final int minTileX =  region.x / tileWidth;
+            final int minTileY =  region.y / tileHeight;
+            final int maxTileX = (region.x + region.width  - 1) / tileWidth;
+            final int maxTileY = (region.y + region.height - 1) / tileHeight;
+            /*
+             * Load and copy the tiles by batches small enough for fitting in the part of the cache retained
+             * by strong references. Otherwise the first tiles loaded in parallel could be garbage-collected
+             * before we copy them, in which case they would be read and decompressed again.
+             */
+            final int[] keys = new int[Math.min((maxTileX - minTileX + 1) * (maxTileY - minTileY + 1), tilesPerBatch)];
+            int count = 0;
+            for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+                for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                    keys[count++] = tileY * numXTiles + tileX;
+                    if (count == keys.length) {
+                        copyTiles(raster, keys, count);
+                        count = 0;
+                    }
+                }
+            }
+            if (count != 0) {
+                copyTiles(raster, keys, count);
+            }
+        }
+        return raster;
+    }
+
+    /**
+     * Copies the given tiles into the given raster, after loading in parallel those that are not in the cache.
+     *
+     * @param  raster  the raster where to copy the tiles.
+     * @param  keys    indices of the tiles to copy, in row-major order.
+     * @param  count   number of valid elements in the {@code keys} array.
+     */
+    private void copyTiles(final WritableRaster raster, final int[] keys, final int count) {
+        prefetch(keys, count);
+        for (int i=0; i<count; i++) {
+            final int key = keys[i];
+            raster.setRect(getTile(key % numXTiles, key / numXTiles));
+        }
+    }
+
+    /**
+     * Loads in parallel the given tiles which are not already in the cache.
+     * This method does nothing if there is less than two tiles to load. Errors are ignored
+     * by this method; they will be reported when the caller will request the tiles.
+     *
+     * <p>The tiles are loaded by the threads of a pool shared by all images. Each task loads the next tile
+     * not yet taken by another task until all tiles are loaded. If the current thread is interrupted while
+     * waiting, no new tile is given to the tasks but the worker threads are not interrupted: the tiles being
+     * read are completed and cached.</p>
+     *
+     * @param  keys   indices of the tiles to load, in row-major order.
+     * @param  count  number of valid elements in the {@code keys} array.
+     * @throws BackingStoreException if the current thread has been interrupted.
+     *         The cause is an {@link InterruptedIOException}.
+     */
+    private void prefetch(final int[] keys, final int count) {
+        final int[] missing = new int[count];
+        int n = 0;
+        for (int i=0; i<count; i++) {
+            final int key = keys[i];
+            if (tiles.peek(key) == null) {
+                missing[n++] = key;
+            }
+        }
+        final int numTasks = Math.min(n, Prefetcher.NUM_THREADS);
+        if (numTasks >= 2) {
+            final int limit = n;
+            final AtomicInteger next = new AtomicInteger();
+            final List<Future<?>> results = new ArrayList<>(numTasks);
+            try {
+                for (int i=0; i<numTasks; i++) {
+                    results.add(Prefetcher.INSTANCE.submit(new Runnable() {
+                        @Override public void run() {
+                            int index;
+                            while ((index = next.getAndIncrement()) < limit) {
+                                final int key = missing[index];
+                                try {
+                                    getTile(key % numXTiles, key / numXTiles);
+                                } catch (BackingStoreException e) {
+                                    // Ignore, since the error will be reported when the caller will request that tile.
+                                }
+                            }
+                        }
+                    }));
+                }
+                for (final Future<?> result : results) {
+                    result.get();
+                }
+            } catch (ExecutionException | RejectedExecutionException e) {
+                // Ignore, since the remaining tiles will be read by the caller.
+            } catch (InterruptedException e) {
+                /*
+                 * Stop giving tiles to the tasks, but do not interrupt them: an interruption during a read
+                 * operation would close the channel. The caller should not read the remaining tiles either,
+                 * since the interrupted status would also cause the channel to be closed.
+                 */
+                next.set(limit);
+                Thread.currentThread().interrupt();
+                final InterruptedIOException ex = new InterruptedIOException(e.getLocalizedMessage());
+                ex.initCause(e);
+                throw new BackingStoreException(ex);
+            }
+        }
+    }
+
+    /**
+     * Holder of the executor used by {@link TiledImage#prefetch(int[], int)}, created only when first needed.
+     * The pool has a fixed maximal number of threads, which are daemon threads terminated after one minute
+     * of inactivity. This class is also the task which stops the pool at shutdown time.
+     */
+    private static final class Prefetcher implements ThreadFactory, Callable<Object> {
+        /**
+         * Maximal number of threads in the pool. We use at least two threads even on single-processor
+         * machines, since the tasks spend a part of their time waiting for I/O operations.
+         */
+        static final int NUM_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        /** The executor shared by all {@code TiledImage} instances. */
+        static final ThreadPoolExecutor INSTANCE;
+        static {
+            final Prefetcher factory = new Prefetcher();
+            INSTANCE = new ThreadPoolExecutor(NUM_THREADS, NUM_THREADS, 1, TimeUnit.MINUTES,
+                                              new LinkedBlockingQueue<Runnable>(), factory);
+            INSTANCE.allowCoreThreadTimeOut(true);
+            Shutdown.register(factory);
+        }
+
+        /** Creates a new daemon thread for the pool. */
+        @Override public Thread newThread(final Runnable task) {
+            final Thread thread = new Thread(task, "GeoTIFF tiles prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        /** Stops accepting new tasks, without interrupting the threads. Invoked at shutdown time only. */
+        @Override public Object call() {
+            INSTANCE.shutdown();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of tiles currently in the cache. This is used for testing purpose only.
+     */
+    final int cachedTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns whether the tile at the given index is in the cache. This is used for testing purpose only.
+     */
+    final boolean isCached(final int tileX, final int tileY) {
+        return tiles.containsKey(tileY * numXTiles + tileX);
+    }
+}
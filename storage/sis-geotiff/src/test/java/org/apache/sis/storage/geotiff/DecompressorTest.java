@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DataFormatException;
+import java.io.ByteArrayOutputStream;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Decompressor} implementations.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class DecompressorTest extends TestCase {
+    /**
+     * Tests the PackBits decompressor with the example given in the Apple technical note TN1023.
+     *
+     * @throws DataFormatException if the compressed data are considered corrupted.
+     */
+    @Test
+    public void testPackBits() throws DataFormatException {
+        final byte[] packed = {
+            (byte) 0xFE, (byte) 0xAA, 0x02, (byte) 0x80, 0x00, 0x2A, (byte) 0xFD, (byte) 0xAA,
+            0x03, (byte) 0x80, 0x00, 0x2A, 0x22, (byte) 0xF7, (byte) 0xAA
+        };
+        final byte[] expected = {
+            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0x80, 0x00, 0x2A, (byte) 0xAA, (byte) 0xAA,
+            (byte) 0xAA, (byte) 0xAA, (byte) 0x80, 0x00, 0x2A, 0x22, (byte) 0xAA, (byte) 0xAA,
+            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA
+        };
+        final byte[] actual = new byte[expected.length];
+        final Decompressor d = Decompressor.forCompression(Compression.PACKBITS);
+        assertEquals("length", expected.length, d.uncompress(packed, packed.length, actual));
+        assertArrayEquals(expected, actual);
+        /*
+         * Output array smaller than the uncompressed data: the extra bytes shall be ignored.
+         */
+        final byte[] truncated = new byte[10];
+        assertEquals("length", truncated.length, d.uncompress(packed, packed.length, truncated));
+        for (int i=0; i<truncated.length; i++) {
+            assertEquals(expected[i], truncated[i]);
+        }
+    }
+
+    /**
+     * Tests the LZW decompressor on data large enough for exercising all code sizes
+     * and the clear code emitted when the table is full.
+     *
+     * @throws DataFormatException if the compressed data are considered corrupted.
+     */
+    @Test
+    public void testLZW() throws DataFormatException {
+        final byte[] expected = createSampleData();
+        final byte[] packed   = lzw(expected);
+        final byte[] actual   = new byte[expected.length];
+        final Decompressor d = Decompressor.forCompression(Compression.LZW);
+        assertEquals("length", expected.length, d.uncompress(packed, packed.length, actual));
+        assertArrayEquals(expected, actual);
+        /*
+         * The "KwKwK" case: a code referencing the table entry which is under construction.
+         */
+        final byte[] repeated = new byte[100];
+        final byte[] result   = new byte[repeated.length];
+        final byte[] encoded  = lzw(repeated);
+        assertEquals("length", repeated.length, d.uncompress(encoded, encoded.length, result));
+        assertArrayEquals(repeated, result);
+    }
+
+    /**
+     * Tests the Deflate decompressor.
+     *
+     * @throws DataFormatException if the compressed data are considered corrupted.
+     */
+    @Test
+    public void testDeflate() throws DataFormatException {
+        final byte[] expected = createSampleData();
+        final byte[] packed   = deflate(expected);
+        final byte[] actual   = new byte[expected.length];
+        final Decompressor d = Decompressor.forCompression(Compression.DEFLATE);
+        assertEquals("length", expected.length, d.uncompress(packed, packed.length, actual));
+        assertArrayEquals(expected, actual);
+    }
+
+    /**
+     * Verifies that unsupported compression methods have no decompressor.
+     */
+    @Test
+    public void testUnsupported() {
+        assertNull(Decompressor.forCompression(Compression.JPEG));
+        assertNull(Decompressor.forCompression(null));
+    }
+
+    /**
+     * Creates random data with enough redundancy for allowing some compression.
+     */
+    private static byte[] createSampleData() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final byte[] data = new byte[20000];
+        for (int i=0; i<data.length; i++) {
+            data[i] = (byte) (random.nextInt(12) + (i / 1000));
+        }
+        return data;
+    }
+
+    /**
+     * Compresses the given data with the Deflate method.
+     */
+    static byte[] deflate(final byte[] data) {
+        final Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresses the given data with the PackBits method. This simple implementation uses only
+     * runs of literal bytes, except for sequences of identical bytes.
+     */
+    static byte[] packBits(final byte[] data) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < data.length) {
+            int n = 1;
+            while (i + n < data.length && n < 128 && data[i + n] == data[i]) n++;
+            if (n > 1) {
+                out.write(1 - n);
+                out.write(data[i]);
+            } else {
+                n = Math.min(128, data.length - i);
+                out.write(n - 1);
+                out.write(data, i, n);
+            }
+            i += n;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compresses the given data with the LZW method as specified by TIFF 6.0.
+     */
+    static byte[] lzw(final byte[] data) {
+        final BitWriter out = new BitWriter();
+        final Map<Integer,Integer> table = new HashMap<>();
+        int codeSize = 9, next = 258;
+        int w = data[0] & 0xFF;
+        out.write(256, codeSize);                               // Clear code.
+        for (int i=1; i<data.length; i++) {
+            final int c = data[i] & 0xFF;
+            final Integer k = table.get((w << Byte.SIZE) | c);
+            if (k != null) {
+                w = k;
+                continue;
+            }
+            out.write(w, codeSize);
+            table.put((w << Byte.SIZE) | c, next);
+            if (++next == (1 << codeSize) && codeSize < 12) {
+                codeSize++;
+            }
+            if (next == 4094) {
+                out.write(256, codeSize);                       // Clear code when the table is full.
+                table.clear();
+                next = 258;
+                codeSize = 9;
+            }
+            w = c;
+        }
+        out.write(w, codeSize);
+        if (++next == (1 << codeSize) && codeSize < 12) {
+            codeSize++;
+        }
+        out.write(257, codeSize);                               // End of information code.
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes codes of arbitrary size, most significant bits first.
+     */
+    private static final class BitWriter extends ByteArrayOutputStream {
+        /** Pending bits, and number of pending bits. */
+        private int bits, count;
+
+        /** Appends the given code. */
+        void write(final int code, final int size) {
+            bits = (bits << size) | code;
+            count += size;
+            while (count >= Byte.SIZE) {
+                write(bits >>> (count -= Byte.SIZE));
+            }
+        }
+
+        /** Returns the bytes written so far, padding the last byte with zero bits. */
+        @Override public byte[] toByteArray() {
+            if (count != 0) {
+                write(bits << (Byte.SIZE - count));
+                count = 0;
+            }
+            return super.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.apache.sis.test.Assert.*;
+
+
+/**
+ * Tests {@link TiledImage} by reading small GeoTIFF files created by this test.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(DecompressorTest.class)
+public final strictfp class TiledImageTest extends TestCase {
+    /**
+     * Size of the test images, in pixels.
+     */
+    private static final int WIDTH = 40, HEIGHT = 30;
+
+    /**
+     * Size of the tiles in the test images.
+     */
+    private static final int TILE_WIDTH = 16, TILE_HEIGHT = 16;
+
+    /**
+     * The sample value expected at the given pixel and band.
+     */
+    private static int expected(final int x, final int y, final int band) {
+        return (x * 3 + y * 7 + band * 50) & 0xFF;
+    }
+
+    /**
+     * Tests reading a tiled image of unsigned 16 bits integers compressed with the Deflate method
+     * and the horizontal differencing predictor. This test verifies also that reading a region
+     * reads only the tiles intersecting that region.
+     *
+     * @throws IOException if an error occurred while writing or reading the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testDeflateWithPredictor() throws IOException, DataStoreException {
+        final Path file = writeDeflateWithPredictor();
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final RenderedImage image = store.getImage(0);
+            assertEquals("width",      WIDTH,       image.getWidth());
+            assertEquals("height",     HEIGHT,      image.getHeight());
+            assertEquals("tileWidth",  TILE_WIDTH,  image.getTileWidth());
+            assertEquals("tileHeight", TILE_HEIGHT, image.getTileHeight());
+            assertEquals("dataType", DataBuffer.TYPE_USHORT, image.getSampleModel().getDataType());
+            /*
+             * Request a region inside a single tile: only that tile shall be read.
+             */
+            final TiledImage tiled = (TiledImage) image;
+            final Raster window = image.getData(new Rectangle(18, 3, 10, 10));
+            assertEquals("cachedTileCount", 1, tiled.cachedTileCount());
+            assertTrue("isCached", tiled.isCached(1, 0));
+            assertValuesEqual(window, 1, 200);
+            /*
+             * Request a region intersecting 4 tiles.
+             */
+            assertValuesEqual(image.getData(new Rectangle(10, 12, 12, 8)), 1, 200);
+            assertEquals("cachedTileCount", 4, tiled.cachedTileCount());
+            assertFalse("isCached", tiled.isCached(2, 0));
+            assertSame("Tiles shall be cached.", image.getTile(0, 0), image.getTile(0, 0));
+            assertValuesEqual(image.getData(), 1, 200);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests many threads reading the same image simultaneously. Each request spans many tiles,
+     * which are read with positional reads and decompressed in parallel.
+     *
+     * @throws Exception if an error occurred while writing or reading the test file.
+     */
+    @Test
+    @DependsOnMethod("testDeflateWithPredictor")
+    public void testConcurrentReads() throws Exception {
+        final Path file = writeDeflateWithPredictor();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final RenderedImage image = store.getImage(0);
+            final List<Future<Raster>> results = new ArrayList<>();
+            for (int i=0; i<8; i++) {
+                final Rectangle region = new Rectangle(i, i, WIDTH - 2*i, HEIGHT - 2*i);
+                results.add(executor.submit(new Callable<Raster>() {
+                    @Override public Raster call() {
+                        return image.getData(region);
+                    }
+                }));
+            }
+            for (final Future<Raster> result : results) {
+                assertValuesEqual(result.get(), 1, 200);
+            }
+            assertEquals("cachedTileCount", image.getNumXTiles() * image.getNumYTiles(), ((TiledImage) image).cachedTileCount());
+        } finally {
+            executor.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests a request for many tiles made by an interrupted thread. The parallel read shall stop with an exception,
+     * but without interrupting the threads reading the tiles since it would close the channel used by the store.
+     * Consequently the tiles shall still be readable after the interrupted status has been cleared.
+     *
+     * @throws IOException if an error occurred while writing or reading the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    @DependsOnMethod("testConcurrentReads")
+    public void testInterruptedPrefetch() throws IOException, DataStoreException {
+        final Path file = writeDeflateWithPredictor();
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final RenderedImage image = store.getImage(0);
+            Thread.currentThread().interrupt();
+            try {
+                image.getData();
+                fail("Expected an exception since the thread has been interrupted.");
+            } catch (BackingStoreException e) {
+                assertInstanceOf("cause", InterruptedIOException.class, e.getCause());
+            } finally {
+                assertTrue("Interrupted status shall be restored.", Thread.interrupted());
+            }
+            assertValuesEqual(image.getTile(image.getNumXTiles() - 1, image.getNumYTiles() - 1), 1, 200);
+            assertValuesEqual(image.getData(), 1, 200);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes a tiled image of unsigned 16 bits integers compressed with the Deflate method
+     * and the horizontal differencing predictor.
+     *
+     * @return the temporary file. Caller shall delete it.
+     */
+    private static Path writeDeflateWithPredictor() throws IOException {
+        final int numXTiles = (WIDTH  + TILE_WIDTH  - 1) / TILE_WIDTH;
+        final int numYTiles = (HEIGHT + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        final byte[][] tiles = new byte[numXTiles * numYTiles][];
+        for (int ty=0; ty<numYTiles; ty++) {
+            for (int tx=0; tx<numXTiles; tx++) {
+                final ByteBuffer tile = ByteBuffer.allocate(TILE_WIDTH * TILE_HEIGHT * 2).order(ByteOrder.LITTLE_ENDIAN);
+                for (int y=0; y<TILE_HEIGHT; y++) {
+                    int previous = 0;
+                    for (int x=0; x<TILE_WIDTH; x++) {
+                        final int value = expected(tx*TILE_WIDTH + x, ty*TILE_HEIGHT + y, 0) * 200;
+                        tile.putShort((short) (value - previous));          // Horizontal differencing.
+                        previous = value;
+                    }
+                }
+                tiles[ty*numXTiles + tx] = DecompressorTest.deflate(tile.array());
+            }
+        }
+        return write(Compression.DEFLATE, tiles, Short.SIZE, 1, true, 2);
+    }
+
+    /**
+     * Tests reading a tiled RGB image of 8 bits integers compressed with the LZW method.
+     *
+     * @throws IOException if an error occurred while writing or reading the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testLZW() throws IOException, DataStoreException {
+        final int numXTiles = (WIDTH  + TILE_WIDTH  - 1) / TILE_WIDTH;
+        final int numYTiles = (HEIGHT + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        final byte[][] tiles = new byte[numXTiles * numYTiles][];
+        for (int ty=0; ty<numYTiles; ty++) {
+            for (int tx=0; tx<numXTiles; tx++) {
+                final byte[] tile = new byte[TILE_WIDTH * TILE_HEIGHT * 3];
+                int i = 0;
+                for (int y=0; y<TILE_HEIGHT; y++) {
+                    for (int x=0; x<TILE_WIDTH; x++) {
+                        for (int b=0; b<3; b++) {
+                            tile[i++] = (byte) expected(tx*TILE_WIDTH + x, ty*TILE_HEIGHT + y, b);
+                        }
+                    }
+                }
+                tiles[ty*numXTiles + tx] = DecompressorTest.lzw(tile);
+            }
+        }
+        final Path file = write(Compression.LZW, tiles, Byte.SIZE, 3, true, 1);
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final RenderedImage image = store.getImage(0);
+            assertEquals("numBands", 3, image.getSampleModel().getNumBands());
+            assertNotNull("colorModel", image.getColorModel());
+            assertValuesEqual(image.getData(new Rectangle(5, 5, 30, 20)), 3, 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests reading an image of 8 bits integers organized in strips compressed with the PackBits method.
+     *
+     * @throws IOException if an error occurred while writing or reading the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    public void testPackBitsStrips() throws IOException, DataStoreException {
+        final byte[][] strips = new byte[(HEIGHT + TILE_HEIGHT - 1) / TILE_HEIGHT][];
+        for (int s=0; s<strips.length; s++) {
+            final int numRows = Math.min(TILE_HEIGHT, HEIGHT - s*TILE_HEIGHT);    // Last strip is shorter.
+            final byte[] strip = new byte[WIDTH * numRows];
+            for (int y=0; y<numRows; y++) {
+                for (int x=0; x<WIDTH; x++) {
+                    strip[y*WIDTH + x] = (byte) expected(x, s*TILE_HEIGHT + y, 0);
+                }
+            }
+            strips[s] = DecompressorTest.packBits(strip);
+        }
+        final Path file = write(Compression.PACKBITS, strips, Byte.SIZE, 1, false, 1);
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final RenderedImage image = store.getImage(0);
+            assertEquals("tileWidth", WIDTH, image.getTileWidth());
+            assertEquals("numYTiles", strips.length, image.getNumYTiles());
+            assertValuesEqual(image.getData(), 1, 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests reading an image stored in a single strip declared as having more rows than the image.
+     * The tile height shall be clamped to the image height, without overflow in the computation
+     * of the number of tiles.
+     *
+     * @throws IOException if an error occurred while writing or reading the test file.
+     * @throws DataStoreException if an error occurred while reading the test file.
+     */
+    @Test
+    @DependsOnMethod("testPackBitsStrips")
+    public void testStripHigherThanImage() throws IOException, DataStoreException {
+        final byte[] strip = new byte[WIDTH * HEIGHT];
+        for (int y=0; y<HEIGHT; y++) {
+            for (int x=0; x<WIDTH; x++) {
+                strip[y*WIDTH + x] = (byte) expected(x, y, 0);
+            }
+        }
+        final Path file = write(Compression.NONE, new byte[][] {strip}, Byte.SIZE, 1, false, 1, Integer.MAX_VALUE);
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final RenderedImage image = store.getImage(0);
+            assertEquals("numYTiles",  1,      image.getNumYTiles());
+            assertEquals("tileHeight", HEIGHT, image.getTileHeight());
+            assertEquals("sampleModel.height", HEIGHT, image.getSampleModel().getHeight());
+            assertValuesEqual(image.getData(), 1, 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that all sample values in the given raster are equal to the expected values.
+     */
+    private static void assertValuesEqual(final Raster raster, final int numBands, final int scale) {
+        final int xmax = raster.getMinX() + raster.getWidth();
+        final int ymax = raster.getMinY() + raster.getHeight();
+        for (int y=raster.getMinY(); y<ymax; y++) {
+            for (int x=raster.getMinX(); x<xmax; x++) {
+                for (int b=0; b<numBands; b++) {
+                    assertEquals("sample", expected(x, y, b) * scale, raster.getSample(x, y, b));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a little-endian TIFF file containing the given compressed tiles or strips.
+     *
+     * @param  compression      the compression method used for the tiles.
+     * @param  tiles            the compressed tiles or strips, in row-major order.
+     * @param  bitsPerSample    number of bits per sample value.
+     * @param  samplesPerPixel  number of bands, interleaved.
+     * @param  tiled            {@code true} for tiles, or {@code false} for strips.
+     * @param  predictor        the value of the {@code Predictor} TIFF tag.
+     * @return the temporary file. Caller shall delete it.
+     */
+    private static Path write(final Compression compression, final byte[][] tiles, final int bitsPerSample,
+            final int samplesPerPixel, final boolean tiled, final int predictor) throws IOException
+    {
+        return write(compression, tiles, bitsPerSample, samplesPerPixel, tiled, predictor, TILE_HEIGHT);
+    }
+
+    /**
+     * Writes a little-endian TIFF file containing the given compressed tiles or strips.
+     *
+     * @param  compression      the compression method used for the tiles.
+     * @param  tiles            the compressed tiles or strips, in row-major order.
+     * @param  bitsPerSample    number of bits per sample value.
+     * @param  samplesPerPixel  number of bands, interleaved.
+     * @param  tiled            {@code true} for tiles, or {@code false} for strips.
+     * @param  predictor        the value of the {@code Predictor} TIFF tag.
+     * @param  rowsPerStrip     the value of the {@code RowsPerStrip} TIFF tag. Ignored if {@code tiled} is true.
+     * @return the temporary file. Caller shall delete it.
+     */
+    private static Path write(final Compression compression, final byte[][] tiles, final int bitsPerSample,
+            final int samplesPerPixel, final boolean tiled, final int predictor, final int rowsPerStrip)
+            throws IOException
+    {
+        final int numEntries = tiled ? 12 : 11;
+        final int ifdLength  = 2 + numEntries * 12 + 4;
+        int dataLength = 0;
+        for (final byte[] tile : tiles) dataLength += tile.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + ifdLength + 2 * tiles.length * 4 + dataLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+        final int offsetsArray = 8 + ifdLength;
+        final int countsArray  = offsetsArray + tiles.length * 4;
+        int dataStart = countsArray + tiles.length * 4;
+        /*
+         * TIFF entries shall be sorted by tag values.
+         */
+        buffer.putShort((short) numEntries);
+        if (tiled) {
+            entry(buffer, Tags.ImageWidth,                WIDTH);
+            entry(buffer, Tags.ImageLength,               HEIGHT);
+            entry(buffer, Tags.BitsPerSample,             bitsPerSample);
+            entry(buffer, Tags.Compression,               compression.code);
+            entry(buffer, Tags.PhotometricInterpretation, samplesPerPixel == 3 ? 2 : 1);
+            entry(buffer, Tags.SamplesPerPixel,           samplesPerPixel);
+            entry(buffer, Tags.PlanarConfiguration,       1);
+            entry(buffer, Tags.Predictor,                 predictor);
+            entry(buffer, Tags.TileWidth,                 TILE_WIDTH);
+            entry(buffer, Tags.TileLength,                TILE_HEIGHT);
+            array(buffer, Tags.TileOffsets,    tiles.length, offsetsArray);
+            array(buffer, Tags.TileByteCounts, tiles.length, countsArray);
+        } else {
+            entry(buffer, Tags.ImageWidth,                WIDTH);
+            entry(buffer, Tags.ImageLength,               HEIGHT);
+            entry(buffer, Tags.BitsPerSample,             bitsPerSample);
+            entry(buffer, Tags.Compression,               compression.code);
+            entry(buffer, Tags.PhotometricInterpretation, 1);
+            if (tiles.length == 1) {
+                entry(buffer, Tags.StripOffsets,          dataStart);
+            } else {
+                array(buffer, Tags.StripOffsets,  tiles.length, offsetsArray);
+            }
+            entry(buffer, Tags.SamplesPerPixel,           samplesPerPixel);
+            entry(buffer, Tags.RowsPerStrip,              rowsPerStrip);
+            if (tiles.length == 1) {
+                entry(buffer, Tags.StripByteCounts,       tiles[0].length);
+            } else {
+                array(buffer, Tags.StripByteCounts, tiles.length, countsArray);
+            }
+            entry(buffer, Tags.PlanarConfiguration,       1);
+            entry(buffer, Tags.Predictor,                 predictor);
+        }
+        buffer.putInt(0);                                       // No next IFD.
+        for (final byte[] tile : tiles) {
+            buffer.putInt(dataStart);
+            dataStart += tile.length;
+        }
+        for (final byte[] tile : tiles) {
+            buffer.putInt(tile.length);
+        }
+        for (final byte[] tile : tiles) {
+            buffer.put(tile);
+        }
+        final Path file = Files.createTempFile("SIS", ".tiff");
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    /**
+     * Writes a TIFF entry having a single value of type {@code LONG} (32 bits unsigned integer).
+     */
+    private static void entry(final ByteBuffer buffer, final short tag, final int value) {
+        buffer.putShort(tag).putShort((short) 4).putInt(1).putInt(value);
+    }
+
+    /**
+     * Writes a TIFF entry having many values of type {@code LONG} stored at the given offset.
+     */
+    private static void array(final ByteBuffer buffer, final short tag, final int count, final int offset) {
+        if (count == 1) {
+            throw new AssertionError("Single values shall be stored in the entry.");
+        }
+        buffer.putShort(tag).putShort((short) 4).putInt(count).putInt(offset);
+    }
+}
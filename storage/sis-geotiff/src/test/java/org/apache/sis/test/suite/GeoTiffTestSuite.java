@@ -32,6 +32,8 @@ import org.junit.BeforeClass;
 @Suite.SuiteClasses({
     org.apache.sis.storage.geotiff.TypeTest.class,
     org.apache.sis.storage.geotiff.CompressionTest.class,
+    org.apache.sis.storage.geotiff.DecompressorTest.class,
+    org.apache.sis.storage.geotiff.TiledImageTest.class,
     org.apache.sis.storage.geotiff.GeoKeysTest.class,
     org.apache.sis.storage.geotiff.CRSBuilderTest.class
 })
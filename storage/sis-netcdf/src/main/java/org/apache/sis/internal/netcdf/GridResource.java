@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.IOException;
+import org.opengis.metadata.Metadata;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.apache.sis.math.Vector;
+import org.apache.sis.storage.DataSet;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.internal.storage.AbstractResource;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.Debug;
+
+
+/**
+ * A gridded variable exposed as a resource of the netCDF data store.
+ * Values are read by windows (sub-areas with optional sub-sampling), optionally split in slabs
+ * of bounded length for processing windows too large for being loaded in memory at once.
+ *
+ * <p>All read operations are synchronized on the lock object given at construction time,
+ * which is the data store. This is needed because all variables share the same channel.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class GridResource extends AbstractResource implements DataSet {
+    /**
+     * Default maximal number of values to read in a single slab.
+     * With values of type {@code double}, this is 8 megabytes per slab.
+     */
+    public static final int DEFAULT_SLAB_LENGTH = 1 << 20;
+
+    /**
+     * The decoder which created the variable. Used for checking if the reading process has been canceled.
+     */
+    private final Decoder decoder;
+
+    /**
+     * The netCDF variable providing the data.
+     */
+    private final Variable data;
+
+    /**
+     * The object on which to synchronize read operations.
+     */
+    private final Object lock;
+
+    /**
+     * Creates a new resource for the given variable.
+     *
+     * @param  decoder  the decoder which created the variable.
+     * @param  data     the netCDF variable providing the data.
+     * @param  lock     the object on which to synchronize read operations.
+     */
+    private GridResource(final Decoder decoder, final Variable data, final Object lock) {
+        super(decoder.listeners);
+        this.decoder = decoder;
+        this.data    = data;
+        this.lock    = lock;
+    }
+
+    /**
+     * Creates a resource for each variable that can be used as a coverage.
+     * Coordinate system axes and variables having less than {@value Variable#MIN_DIMENSION}
+     * dimensions of at least 2 cells are ignored.
+     *
+     * @param  decoder  the decoder from which to get the variables.
+     * @param  lock     the object on which to synchronize read operations.
+     * @return a resource for each gridded variable, or an empty list if none.
+     */
+    public static List<GridResource> create(final Decoder decoder, final Object lock) {
+        final List<GridResource> resources = new ArrayList<>();
+        for (final Variable variable : decoder.getVariables()) {
+            if (variable.isCoverage(2)) {
+                resources.add(new GridResource(decoder, variable, lock));
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * Returns the name of the netCDF variable.
+     *
+     * @return the name of the variable.
+     */
+    public String getName() {
+        return data.getName();
+    }
+
+    /**
+     * Returns information about this resource.
+     *
+     * @return information about this resource, or {@code null} if none.
+     *
+     * @todo Not yet implemented.
+     */
+    @Override
+    public Metadata getMetadata() {
+        return null;
+    }
+
+    /**
+     * Returns the type of sample values.
+     *
+     * @return the type of sample values.
+     */
+    public DataType getDataType() {
+        return data.getDataType();
+    }
+
+    /**
+     * Returns the names of the grid dimensions, in netCDF order (reverse of "natural" order).
+     *
+     * @return the names of all grid dimensions.
+     */
+    public String[] getGridDimensionNames() {
+        return data.getGridDimensionNames();
+    }
+
+    /**
+     * Returns the number of cells along each grid dimension, in netCDF order (reverse of "natural" order).
+     * Values shall be interpreted as unsigned integers.
+     *
+     * @return the number of grid cells for each dimension.
+     */
+    public int[] getGridEnvelope() {
+        return data.getGridEnvelope();
+    }
+
+    /**
+     * Reads the values in the given window. All arrays shall have a length equals to the number of grid dimensions,
+     * and the values are in netCDF order. The number of values to read (after sub-sampling) shall not exceed
+     * {@link Integer#MAX_VALUE}; for larger windows, use {@link #read(int[], int[], int[], int, Variable.SlabHandler)}.
+     *
+     * @param  areaLower    index of the first value to read along each dimension.
+     * @param  areaUpper    index after the last value to read along each dimension.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @return the values in the given window, packed in the same way than {@link Variable#read()}.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    public Vector read(final int[] areaLower, final int[] areaUpper, final int[] subsampling)
+            throws IOException, DataStoreException
+    {
+        verifyWindow(areaLower, areaUpper, subsampling);
+        synchronized (lock) {
+            return data.read(areaLower, areaUpper, subsampling);
+        }
+    }
+
+    /**
+     * Reads the values in the given window by slabs of at most {@code slabLength} values.
+     * Slabs are given to the handler in the order values are stored in the file,
+     * which allows to process windows of any size with bounded memory.
+     * The reading process stops if the handler returns {@code false},
+     * or if the data store is {@linkplain Decoder#canceled canceled}.
+     * Cancellation is checked before to read each slab.
+     *
+     * @param  areaLower    index of the first value to read along each dimension.
+     * @param  areaUpper    index after the last value to read along each dimension.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @param  slabLength   maximal number of values in a slab, for example {@link #DEFAULT_SLAB_LENGTH}.
+     * @param  handler      the handler to notify for each slab.
+     * @return {@code false} if the reading process has been stopped before the end, or {@code true} otherwise.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    public boolean read(final int[] areaLower, final int[] areaUpper, final int[] subsampling,
+            final int slabLength, final Variable.SlabHandler handler) throws IOException, DataStoreException
+    {
+        verifyWindow(areaLower, areaUpper, subsampling);
+        ArgumentChecks.ensureNonNull("handler", handler);
+        synchronized (lock) {
+            if (decoder.canceled) {
+                return false;
+            }
+            /*
+             * Check for cancellation after each slab has been processed, which is before the next slab is read.
+             * Checking after the read would waste the reading of a slab which may be large.
+             */
+            return data.read(areaLower, areaUpper, subsampling, slabLength, new Variable.SlabHandler() {
+                @Override
+                public boolean slab(int[] lower, int[] upper, Vector values) throws IOException, DataStoreException {
+                    return handler.slab(lower, upper, values) && !decoder.canceled;
+                }
+            });
+        }
+    }
+
+    /**
+     * Verifies that the given window is inside the grid envelope.
+     */
+    private void verifyWindow(final int[] areaLower, final int[] areaUpper, final int[] subsampling) {
+        final int[] size = data.getGridEnvelope();
+        ensureDimensionMatches("areaLower",   size.length, areaLower);
+        ensureDimensionMatches("areaUpper",   size.length, areaUpper);
+        ensureDimensionMatches("subsampling", size.length, subsampling);
+        for (int i=0; i<size.length; i++) {
+            final long lower = areaLower[i] & 0xFFFFFFFFL;
+            final long upper = areaUpper[i] & 0xFFFFFFFFL;
+            if (lower >= upper || upper > (size[i] & 0xFFFFFFFFL)) {
+                throw new IllegalArgumentException(Errors.getResources(getLocale())
+                        .getString(Errors.Keys.IllegalRange_2, lower, upper));
+            }
+            ArgumentChecks.ensureStrictlyPositive("subsampling", subsampling[i]);
+        }
+    }
+
+    /**
+     * Ensures that the given array has the expected length.
+     */
+    private static void ensureDimensionMatches(final String name, final int expected, final int[] array) {
+        ArgumentChecks.ensureNonNull(name, array);
+        if (array.length != expected) {
+            throw new MismatchedDimensionException(Errors.format(
+                    Errors.Keys.MismatchedDimension_3, name, expected, array.length));
+        }
+    }
+
+    /**
+     * Returns a string representation of this resource for debugging purpose.
+     *
+     * @return a string representation of this resource.
+     */
+    @Debug
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '[' + data + ']';
+    }
+}
@@ -63,6 +63,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short CanNotUseUCAR = 4;
 
+        /**
+         * Checksum mismatch in a chunk of variable “{1}” in the “{0}” file.
+         */
+        public static final short ChecksumMismatch_2 = 5;
+
         /**
          * Dimension “{2}” declared by attribute “{1}” is not found in the “{0}” file.
          */
@@ -73,6 +78,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnexpectedDimensionForVariable_4 = 2;
 
+        /**
+         * File “{0}” contains groups ({1}) which are not supported by the embedded netCDF-4 reader.
+         */
+        public static final short UnsupportedGroups_2 = 6;
+
         /**
          * Variable “{1}” is not found in the “{0}” file.
          */
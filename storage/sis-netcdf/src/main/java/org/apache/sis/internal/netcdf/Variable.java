@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.awt.image.DataBuffer;
 import org.apache.sis.math.Vector;
 import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.Debug;
 
 
@@ -225,6 +226,100 @@ public abstract class Variable extends NamedElement {
      */
     public abstract Vector read(int[] areaLower, int[] areaUpper, int[] subsampling) throws IOException, DataStoreException;
 
+    /**
+     * Reads a sub-sampled sub-area of the variable in slabs of bounded length, in the order values are stored.
+     * This method splits the given area along the first dimensions in netCDF order (the ones varying slowest),
+     * or along all dimensions if needed, in such a way that each slab contains at most {@code slabLength} values,
+     * then reads each slab with {@link #read(int[], int[], int[])} and gives the values to the given handler.
+     * This allows to process areas containing more than {@link Integer#MAX_VALUE} values without loading
+     * them all in memory.
+     *
+     * <p>Constraints on the argument values are the same than for {@link #read(int[], int[], int[])}.</p>
+     *
+     * @param  areaLower    index of the first value to read along each dimension.
+     * @param  areaUpper    index after the last value to read along each dimension.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @param  slabLength   maximal number of values to read in a single slab. This is a strict limit:
+     *                      if the last dimension alone (after sub-sampling) has more values, then that
+     *                      dimension is split too and each slab has one value along all other dimensions.
+     * @param  handler      the handler to notify for each slab.
+     * @return {@code false} if the handler stopped the reading process, or {@code true} otherwise.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    public final boolean read(final int[] areaLower, final int[] areaUpper, final int[] subsampling,
+            final int slabLength, final SlabHandler handler) throws IOException, DataStoreException
+    {
+        ArgumentChecks.ensureStrictlyPositive("slabLength", slabLength);
+        ArgumentChecks.ensureNonNull("handler", handler);
+        /*
+         * Count the number of values to read along each dimension after sub-sampling, then search
+         * for the last dimensions (in netCDF order) that we can read fully in a single slab.
+         * The dimension before them is the one to split; the dimensions before the split one
+         * are read one index at a time.
+         */
+        final int dimension = areaLower.length;
+        final long[] count = new long[dimension];
+        for (int i=0; i<dimension; i++) {
+            count[i] = ((areaUpper[i] & 0xFFFFFFFFL) - (areaLower[i] & 0xFFFFFFFFL) + (subsampling[i] - 1)) / subsampling[i];
+        }
+        int  split  = dimension;
+        long length = 1;                    // Number of values along the dimensions after 'split'.
+        while (split != 0 && length * count[split - 1] <= slabLength) {
+            length *= count[--split];
+        }
+        if (split == 0) {
+            return handler.slab(areaLower.clone(), areaUpper.clone(), read(areaLower, areaUpper, subsampling));
+        }
+        final long   step   = Math.max(1, slabLength / length);    // Number of values along the split dimension.
+        final long[] cursor = new long[split--];                   // Index of the slab after sub-sampling.
+        final int[]  lower  = areaLower.clone();
+        final int[]  upper  = areaUpper.clone();
+        do {
+            for (int i=0; i<=split; i++) {
+                final long n = (i == split) ? step : 1;
+                final long start = (areaLower[i] & 0xFFFFFFFFL) + cursor[i] * subsampling[i];
+                lower[i] = (int) start;
+                upper[i] = (int) Math.min(areaUpper[i] & 0xFFFFFFFFL, start + (n-1) * subsampling[i] + 1);
+            }
+            if (!handler.slab(lower.clone(), upper.clone(), read(lower, upper, subsampling))) {
+                return false;
+            }
+            int i = split;
+            cursor[i] += step;
+            while (cursor[i] >= count[i]) {
+                cursor[i] = 0;
+                if (--i < 0) {
+                    return true;
+                }
+                cursor[i]++;
+            }
+        } while (true);
+    }
+
+    /**
+     * Receives the slabs read by {@link Variable#read(int[], int[], int[], int, SlabHandler)}.
+     * Slabs are given in the order their values are stored in the netCDF file.
+     *
+     * @author  Martin Desruisseaux (Geomatys)
+     * @version 0.8
+     * @since   0.8
+     * @module
+     */
+    public interface SlabHandler {
+        /**
+         * Invoked for each slab of values read from the variable.
+         *
+         * @param  lower   index of the first value in this slab along each dimension, in netCDF order.
+         * @param  upper   index after the last value in this slab along each dimension, in netCDF order.
+         * @param  values  the values in this slab, packed in the same way than {@link Variable#read()}.
+         * @return {@code true} for continuing with the next slab, or {@code false} for stopping.
+         * @throws IOException if an error occurred while processing the values.
+         * @throws DataStoreException if a logical error occurred.
+         */
+        boolean slab(int[] lower, int[] upper, Vector values) throws IOException, DataStoreException;
+    }
+
     /**
      * Returns a string representation of this variable for debugging purpose.
      *
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import org.apache.sis.storage.DataStoreException;
+
+
+/**
+ * A version 2 B-tree, used for indexing the links and attributes stored in fractal heaps
+ * and the chunks of some datasets. This class does not search records by key; it only
+ * lists all records in the tree, since callers need all of them.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class BTree2 {
+    /**
+     * Types of records used by this package.
+     */
+    static final int LINK_NAME = 5, ATTRIBUTE_NAME = 8, CHUNK = 10, FILTERED_CHUNK = 11;
+
+    /**
+     * Number of bytes in the signature, version, type and checksum of nodes.
+     */
+    private static final int PREFIX_SIZE = 10;
+
+    /**
+     * The reader of the file which contains this B-tree.
+     */
+    private final HDF5Reader reader;
+
+    /**
+     * The type of records stored in this B-tree.
+     */
+    final int type;
+
+    /**
+     * Size in bytes of each record.
+     */
+    final int recordSize;
+
+    /**
+     * Depth of the tree, or 0 if the root node is a leaf.
+     */
+    private final int depth;
+
+    /**
+     * Address of the root node.
+     */
+    private final long root;
+
+    /**
+     * Number of records in the root node.
+     */
+    private final int rootCount;
+
+    /**
+     * Number of bytes for encoding the number of records in a child node.
+     */
+    private final int countSize;
+
+    /**
+     * Number of bytes for encoding the total number of records in the sub-tree of a child,
+     * indexed by the depth of the child.
+     */
+    private final int[] totalCountSize;
+
+    /**
+     * Reads the header of the version 2 B-tree at the given address.
+     *
+     * @param  reader   the reader of the file which contains the B-tree.
+     * @param  address  address of the B-tree header.
+     */
+    BTree2(final HDF5Reader reader, final long address) throws IOException, DataStoreException {
+        this.reader = reader;
+        reader.seek(address);
+        reader.signature("BTHD");
+        reader.skip(1);                                             // Version.
+        type       = reader.input.readUnsignedByte();
+        final long nodeSize = reader.input.readUnsignedInt();
+        recordSize = reader.input.readUnsignedShort();
+        depth      = reader.input.readUnsignedShort();
+        reader.skip(2);                                             // Split and merge percents.
+        root       = reader.readOffset();
+        rootCount  = reader.input.readUnsignedShort();
+        if (recordSize == 0 || nodeSize <= PREFIX_SIZE) {
+            throw reader.malformed();
+        }
+        /*
+         * The sizes of the fields giving the number of records in child nodes are not stored in the file.
+         * They are derived from the maximal number of records that can fit in a node at each level.
+         */
+        long maxCount = (nodeSize - PREFIX_SIZE) / recordSize;
+        long maxTotal = maxCount;
+        countSize = encodedSize(maxCount);
+        totalCountSize = new int[depth + 1];
+        for (int level=1; level <= depth; level++) {
+            final int pointerSize = reader.offsetSize + countSize + totalCountSize[level - 1];
+            maxCount = (nodeSize - (PREFIX_SIZE + pointerSize)) / (recordSize + pointerSize);
+            maxTotal = (maxCount + 1) * maxTotal + maxCount;
+            totalCountSize[level] = encodedSize(maxTotal);
+        }
+    }
+
+    /**
+     * Returns the number of bytes needed for encoding the given maximal value.
+     */
+    private static int encodedSize(final long max) {
+        return ((Long.SIZE - 1) - Long.numberOfLeadingZeros(max)) / Byte.SIZE + 1;
+    }
+
+    /**
+     * Returns all records in this B-tree, in no particular order.
+     *
+     * @return all records, each one in a little-endian buffer of {@link #recordSize} bytes.
+     */
+    final List<ByteBuffer> records() throws IOException, DataStoreException {
+        final List<ByteBuffer> records = new ArrayList<>();
+        if (root != HDF5Reader.UNDEFINED) {
+            readNode(root, rootCount, depth, records);
+        }
+        return records;
+    }
+
+    /**
+     * Adds the records of the given node and its children to the given list.
+     */
+    private void readNode(final long address, final int count, final int level, final List<ByteBuffer> records)
+            throws IOException, DataStoreException
+    {
+        reader.seek(address);
+        reader.signature(level == 0 ? "BTLF" : "BTIN");
+        reader.skip(2);                                             // Version and type.
+        int length = count * recordSize;
+        if (level != 0) {
+            length += (count + 1) * (reader.offsetSize + countSize + (level > 1 ? totalCountSize[level - 1] : 0));
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(reader.input.readBytes(length)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i=0; i<count; i++) {
+            final ByteBuffer record = buffer.duplicate();
+            record.limit(record.position() + recordSize);
+            records.add(record.slice().order(ByteOrder.LITTLE_ENDIAN));
+            HDF5Reader.skip(buffer, recordSize);
+        }
+        if (level != 0) {
+            final long[] children = new long[count + 1];
+            final int[]  counts   = new int [count + 1];
+            for (int i=0; i<children.length; i++) {
+                children[i] = reader.getOffset(buffer);
+                counts  [i] = (int) HDF5Reader.getSized(buffer, countSize);
+                if (level > 1) {
+                    HDF5Reader.skip(buffer, totalCountSize[level - 1]);
+                }
+            }
+            for (int i=0; i<children.length; i++) {
+                readNode(children[i], counts[i], level - 1, records);
+            }
+        }
+    }
+}
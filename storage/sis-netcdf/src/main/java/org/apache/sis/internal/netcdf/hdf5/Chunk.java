@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.sis.storage.DataStoreException;
+
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.UNDEFINED;
+
+
+/**
+ * The location in the file of a chunk of a dataset using the chunked layout.
+ * The natural ordering of {@code Chunk} is the order in which chunks appear in the file,
+ * for reading them with less seek operations.
+ *
+ * <p>The static methods in this class read the chunk indexes. Supported indexes are version 1 and 2 B-trees,
+ * single chunk, implicit index and non-paged fixed arrays. Extensible arrays are not supported.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class Chunk implements Comparable<Chunk> {
+    /**
+     * Index in the dataset of the first element in this chunk, for each dimension.
+     * Dimensions are in HDF5 order (slowest varying dimension first).
+     */
+    final long[] offset;
+
+    /**
+     * Address of the chunk data.
+     */
+    final long address;
+
+    /**
+     * Size in bytes of the chunk data as stored in the file, after filters.
+     */
+    final long size;
+
+    /**
+     * Bit <var>i</var> set means that filter <var>i</var> of the pipeline has not been applied on this chunk.
+     */
+    final int filterMask;
+
+    /**
+     * Creates a new chunk location.
+     */
+    private Chunk(final long[] offset, final long address, final long size, final int filterMask) {
+        this.offset     = offset;
+        this.address    = address;
+        this.size       = size;
+        this.filterMask = filterMask;
+    }
+
+    /**
+     * Returns whether this chunk contains at least one element of the given sub-sampled region.
+     *
+     * @param  lower       index of the first element to read along each dimension.
+     * @param  upper       index after the last element to read along each dimension.
+     * @param  sub         sub-sampling along each dimension.
+     * @param  chunkShape  size of chunks along each dimension.
+     */
+    final boolean intersects(final long[] lower, final long[] upper, final int[] sub, final int[] chunkShape) {
+        for (int i=0; i<offset.length; i++) {
+            final long start = Math.max(lower[i], offset[i]);
+            final long end   = Math.min(upper[i], offset[i] + chunkShape[i]);
+            if (start >= end || ceilDiv(start - lower[i], sub[i]) >= ceilDiv(end - lower[i], sub[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code n / d} rounded toward positive infinity, for non-negative {@code n}.
+     */
+    static long ceilDiv(final long n, final int d) {
+        return (n + (d - 1)) / d;
+    }
+
+    /**
+     * Compares the address of this chunk with the address of the given chunk.
+     */
+    @Override
+    public int compareTo(final Chunk other) {
+        return Long.compare(address, other.address);
+    }
+
+    /**
+     * Reads the index of the chunks of the given dataset.
+     *
+     * @param  reader       the reader of the file which contains the dataset.
+     * @param  header       the object header of the dataset.
+     * @param  chunkLength  size in bytes of unfiltered chunks.
+     * @return location of all chunks stored in the file, in no particular order.
+     */
+    static List<Chunk> readIndex(final HDF5Reader reader, final ObjectHeader header, final long chunkLength)
+            throws IOException, DataStoreException
+    {
+        final List<Chunk> chunks = new ArrayList<>();
+        if (header.dataAddress != UNDEFINED) {
+            final int rank = header.chunkShape.length;
+            switch (header.chunkIndex) {
+                case ObjectHeader.BTREE_V1: {
+                    readBTree(reader, header.dataAddress, rank, chunks);
+                    break;
+                }
+                case ObjectHeader.SINGLE_CHUNK: {
+                    final boolean filtered = header.singleChunkSize != 0;
+                    chunks.add(new Chunk(new long[rank], header.dataAddress,
+                            filtered ? header.singleChunkSize : chunkLength,
+                            filtered ? header.singleChunkMask : 0));
+                    break;
+                }
+                case ObjectHeader.IMPLICIT: {
+                    final long[] grid = gridShape(header);
+                    final long count = product(grid);
+                    for (long i=0; i<count; i++) {
+                        chunks.add(new Chunk(gridOffset(header, grid, i), header.dataAddress + i*chunkLength, chunkLength, 0));
+                    }
+                    break;
+                }
+                case ObjectHeader.FIXED_ARRAY: {
+                    readFixedArray(reader, header, chunkLength, chunks);
+                    break;
+                }
+                case ObjectHeader.BTREE_V2: {
+                    final BTree2 tree = new BTree2(reader, header.dataAddress);
+                    final boolean filtered;
+                    switch (tree.type) {
+                        case BTree2.CHUNK:          filtered = false; break;
+                        case BTree2.FILTERED_CHUNK: filtered = true;  break;
+                        default: throw reader.malformed();
+                    }
+                    final int sizeBytes = tree.recordSize - reader.offsetSize - (Integer.SIZE + rank*Long.SIZE) / Byte.SIZE;
+                    for (final ByteBuffer record : tree.records()) {
+                        final long address = reader.getOffset(record);
+                        long size = chunkLength;
+                        int  mask = 0;
+                        if (filtered) {
+                            size = HDF5Reader.getSized(record, sizeBytes);
+                            mask = record.getInt();
+                        }
+                        final long[] offset = new long[rank];
+                        for (int i=0; i<rank; i++) {
+                            offset[i] = record.getLong() * header.chunkShape[i];
+                        }
+                        chunks.add(new Chunk(offset, address, size, mask));
+                    }
+                    break;
+                }
+                default: {
+                    throw HDF5Reader.unsupported("chunk index type " + header.chunkIndex);
+                }
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Adds the chunks referenced by the given node of a version 1 B-tree, and its children.
+     */
+    private static void readBTree(final HDF5Reader reader, final long address, final int rank, final List<Chunk> chunks)
+            throws IOException, DataStoreException
+    {
+        reader.seek(address);
+        reader.signature("TREE");
+        if (reader.input.readUnsignedByte() != 1) {                 // Node type 1 is for chunks.
+            throw reader.malformed();
+        }
+        final int level   = reader.input.readUnsignedByte();
+        final int entries = reader.input.readUnsignedShort();
+        reader.skip(2 * reader.offsetSize);                         // Left and right siblings.
+        final int keySize = (2*Integer.SIZE + (rank + 1)*Long.SIZE) / Byte.SIZE;
+        final ByteBuffer buffer = reader.read(reader.address(), entries * (keySize + reader.offsetSize) + keySize);
+        final long[] children = (level != 0) ? new long[entries] : null;
+        for (int i=0; i<entries; i++) {
+            final long size = buffer.getInt() & 0xFFFFFFFFL;
+            final int  mask = buffer.getInt();
+            final long[] offset = new long[rank];
+            for (int j=0; j<rank; j++) {
+                offset[j] = buffer.getLong();
+            }
+            HDF5Reader.skip(buffer, Long.SIZE / Byte.SIZE);         // Offset in the element size dimension.
+            final long child = reader.getOffset(buffer);
+            if (children != null) {
+                children[i] = child;
+            } else {
+                chunks.add(new Chunk(offset, child, size, mask));
+            }
+        }
+        if (children != null) {
+            for (final long child : children) {
+                readBTree(reader, child, rank, chunks);
+            }
+        }
+    }
+
+    /**
+     * Adds the chunks referenced by a fixed array index. Paged arrays are not supported.
+     */
+    private static void readFixedArray(final HDF5Reader reader, final ObjectHeader header, final long chunkLength,
+            final List<Chunk> chunks) throws IOException, DataStoreException
+    {
+        reader.seek(header.dataAddress);
+        reader.signature("FAHD");
+        reader.skip(1);                                             // Version.
+        final boolean filtered = reader.input.readUnsignedByte() != 0;
+        final int  entrySize = reader.input.readUnsignedByte();
+        final int  pageBits  = reader.input.readUnsignedByte();
+        final long count     = reader.readLength();
+        final long block     = reader.readOffset();
+        if (block == UNDEFINED) {
+            return;
+        }
+        if (count > (1L << pageBits)) {
+            throw HDF5Reader.unsupported("paged fixed array");
+        }
+        final long[] grid = gridShape(header);
+        if (count != product(grid)) {
+            throw reader.malformed();
+        }
+        reader.seek(block);
+        reader.signature("FADB");
+        reader.skip(2 + reader.offsetSize);                         // Version, client ID and header address.
+        final ByteBuffer buffer = reader.read(reader.address(), count * entrySize);
+        final int sizeBytes = entrySize - reader.offsetSize - Integer.SIZE / Byte.SIZE;
+        for (long i=0; i<count; i++) {
+            final int start = buffer.position();
+            final long address = reader.getOffset(buffer);
+            long size = chunkLength;
+            int  mask = 0;
+            if (filtered) {
+                size = HDF5Reader.getSized(buffer, sizeBytes);
+                mask = buffer.getInt();
+            }
+            buffer.position(start + entrySize);
+            if (address != UNDEFINED) {
+                chunks.add(new Chunk(gridOffset(header, grid, i), address, size, mask));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks along each dimension of the given dataset.
+     */
+    private static long[] gridShape(final ObjectHeader header) {
+        final long[] grid = new long[header.shape.length];
+        for (int i=0; i<grid.length; i++) {
+            grid[i] = ceilDiv(header.shape[i], header.chunkShape[i]);
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the offset of the chunk at the given index in a grid of chunks stored in row-major order.
+     */
+    private static long[] gridOffset(final ObjectHeader header, final long[] grid, long index) {
+        final long[] offset = new long[grid.length];
+        for (int i = grid.length; --i >= 0;) {
+            offset[i] = (index % grid[i]) * header.chunkShape[i];
+            index /= grid[i];
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the product of all values in the given array.
+     */
+    private static long product(final long[] values) {
+        long n = 1;
+        for (final long v : values) {
+            n *= v;
+        }
+        return n;
+    }
+}
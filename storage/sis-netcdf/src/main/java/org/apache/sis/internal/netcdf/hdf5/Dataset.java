@@ -0,0 +1,457 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import org.apache.sis.internal.jdk8.JDK8;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.storage.io.HyperRectangleReader;
+import org.apache.sis.internal.storage.io.Region;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.Numbers;
+
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.UNDEFINED;
+
+
+/**
+ * A HDF5 dataset, which is the storage of a netCDF-4 variable.
+ * Datasets can be stored in compact, contiguous or chunked layout.
+ * Contiguous datasets are read directly from the channel with sub-area and sub-sampling.
+ * Chunked datasets are read by loading the raw bytes of all chunks intersecting the requested region
+ * in file order, then reverting the filters (decompression) of those chunks in parallel.
+ *
+ * <p>Dimensions are in HDF5 order, which is also the order of netCDF dimensions:
+ * the first dimension is the one that varies slowest.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class Dataset {
+    /**
+     * Approximative amount of chunk bytes to load in memory before to decode them.
+     * Chunks are decoded in parallel by batches of about this size.
+     */
+    private static final int BATCH_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The reader of the file which contains this dataset.
+     */
+    private final HDF5Reader reader;
+
+    /**
+     * The dataset name.
+     */
+    private final String name;
+
+    /**
+     * The object header describing this dataset.
+     */
+    private final ObjectHeader header;
+
+    /**
+     * The netCDF type of the values in this dataset.
+     */
+    private final DataType dataType;
+
+    /**
+     * Location of all chunks of this dataset, loaded when first needed.
+     */
+    private List<Chunk> chunks;
+
+    /**
+     * Creates a new dataset for the given object header.
+     */
+    Dataset(final HDF5Reader reader, final String name, final ObjectHeader header) {
+        this.reader   = reader;
+        this.name     = name;
+        this.header   = header;
+        this.dataType = header.datatype.toNetCDF();
+    }
+
+    /**
+     * Returns the name of this dataset.
+     *
+     * @return the dataset name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the address of the object header of this dataset.
+     * This is the value used by object references in attributes.
+     *
+     * @return address of the object header.
+     */
+    public long getAddress() {
+        return header.address;
+    }
+
+    /**
+     * Returns an address for ordering the datasets in the order they appear in the file.
+     * This is the data address for contiguous datasets, or the object header address otherwise.
+     *
+     * @return an address for ordering datasets.
+     */
+    public long getStorageAddress() {
+        return (header.layout == ObjectHeader.CONTIGUOUS && header.dataAddress != UNDEFINED)
+                ? header.dataAddress : header.address;
+    }
+
+    /**
+     * Returns the netCDF type of the values in this dataset.
+     *
+     * @return the type of values, or {@link DataType#UNKNOWN} if not supported.
+     */
+    public DataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Returns the number of elements along each dimension.
+     * This is an empty array for scalar datasets.
+     *
+     * @return the dataset size in each dimension.
+     */
+    public long[] getShape() {
+        return header.shape.clone();
+    }
+
+    /**
+     * Returns {@code true} if the dataset can grow without limit in the given dimension.
+     *
+     * @param  dimension  index of the dimension to test.
+     * @return whether the given dimension is unlimited.
+     */
+    public boolean isUnlimited(final int dimension) {
+        return header.maxShape != null && header.maxShape[dimension] == UNDEFINED;
+    }
+
+    /**
+     * Returns the attributes of this dataset, in declaration order.
+     * Values are {@link String}, {@link Number}, arrays of primitive types,
+     * {@code String[]} or {@code long[][]} for object references.
+     *
+     * @return the dataset attributes.
+     */
+    public Map<String,Object> getAttributes() {
+        return Collections.unmodifiableMap(header.attributes);
+    }
+
+    /**
+     * Returns {@code true} if the values of this dataset can be read by {@link #read(long[], long[], int[])}.
+     *
+     * @return whether this dataset can be read.
+     */
+    public boolean isReadable() {
+        return dataType.number >= Numbers.BYTE && dataType.number <= Numbers.DOUBLE && header.layout >= 0;
+    }
+
+    /**
+     * Reads a sub-sampled sub-area of this dataset.
+     * Values are returned in a flattened array in row-major order (last dimension varies fastest).
+     *
+     * @param  lower  index of the first value to read along each dimension.
+     * @param  upper  index after the last value to read along each dimension.
+     * @param  sub    sub-sampling along each dimension. 1 means no sub-sampling.
+     * @return the values as an array of a Java primitive type.
+     * @throws IOException if an error occurred while reading the channel.
+     * @throws DataStoreException if the dataset is malformed or uses an unsupported feature.
+     */
+    public Object read(long[] lower, long[] upper, int[] sub) throws IOException, DataStoreException {
+        if (!isReadable()) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnknownType_1, "HDF5:" + dataType));
+        }
+        long[] shape = header.shape;
+        if (shape.length == 0) {                                        // Scalar.
+            shape = upper = new long[] {1};
+            lower = new long[] {0};
+            sub   = new int[]  {1};
+        }
+        final int rank = shape.length;
+        final int[] count = new int[rank];
+        long total = 1;
+        for (int i=0; i<rank; i++) {
+            final long n = Chunk.ceilDiv(upper[i] - lower[i], sub[i]);
+            total *= n;
+            if (total > Integer.MAX_VALUE) {
+                throw new DataStoreContentException(Errors.format(Errors.Keys.ExcessiveListSize_2, name, total));
+            }
+            count[i] = (int) n;
+        }
+        final byte number = dataType.number;
+        final ByteOrder order = header.datatype.order();
+        switch (header.layout) {
+            case ObjectHeader.CONTIGUOUS: {
+                if (header.dataAddress == UNDEFINED) break;
+                final long[] size = new long[rank];
+                final long[] low  = new long[rank];
+                final long[] up   = new long[rank];
+                final int [] step = new int [rank];
+                for (int i=0; i<rank; i++) {
+                    final int j = (rank - 1) - i;                       // Region expects fastest dimension first.
+                    size[i] = shape[j];
+                    low [i] = lower[j];
+                    up  [i] = upper[j];
+                    step[i] = sub[j];
+                }
+                final ByteBuffer buffer = reader.input.buffer;
+                final ByteOrder structures = buffer.order();
+                try {
+                    buffer.order(order);
+                    final HyperRectangleReader hr = new HyperRectangleReader(number, reader.input, reader.position(header.dataAddress));
+                    return hr.read(new Region(size, low, up, step));
+                } finally {
+                    buffer.order(structures);
+                }
+            }
+            case ObjectHeader.COMPACT: {
+                final Object result = Datatype.array(number, (int) total);
+                final int[] chunkShape = new int[rank];
+                for (int i=0; i<rank; i++) {
+                    chunkShape[i] = (int) shape[i];
+                }
+                final ByteBuffer data = ByteBuffer.wrap(header.compactData).order(order);
+                copy(Datatype.toArray(data, number, data.remaining() / header.datatype.size), new long[rank], chunkShape,
+                        result, lower, upper, sub, count);
+                return result;
+            }
+            case ObjectHeader.CHUNKED: {
+                return readChunks(lower, upper, sub, count, (int) total);
+            }
+            default: {
+                throw HDF5Reader.unsupported("data layout class " + header.layout);
+            }
+        }
+        final Object result = Datatype.array(number, (int) total);      // Storage not allocated.
+        fill(result);
+        return result;
+    }
+
+    /**
+     * Reads the chunks intersecting the given region, then decodes them in parallel.
+     */
+    private Object readChunks(final long[] lower, final long[] upper, final int[] sub, final int[] count, final int total)
+            throws IOException, DataStoreException
+    {
+        final int[] chunkShape = header.chunkShape;
+        long length = header.datatype.size;
+        for (final int n : chunkShape) {
+            length *= n;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.ExcessiveListSize_2, name, length));
+        }
+        final int chunkLength = (int) length;
+        if (chunks == null) {
+            chunks = Chunk.readIndex(reader, header, chunkLength);
+        }
+        final Object result = Datatype.array(dataType.number, total);
+        fill(result);
+        final List<Chunk> selected = new ArrayList<>();
+        for (final Chunk chunk : chunks) {
+            if (chunk.intersects(lower, upper, sub, chunkShape)) {
+                selected.add(chunk);
+            }
+        }
+        Collections.sort(selected);
+        int start = 0;
+        while (start < selected.size()) {
+            /*
+             * Read the raw bytes of a batch of chunks in file order, then decode the batch in parallel.
+             * Decoding is where most of the time is spent when chunks are compressed.
+             */
+            long batchSize = 0;
+            int end = start;
+            final List<byte[]> raw = new ArrayList<>();
+            do {
+                final Chunk chunk = selected.get(end++);
+                raw.add(reader.readBytes(chunk.address, chunk.size));
+                batchSize += chunk.size;
+            } while (end < selected.size() && batchSize < BATCH_SIZE);
+            final Decode task = new Decode(selected.subList(start, end).toArray(new Chunk[end - start]),
+                    raw.toArray(new byte[end - start][]), 0, end - start, chunkLength, result, lower, upper, sub, count);
+            try {
+                if (end - start == 1) {
+                    task.compute();
+                } else if (ForkJoinTask.inForkJoinPool()) {
+                    task.invoke();
+                } else {
+                    JDK8.commonPool().invoke(task);
+                }
+            } catch (BackingStoreException e) {
+                throw e.unwrapOrRethrow(DataStoreException.class);
+            }
+            start = end;
+        }
+        return result;
+    }
+
+    /**
+     * A fork-join task decoding a range of chunks and copying their values in the result array.
+     * The range is split recursively until each task decodes a single chunk. Tasks write in
+     * disjoint parts of the result array, so no synchronization is needed.
+     */
+    @SuppressWarnings("serial")                             // Not intended to be serialized.
+    private final class Decode extends RecursiveAction {
+        /** The chunks to decode, together with their raw bytes. */
+        private final Chunk[] chunks;
+        private final byte[][] raw;
+
+        /** Range of elements to use in the {@link #chunks} and {@link #raw} arrays. */
+        private final int low, high;
+
+        /** Size in bytes of decoded chunks. */
+        private final int chunkLength;
+
+        /** Where to store the values, together with the region to read. */
+        private final Object result;
+        private final long[] lower, upper;
+        private final int[] sub, count;
+
+        /** Creates a task for decoding the given range of chunks. */
+        Decode(final Chunk[] chunks, final byte[][] raw, final int low, final int high, final int chunkLength,
+                final Object result, final long[] lower, final long[] upper, final int[] sub, final int[] count)
+        {
+            this.chunks      = chunks;
+            this.raw         = raw;
+            this.low         = low;
+            this.high        = high;
+            this.chunkLength = chunkLength;
+            this.result      = result;
+            this.lower       = lower;
+            this.upper       = upper;
+            this.sub         = sub;
+            this.count       = count;
+        }
+
+        /** Decodes the chunks, splitting the work in sub-tasks if there is more than one chunk. */
+        @Override protected void compute() {
+            if (high - low == 1) {
+                final Chunk chunk = chunks[low];
+                byte[] data = raw[low];
+                raw[low] = null;                                        // Let GC reclaim memory.
+                try {
+                    if (header.filters != null) {
+                        data = header.filters.decode(data, chunk.filterMask, chunkLength, reader.filename(), name);
+                    }
+                    if (data.length < chunkLength) {
+                        throw new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, name));
+                    }
+                } catch (DataStoreException e) {
+                    throw new BackingStoreException(e);
+                }
+                final Object values = Datatype.toArray(ByteBuffer.wrap(data).order(header.datatype.order()),
+                        dataType.number, chunkLength / header.datatype.size);
+                copy(values, chunk.offset, header.chunkShape, result, lower, upper, sub, count);
+            } else {
+                final int mid = (low + high) >>> 1;
+                ForkJoinTask.invokeAll(new Decode(chunks, raw, low, mid,  chunkLength, result, lower, upper, sub, count),
+                                       new Decode(chunks, raw, mid, high, chunkLength, result, lower, upper, sub, count));
+            }
+        }
+    }
+
+    /**
+     * Copies the values of a chunk which are inside the requested region into the result array.
+     *
+     * @param  values      the chunk values, in row-major order.
+     * @param  offset      index in the dataset of the first chunk value, for each dimension.
+     * @param  chunkShape  number of values in the chunk along each dimension.
+     * @param  result      the array where to store the values.
+     * @param  lower       index of the first value to read along each dimension.
+     * @param  upper       index after the last value to read along each dimension.
+     * @param  sub         sub-sampling along each dimension.
+     * @param  count       number of values in the result along each dimension.
+     */
+    private static void copy(final Object values, final long[] offset, final int[] chunkShape, final Object result,
+            final long[] lower, final long[] upper, final int[] sub, final int[] count)
+    {
+        final int rank = count.length;
+        final int[] t0 = new int[rank];
+        final int[] t1 = new int[rank];
+        for (int i=0; i<rank; i++) {
+            t0[i] = (int) Chunk.ceilDiv(Math.max(lower[i], offset[i]) - lower[i], sub[i]);
+            t1[i] = (int) Chunk.ceilDiv(Math.min(upper[i], offset[i] + chunkShape[i]) - lower[i], sub[i]);
+            if (t0[i] >= t1[i]) return;
+        }
+        final int last = rank - 1;
+        final int length = t1[last] - t0[last];
+        final int[] t = t0.clone();
+        while (true) {
+            long src = 0, dst = 0;
+            for (int i=0; i<rank; i++) {
+                src = src * chunkShape[i] + (lower[i] + (long) t[i] * sub[i] - offset[i]);
+                dst = dst * count[i] + t[i];
+            }
+            if (sub[last] == 1) {
+                System.arraycopy(values, (int) src, result, (int) dst, length);
+            } else {
+                for (int n=0; n<length; n++) {
+                    System.arraycopy(values, (int) src + n * sub[last], result, (int) dst + n, 1);
+                }
+            }
+            int i = last;
+            while (true) {
+                if (--i < 0) return;
+                if (++t[i] < t1[i]) break;
+                t[i] = t0[i];
+            }
+        }
+    }
+
+    /**
+     * Fills the given array with the fill value, if any.
+     */
+    private void fill(final Object array) {
+        final byte[] fillValue = header.fillValue;
+        if (fillValue == null || fillValue.length < header.datatype.size) {
+            return;
+        }
+        final Object value = Datatype.toArray(ByteBuffer.wrap(fillValue).order(header.datatype.order()), dataType.number, 1);
+        switch (dataType.number) {
+            case Numbers.BYTE:    Arrays.fill((byte[])   array, ((byte[])   value)[0]); break;
+            case Numbers.SHORT:   Arrays.fill((short[])  array, ((short[])  value)[0]); break;
+            case Numbers.INTEGER: Arrays.fill((int[])    array, ((int[])    value)[0]); break;
+            case Numbers.LONG:    Arrays.fill((long[])   array, ((long[])   value)[0]); break;
+            case Numbers.FLOAT:   Arrays.fill((float[])  array, ((float[])  value)[0]); break;
+            case Numbers.DOUBLE:  Arrays.fill((double[]) array, ((double[]) value)[0]); break;
+        }
+    }
+
+    /**
+     * Returns a string representation of this dataset for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return name + Arrays.toString(header.shape) + " : " + dataType;
+    }
+}
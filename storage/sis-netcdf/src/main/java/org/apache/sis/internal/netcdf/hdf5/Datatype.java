@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.Numbers;
+
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.unsignedByte;
+
+
+/**
+ * The type of the elements of a HDF5 dataset or attribute, as declared by a datatype message.
+ * Only the types used by netCDF-4 for numbers, characters and strings can be converted to Java values.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class Datatype {
+    /**
+     * Datatype classes, as encoded in the 4 lowest bits of the first byte of a datatype message.
+     */
+    static final int FIXED_POINT = 0, FLOATING_POINT = 1, STRING = 3, BIT_FIELD = 4,
+            REFERENCE = 7, ENUMERATED = 8, VARIABLE_LENGTH = 9;
+
+    /**
+     * The datatype class, as one of the {@link #FIXED_POINT}, {@link #FLOATING_POINT}, <i>etc.</i> constants.
+     */
+    final int typeClass;
+
+    /**
+     * Size in bytes of each element.
+     */
+    final int size;
+
+    /**
+     * The class bit fields, which depend on the datatype class.
+     * For numbers, bit 0 gives the byte order and bit 3 tells whether fixed-point numbers are signed.
+     */
+    private final int bits;
+
+    /**
+     * The base type of enumerations and variable-length types, or {@code null} if none.
+     */
+    private final Datatype base;
+
+    /**
+     * Parses a datatype message from the given buffer.
+     * The buffer position after this constructor is unspecified.
+     *
+     * @param  buffer  the buffer positioned on the datatype message.
+     */
+    Datatype(final ByteBuffer buffer) {
+        typeClass = unsignedByte(buffer) & 0x0F;                    // 4 highest bits are the version.
+        bits = unsignedByte(buffer) | (unsignedByte(buffer) << 8) | (unsignedByte(buffer) << 16);
+        size = buffer.getInt();
+        switch (typeClass) {
+            case ENUMERATED:
+            case VARIABLE_LENGTH: base = new Datatype(buffer); break;
+            default:              base = null; break;
+        }
+    }
+
+    /**
+     * Returns the byte order of the values of this type.
+     */
+    final ByteOrder order() {
+        switch (typeClass) {
+            case FIXED_POINT:
+            case FLOATING_POINT:
+            case BIT_FIELD:  if ((bits & 1) != 0) return ByteOrder.BIG_ENDIAN; break;
+            case ENUMERATED: return base.order();
+        }
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Returns the netCDF data type for this HDF5 datatype, or {@link DataType#UNKNOWN} if none.
+     * Enumerations are represented by their base type, as in the netCDF classic format.
+     */
+    final DataType toNetCDF() {
+        switch (typeClass) {
+            case FIXED_POINT: {
+                final boolean signed = (bits & 0x08) != 0;
+                switch (size) {
+                    case Byte   .SIZE / Byte.SIZE: return signed ? DataType.BYTE  : DataType.UBYTE;
+                    case Short  .SIZE / Byte.SIZE: return signed ? DataType.SHORT : DataType.USHORT;
+                    case Integer.SIZE / Byte.SIZE: return signed ? DataType.INT   : DataType.UINT;
+                    case Long   .SIZE / Byte.SIZE: return signed ? DataType.INT64 : DataType.UINT64;
+                }
+                break;
+            }
+            case FLOATING_POINT: {
+                switch (size) {
+                    case Float .SIZE / Byte.SIZE: return DataType.FLOAT;
+                    case Double.SIZE / Byte.SIZE: return DataType.DOUBLE;
+                }
+                break;
+            }
+            case STRING: {
+                if (size == 1) return DataType.CHAR;
+                break;
+            }
+            case ENUMERATED: {
+                return base.toNetCDF();
+            }
+            case VARIABLE_LENGTH: {
+                if ((bits & 0x0F) == 1) return DataType.STRING;
+                break;
+            }
+        }
+        return DataType.UNKNOWN;
+    }
+
+    /**
+     * Decodes the values of an attribute. The returned value follows the conventions of the attributes
+     * in netCDF classic files: a {@link String} for characters, a {@link Number} for a single numerical
+     * value, or an array of primitive type otherwise. Variable-length strings are returned as a
+     * {@code String} or {@code String[]}, and variable-length sequences of object references are
+     * returned as a {@code long[][]} array of object header addresses.
+     *
+     * @param  reader  the reader to use for fetching variable-length data in the global heap.
+     * @param  buffer  the buffer positioned on the first value.
+     * @param  count   number of values to decode.
+     * @return the attribute value, or {@code null} if empty or if the datatype is not supported.
+     */
+    final Object decode(final HDF5Reader reader, final ByteBuffer buffer, final int count)
+            throws IOException, DataStoreException
+    {
+        if (count == 0) {
+            return null;
+        }
+        switch (typeClass) {
+            case STRING: {
+                if (size == 1) {
+                    return strings(new String[] {HDF5Reader.string(buffer, count)});
+                }
+                final String[] values = new String[count];
+                for (int i=0; i<count; i++) {
+                    values[i] = HDF5Reader.string(buffer, size);
+                }
+                return strings(values);
+            }
+            case VARIABLE_LENGTH: {
+                final boolean isString = (bits & 0x0F) == 1;
+                if (!isString && base.typeClass != REFERENCE) {
+                    return null;
+                }
+                final String[] strings = isString ? new String[count] : null;
+                final long[][] references = isString ? null : new long[count][];
+                for (int i=0; i<count; i++) {
+                    final int  length     = buffer.getInt();
+                    final long collection = reader.getOffset(buffer);
+                    final int  index      = buffer.getInt();
+                    if (length > 0 && collection != HDF5Reader.UNDEFINED) {
+                        final ByteBuffer data = reader.globalHeapObject(collection, index);
+                        if (isString) {
+                            strings[i] = HDF5Reader.string(data, data.remaining());
+                        } else {
+                            final long[] addresses = new long[length];
+                            for (int j=0; j<length; j++) {
+                                addresses[j] = reader.getOffset(data);
+                            }
+                            references[i] = addresses;
+                        }
+                    }
+                }
+                return isString ? strings(strings) : references;
+            }
+        }
+        final DataType type = toNetCDF();
+        final ByteBuffer data = buffer.slice().order(order());
+        if (count == 1) {
+            switch (type) {
+                case BYTE:   return data.get();
+                case UBYTE:  return (short) (data.get() & 0xFF);
+                case SHORT:  return data.getShort();
+                case USHORT: return data.getShort() & 0xFFFF;
+                case INT:    return data.getInt();
+                case INT64:  return data.getLong();
+                case UINT:   return data.getInt() & 0xFFFFFFFFL;
+                case FLOAT:  return data.getFloat();
+                case DOUBLE: return data.getDouble();
+            }
+        }
+        return toArray(data, type.number, count);
+    }
+
+    /**
+     * Returns the given strings as a single {@code String} if there is only one value, or as an array otherwise.
+     * Leading and trailing spaces are trimmed. Empty strings are replaced by {@code null}.
+     */
+    private static Object strings(final String[] values) {
+        for (int i=0; i<values.length; i++) {
+            String value = values[i];
+            if (value != null) {
+                value = value.trim();
+                values[i] = value.isEmpty() ? null : value;
+            }
+        }
+        return (values.length == 1) ? values[0] : values;
+    }
+
+    /**
+     * Creates an array of the given primitive type and length.
+     *
+     * @param  number  the primitive type as one of {@link Numbers} constants, from {@code BYTE} to {@code DOUBLE}.
+     * @param  length  the array length.
+     * @return the array, or {@code null} if the given type is not supported.
+     */
+    static Object array(final byte number, final int length) {
+        switch (number) {
+            case Numbers.BYTE:    return new byte  [length];
+            case Numbers.SHORT:   return new short [length];
+            case Numbers.INTEGER: return new int   [length];
+            case Numbers.LONG:    return new long  [length];
+            case Numbers.FLOAT:   return new float [length];
+            case Numbers.DOUBLE:  return new double[length];
+            default:              return null;
+        }
+    }
+
+    /**
+     * Copies the values in the given buffer into a new array of the given primitive type.
+     * The byte order of the buffer shall be the byte order of the values.
+     *
+     * @param  data    the values to copy, starting at the buffer position.
+     * @param  number  the primitive type as one of {@link Numbers} constants, from {@code BYTE} to {@code DOUBLE}.
+     * @param  count   number of values to copy.
+     * @return the values, or {@code null} if the given type is not supported.
+     */
+    static Object toArray(final ByteBuffer data, final byte number, final int count) {
+        final Object array = array(number, count);
+        switch (number) {
+            case Numbers.BYTE:    data                 .get((byte[])   array); break;
+            case Numbers.SHORT:   data.asShortBuffer() .get((short[])  array); break;
+            case Numbers.INTEGER: data.asIntBuffer()   .get((int[])    array); break;
+            case Numbers.LONG:    data.asLongBuffer()  .get((long[])   array); break;
+            case Numbers.FLOAT:   data.asFloatBuffer() .get((float[])  array); break;
+            case Numbers.DOUBLE:  data.asDoubleBuffer().get((double[]) array); break;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.util.resources.Errors;
+
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.skip;
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.unsignedByte;
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.unsignedShort;
+
+
+/**
+ * The filters applied on the chunks of a dataset, as declared by a filter pipeline message.
+ * Filters are applied in declaration order when writing, so they are reverted in reverse order when reading.
+ * This class supports the DEFLATE, shuffle and Fletcher32 filters, which are the ones used by netCDF-4.
+ * Fletcher32 checksums are verified before to be removed from the chunk data.
+ *
+ * <p>Instances of this class are immutable and can be used concurrently by many threads.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class FilterPipeline {
+    /**
+     * Identifiers of the filters supported by this class.
+     */
+    static final int DEFLATE = 1, SHUFFLE = 2, FLETCHER32 = 3;
+
+    /**
+     * The filter identifiers, in the order they were applied when writing the data.
+     */
+    private final int[] identifiers;
+
+    /**
+     * The client data values of each filter. For the shuffle filter, the first value is the element size.
+     */
+    private final int[][] parameters;
+
+    /**
+     * Parses a filter pipeline message from the given buffer.
+     *
+     * @param  buffer  the buffer positioned on the filter pipeline message.
+     */
+    FilterPipeline(final ByteBuffer buffer) throws DataStoreException {
+        final int version = unsignedByte(buffer);
+        final int count   = unsignedByte(buffer);
+        switch (version) {
+            case 1:  skip(buffer, 6); break;                        // Reserved bytes.
+            case 2:  break;
+            default: throw HDF5Reader.unsupported("filter pipeline version " + version);
+        }
+        identifiers = new int[count];
+        parameters  = new int[count][];
+        for (int i=0; i<count; i++) {
+            final int id = unsignedShort(buffer);
+            final int nameLength = (version == 1 || id >= 256) ? unsignedShort(buffer) : 0;
+            skip(buffer, 2);                                        // Flags.
+            final int[] values = new int[unsignedShort(buffer)];
+            skip(buffer, (version == 1) ? (nameLength + 7) & ~7 : nameLength);
+            for (int j=0; j<values.length; j++) {
+                values[j] = buffer.getInt();
+            }
+            if (version == 1 && (values.length & 1) != 0) {
+                skip(buffer, 4);                                    // Padding after an odd number of values.
+            }
+            identifiers[i] = id;
+            parameters [i] = values;
+        }
+    }
+
+    /**
+     * Reverts the filters applied on a chunk.
+     *
+     * @param  data    the chunk data as stored in the file.
+     * @param  mask    the filter mask of the chunk. Bit <var>i</var> set means that filter <var>i</var> was skipped.
+     * @param  length    the expected length of decoded data, used as a hint for buffer allocation.
+     * @param  filename  name of the file, used only for formatting error messages.
+     * @param  name      name of the dataset, used only for formatting error messages.
+     * @return the decoded data.
+     * @throws DataStoreException if a filter is not supported or the data are corrupted.
+     */
+    final byte[] decode(byte[] data, final int mask, final int length, final String filename, final String name)
+            throws DataStoreException
+    {
+        for (int i = identifiers.length; --i >= 0;) {
+            if ((mask & (1 << i)) == 0) {
+                switch (identifiers[i]) {
+                    case DEFLATE: {
+                        data = inflate(data, length);
+                        break;
+                    }
+                    case SHUFFLE: {
+                        final int[] values = parameters[i];
+                        data = unshuffle(data, (values.length != 0) ? values[0] : 1);
+                        break;
+                    }
+                    case FLETCHER32: {
+                        final int n = data.length - Integer.SIZE / Byte.SIZE;
+                        if (n < 0) {
+                            throw truncated();
+                        }
+                        if (!verifyChecksum(data, n)) {
+                            throw new DataStoreContentException(Resources.format(Resources.Keys.ChecksumMismatch_2, filename, name));
+                        }
+                        data = Arrays.copyOf(data, n);
+                        break;
+                    }
+                    default: {
+                        throw HDF5Reader.unsupported("filter #" + identifiers[i]);
+                    }
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the exception to throw when the data of a chunk are shorter than expected.
+     */
+    private static DataStoreContentException truncated() {
+        return new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, "HDF5 chunk"));
+    }
+
+    /**
+     * Returns whether the Fletcher-32 checksum stored in little-endian order after the first {@code length} bytes
+     * matches the checksum computed from those bytes. HDF5 versions 1.6.0 to 1.6.4 stored the checksum with the
+     * bytes swapped in each 16 bits half, so this method accepts that variant too (as the HDF5 library does).
+     *
+     * @param  data    the data followed by the stored checksum.
+     * @param  length  number of bytes before the stored checksum.
+     */
+    static boolean verifyChecksum(final byte[] data, final int length) {
+        final int stored = (data[length] & 0xFF) | (data[length+1] & 0xFF) << 8
+                | (data[length+2] & 0xFF) << 16 | (data[length+3] & 0xFF) << 24;
+        final int checksum = fletcher32(data, length);
+        return stored == checksum || stored == (((checksum & 0x00FF00FF) << 8) | ((checksum >>> 8) & 0x00FF00FF));
+    }
+
+    /**
+     * Computes the Fletcher-32 checksum as implemented by the HDF5 library. This checksum differs from the
+     * common definition by the use of big-endian 16 bits words, with a zero byte added after an odd length.
+     * Sums are folded every 360 words, which is the maximal number of words before a 32 bits overflow.
+     *
+     * @param  data    the data for which to compute the checksum.
+     * @param  length  number of bytes to use in the given array.
+     */
+    static int fletcher32(final byte[] data, final int length) {
+        int sum1 = 0, sum2 = 0;
+        int i = 0;
+        int remaining = length >>> 1;
+        while (remaining != 0) {
+            int n = Math.min(remaining, 360);
+            remaining -= n;
+            do {
+                sum1 += (data[i] & 0xFF) << 8 | (data[i+1] & 0xFF);
+                sum2 += sum1;
+                i += 2;
+            } while (--n != 0);
+            sum1 = (sum1 & 0xFFFF) + (sum1 >>> 16);
+            sum2 = (sum2 & 0xFFFF) + (sum2 >>> 16);
+        }
+        if ((length & 1) != 0) {
+            sum1 += (data[i] & 0xFF) << 8;
+            sum2 += sum1;
+            sum1 = (sum1 & 0xFFFF) + (sum1 >>> 16);
+            sum2 = (sum2 & 0xFFFF) + (sum2 >>> 16);
+        }
+        sum1 = (sum1 & 0xFFFF) + (sum1 >>> 16);
+        sum2 = (sum2 & 0xFFFF) + (sum2 >>> 16);
+        return (sum2 << 16) | sum1;
+    }
+
+    /**
+     * Decompresses data compressed by the DEFLATE algorithm in the zlib format.
+     *
+     * @param  data    the compressed data.
+     * @param  length  the expected length of decompressed data.
+     */
+    static byte[] inflate(final byte[] data, final int length) throws DataStoreException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] result = new byte[Math.max(length, 16)];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (n == result.length) {
+                    result = Arrays.copyOf(result, n * 2);
+                }
+                final int c = inflater.inflate(result, n, result.length - n);
+                if (c == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw truncated();
+                }
+                n += c;
+            }
+            return (n == result.length) ? result : Arrays.copyOf(result, n);
+        } catch (DataFormatException e) {
+            throw new DataStoreContentException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reverts the shuffle filter, which stores the first byte of all elements, then the second byte
+     * of all elements, <i>etc</i>. Bytes after the last complete element are not shuffled.
+     *
+     * @param  data         the shuffled data.
+     * @param  elementSize  number of bytes in each element.
+     */
+    static byte[] unshuffle(final byte[] data, final int elementSize) {
+        if (elementSize <= 1) {
+            return data;
+        }
+        final int count = data.length / elementSize;
+        final byte[] result = new byte[data.length];
+        int src = 0;
+        for (int b=0; b<elementSize; b++) {
+            for (int i=b; i < count*elementSize; i += elementSize) {
+                result[i] = data[src++];
+            }
+        }
+        System.arraycopy(data, src, result, src, data.length - src);
+        return result;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import org.apache.sis.storage.DataStoreException;
+
+
+/**
+ * A fractal heap, which stores the link and attribute messages of objects using "dense" storage.
+ * Objects in the heap are identified by heap identifiers, which are usually obtained from a
+ * version 2 B-tree indexing the objects by name.
+ *
+ * <p>This implementation supports managed and tiny objects, but not huge objects
+ * and not heaps with I/O filters.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class FractalHeap {
+    /**
+     * The reader of the file which contains this heap.
+     */
+    private final HDF5Reader reader;
+
+    /**
+     * Number of bytes in a heap identifier.
+     */
+    private final int idLength;
+
+    /**
+     * Number of bytes for encoding an offset in the heap address space.
+     * This is the number of bytes needed for the maximal heap size.
+     */
+    private final int offsetBytes;
+
+    /**
+     * Number of bytes for encoding the length of a managed object in a heap identifier.
+     */
+    private final int lengthBytes;
+
+    /**
+     * Number of columns in the table of blocks, and size of the blocks in the first row.
+     */
+    private final int tableWidth;
+
+    /**
+     * Size of the blocks in the first two rows of the table, and maximal size of direct blocks.
+     */
+    private final long startBlockSize, maxDirectBlockSize;
+
+    /**
+     * Offsets in the heap address space, sizes and file addresses of all direct blocks.
+     * Objects are located by searching the direct block containing their offset.
+     */
+    private final List<long[]> blocks;
+
+    /**
+     * Reads the header of the fractal heap at the given address, then the addresses of all direct blocks.
+     *
+     * @param  reader   the reader of the file which contains the heap.
+     * @param  address  address of the fractal heap header.
+     */
+    FractalHeap(final HDF5Reader reader, final long address) throws IOException, DataStoreException {
+        this.reader = reader;
+        reader.seek(address);
+        reader.signature("FRHP");
+        reader.skip(1);                                             // Version.
+        idLength = reader.input.readUnsignedShort();
+        if (reader.input.readUnsignedShort() != 0) {
+            throw HDF5Reader.unsupported("fractal heap with I/O filters");
+        }
+        reader.skip(1);                                             // Flags.
+        final long maxManagedSize = reader.input.readUnsignedInt();
+        reader.skip(reader.lengthSize + reader.offsetSize);         // Next huge object identifier and its B-tree.
+        reader.skip(reader.lengthSize + reader.offsetSize);         // Free space and its manager.
+        reader.skip(reader.lengthSize * 8);                         // Statistics about managed, huge and tiny objects.
+        tableWidth         = reader.input.readUnsignedShort();
+        startBlockSize     = reader.readLength();
+        maxDirectBlockSize = reader.readLength();
+        final int maxHeapSize = reader.input.readUnsignedShort();   // In bits.
+        reader.skip(2);                                             // Starting number of rows in root indirect block.
+        final long root = reader.readOffset();
+        final int rows = reader.input.readUnsignedShort();
+        if (tableWidth == 0 || startBlockSize <= 0 || maxDirectBlockSize < startBlockSize) {
+            throw reader.malformed();
+        }
+        offsetBytes = (maxHeapSize + 7) / Byte.SIZE;
+        lengthBytes = Math.min((log2(maxDirectBlockSize) + 7) / Byte.SIZE,
+                                log2(maxManagedSize) / Byte.SIZE + 1);
+        blocks = new ArrayList<>();
+        if (root != HDF5Reader.UNDEFINED) {
+            if (rows == 0) {
+                blocks.add(new long[] {0, startBlockSize, root});
+            } else {
+                readIndirectBlock(root, rows, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the base 2 logarithm of the given value, rounded toward zero.
+     */
+    private static int log2(final long value) {
+        return (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Returns the size of the blocks in the given row of the table.
+     */
+    private long rowBlockSize(final int row) {
+        return (row == 0) ? startBlockSize : startBlockSize << (row - 1);
+    }
+
+    /**
+     * Collects the direct blocks referenced by an indirect block, recursively.
+     *
+     * @param  address  address of the indirect block.
+     * @param  rows     number of rows in the indirect block.
+     * @param  offset   offset of the indirect block in the heap address space.
+     */
+    private void readIndirectBlock(final long address, final int rows, long offset)
+            throws IOException, DataStoreException
+    {
+        reader.seek(address);
+        reader.signature("FHIB");
+        reader.skip(1 + reader.offsetSize + offsetBytes);           // Version, heap header address, block offset.
+        final int maxDirectRows = log2(maxDirectBlockSize) - log2(startBlockSize) + 2;
+        final List<long[]> indirect = new ArrayList<>();
+        for (int row=0; row<rows; row++) {
+            final long size = rowBlockSize(row);
+            for (int column=0; column<tableWidth; column++) {
+                final long child = reader.readOffset();
+                if (child != HDF5Reader.UNDEFINED) {
+                    if (row < maxDirectRows) {
+                        blocks.add(new long[] {offset, size, child});
+                    } else {
+                        indirect.add(new long[] {offset, size, child});
+                    }
+                }
+                offset += size;
+            }
+        }
+        final int firstRowBits = log2(startBlockSize) + log2(tableWidth);
+        for (final long[] block : indirect) {
+            readIndirectBlock(block[2], log2(block[1]) - firstRowBits + 1, block[0]);
+        }
+    }
+
+    /**
+     * Returns the object identified by the heap identifier at the current position of the given buffer.
+     *
+     * @param  id  buffer positioned on the heap identifier. The position is advanced by the identifier length.
+     * @return the object data, as a little-endian buffer.
+     */
+    final ByteBuffer get(final ByteBuffer id) throws IOException, DataStoreException {
+        final int start = id.position();
+        final int flags = HDF5Reader.unsignedByte(id);
+        try {
+            switch ((flags >>> 4) & 3) {
+                case 0: {                                           // Managed object.
+                    final long offset = HDF5Reader.getSized(id, offsetBytes);
+                    final long length = HDF5Reader.getSized(id, lengthBytes);
+                    for (final long[] block : blocks) {
+                        final long delta = offset - block[0];
+                        if (delta >= 0 && delta < block[1]) {
+                            if (delta + length > block[1]) break;
+                            return reader.read(block[2] + delta, length);
+                        }
+                    }
+                    throw reader.malformed();
+                }
+                case 2: {                                           // Tiny object.
+                    int length = flags & 0x0F;
+                    if (idLength > 18) {
+                        length = (length << Byte.SIZE) | HDF5Reader.unsignedByte(id);
+                    }
+                    length++;
+                    if (length > id.remaining()) {
+                        throw reader.malformed();
+                    }
+                    return ByteBuffer.wrap(HDF5Reader.bytes(id, length)).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                default: {
+                    throw HDF5Reader.unsupported("huge object in fractal heap");
+                }
+            }
+        } finally {
+            id.position(start + idLength);
+        }
+    }
+}
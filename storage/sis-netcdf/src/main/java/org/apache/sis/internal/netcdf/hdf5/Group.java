@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Collections;
+
+
+/**
+ * A HDF5 group, which contains datasets and other groups.
+ * In netCDF-4 files, the root group contains the dimensions, variables and global attributes.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class Group {
+    /**
+     * The group name, or {@code "/"} for the root group.
+     */
+    private final String name;
+
+    /**
+     * The attributes of this group, or an empty map if none.
+     */
+    private final Map<String,Object> attributes;
+
+    /**
+     * The datasets in this group, in the order they are listed in the file.
+     */
+    private final List<Dataset> datasets;
+
+    /**
+     * The groups in this group, in the order they are listed in the file.
+     */
+    private final List<Group> groups;
+
+    /**
+     * Creates a new group.
+     */
+    Group(final String name, final Map<String,Object> attributes, final List<Dataset> datasets, final List<Group> groups) {
+        this.name       = name;
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.datasets   = Collections.unmodifiableList(datasets);
+        this.groups     = Collections.unmodifiableList(groups);
+    }
+
+    /**
+     * Returns the name of this group.
+     *
+     * @return the group name, or {@code "/"} for the root group.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the attributes of this group. Values can be a {@link String}, a {@link Number},
+     * an array of strings or an array of primitive type.
+     *
+     * @return the attributes of this group, or an empty map if none.
+     */
+    public Map<String,Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Returns the datasets in this group.
+     *
+     * @return the datasets in this group, or an empty list if none.
+     */
+    public List<Dataset> getDatasets() {
+        return datasets;
+    }
+
+    /**
+     * Returns the groups in this group.
+     *
+     * @return the sub-groups of this group, or an empty list if none.
+     */
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns a string representation of this group for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return name + " (" + datasets.size() + " datasets, " + groups.size() + " groups)";
+    }
+}
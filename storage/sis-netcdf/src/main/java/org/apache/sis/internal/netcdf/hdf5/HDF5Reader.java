@@ -0,0 +1,501 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Reader of the structures of a HDF5 file: superblock, object headers, groups, B-trees and heaps.
+ * All those structures are encoded in little-endian byte order, so the byte order of the
+ * {@linkplain ChannelDataInput#buffer input buffer} is changed by the constructor.
+ * Addresses in the file are relative to a base address, which is usually the beginning of the file.
+ *
+ * <p>This class is not thread-safe. Callers shall synchronize all operations on a {@code HDF5Reader} instance
+ * and all {@link Dataset} instances created by it, since they share the same channel.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ *
+ * @see <a href="https://support.hdfgroup.org/HDF5/doc/H5.format.html">HDF5 File Format Specification</a>
+ *
+ * @since 0.8
+ * @module
+ */
+public final class HDF5Reader {
+    /**
+     * The HDF5 format signature expected in the first 8 bytes of the file, in big-endian byte order.
+     * The first 4 bytes are the {@code '\211'}, {@code 'H'}, {@code 'D'}, {@code 'F'} characters.
+     */
+    public static final long SIGNATURE = 0x894844460D0A1A0AL;
+
+    /**
+     * The value of an address (after conversion by {@link #readOffset()}) which has not been defined.
+     * HDF5 encodes undefined addresses with all bits set to 1.
+     */
+    static final long UNDEFINED = -1;
+
+    /**
+     * The channel together with a buffer for reading the file structures and the data.
+     */
+    final ChannelDataInput input;
+
+    /**
+     * The absolute position of the beginning of the HDF5 file. All addresses are relative to this base.
+     */
+    private final long base;
+
+    /**
+     * Number of bytes used for encoding addresses in the file.
+     */
+    final int offsetSize;
+
+    /**
+     * Number of bytes used for encoding the sizes of objects in the file.
+     */
+    final int lengthSize;
+
+    /**
+     * Address of the object header of the root group.
+     */
+    private final long rootAddress;
+
+    /**
+     * The global heap collections read so far, for variable-length data like strings and references.
+     * Keys are collection addresses.
+     */
+    private final Map<Long,ByteBuffer> globalHeaps;
+
+    /**
+     * Creates a new reader for the given input. This constructor reads the superblock immediately.
+     * Superblock versions 0 to 3 are supported.
+     *
+     * @param  input  the channel and the buffer from where data are read.
+     * @throws IOException if an error occurred while reading the channel.
+     * @throws DataStoreException if the content of the given channel is not a supported HDF5 file.
+     */
+    public HDF5Reader(final ChannelDataInput input) throws IOException, DataStoreException {
+        this.input = input;
+        input.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        input.seek(0);
+        if (Long.reverseBytes(input.readLong()) != SIGNATURE) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, "HDF5", input.filename));
+        }
+        final int version = input.readUnsignedByte();
+        switch (version) {
+            case 0:
+            case 1: {
+                skip(4);                                            // Versions of sub-structures and reserved byte.
+                offsetSize = input.readUnsignedByte();
+                lengthSize = input.readUnsignedByte();
+                skip(version == 0 ? 9 : 13);                        // B-tree K values and file consistency flags.
+                verifySizes();
+                base = readOffset();
+                skip(4 * offsetSize);                               // Free-space, end of file, driver and link name.
+                rootAddress = readOffset();                         // From the root group symbol table entry.
+                break;
+            }
+            case 2:
+            case 3: {
+                offsetSize = input.readUnsignedByte();
+                lengthSize = input.readUnsignedByte();
+                skip(1);                                            // File consistency flags.
+                verifySizes();
+                base = readOffset();
+                skip(2 * offsetSize);                               // Superblock extension and end of file.
+                rootAddress = readOffset();
+                break;
+            }
+            default: {
+                throw new DataStoreContentException(Errors.format(Errors.Keys.UnsupportedFormatVersion_2, "HDF5", version));
+            }
+        }
+        if (base == UNDEFINED) {
+            throw malformed();
+        }
+        globalHeaps = new HashMap<>();
+    }
+
+    /**
+     * Verifies that the sizes of offsets and lengths declared in the superblock are supported.
+     */
+    private void verifySizes() throws DataStoreException {
+        if (offsetSize < 1 || offsetSize > Long.SIZE / Byte.SIZE ||
+            lengthSize < 1 || lengthSize > Long.SIZE / Byte.SIZE)
+        {
+            throw malformed();
+        }
+    }
+
+    /**
+     * Returns the name of the file, for error messages.
+     */
+    final String filename() {
+        return input.filename;
+    }
+
+    /**
+     * Returns an exception for a malformed HDF5 structure.
+     */
+    final DataStoreContentException malformed() {
+        return new DataStoreContentException(null, "HDF5", input.filename, null);
+    }
+
+    /**
+     * Returns an exception for a HDF5 feature not supported by this implementation.
+     *
+     * @param  feature  a short description of the unsupported feature.
+     */
+    static DataStoreContentException unsupported(final String feature) {
+        return new DataStoreContentException(Errors.format(Errors.Keys.UnsupportedType_1, "HDF5 " + feature));
+    }
+
+    /**
+     * Returns the absolute position in the channel of the given HDF5 address.
+     */
+    final long position(final long address) {
+        return base + address;
+    }
+
+    /**
+     * Returns the HDF5 address of the current channel position.
+     */
+    final long address() {
+        return input.getStreamPosition() - base;
+    }
+
+    /**
+     * Moves the channel to the given HDF5 address.
+     */
+    final void seek(final long address) throws IOException {
+        input.seek(base + address);
+    }
+
+    /**
+     * Skips the given amount of bytes in the channel.
+     */
+    final void skip(final int n) throws IOException {
+        input.seek(input.getStreamPosition() + n);
+    }
+
+    /**
+     * Verifies that the next 4 bytes are the given signature.
+     *
+     * @param  expected  the expected signature, as 4 ASCII characters.
+     */
+    final void signature(final String expected) throws IOException, DataStoreException {
+        for (int i=0; i<expected.length(); i++) {
+            if (input.readUnsignedByte() != expected.charAt(i)) {
+                throw malformed();
+            }
+        }
+    }
+
+    /**
+     * Reads the given amount of bytes at the given address.
+     *
+     * @param  address  HDF5 address of the first byte to read.
+     * @param  length   number of bytes to read.
+     * @return the bytes read, in an array of the given length.
+     */
+    final byte[] readBytes(final long address, final long length) throws IOException, DataStoreException {
+        if (address == UNDEFINED || length < 0 || length > Integer.MAX_VALUE) {
+            throw malformed();
+        }
+        seek(address);
+        return input.readBytes((int) length);
+    }
+
+    /**
+     * Reads the given amount of bytes at the given address and wraps them in a little-endian buffer.
+     */
+    final ByteBuffer read(final long address, final long length) throws IOException, DataStoreException {
+        return ByteBuffer.wrap(readBytes(address, length)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads an unsigned integer encoded on the given amount of bytes, which can be anything from 1 to 8.
+     */
+    final long readSized(final int size) throws IOException {
+        switch (size) {
+            case Byte   .SIZE / Byte.SIZE: return input.readUnsignedByte();
+            case Short  .SIZE / Byte.SIZE: return input.readUnsignedShort();
+            case Integer.SIZE / Byte.SIZE: return input.readUnsignedInt();
+            case Long   .SIZE / Byte.SIZE: return input.readLong();
+        }
+        long value = 0;
+        for (int i=0; i<size; i++) {
+            value |= ((long) input.readUnsignedByte()) << (i * Byte.SIZE);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an address, or returns {@link #UNDEFINED} if the address is undefined.
+     */
+    final long readOffset() throws IOException {
+        return undefined(readSized(offsetSize), offsetSize);
+    }
+
+    /**
+     * Reads the size of an object.
+     */
+    final long readLength() throws IOException {
+        return readSized(lengthSize);
+    }
+
+    /**
+     * Reads an unsigned integer encoded on the given amount of bytes in the given buffer.
+     */
+    static long getSized(final ByteBuffer buffer, final int size) {
+        switch (size) {
+            case Byte   .SIZE / Byte.SIZE: return buffer.get() & 0xFFL;
+            case Short  .SIZE / Byte.SIZE: return buffer.getShort() & 0xFFFFL;
+            case Integer.SIZE / Byte.SIZE: return buffer.getInt() & 0xFFFFFFFFL;
+            case Long   .SIZE / Byte.SIZE: return buffer.getLong();
+        }
+        long value = 0;
+        for (int i=0; i<size; i++) {
+            value |= (buffer.get() & 0xFFL) << (i * Byte.SIZE);
+        }
+        return value;
+    }
+
+    /**
+     * Gets an address from the given buffer, or returns {@link #UNDEFINED} if the address is undefined.
+     */
+    final long getOffset(final ByteBuffer buffer) {
+        return undefined(getSized(buffer, offsetSize), offsetSize);
+    }
+
+    /**
+     * Gets the size of an object from the given buffer.
+     */
+    final long getLength(final ByteBuffer buffer) {
+        return getSized(buffer, lengthSize);
+    }
+
+    /**
+     * Returns {@link #UNDEFINED} if the given value has all its bits set, or the given value otherwise.
+     */
+    private static long undefined(final long value, final int size) {
+        if (size < Long.SIZE / Byte.SIZE && value == (1L << (size * Byte.SIZE)) - 1) {
+            return UNDEFINED;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the next byte in the given buffer as an unsigned integer.
+     */
+    static int unsignedByte(final ByteBuffer buffer) {
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Returns the next two bytes in the given buffer as an unsigned integer.
+     */
+    static int unsignedShort(final ByteBuffer buffer) {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Skips the given amount of bytes in the given buffer.
+     */
+    static void skip(final ByteBuffer buffer, final int n) {
+        buffer.position(buffer.position() + n);
+    }
+
+    /**
+     * Returns the next {@code length} bytes of the given buffer.
+     */
+    static byte[] bytes(final ByteBuffer buffer, final int length) {
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Decodes a UTF-8 string of the given length from the given buffer. The string stops at the first
+     * null character, if any. The buffer position is advanced by {@code length} bytes in all cases.
+     */
+    static String string(final ByteBuffer buffer, final int length) {
+        final byte[] bytes = bytes(buffer, length);
+        return string(bytes, 0);
+    }
+
+    /**
+     * Decodes a UTF-8 string from the given array, starting at the given offset and stopping
+     * at the first null character or at the end of the array.
+     */
+    static String string(final byte[] bytes, final int offset) {
+        int end = offset;
+        while (end < bytes.length && bytes[end] != 0) end++;
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns an object stored in the global heap. Global heaps contain variable-length data
+     * like strings and sequences of object references.
+     *
+     * @param  collection  address of the global heap collection.
+     * @param  index       index of the object in the collection.
+     * @return the object data, as a little-endian buffer.
+     */
+    final ByteBuffer globalHeapObject(final long collection, final int index) throws IOException, DataStoreException {
+        ByteBuffer heap = globalHeaps.get(collection);
+        if (heap == null) {
+            seek(collection);
+            signature("GCOL");
+            skip(4);                                                // Version and reserved bytes.
+            heap = read(collection, readLength());
+            globalHeaps.put(collection, heap);
+        }
+        final ByteBuffer buffer = heap.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(8 + lengthSize);
+        final int header = 8 + lengthSize;                          // Object index, reference count, reserved, size.
+        while (buffer.remaining() >= header) {
+            final int id = unsignedShort(buffer);
+            if (id == 0) break;                                     // The free space object ends the collection.
+            skip(buffer, 6);
+            final long size  = getLength(buffer);
+            final int  start = buffer.position();
+            if (size < 0 || size > buffer.remaining()) break;
+            if (id == index) {
+                buffer.limit(start + (int) size);
+                return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.position(start + (int) ((size + 7) & ~7));       // Objects are aligned on 8 bytes.
+        }
+        throw malformed();
+    }
+
+    /**
+     * Reads the data segment of a local heap. Local heaps contain the names of links in groups
+     * using the "old-style" symbol tables.
+     *
+     * @param  address  address of the local heap.
+     * @return the data segment of the local heap.
+     */
+    final byte[] localHeap(final long address) throws IOException, DataStoreException {
+        seek(address);
+        signature("HEAP");
+        skip(4);                                                    // Version and reserved bytes.
+        final long size = readLength();
+        skip(lengthSize);                                           // Offset to head of free list.
+        return readBytes(readOffset(), size);
+    }
+
+    /**
+     * Adds the links found in an "old-style" group symbol table. The symbol table is indexed by a
+     * version 1 B-tree whose leaves are symbol table nodes. Link names are stored in a local heap.
+     *
+     * @param  address  address of the root node of the B-tree.
+     * @param  heap     data segment of the local heap where link names are stored.
+     * @param  links    the map where to add the links, as (name, object header address) pairs.
+     */
+    final void readSymbolTable(final long address, final byte[] heap, final Map<String,Long> links)
+            throws IOException, DataStoreException
+    {
+        seek(address);
+        signature("TREE");
+        if (input.readUnsignedByte() != 0) {                        // Node type 0 is for group nodes.
+            throw malformed();
+        }
+        final int level   = input.readUnsignedByte();
+        final int entries = input.readUnsignedShort();
+        skip(2 * offsetSize);                                       // Addresses of left and right siblings.
+        final long[] children = new long[entries];
+        for (int i=0; i<entries; i++) {
+            skip(lengthSize);                                       // Key: offset in local heap of a name.
+            children[i] = readOffset();
+        }
+        for (final long child : children) {
+            if (level != 0) {
+                readSymbolTable(child, heap, links);
+            } else {
+                seek(child);
+                signature("SNOD");
+                skip(2);                                            // Version and reserved byte.
+                final int count = input.readUnsignedShort();
+                final ByteBuffer buffer = read(child + 8, count * (2L*offsetSize + 24));
+                for (int i=0; i<count; i++) {
+                    final long name = getOffset(buffer);
+                    final long target = getOffset(buffer);
+                    skip(buffer, 24);                               // Cache type, reserved and scratch-pad space.
+                    if (name < 0 || name >= heap.length) {
+                        throw malformed();
+                    }
+                    links.put(string(heap, (int) name), target);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the root group and all its sub-groups, together with their attributes and datasets.
+     * Only hard links are followed. An object reachable by more than one link is read only once.
+     *
+     * @return the root group.
+     * @throws IOException if an error occurred while reading the channel.
+     * @throws DataStoreException if a HDF5 structure is malformed or not supported.
+     */
+    public Group readRootGroup() throws IOException, DataStoreException {
+        final Set<Long> visited = new HashSet<>();
+        visited.add(rootAddress);
+        return readGroup("/", new ObjectHeader(this, rootAddress), visited);
+    }
+
+    /**
+     * Reads a group and its sub-groups.
+     *
+     * @param  name     name of the group.
+     * @param  header   object header of the group.
+     * @param  visited  addresses of all objects read so far, for avoiding never-ending loops.
+     */
+    private Group readGroup(final String name, final ObjectHeader header, final Set<Long> visited)
+            throws IOException, DataStoreException
+    {
+        final List<Dataset> datasets = new ArrayList<>();
+        final List<Group>   groups   = new ArrayList<>();
+        for (final Map.Entry<String,Long> link : header.links.entrySet()) {
+            final Long address = link.getValue();
+            if (address != UNDEFINED && visited.add(address)) {
+                final ObjectHeader child = new ObjectHeader(this, address);
+                if (child.isGroup()) {
+                    groups.add(readGroup(link.getKey(), child, visited));
+                } else if (child.isDataset()) {
+                    datasets.add(new Dataset(this, link.getKey(), child));
+                }
+            }
+        }
+        return new Group(name, header.attributes, datasets, groups);
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import org.apache.sis.storage.DataStoreException;
+
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.UNDEFINED;
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.skip;
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.bytes;
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.unsignedByte;
+import static org.apache.sis.internal.netcdf.hdf5.HDF5Reader.unsignedShort;
+
+
+/**
+ * The messages of an object header, which describe a group or a dataset.
+ * Version 1 and 2 object headers are supported, including continuation blocks.
+ * Only the messages needed for reading netCDF-4 files are parsed; other messages are ignored.
+ * Shared messages are not supported and ignored.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class ObjectHeader {
+    /**
+     * Types of the header messages parsed by this class.
+     */
+    private static final int DATASPACE = 0x01, LINK_INFO = 0x02, DATATYPE = 0x03, OLD_FILL_VALUE = 0x04,
+            FILL_VALUE = 0x05, LINK = 0x06, LAYOUT = 0x08, FILTERS = 0x0B, ATTRIBUTE = 0x0C,
+            CONTINUATION = 0x10, SYMBOL_TABLE = 0x11, ATTRIBUTE_INFO = 0x15;
+
+    /**
+     * Layout classes of dataset storage.
+     */
+    static final int COMPACT = 0, CONTIGUOUS = 1, CHUNKED = 2;
+
+    /**
+     * Types of chunk indexes. Version 1 B-trees are used by layout messages before version 4,
+     * and the other types by layout messages version 4.
+     */
+    static final int BTREE_V1 = 0, SINGLE_CHUNK = 1, IMPLICIT = 2, FIXED_ARRAY = 3, EXTENSIBLE_ARRAY = 4, BTREE_V2 = 5;
+
+    /**
+     * Address of this object header. This is the address referenced by object references.
+     */
+    final long address;
+
+    /**
+     * The dataset size along each dimension, or {@code null} if this object is not a dataset
+     * or has a null dataspace. This is an empty array for scalar datasets.
+     */
+    long[] shape;
+
+    /**
+     * The maximal dataset size along each dimension, or {@code null} if same as {@link #shape}.
+     * Unlimited dimensions have the {@link HDF5Reader#UNDEFINED} maximal size.
+     */
+    long[] maxShape;
+
+    /**
+     * The type of dataset elements, or {@code null} if this object is not a dataset.
+     */
+    Datatype datatype;
+
+    /**
+     * The raw fill value, or {@code null} if none.
+     */
+    byte[] fillValue;
+
+    /**
+     * The layout class as one of {@link #COMPACT}, {@link #CONTIGUOUS} or {@link #CHUNKED} constants,
+     * or -1 if this object is not a dataset.
+     */
+    int layout = -1;
+
+    /**
+     * Address of the data for contiguous layout, or address of the chunk index for chunked layout.
+     * May be {@link HDF5Reader#UNDEFINED} if storage has not been allocated.
+     */
+    long dataAddress = UNDEFINED;
+
+    /**
+     * The data for compact layout.
+     */
+    byte[] compactData;
+
+    /**
+     * Size of chunks along each dimension, for chunked layout.
+     */
+    int[] chunkShape;
+
+    /**
+     * The type of chunk index, as one of the {@link #BTREE_V1}, {@link #SINGLE_CHUNK}, <i>etc.</i> constants.
+     */
+    int chunkIndex;
+
+    /**
+     * Size and filter mask of the chunk for the {@link #SINGLE_CHUNK} index type with filters,
+     * or 0 if not applicable.
+     */
+    long singleChunkSize;
+
+    /**
+     * Filter mask of the chunk for the {@link #SINGLE_CHUNK} index type.
+     */
+    int singleChunkMask;
+
+    /**
+     * The filters applied on chunks, or {@code null} if none.
+     */
+    FilterPipeline filters;
+
+    /**
+     * The attributes of this object, in the order they are declared.
+     */
+    final Map<String,Object> attributes;
+
+    /**
+     * The hard links of this group, as (name, object header address) pairs.
+     * Empty if this object is not a group.
+     */
+    final Map<String,Long> links;
+
+    /**
+     * Whether this object has a symbol table or link info message, which identify groups.
+     */
+    private boolean isGroup;
+
+    /**
+     * Address of the B-tree and local heap of an "old-style" group, or {@link HDF5Reader#UNDEFINED} if none.
+     */
+    private long symbolTree = UNDEFINED, symbolHeap = UNDEFINED;
+
+    /**
+     * Addresses of the fractal heap and name index of links in a "new-style" group using dense storage,
+     * or {@link HDF5Reader#UNDEFINED} if none.
+     */
+    private long linkHeap = UNDEFINED, linkIndex = UNDEFINED;
+
+    /**
+     * Addresses of the fractal heap and name index of attributes using dense storage,
+     * or {@link HDF5Reader#UNDEFINED} if none.
+     */
+    private long attributeHeap = UNDEFINED, attributeIndex = UNDEFINED;
+
+    /**
+     * Addresses and lengths of continuation blocks found so far.
+     */
+    private final List<long[]> continuations;
+
+    /**
+     * Reads the object header at the given address.
+     *
+     * @param  reader   the reader of the file which contains the object.
+     * @param  address  address of the object header.
+     */
+    ObjectHeader(final HDF5Reader reader, final long address) throws IOException, DataStoreException {
+        this.address  = address;
+        attributes    = new LinkedHashMap<>();
+        links         = new LinkedHashMap<>();
+        continuations = new ArrayList<>();
+        reader.seek(address);
+        final boolean isVersion2;
+        boolean hasCreationOrder = false;
+        ByteBuffer block;
+        final int version = reader.input.readUnsignedByte();
+        if (version == 1) {
+            isVersion2 = false;
+            reader.skip(7);                             // Reserved, number of messages and reference count.
+            final long size = reader.input.readUnsignedInt();
+            block = reader.read(address + 16, size);    // Messages are aligned on 8 bytes.
+        } else if (version == 'O') {
+            isVersion2 = true;
+            reader.seek(address);
+            reader.signature("OHDR");
+            if (reader.input.readUnsignedByte() != 2) {
+                throw reader.malformed();
+            }
+            final int flags = reader.input.readUnsignedByte();
+            hasCreationOrder = (flags & 0x04) != 0;
+            if ((flags & 0x20) != 0) reader.skip(16);   // Access, modification, change and birth times.
+            if ((flags & 0x10) != 0) reader.skip(4);    // Maximum compact and minimum dense attributes.
+            final long size = reader.readSized(1 << (flags & 3));
+            block = reader.read(reader.address(), size);
+        } else {
+            throw reader.malformed();
+        }
+        try {
+            int next = 0;
+            while (true) {
+                parseMessages(reader, block, isVersion2, hasCreationOrder);
+                if (next >= continuations.size()) break;
+                final long[] continuation = continuations.get(next++);
+                if (isVersion2) {
+                    reader.seek(continuation[0]);
+                    reader.signature("OCHK");
+                    block = reader.read(continuation[0] + 4, continuation[1] - 8);     // Exclude checksum.
+                } else {
+                    block = reader.read(continuation[0], continuation[1]);
+                }
+            }
+            /*
+             * Links and attributes may be stored outside the object header,
+             * either in "old-style" symbol tables or in fractal heaps.
+             */
+            if (symbolTree != UNDEFINED && symbolHeap != UNDEFINED) {
+                reader.readSymbolTable(symbolTree, reader.localHeap(symbolHeap), links);
+            }
+            if (linkIndex != UNDEFINED && linkHeap != UNDEFINED) {
+                final FractalHeap heap = new FractalHeap(reader, linkHeap);
+                final BTree2 index = new BTree2(reader, linkIndex);
+                if (index.type != BTree2.LINK_NAME) throw reader.malformed();
+                for (final ByteBuffer record : index.records()) {
+                    skip(record, 4);                                    // Hash of the name.
+                    parseLink(reader, heap.get(record));
+                }
+            }
+            if (attributeIndex != UNDEFINED && attributeHeap != UNDEFINED) {
+                final FractalHeap heap = new FractalHeap(reader, attributeHeap);
+                final BTree2 index = new BTree2(reader, attributeIndex);
+                if (index.type != BTree2.ATTRIBUTE_NAME) throw reader.malformed();
+                for (final ByteBuffer record : index.records()) {
+                    parseAttribute(reader, heap.get(record));
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw reader.malformed().initCause(e);
+        }
+    }
+
+    /**
+     * Parses all messages in the given block.
+     *
+     * @param  reader            the reader of the file which contains the object.
+     * @param  block             the block of messages.
+     * @param  isVersion2        whether the object header is version 2.
+     * @param  hasCreationOrder  whether messages in a version 2 object header have a creation order field.
+     */
+    private void parseMessages(final HDF5Reader reader, final ByteBuffer block, final boolean isVersion2,
+            final boolean hasCreationOrder) throws IOException, DataStoreException
+    {
+        final int headerSize = isVersion2 ? (hasCreationOrder ? 6 : 4) : 8;
+        while (block.remaining() >= headerSize) {
+            final int type, size, flags;
+            if (isVersion2) {
+                type  = unsignedByte(block);
+                size  = unsignedShort(block);
+                flags = unsignedByte(block);
+                if (hasCreationOrder) skip(block, 2);
+            } else {
+                type  = unsignedShort(block);
+                size  = unsignedShort(block);
+                flags = unsignedByte(block);
+                skip(block, 3);                                         // Reserved bytes.
+            }
+            final int end = block.position() + size;
+            if (end > block.limit()) {
+                throw reader.malformed();
+            }
+            if ((flags & 0x02) == 0) {                                  // Shared messages are not supported.
+                final ByteBuffer message = block.slice().order(ByteOrder.LITTLE_ENDIAN);
+                message.limit(size);
+                parseMessage(reader, type, message);
+            }
+            block.position(end);
+        }
+    }
+
+    /**
+     * Parses a single message.
+     */
+    private void parseMessage(final HDF5Reader reader, final int type, final ByteBuffer message)
+            throws IOException, DataStoreException
+    {
+        switch (type) {
+            case DATASPACE: {
+                final long[][] space = dataspace(reader, message);
+                if (space != null) {
+                    shape    = space[0];
+                    maxShape = space[1];
+                }
+                break;
+            }
+            case DATATYPE: {
+                datatype = new Datatype(message);
+                break;
+            }
+            case OLD_FILL_VALUE: {
+                if (fillValue == null) {
+                    fillValue = bytes(message, message.getInt());
+                }
+                break;
+            }
+            case FILL_VALUE: {
+                final int version = unsignedByte(message);
+                final boolean isDefined;
+                if (version <= 2) {
+                    skip(message, 2);                                   // Space allocation and fill value write times.
+                    final boolean defined = message.get() != 0;
+                    isDefined = (version == 1) || defined;
+                } else {
+                    isDefined = (message.get() & 0x20) != 0;
+                }
+                if (isDefined && message.remaining() >= Integer.SIZE / Byte.SIZE) {
+                    final int size = message.getInt();
+                    if (size > 0) {
+                        fillValue = bytes(message, size);
+                    }
+                }
+                break;
+            }
+            case LINK: {
+                parseLink(reader, message);
+                break;
+            }
+            case LINK_INFO: {
+                isGroup = true;
+                skip(message, 1);                                       // Version.
+                if ((message.get() & 1) != 0) {
+                    skip(message, 8);                                   // Maximum creation index.
+                }
+                linkHeap  = reader.getOffset(message);
+                linkIndex = reader.getOffset(message);
+                break;
+            }
+            case LAYOUT: {
+                parseLayout(reader, message);
+                break;
+            }
+            case FILTERS: {
+                filters = new FilterPipeline(message);
+                break;
+            }
+            case ATTRIBUTE: {
+                parseAttribute(reader, message);
+                break;
+            }
+            case CONTINUATION: {
+                continuations.add(new long[] {reader.getOffset(message), reader.getLength(message)});
+                break;
+            }
+            case SYMBOL_TABLE: {
+                isGroup    = true;
+                symbolTree = reader.getOffset(message);
+                symbolHeap = reader.getOffset(message);
+                break;
+            }
+            case ATTRIBUTE_INFO: {
+                skip(message, 1);                                       // Version.
+                if ((message.get() & 1) != 0) {
+                    skip(message, 2);                                   // Maximum creation index.
+                }
+                attributeHeap  = reader.getOffset(message);
+                attributeIndex = reader.getOffset(message);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parses a dataspace message.
+     *
+     * @return the current and maximal sizes, or {@code null} for a null dataspace.
+     *         The maximal sizes are {@code null} if not specified.
+     */
+    private static long[][] dataspace(final HDF5Reader reader, final ByteBuffer message) throws DataStoreException {
+        final int version = unsignedByte(message);
+        final int rank    = unsignedByte(message);
+        final int flags   = unsignedByte(message);
+        switch (version) {
+            case 1: skip(message, 5); break;                            // Reserved bytes.
+            case 2: if (unsignedByte(message) == 2) return null; break; // Type 2 is the null dataspace.
+            default: throw HDF5Reader.unsupported("dataspace version " + version);
+        }
+        final long[] sizes = new long[rank];
+        for (int i=0; i<rank; i++) {
+            sizes[i] = reader.getLength(message);
+        }
+        long[] maxSizes = null;
+        if ((flags & 1) != 0) {
+            maxSizes = new long[rank];
+            for (int i=0; i<rank; i++) {
+                maxSizes[i] = reader.getOffset(message);                // All bits set (unlimited) become UNDEFINED.
+            }
+        }
+        return new long[][] {sizes, maxSizes};
+    }
+
+    /**
+     * Parses a link message and adds the link to the {@link #links} map if it is a hard link.
+     * Soft and external links are ignored.
+     */
+    private void parseLink(final HDF5Reader reader, final ByteBuffer message) throws DataStoreException {
+        if (unsignedByte(message) != 1) {
+            throw reader.malformed();
+        }
+        final int flags = unsignedByte(message);
+        final int type  = ((flags & 0x08) != 0) ? unsignedByte(message) : 0;
+        if ((flags & 0x04) != 0) skip(message, 8);                      // Creation order.
+        if ((flags & 0x10) != 0) skip(message, 1);                      // Character set of the name.
+        final int length = (int) HDF5Reader.getSized(message, 1 << (flags & 3));
+        final String name = HDF5Reader.string(message, length);
+        if (type == 0) {
+            links.put(name, reader.getOffset(message));
+        }
+    }
+
+    /**
+     * Parses a data layout message.
+     */
+    private void parseLayout(final HDF5Reader reader, final ByteBuffer message) throws DataStoreException {
+        final int version = unsignedByte(message);
+        if (version == 1 || version == 2) {
+            final int rank = unsignedByte(message);
+            layout = unsignedByte(message);
+            skip(message, 5);                                           // Reserved bytes.
+            if (layout != COMPACT) {
+                dataAddress = reader.getOffset(message);
+            }
+            final int[] dims = new int[rank];
+            for (int i=0; i<rank; i++) {
+                dims[i] = message.getInt();
+            }
+            switch (layout) {
+                case CHUNKED: {
+                    chunkShape = Arrays.copyOf(dims, rank - 1);            // Last dimension is the element size.
+                    break;
+                }
+                case COMPACT: {
+                    compactData = bytes(message, message.getInt());
+                    break;
+                }
+            }
+        } else if (version == 3 || version == 4) {
+            layout = unsignedByte(message);
+            switch (layout) {
+                case COMPACT: {
+                    compactData = bytes(message, unsignedShort(message));
+                    break;
+                }
+                case CONTIGUOUS: {
+                    dataAddress = reader.getOffset(message);
+                    break;
+                }
+                case CHUNKED: {
+                    if (version == 3) {
+                        final int rank = unsignedByte(message) - 1;
+                        dataAddress = reader.getOffset(message);
+                        chunkShape = new int[rank];
+                        for (int i=0; i<rank; i++) {
+                            chunkShape[i] = message.getInt();
+                        }
+                    } else {
+                        final int flags = unsignedByte(message);
+                        final int rank  = unsignedByte(message) - 1;
+                        final int size  = unsignedByte(message);
+                        chunkShape = new int[rank];
+                        for (int i=0; i<rank; i++) {
+                            chunkShape[i] = (int) HDF5Reader.getSized(message, size);
+                        }
+                        skip(message, size);                            // Element size.
+                        chunkIndex = unsignedByte(message);
+                        switch (chunkIndex) {
+                            case SINGLE_CHUNK: {
+                                if ((flags & 2) != 0) {
+                                    singleChunkSize = reader.getLength(message);
+                                    singleChunkMask = message.getInt();
+                                }
+                                break;
+                            }
+                            case IMPLICIT:         break;
+                            case FIXED_ARRAY:      skip(message, 1); break;
+                            case EXTENSIBLE_ARRAY: skip(message, 5); break;
+                            case BTREE_V2:         skip(message, 6); break;
+                            default: throw HDF5Reader.unsupported("chunk index type " + chunkIndex);
+                        }
+                        dataAddress = reader.getOffset(message);
+                    }
+                    break;
+                }
+                default: {
+                    throw HDF5Reader.unsupported("data layout class " + layout);
+                }
+            }
+        } else {
+            throw HDF5Reader.unsupported("data layout version " + version);
+        }
+    }
+
+    /**
+     * Parses an attribute message and adds the attribute to the {@link #attributes} map.
+     * Attributes with shared datatype or dataspace, null dataspace or unsupported datatype are ignored.
+     */
+    private void parseAttribute(final HDF5Reader reader, final ByteBuffer message)
+            throws IOException, DataStoreException
+    {
+        final int version   = unsignedByte(message);
+        final int flags     = unsignedByte(message);                    // Reserved in version 1.
+        final int nameSize  = unsignedShort(message);
+        final int typeSize  = unsignedShort(message);
+        final int spaceSize = unsignedShort(message);
+        switch (version) {
+            case 1:  break;
+            case 2:  break;
+            case 3:  skip(message, 1); break;                           // Character set of the name.
+            default: throw HDF5Reader.unsupported("attribute version " + version);
+        }
+        int position = message.position();
+        final String name = HDF5Reader.string(message, nameSize);
+        message.position(position += padding(nameSize, version));
+        if (version != 1 && (flags & 3) != 0) {
+            return;                                                     // Shared datatype or dataspace.
+        }
+        final Datatype type = new Datatype(message);
+        message.position(position += padding(typeSize, version));
+        final long[][] space = dataspace(reader, message);
+        message.position(position += padding(spaceSize, version));
+        if (space != null) {
+            long count = 1;
+            for (final long length : space[0]) {
+                count *= length;
+            }
+            if (count < 0 || count > Integer.MAX_VALUE) {
+                throw reader.malformed();
+            }
+            final Object value = type.decode(reader, message, (int) count);
+            if (value != null) {
+                attributes.put(name, value);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes used by a field of the given size in an attribute message.
+     * Fields are aligned on 8 bytes in attribute messages version 1.
+     */
+    private static int padding(final int size, final int version) {
+        return (version == 1) ? (size + 7) & ~7 : size;
+    }
+
+    /**
+     * Returns {@code true} if this object is a group.
+     */
+    final boolean isGroup() {
+        return isGroup || !links.isEmpty();
+    }
+
+    /**
+     * Returns {@code true} if this object is a dataset with a non-null dataspace.
+     */
+    final boolean isDataset() {
+        return layout >= 0 && datatype != null && shape != null;
+    }
+}
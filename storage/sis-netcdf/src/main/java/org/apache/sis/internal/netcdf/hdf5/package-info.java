@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Reader of the HDF5 file structures used by the netCDF-4 format, as a standalone library.
+ * This package reads the HDF5 superblock, object headers, groups, attributes and datasets.
+ * Dataset values can be stored in contiguous, compact or chunked layout; chunks can be compressed
+ * by the DEFLATE and shuffle filters and are decompressed in parallel.
+ * The mapping of HDF5 datasets to netCDF variables and dimensions is done by the
+ * {@link org.apache.sis.internal.netcdf.impl} package.
+ *
+ * <p>Features not supported by this package include shared object header messages, committed datatypes,
+ * compound and opaque data types, extensible array chunk indexes, huge objects in fractal heaps and
+ * filters other than DEFLATE, shuffle and Fletcher32.</p>
+ *
+ * <p><b>Reference:</b></p>
+ * <ul>
+ *   <li><a href="https://support.hdfgroup.org/HDF5/doc/H5.format.html">HDF5 File Format Specification Version 3.0</a></li>
+ *   <li><a href="https://www.unidata.ucar.edu/software/netcdf/docs/file_format_specifications.html">NetCDF-4 format specification</a></li>
+ * </ul>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+package org.apache.sis.internal.netcdf.hdf5;
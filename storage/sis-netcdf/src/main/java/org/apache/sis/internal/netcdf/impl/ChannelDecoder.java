@@ -18,6 +18,9 @@ package org.apache.sis.internal.netcdf.impl;
 
 import java.util.Set;
 import java.util.Map;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeMap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.AbstractMap;
@@ -46,6 +49,9 @@ import org.apache.sis.internal.netcdf.GridGeometry;
 import org.apache.sis.internal.netcdf.NamedElement;
 import org.apache.sis.internal.netcdf.DiscreteSampling;
 import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.internal.netcdf.hdf5.Dataset;
+import org.apache.sis.internal.netcdf.hdf5.Group;
+import org.apache.sis.internal.netcdf.hdf5.HDF5Reader;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.internal.util.StandardDateFormat;
@@ -56,8 +62,10 @@ import org.apache.sis.util.iso.DefaultNameSpace;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.util.resources.Vocabulary;
 import org.apache.sis.util.logging.WarningListeners;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.Debug;
 import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.math.Vector;
 import org.apache.sis.measure.Units;
 import ucar.nc2.constants.CF;
 
@@ -76,6 +84,7 @@ import org.apache.sis.internal.jdk8.DateTimeException;
  * @version 0.8
  *
  * @see <a href="http://portal.opengeospatial.org/files/?artifact_id=43734">NetCDF Classic and 64-bit Offset Format (1.0)</a>
+ * @see <a href="https://www.unidata.ucar.edu/software/netcdf/docs/file_format_specifications.html">NetCDF-4 Format</a>
  *
  * @since 0.3
  * @module
@@ -145,6 +154,23 @@ public final class ChannelDecoder extends Decoder {
      */
     private static final int DIMENSION = 0x0A, VARIABLE = 0x0B, ATTRIBUTE = 0x0C;
 
+    /**
+     * The first integer of netCDF-4 files, which are HDF5 files.
+     */
+    private static final int HDF5_MAGIC_NUMBER = (int) (HDF5Reader.SIGNATURE >>> Integer.SIZE);
+
+    /**
+     * Prefix of the {@code "NAME"} attribute of HDF5 datasets which are netCDF-4 dimensions without variable.
+     */
+    private static final String DIMENSION_WITHOUT_VARIABLE = "This is a netCDF dimension but not a netCDF variable";
+
+    /**
+     * HDF5 attributes used by the netCDF-4 library for encoding the dimensions.
+     * Those attributes are not reported to users.
+     */
+    private static final Set<String> HIDDEN_ATTRIBUTES = new HashSet<>(Arrays.asList("CLASS", "NAME",
+            "DIMENSION_LIST", "REFERENCE_LIST", "_Netcdf4Dimid", "_Netcdf4Coordinates", "_nc3_strict", "_NCProperties"));
+
     /**
      * The {@link ReadableByteChannel} together with a {@link ByteBuffer} for reading the data.
      */
@@ -213,7 +239,9 @@ public final class ChannelDecoder extends Decoder {
 
     /**
      * Creates a new decoder for the given file.
-     * This constructor parses immediately the header, which shall have the following structure:
+     * This constructor parses immediately the header. If the file is in netCDF-4 format, then the header
+     * is read by {@link HDF5Reader} (see {@link #readDatasets(List)}). Otherwise the header shall have
+     * the following structure:
      *
      * <ul>
      *   <li>Magic number: 'C','D','F'</li>
@@ -237,49 +265,79 @@ public final class ChannelDecoder extends Decoder {
         super(geomlib, listeners);
         this.input = input;
         this.encoding = (encoding != null) ? encoding : StandardCharsets.UTF_8;
-        /*
-         * Check the magic number, which is expected to be exactly 3 bytes forming the "CDF" string.
-         * The 4th byte is the version number, which we opportunistically use after the magic number check.
-         */
-        int version = input.readInt();
-        if ((version & 0xFFFFFF00) != MAGIC_NUMBER) {
-            throw new DataStoreContentException(errors().getString(Errors.Keys.UnexpectedFileFormat_2, "netCDF", getFilename()));
-        }
-        /*
-         * Check the version number.
-         */
-        version &= 0xFF;
-        switch (version) {
-            case 1:  is64bits = false; break;
-            case 2:  is64bits = true;  break;
-            default: throw new DataStoreContentException(errors().getString(Errors.Keys.UnsupportedFormatVersion_2, "netCDF", version));
-            // If more cases are added, remember to increment the MAX_VERSION constant.
-        }
-        numrecs = input.readInt();
-        /*
-         * Read the dimension, attribute and variable declarations. We expect exactly 3 lists,
-         * where any of them can be flagged as absent by a long (64 bits) 0.
-         */
         Dimension[]        dimensions = null;
         VariableInfo[]     variables  = null;
         Map<String,Object> attributes = null;
-        for (int i=0; i<3; i++) {
-            final long tn = input.readLong();                   // Combination of tag and nelems
-            if (tn != 0) {
-                final int tag = (int) (tn >>> Integer.SIZE);
-                final int nelems = (int) tn;
-                ensureNonNegative(nelems, tag);
-                try {
-                    switch (tag) {
-                        case DIMENSION: dimensions = readDimensions(nelems); break;
-                        case VARIABLE:  variables  = readVariables (nelems, dimensions); break;
-                        case ATTRIBUTE: attributes = readAttributes(nelems); break;
-                        default:        throw malformedHeader();
+        int version = input.readInt();
+        if (version == HDF5_MAGIC_NUMBER) {
+            /*
+             * NetCDF-4 file, which is a HDF5 file. Only the datasets and attributes of the root group are
+             * mapped to netCDF variables and attributes. Sub-groups are not supported; we reject the file
+             * instead of ignoring them silently, which allows NetcdfStoreProvider to fallback on the UCAR
+             * library if available.
+             */
+            is64bits = true;
+            numrecs  = 0;
+            final Group root = new HDF5Reader(input).readRootGroup();
+            final List<Group> groups = root.getGroups();
+            if (!groups.isEmpty()) {
+                final StringBuilder names = new StringBuilder();
+                for (final Group group : groups) {
+                    if (names.length() != 0) names.append(", ");
+                    names.append(group.getName());
+                }
+                throw new DataStoreContentException(resources().getString(Resources.Keys.UnsupportedGroups_2, getFilename(), names));
+            }
+            attributes = CollectionsExt.toCaseInsensitiveNameMap(visibleAttributes(root.getAttributes()), NAME_LOCALE);
+            variables  = readDatasets(root.getDatasets());
+        } else {
+            /*
+             * Check the magic number, which is expected to be exactly 3 bytes forming the "CDF" string.
+             * The 4th byte is the version number, which we opportunistically use after the magic number check.
+             */
+            if ((version & 0xFFFFFF00) != MAGIC_NUMBER) {
+                throw new DataStoreContentException(errors().getString(Errors.Keys.UnexpectedFileFormat_2, "netCDF", getFilename()));
+            }
+            /*
+             * Check the version number.
+             */
+            version &= 0xFF;
+            switch (version) {
+                case 1:  is64bits = false; break;
+                case 2:  is64bits = true;  break;
+                default: throw new DataStoreContentException(errors().getString(Errors.Keys.UnsupportedFormatVersion_2, "netCDF", version));
+                // If more cases are added, remember to increment the MAX_VERSION constant.
+            }
+            numrecs = input.readInt();
+            /*
+             * Read the dimension, attribute and variable declarations. We expect exactly 3 lists,
+             * where any of them can be flagged as absent by a long (64 bits) 0.
+             */
+            for (int i=0; i<3; i++) {
+                final long tn = input.readLong();                   // Combination of tag and nelems
+                if (tn != 0) {
+                    final int tag = (int) (tn >>> Integer.SIZE);
+                    final int nelems = (int) tn;
+                    ensureNonNegative(nelems, tag);
+                    try {
+                        switch (tag) {
+                            case DIMENSION: dimensions = readDimensions(nelems); break;
+                            case VARIABLE:  variables  = readVariables (nelems, dimensions); break;
+                            case ATTRIBUTE: attributes = readAttributes(nelems); break;
+                            default:        throw malformedHeader();
+                        }
+                    } catch (InvalidParameterCardinalityException e) {
+                        throw new DataStoreContentException(e.getLocalizedMessage(), e);
                     }
-                } catch (InvalidParameterCardinalityException e) {
-                    throw new DataStoreContentException(e.getLocalizedMessage(), e);
                 }
             }
+            /*
+             * The data of all variables along the unlimited dimension are interleaved record by record.
+             * Those variables share a reader which knows the record size.
+             */
+            if (variables != null) {
+                RecordReader.assign(input, variables);
+            }
         }
         attributeMap = attributes;
         this.variables = variables;
@@ -474,13 +532,14 @@ public final class ChannelDecoder extends Decoder {
         for (int i=0; i<nelems; i++) {
             final String name = readName();
             int length = input.readInt();
-            if (length == 0) {
+            final boolean isUnlimited = (length == 0);
+            if (isUnlimited) {
                 length = numrecs;
                 if (length == STREAMING) {
                     throw new DataStoreContentException(errors().getString(Errors.Keys.MissingValueForProperty_1, "numrecs"));
                 }
             }
-            dimensions[i] = new Dimension(name, length);
+            dimensions[i] = new Dimension(name, length, isUnlimited);
         }
         dimensionMap = Dimension.toCaseInsensitiveNameMap(dimensions, NAME_LOCALE);
         return dimensions;
@@ -574,6 +633,102 @@ public final class ChannelDecoder extends Decoder {
         return variables;
     }
 
+    /**
+     * Creates the dimensions and variables of a netCDF-4 file from the datasets of the HDF5 root group.
+     * NetCDF-4 dimensions are HDF5 "dimension scales", which are datasets with a {@code "CLASS"} attribute
+     * set to {@code "DIMENSION_SCALE"}. The dimensions of a variable are given by references to those
+     * dimension scales in the {@code "DIMENSION_LIST"} attribute, or by dimension identifiers in the
+     * {@code "_Netcdf4Coordinates"} attribute. Datasets without dimension information get "phony"
+     * dimensions, as done by the netCDF library.
+     *
+     * @param  datasets  the datasets of the root group.
+     * @return the variables, in the order of the datasets.
+     */
+    private VariableInfo[] readDatasets(final List<Dataset> datasets) throws DataStoreException {
+        final Map<Long,Dimension>    byAddress = new HashMap<>();
+        final Map<Integer,Dimension> byId      = new HashMap<>();
+        final Map<Long,Dimension>    ordered   = new TreeMap<>();       // Sorted by netCDF dimension identifier.
+        for (final Dataset dataset : datasets) {
+            final Map<String,Object> attributes = dataset.getAttributes();
+            final long[] shape = dataset.getShape();
+            if ("DIMENSION_SCALE".equals(attributes.get("CLASS")) && shape.length == 1) {
+                final Dimension dim = new Dimension(dataset.getName(), dimensionLength(dataset, shape[0]), dataset.isUnlimited(0));
+                final Number[] id = VariableInfo.numberValues(attributes.get("_Netcdf4Dimid"));
+                int key = Integer.MAX_VALUE;
+                if (id.length != 0) {
+                    key = id[0].intValue();
+                    byId.put(key, dim);
+                }
+                byAddress.put(dataset.getAddress(), dim);
+                ordered.put((((long) key) << Integer.SIZE) | ordered.size(), dim);
+            }
+        }
+        final Map<Long,Dimension> phony = new HashMap<>();
+        final List<VariableInfo> variables = new ArrayList<>(datasets.size());
+        for (final Dataset dataset : datasets) {
+            final Map<String,Object> attributes = dataset.getAttributes();
+            final Object label = attributes.get("NAME");
+            if (label instanceof String && ((String) label).startsWith(DIMENSION_WITHOUT_VARIABLE)) {
+                continue;
+            }
+            final long[]      shape   = dataset.getShape();
+            final Object      refs    = attributes.get("DIMENSION_LIST");
+            final Number[]    ids     = VariableInfo.numberValues(attributes.get("_Netcdf4Coordinates"));
+            final Dimension[] varDims = new Dimension[shape.length];
+            for (int i=0; i<shape.length; i++) {
+                Dimension dim = null;
+                if (refs instanceof long[][]) {
+                    final long[][] list = (long[][]) refs;
+                    if (i < list.length && list[i] != null && list[i].length != 0) {
+                        dim = byAddress.get(list[i][0]);
+                    }
+                }
+                if (dim == null && shape.length == 1) {
+                    dim = byAddress.get(dataset.getAddress());              // The dataset is itself a dimension scale.
+                }
+                if (dim == null && i < ids.length) {
+                    dim = byId.get(ids[i].intValue());
+                }
+                if (dim == null || (!dim.isUnlimited && dim.length() != shape[i])) {
+                    dim = phony.get(shape[i]);
+                    if (dim == null) {
+                        dim = new Dimension("phony_dim_" + phony.size(), dimensionLength(dataset, shape[i]), false);
+                        phony.put(shape[i], dim);
+                        ordered.put((((long) Integer.MAX_VALUE) << Integer.SIZE) | ordered.size(), dim);
+                    }
+                }
+                varDims[i] = dim;
+            }
+            variables.add(new VariableInfo(dataset, dataset.getName(), varDims,
+                    CollectionsExt.toCaseInsensitiveNameMap(visibleAttributes(attributes), NAME_LOCALE)));
+        }
+        dimensionMap = Dimension.toCaseInsensitiveNameMap(ordered.values().toArray(new Dimension[ordered.size()]), NAME_LOCALE);
+        return variables.toArray(new VariableInfo[variables.size()]);
+    }
+
+    /**
+     * Returns the given dimension length as an unsigned 32 bits integer, as used in netCDF classic format.
+     */
+    private int dimensionLength(final Dataset dataset, final long length) throws DataStoreException {
+        if (length > 0xFFFFFFFFL) {
+            throw new DataStoreContentException(errors().getString(Errors.Keys.ExcessiveListSize_2, dataset.getName(), length));
+        }
+        return (int) length;
+    }
+
+    /**
+     * Returns the attributes of a HDF5 object, omitting the attributes used only for encoding the dimensions.
+     */
+    private static List<Map.Entry<String,Object>> visibleAttributes(final Map<String,Object> attributes) {
+        final List<Map.Entry<String,Object>> entries = new ArrayList<>(attributes.size());
+        for (final Map.Entry<String,Object> entry : attributes.entrySet()) {
+            if (!HIDDEN_ATTRIBUTES.contains(entry.getKey()) && !(entry.getValue() instanceof long[][])) {
+                entries.add(new AbstractMap.SimpleEntry<>(entry));
+            }
+        }
+        return entries;
+    }
+
 
 
     // --------------------------------------------------------------------------------------------
@@ -767,6 +922,58 @@ public final class ChannelDecoder extends Decoder {
         return variables;
     }
 
+    /**
+     * Reads the given range of records for many variables along the unlimited (record) dimension in a single pass.
+     * Since the values of record variables are interleaved record by record, this method is more efficient than
+     * reading each variable separately: records are read in large sequential blocks and the values of each
+     * variable are copied in their own array.
+     *
+     * <p>For each variable, the returned vector contains all values in the first requested record,
+     * followed by all values in the next requested record, <i>etc.</i> This is the same layout than
+     * {@link Variable#read(int[], int[], int[])} with an area covering all dimensions other than the
+     * record dimension.</p>
+     *
+     * @param  selected  the variables to read. Shall be record variables obtained from {@link #getVariables()}.
+     * @param  lower     index of the first record to read, as an unsigned integer.
+     * @param  upper     index after the last record to read, as an unsigned integer.
+     * @param  step      sub-sampling along the record dimension. 1 means no sub-sampling.
+     * @return the values of each variable, in the same order than {@code selected}.
+     * @throws IllegalArgumentException if a variable is not a record variable of this decoder,
+     *         or if the range of records is invalid.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    public Vector[] readRecords(final Variable[] selected, final int lower, final int upper, final int step)
+            throws IOException, DataStoreException
+    {
+        ArgumentChecks.ensureStrictlyPositive("step", step);
+        final VariableInfo[] info = new VariableInfo[selected.length];
+        RecordReader records = null;
+        for (int i=0; i<info.length; i++) {
+            final Variable variable = selected[i];
+            if (!(variable instanceof VariableInfo) || ((VariableInfo) variable).records == null
+                    || (records != null && ((VariableInfo) variable).records != records))
+            {
+                throw new IllegalArgumentException(errors().getString(Errors.Keys.IllegalArgumentValue_2, "selected", variable));
+            }
+            info[i]  = (VariableInfo) variable;
+            records  = info[i].records;
+        }
+        final Vector[] values = new Vector[info.length];
+        if (records != null) {
+            final long first = lower & 0xFFFFFFFFL;
+            final long end   = upper & 0xFFFFFFFFL;
+            if (first >= end || end > info[0].dimensions[0].length()) {
+                throw new IllegalArgumentException(errors().getString(Errors.Keys.IllegalRange_2, first, end));
+            }
+            final Object[] arrays = records.read(info, first, end, step);
+            for (int i=0; i<values.length; i++) {
+                values[i] = Vector.create(arrays[i], info[i].getDataType().isUnsigned);
+            }
+        }
+        return values;
+    }
+
     /**
      * If this decoder can handle the file content as features, returns handlers for them.
      *
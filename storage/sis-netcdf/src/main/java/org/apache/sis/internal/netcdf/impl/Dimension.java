@@ -42,15 +42,23 @@ final class Dimension extends NamedElement {
      */
     final int length;
 
+    /**
+     * {@code true} if this dimension is the unlimited (record) dimension.
+     * Variables having this dimension are stored record by record, interleaved with other record variables.
+     */
+    final boolean isUnlimited;
+
     /**
      * Creates a new dimension of the given name and length.
      *
-     * @param name    the dimension name.
-     * @param length  the number of grid cell value along this dimension, as an unsigned number.
+     * @param name         the dimension name.
+     * @param length       the number of grid cell value along this dimension, as an unsigned number.
+     * @param isUnlimited  {@code true} if this dimension is the unlimited (record) dimension.
      */
-    Dimension(final String name, final int length) {
-        this.name   = name;
-        this.length = length;
+    Dimension(final String name, final int length, final boolean isUnlimited) {
+        this.name        = name;
+        this.length      = length;
+        this.isUnlimited = isUnlimited;
     }
 
     /**
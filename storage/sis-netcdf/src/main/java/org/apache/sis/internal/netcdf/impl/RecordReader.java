@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.Numbers;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.JDK8;
+
+
+/**
+ * Reads the variables along the unlimited (record) dimension of a netCDF file in classic or 64-bits offset format.
+ * In those formats, the data of all record variables are interleaved: the file contains the first record of all
+ * record variables, followed by the second record of all record variables, <i>etc.</i> Reading a single record
+ * variable with {@link org.apache.sis.internal.storage.io.HyperRectangleReader} would require a seek and a short
+ * read for each record. This class rather reads many records at once in large sequential blocks, then copies the
+ * values of all requested variables in their destination arrays in a single pass over the blocks.
+ *
+ * <p>This class is not thread-safe. Synchronization, if needed, is caller's responsibility.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class RecordReader {
+    /**
+     * Desired number of bytes to read in a single block. Each block contains at least one record,
+     * so the actual block size may be larger if a single record is larger than this size.
+     */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * The channel from which to read the records, together with a buffer for transferring data.
+     */
+    private final ChannelDataInput input;
+
+    /**
+     * Number of bytes from the beginning of a record to the beginning of the next record.
+     * This is the sum of the sizes of one record of all record variables, including padding.
+     */
+    final long recordSize;
+
+    /**
+     * The array where to store a block of records, created when first needed and recycled.
+     * Not used if the blocks can be mapped in memory.
+     */
+    private byte[] block;
+
+    /**
+     * Creates a new reader of records.
+     *
+     * @param  input       the channel from which to read the records.
+     * @param  recordSize  number of bytes from the beginning of a record to the beginning of the next record.
+     */
+    private RecordReader(final ChannelDataInput input, final long recordSize) {
+        this.input      = input;
+        this.recordSize = recordSize;
+    }
+
+    /**
+     * Creates a reader shared by all record variables in the given array, and assigns it to those variables.
+     * The record size is computed as specified by the netCDF format: the data of each variable in a record
+     * is padded to a multiple of 4 bytes, except if there is only one record variable.
+     * If there is no record variable, or if one of them has a type of unknown size, then this method does nothing.
+     *
+     * @param  input      the channel from which to read the records.
+     * @param  variables  all variables in the netCDF file.
+     */
+    static void assign(final ChannelDataInput input, final VariableInfo[] variables) {
+        long size  = 0;
+        long last  = 0;
+        int  count = 0;
+        for (final VariableInfo variable : variables) {
+            if (variable.isRecordVariable()) {
+                final int shift = sizeShift(variable.getDataType());
+                if (shift < 0) {
+                    return;
+                }
+                last  = variable.recordLength() << shift;
+                size += (last + 3) & ~3L;
+                count++;
+            }
+        }
+        if (count != 0) {
+            final RecordReader reader = new RecordReader(input, (count == 1) ? last : size);
+            for (final VariableInfo variable : variables) {
+                if (variable.isRecordVariable()) {
+                    variable.records = reader;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the binary logarithm of the number of bytes in a value of the given type,
+     * or -1 if the given type is not supported.
+     */
+    static int sizeShift(final DataType type) {
+        if (type != null) {
+            switch (type.number) {
+                case Numbers.BYTE:    return 0;
+                case Numbers.SHORT:   return 1;
+                case Numbers.INTEGER: // Fall through
+                case Numbers.FLOAT:   return 2;
+                case Numbers.LONG:    // Fall through
+                case Numbers.DOUBLE:  return 3;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the given range of records for all given variables.
+     * All variables shall be record variables sharing this reader.
+     * For each variable, the returned array contains the values of all requested records,
+     * with all values of the first record followed by all values of the second record, <i>etc.</i>
+     *
+     * @param  variables  the variables to read.
+     * @param  lower      index of the first record to read.
+     * @param  upper      index after the last record to read.
+     * @param  step       sub-sampling along the record dimension. 1 means no sub-sampling.
+     * @return the values of each variable, as arrays of a primitive type in the same order than {@code variables}.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a variable has too many values or an unsupported type.
+     */
+    Object[] read(final VariableInfo[] variables, final long lower, final long upper, final int step)
+            throws IOException, DataStoreException
+    {
+        final long[]  firsts     = new long[variables.length];
+        final int[][] runs       = new int[variables.length][];
+        final int[]   runLengths = new int[variables.length];
+        for (int i=0; i<variables.length; i++) {
+            final VariableInfo variable = variables[i];
+            final long length = variable.recordLength();
+            if (length > Integer.MAX_VALUE) {
+                throw new DataStoreContentException(Errors.format(Errors.Keys.ExcessiveListSize_2, variable.getName(), length));
+            }
+            runs[i] = new int[1];
+            runLengths[i] = (int) length;
+        }
+        return read(variables, firsts, runs, runLengths, lower, upper, step);
+    }
+
+    /**
+     * Reads a sub-area of the given range of records for a single variable. The sub-area is given by the
+     * {@code size}, {@code lower}, {@code upper} and {@code subsampling} arrays in the same order than
+     * {@link org.apache.sis.internal.storage.io.Region} (fastest varying dimension first), with the record
+     * dimension last. Only the requested values are copied from each record, so the returned array
+     * does not need to hold the full records.
+     *
+     * @param  variable     the record variable to read.
+     * @param  size         number of values along each dimension, including the record dimension (ignored).
+     * @param  lower        index of the first value to read along each dimension.
+     * @param  upper        index after the last value to read along each dimension.
+     * @param  subsampling  sub-sampling along each dimension. 1 means no sub-sampling.
+     * @return the requested values, as an array of a primitive type.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if the variable has too many values or an unsupported type.
+     */
+    Object read(final VariableInfo variable, final long[] size, final long[] lower, final long[] upper,
+            final int[] subsampling) throws IOException, DataStoreException
+    {
+        /*
+         * Count the number of values to read along each dimension inside a record, then merge the first
+         * dimensions in a single run of contiguous values as long as the sub-area covers them entirely.
+         * The other dimensions are iterated for computing the position of each run inside a record.
+         */
+        final int    r     = size.length - 1;           // The record dimension.
+        final long[] count = new long[r];
+        long total = (upper[r] - lower[r] + (subsampling[r] - 1)) / subsampling[r];
+        for (int i=0; i<r; i++) {
+            count[i] = (upper[i] - lower[i] + (subsampling[i] - 1)) / subsampling[i];
+            total *= count[i];
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.ExcessiveListSize_2, variable.getName(), total));
+        }
+        long runLength = 1;
+        int  c = 0;                                     // First dimension not merged in the run.
+        while (c < r && subsampling[c] == 1) {
+            runLength *= count[c];
+            final boolean isFull = (lower[c] == 0 && upper[c] == size[c]);
+            c++;
+            if (!isFull) break;
+        }
+        long numRuns = 1;
+        for (int i=c; i<r; i++) {
+            numRuns *= count[i];
+        }
+        final long[] strides = new long[r];
+        long first  = 0;
+        long stride = 1;
+        for (int i=0; i<r; i++) {
+            strides[i] = stride;
+            first     += lower[i] * stride;
+            stride    *= size[i];
+        }
+        final int[]  runs     = new int[(total != 0) ? (int) numRuns : 0];
+        final long[] cursor   = new long[r];
+        long position = 0;                              // Relative to the first run.
+        for (int k=0; k<runs.length; k++) {
+            runs[k] = JDK8.toIntExact(position);
+            for (int i=c; i<r; i++) {
+                position += strides[i] * subsampling[i];
+                if (++cursor[i] < count[i]) break;
+                position -= strides[i] * subsampling[i] * cursor[i];
+                cursor[i] = 0;
+            }
+        }
+        return read(new VariableInfo[] {variable}, new long[] {first}, new int[][] {runs},
+                    new int[] {(int) runLength}, lower[r], upper[r], subsampling[r])[0];
+    }
+
+    /**
+     * Implementation of public read methods. For each variable, the values to read in each record are given by
+     * runs of {@code runLengths[i]} contiguous values. The first run starts {@code firsts[i]} values after the
+     * beginning of the variable data in the record, and {@code runs[i]} gives the position of each run relative
+     * to the first one, in increasing order.
+     */
+    private Object[] read(final VariableInfo[] variables, final long[] firsts, final int[][] runs, final int[] runLengths,
+            final long lower, final long upper, final int step) throws IOException, DataStoreException
+    {
+        final int      count      = variables.length;
+        final long[]   offsets    = new long[count];        // Position of the first run relative to 'start'.
+        final int[]    lengths    = new int [count];        // Number of values to copy per record.
+        final Object[] arrays     = new Object[count];
+        final long     numRecords = (upper - lower + (step - 1)) / step;
+        long start = Long.MAX_VALUE;
+        long end   = Long.MIN_VALUE;
+        for (int i=0; i<count; i++) {
+            final VariableInfo variable = variables[i];
+            final int[] positions = runs[i];
+            final long  length = (long) positions.length * runLengths[i];
+            final long  total  = length * numRecords;
+            if (total > Integer.MAX_VALUE) {
+                throw new DataStoreContentException(Errors.format(Errors.Keys.ExcessiveListSize_2, variable.getName(), total));
+            }
+            final int shift = sizeShift(variable.getDataType());
+            final boolean isReal = !variable.getDataType().isInteger;
+            final int n = (int) total;
+            switch (shift) {
+                case 0:  arrays[i] = new byte [n]; break;
+                case 1:  arrays[i] = new short[n]; break;
+                case 2:  arrays[i] = isReal ? new float [n] : new int [n]; break;
+                case 3:  arrays[i] = isReal ? new double[n] : new long[n]; break;
+                default: throw new DataStoreContentException(Errors.format(Errors.Keys.UnknownType_1, "NetCDF:" + variable.getDataType()));
+            }
+            lengths[i] = (int) length;
+            offsets[i] = variable.offset + (firsts[i] << shift);
+            if (positions.length != 0) {
+                start = Math.min(start, offsets[i]);
+                end   = Math.max(end,   offsets[i] + ((positions[positions.length - 1] + (long) runLengths[i]) << shift));
+            }
+        }
+        if (start >= end) {
+            return arrays;                                  // No value to read.
+        }
+        for (int i=0; i<count; i++) {
+            offsets[i] -= start;
+        }
+        /*
+         * Read as many records as we can in blocks of about BLOCK_SIZE bytes. In each record, we do not need
+         * to read before the first value or after the last value of the variables requested by the caller.
+         * If memory mapping is allowed, ChannelDataInput.map(…) returns slices of a large mapped window,
+         * so consecutive blocks do not create new mappings.
+         */
+        final long span   = end - start;
+        final long stride = recordSize * step;
+        final int  recordsPerBlock = (int) Math.min(numRecords, Math.max(1, (BLOCK_SIZE - span) / stride + 1));
+        int record = 0;
+        while (record < numRecords) {
+            final int  n        = (int) Math.min(recordsPerBlock, numRecords - record);
+            final long position = start + (lower + (long) record * step) * recordSize;
+            final int  length   = JDK8.toIntExact((n - 1) * stride + span);
+            ByteBuffer buffer = input.map(position, length);
+            if (buffer == null) {
+                if (block == null || block.length < length) {
+                    block = new byte[length];
+                }
+                input.seek(position);
+                input.readFully(block, 0, length);
+                buffer = ByteBuffer.wrap(block, 0, length).order(input.buffer.order());
+            }
+            for (int j=0; j<n; j++) {
+                final int base = (int) (j * stride);
+                for (int i=0; i<count; i++) {
+                    buffer.position(base + (int) offsets[i]);
+                    copy(buffer, arrays[i], (record + j) * lengths[i], runs[i], runLengths[i]);
+                }
+            }
+            record += n;
+        }
+        return arrays;
+    }
+
+    /**
+     * Copies runs of values from the given buffer to the given array. The positions of the runs are relative to
+     * the current buffer position, in units of the array element type. The runs are stored consecutively in the array.
+     */
+    private static void copy(final ByteBuffer buffer, final Object array, int offset, final int[] runs, final int length) {
+        final Buffer view;
+        if      (array instanceof byte[])  view = buffer.slice();
+        else if (array instanceof short[]) view = buffer.asShortBuffer();
+        else if (array instanceof int[])   view = buffer.asIntBuffer();
+        else if (array instanceof long[])  view = buffer.asLongBuffer();
+        else if (array instanceof float[]) view = buffer.asFloatBuffer();
+        else                               view = buffer.asDoubleBuffer();
+        for (final int run : runs) {
+            view.position(run);
+            if      (view instanceof ByteBuffer)  ((ByteBuffer)  view).get((byte[])   array, offset, length);
+            else if (view instanceof ShortBuffer) ((ShortBuffer) view).get((short[])  array, offset, length);
+            else if (view instanceof IntBuffer)   ((IntBuffer)   view).get((int[])    array, offset, length);
+            else if (view instanceof LongBuffer)  ((LongBuffer)  view).get((long[])   array, offset, length);
+            else if (view instanceof FloatBuffer) ((FloatBuffer) view).get((float[])  array, offset, length);
+            else                                  ((DoubleBuffer)view).get((double[]) array, offset, length);
+            offset += length;
+        }
+    }
+}
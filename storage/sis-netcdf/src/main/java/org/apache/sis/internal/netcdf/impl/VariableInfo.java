@@ -17,6 +17,7 @@
 package org.apache.sis.internal.netcdf.impl;
 
 import java.util.Map;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.io.IOException;
@@ -26,6 +27,7 @@ import ucar.nc2.constants.CDM;
 import ucar.nc2.constants._Coordinate;
 import org.apache.sis.internal.netcdf.DataType;
 import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.netcdf.hdf5.Dataset;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.internal.storage.io.HyperRectangleReader;
 import org.apache.sis.internal.storage.io.Region;
@@ -72,6 +74,26 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     private final HyperRectangleReader reader;
 
+    /**
+     * The HDF5 dataset which contains the variable data if the file is in netCDF-4 format,
+     * or {@code null} for the classic and 64-bits offset formats.
+     */
+    private final Dataset dataset;
+
+    /**
+     * The offset where the variable data begins in the netCDF file.
+     * For record variables, this is the offset of the data in the first record.
+     * For netCDF-4 files, this is an address used only for ordering the variables.
+     */
+    final long offset;
+
+    /**
+     * The reader shared by all variables along the unlimited dimension, or {@code null} if this variable
+     * is not a record variable. This is assigned by {@link RecordReader#assign(ChannelDataInput, VariableInfo[])}
+     * after all variables have been created.
+     */
+    RecordReader records;
+
     /**
      * The variable name.
      */
@@ -157,12 +179,45 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
                        DataType              dataType,
                  final int                   size,
                  final long                  offset) throws DataStoreException
+    {
+        this(input, null, name, dimensions, attributes, dataType, offset);
+    }
+
+    /**
+     * Creates a new variable for a dataset in a netCDF-4 file.
+     *
+     * @param  dataset     the HDF5 dataset which contains the variable data.
+     * @param  name        the variable name.
+     * @param  dimensions  the dimensions of this variable.
+     * @param  attributes  the attributes associates to the variable, or an empty map if none.
+     */
+    VariableInfo(final Dataset            dataset,
+                 final String             name,
+                 final Dimension[]        dimensions,
+                 final Map<String,Object> attributes) throws DataStoreException
+    {
+        this(null, dataset, name, dimensions, attributes, dataset.getDataType(), dataset.getStorageAddress());
+    }
+
+    /**
+     * Creates a new variable reading data either from the given input or from the given dataset.
+     * Exactly one of {@code input} and {@code dataset} arguments shall be non-null.
+     */
+    private VariableInfo(final ChannelDataInput   input,
+                         final Dataset            dataset,
+                         final String             name,
+                         final Dimension[]        dimensions,
+                         final Map<String,Object> attributes,
+                               DataType           dataType,
+                         final long               offset) throws DataStoreException
     {
         final Object isUnsigned = attributes.get(CDM.UNSIGNED);
         if (isUnsigned != null) {
             dataType = dataType.unsigned(booleanValue(isUnsigned));
         }
         this.name       = name;
+        this.dataset    = dataset;
+        this.offset     = offset;
         this.dimensions = dimensions;
         this.attributes = attributes;
         this.dataType   = dataType;
@@ -170,7 +225,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
          * The 'size' value is provided in the netCDF files, but doesn't need to be stored since it
          * is redundant with the dimension lengths and is not large enough for big variables anyway.
          */
-        if (dataType != null && dataType.number >= Numbers.BYTE && dataType.number <= Numbers.DOUBLE) {
+        if (input != null && dataType != null && dataType.number >= Numbers.BYTE && dataType.number <= Numbers.DOUBLE) {
             reader = new HyperRectangleReader(dataType.number, input, offset);
         } else {
             reader = null;
@@ -267,6 +322,27 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
         return isCoordinateSystemAxis;
     }
 
+    /**
+     * Returns {@code true} if the first dimension of this variable is the unlimited (record) dimension.
+     * In such case, the values of this variable are interleaved with the values of other record variables.
+     */
+    final boolean isRecordVariable() {
+        return dimensions.length != 0 && dimensions[0].isUnlimited;
+    }
+
+    /**
+     * Returns the number of values in one record of this variable, which is the product of
+     * the lengths of all dimensions except the first one. This method is meaningful only
+     * for record variables.
+     */
+    final long recordLength() {
+        long length = 1;
+        for (int i=1; i<dimensions.length; i++) {
+            length *= dimensions[i].length();
+        }
+        return length;
+    }
+
     /**
      * Returns the value of the {@code "_CoordinateAxisType"} attribute, or {@code null} if none.
      */
@@ -412,9 +488,24 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public Vector read() throws IOException, DataStoreException {
         if (values == null) {
+            if (dataset != null) {
+                if (!dataset.isReadable()) {
+                    throw new DataStoreContentException(unknownType());
+                }
+                final long[] upper = dataset.getShape();
+                final int[]  sub   = new int[upper.length];
+                Arrays.fill(sub, 1);
+                values = Vector.create(dataset.read(new long[upper.length], upper, sub), dataType.isUnsigned).compress(0);
+                return values;
+            }
             if (reader == null) {
                 throw new DataStoreContentException(unknownType());
             }
+            if (records != null) {
+                final Object array = records.read(new VariableInfo[] {this}, 0, dimensions[0].length(), 1)[0];
+                values = Vector.create(array, dataType.isUnsigned).compress(0);
+                return values;
+            }
             long length = 1;
             boolean overflow = false;
             for (final Dimension dimension : dimensions) {
@@ -450,6 +541,22 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public Vector read(int[] areaLower, int[] areaUpper, int[] subsampling) throws IOException, DataStoreException {
+        if (dataset != null) {
+            /*
+             * HDF5 datasets use the same dimension order than netCDF variables,
+             * so the area can be given to the dataset without reordering.
+             */
+            if (!dataset.isReadable()) {
+                throw new DataStoreContentException(unknownType());
+            }
+            final long[] lower = new long[areaLower.length];
+            final long[] upper = new long[areaUpper.length];
+            for (int i=0; i<lower.length; i++) {
+                lower[i] = areaLower[i] & 0xFFFFFFFFL;
+                upper[i] = areaUpper[i] & 0xFFFFFFFFL;
+            }
+            return Vector.create(dataset.read(lower, upper, subsampling), dataType.isUnsigned);
+        }
         if (reader == null) {
             throw new DataStoreContentException(unknownType());
         }
@@ -484,7 +591,14 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
             sub  [i] = subsampling[j];
             size [i] = dimensions[j].length();
         }
-        return Vector.create(reader.read(new Region(size, lower, upper, sub)), dataType.isUnsigned);
+        if (records == null) {
+            return Vector.create(reader.read(new Region(size, lower, upper, sub)), dataType.isUnsigned);
+        }
+        /*
+         * Record variables are interleaved with other record variables. The record reader copies only
+         * the requested sub-area of each record (last dimension in the Region order is the records).
+         */
+        return Vector.create(records.read(this, size, lower, upper, sub), dataType.isUnsigned);
     }
 
     /**
@@ -512,7 +626,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public int compareTo(final VariableInfo other) {
-        int c = Long.compare(reader.origin, other.reader.origin);
+        int c = Long.compare(offset, other.offset);
         if (c == 0) c = name.compareTo(other.name);                 // Should not happen, but we are paranoiac.
         return c;
     }
@@ -19,6 +19,8 @@ package org.apache.sis.storage.netcdf;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import org.opengis.metadata.Metadata;
 import org.opengis.parameter.ParameterValueGroup;
@@ -29,6 +31,7 @@ import org.apache.sis.storage.UnsupportedStorageException;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.Aggregate;
 import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.GridResource;
 import org.apache.sis.internal.storage.URIDataStore;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.metadata.ModifiableMetadata;
@@ -177,6 +180,8 @@ public class NetcdfStore extends DataStore implements Aggregate {
 
     /**
      * Returns the resources (features or coverages) in this netCDF file.
+     * Each gridded variable is returned as a separated resource, followed by the features
+     * encoded as discrete sampling geometries if any.
      *
      * @return children resources that are components of this netCDF.
      * @throws DataStoreException if an error occurred while fetching the components.
@@ -187,7 +192,10 @@ public class NetcdfStore extends DataStore implements Aggregate {
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public synchronized Collection<Resource> components() throws DataStoreException {
         if (components == null) try {
-            components = UnmodifiableArrayList.<Resource>wrap(decoder.getDiscreteSampling());
+            final List<Resource> resources = new ArrayList<>();
+            resources.addAll(GridResource.create(decoder, this));
+            resources.addAll(Arrays.asList(decoder.getDiscreteSampling()));
+            components = UnmodifiableArrayList.wrap(resources.toArray(new Resource[resources.size()]));
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
@@ -30,6 +30,7 @@ import org.opengis.parameter.ParameterDescriptorGroup;
 import org.apache.sis.internal.netcdf.Decoder;
 import org.apache.sis.internal.netcdf.Resources;
 import org.apache.sis.internal.netcdf.impl.ChannelDecoder;
+import org.apache.sis.internal.netcdf.hdf5.HDF5Reader;
 import org.apache.sis.internal.netcdf.ucar.DecoderWrapper;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.internal.storage.Capabilities;
@@ -180,6 +181,12 @@ public class NetcdfStoreProvider extends DataStoreProvider {
                 hasVersion  = true;
                 version     = header & 0xFF;
                 isSupported = (version >= 1 && version <= ChannelDecoder.MAX_VERSION);
+            } else if (buffer.remaining() >= Long.SIZE / Byte.SIZE
+                    && buffer.getLong(buffer.position()) == HDF5Reader.SIGNATURE)
+            {
+                hasVersion  = true;                     // NetCDF-4 files are HDF5 files.
+                version     = 4;
+                isSupported = true;
             }
         }
         /*
@@ -275,13 +282,16 @@ public class NetcdfStoreProvider extends DataStoreProvider {
             keepOpen = input;
         } catch (DataStoreException e) {
             final String path = connector.getStorageAs(String.class);
+            decoder = null;
             if (path != null) try {
                 decoder = createByReflection(path, false, geomlib, listeners);
-                keepOpen = path;
             } catch (IOException | DataStoreException s) {
                 e.addSuppressed(s);
             }
-            throw e;
+            if (decoder == null) {
+                throw e;
+            }
+            keepOpen = path;
         } else {
             keepOpen = connector.getStorage();
             decoder = createByReflection(keepOpen, true, geomlib, listeners);
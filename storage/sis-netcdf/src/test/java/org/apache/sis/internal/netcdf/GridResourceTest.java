@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import org.apache.sis.internal.netcdf.impl.ChannelDecoder;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOnMethod;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.apache.sis.test.TestUtilities.getSingleton;
+
+
+/**
+ * Tests {@link GridResource} on a small netCDF file created in memory, so this test does not depend
+ * on external test files. The file contains a single {@code short} variable {@code "a"} of dimensions
+ * (z,y,x) = (3,7,5), where the value at index (z,y,x) is <var>z</var>×100 + <var>y</var>×10 + <var>x</var>.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class GridResourceTest extends org.apache.sis.test.TestCase {
+    /**
+     * Number of cells along the (z,y,x) dimensions, in netCDF order.
+     */
+    private static final int[] SIZE = {3, 7, 5};
+
+    /**
+     * The decoder of the netCDF file created by {@link #createResource()}.
+     */
+    private Decoder decoder;
+
+    /**
+     * The input from which {@link #decoder} reads the data. Used for detecting when a slab has been read.
+     */
+    private ChannelDataInput input;
+
+    /**
+     * Creates a netCDF classic file in memory and returns the resource for the {@code "a"} variable.
+     * The whole file is in the buffer, so all seek operations are allowed.
+     */
+    private GridResource createResource() throws IOException, DataStoreException {
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putInt(ChannelDecoder.MAGIC_NUMBER | 1).putInt(0);     // No record.
+        buffer.putInt(0x0A).putInt(SIZE.length);                      // Dimensions list.
+        putName(buffer, "z"); buffer.putInt(SIZE[0]);
+        putName(buffer, "y"); buffer.putInt(SIZE[1]);
+        putName(buffer, "x"); buffer.putInt(SIZE[2]);
+        buffer.putLong(0);                                            // No global attribute.
+        buffer.putInt(0x0B).putInt(1);                                // Variables list.
+        putName(buffer, "a");
+        buffer.putInt(3).putInt(0).putInt(1).putInt(2);               // Dimension indices.
+        buffer.putLong(0);                                            // No attribute.
+        final int length = SIZE[0] * SIZE[1] * SIZE[2] * (Short.SIZE / Byte.SIZE);
+        buffer.putInt(3).putInt((length + 3) & ~3);                   // NC_SHORT
+        buffer.putInt(buffer.position() + (Integer.SIZE / Byte.SIZE));
+        for (int z=0; z<SIZE[0]; z++) {
+            for (int y=0; y<SIZE[1]; y++) {
+                for (int x=0; x<SIZE[2]; x++) {
+                    buffer.putShort((short) (z*100 + y*10 + x));
+                }
+            }
+        }
+        buffer.flip();
+        input = new ChannelDataInput("grid.nc",
+                Channels.newChannel(new ByteArrayInputStream(new byte[0])), buffer, true);
+        decoder = new ChannelDecoder(input, null, GeometryLibrary.JAVA2D, TestCase.LISTENERS);
+        final GridResource resource = getSingleton(GridResource.create(decoder, this));
+        assertEquals("a", resource.getName());
+        assertArrayEquals(SIZE, resource.getGridEnvelope());
+        return resource;
+    }
+
+    /**
+     * Writes a name in the netCDF format, padded to a multiple of 4 bytes.
+     */
+    private static void putName(final ByteBuffer buffer, final String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+        buffer.position((buffer.position() + 3) & ~3);
+    }
+
+    /**
+     * Tests {@link GridResource#read(int[], int[], int[])} with sub-sampling.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    public void testRead() throws IOException, DataStoreException {
+        final GridResource resource = createResource();
+        final Vector values = resource.read(new int[] {1, 1, 0}, new int[] {3, 7, 5}, new int[] {1, 2, 2});
+        final int[] expected = {
+            110, 112, 114, 130, 132, 134, 150, 152, 154,
+            210, 212, 214, 230, 232, 234, 250, 252, 254
+        };
+        assertEquals("size", expected.length, values.size());
+        for (int i=0; i<expected.length; i++) {
+            assertEquals("value", expected[i], values.intValue(i));
+        }
+    }
+
+    /**
+     * Tests {@link GridResource#read(int[], int[], int[], int, Variable.SlabHandler)} with a slab length
+     * which causes a split along the second dimension (not the first one) and with sub-sampling along the
+     * split dimension. With a sub-sampling of 2 along <var>y</var> and <var>x</var>, each row contains
+     * 3 values and there is 3 rows per plane. A slab length of 6 values gives two slabs per plane:
+     * rows 1 and 3 in the first slab, and row 5 alone in the second slab.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testRead")
+    public void testReadSlabs() throws IOException, DataStoreException {
+        final GridResource resource = createResource();
+        final int[] lower = {0, 1, 0};
+        final int[] upper = {3, 7, 5};
+        final int[] sub   = {1, 2, 2};
+        final Vector expected = resource.read(lower, upper, sub);
+        assertEquals("size", 3*3*3, expected.size());
+        final List<int[]> bounds = new ArrayList<>();
+        final int[] actual = new int[expected.size()];
+        assertTrue(resource.read(lower, upper, sub, 6, new Variable.SlabHandler() {
+            private int offset;
+
+            @Override
+            public boolean slab(final int[] slabLower, final int[] slabUpper, final Vector values) {
+                bounds.add(slabLower);
+                bounds.add(slabUpper);
+                assertTrue("Slab too large.", values.size() <= 6);
+                for (int i=0; i<values.size(); i++) {
+                    actual[offset++] = values.intValue(i);
+                }
+                return true;
+            }
+        }));
+        assertEquals("Number of slabs", 6*2, bounds.size());
+        for (int z=0; z<3; z++) {
+            final int i = z * 4;
+            assertArrayEquals("lower", new int[] {z,   1, 0}, bounds.get(i));
+            assertArrayEquals("upper", new int[] {z+1, 4, 5}, bounds.get(i+1));
+            assertArrayEquals("lower", new int[] {z,   5, 0}, bounds.get(i+2));
+            assertArrayEquals("upper", new int[] {z+1, 7, 5}, bounds.get(i+3));
+        }
+        for (int i=0; i<actual.length; i++) {
+            assertEquals("value", expected.intValue(i), actual[i]);
+        }
+    }
+
+    /**
+     * Tests cancellation of {@link GridResource#read(int[], int[], int[], int, Variable.SlabHandler)}.
+     * No slab shall be read if the decoder is canceled before the call, and no other slab shall be read
+     * after the decoder has been canceled. We detect slab reads by changes in the stream position.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testReadSlabs")
+    public void testCancel() throws IOException, DataStoreException {
+        final GridResource resource = createResource();
+        final int[] lower = {0, 0, 0};
+        final int[] sub   = {1, 1, 1};
+        final long[] positions = new long[2];
+        final Variable.SlabHandler handler = new Variable.SlabHandler() {
+            @Override
+            public boolean slab(final int[] slabLower, final int[] slabUpper, final Vector values) {
+                positions[0]++;
+                positions[1] = input.getStreamPosition();
+                decoder.canceled = true;
+                return true;
+            }
+        };
+        assertFalse(resource.read(lower, SIZE, sub, 10, handler));
+        assertEquals("Number of slabs", 1, positions[0]);
+        assertEquals("Next slab shall not be read.", positions[1], input.getStreamPosition());
+
+        input.seek(0);
+        assertFalse(resource.read(lower, SIZE, sub, 10, handler));
+        assertEquals("Number of slabs", 1, positions[0]);
+        assertEquals("No slab shall be read.", 0, input.getStreamPosition());
+    }
+}
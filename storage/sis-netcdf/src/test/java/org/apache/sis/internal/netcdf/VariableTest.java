@@ -16,6 +16,8 @@
  */
 package org.apache.sis.internal.netcdf;
 
+import java.util.List;
+import java.util.ArrayList;
 import java.io.IOException;
 import org.apache.sis.math.Vector;
 import org.apache.sis.storage.DataStoreException;
@@ -179,4 +181,48 @@ public strictfp class VariableTest extends TestCase {
             assertEquals("Longitude value", -180 + 5*i, data.floatValue(i), 0f);
         }
     }
+
+    /**
+     * Tests {@link Variable#read(int[], int[], int[], int, Variable.SlabHandler)} on the {@code "SST"} variable.
+     * The slab length is chosen for forcing the split of the latitude dimension in slabs of 13 rows.
+     * The concatenation of all slabs shall be equal to the values read in a single operation.
+     *
+     * @throws IOException if an error occurred while reading the netCDF file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    public void testReadSlabs() throws IOException, DataStoreException {
+        final Variable variable = selectDataset(NCEP).getVariables()[21];
+        assertEquals("SST", variable.getName());
+        final int[] lower = {0,  0,  0};
+        final int[] upper = {1, 73, 73};
+        final int[] sub   = {1,  1,  1};
+        final Vector expected = variable.read(lower, upper, sub);
+        assertEquals("length", 73*73, expected.size());
+        final List<int[]> bounds = new ArrayList<>();
+        final float[] actual = new float[expected.size()];
+        assertTrue(variable.read(lower, upper, sub, 1000, new Variable.SlabHandler() {
+            private int offset;
+
+            @Override
+            public boolean slab(final int[] slabLower, final int[] slabUpper, final Vector values) {
+                bounds.add(slabLower);
+                bounds.add(slabUpper);
+                assertTrue("Slab too large.", values.size() <= 1000);
+                for (int i=0; i<values.size(); i++) {
+                    actual[offset++] = values.floatValue(i);
+                }
+                return true;
+            }
+        }));
+        assertEquals("Number of slabs", 6*2, bounds.size());
+        for (int i=0; i<bounds.size(); i += 2) {
+            final int row = (i/2) * 13;
+            assertArrayEquals("lower", new int[] {0, row, 0}, bounds.get(i));
+            assertArrayEquals("upper", new int[] {1, Math.min(row + 13, 73), 73}, bounds.get(i+1));
+        }
+        for (int i=0; i<actual.length; i++) {
+            assertEquals("SST value", expected.floatValue(i), actual[i], 0f);
+        }
+    }
 }
@@ -0,0 +1,643 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.hdf5;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteOrder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.netcdf.impl.ChannelDecoder;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.apache.sis.test.TestUtilities.getSingleton;
+
+
+/**
+ * Tests {@link HDF5Reader} and {@link Dataset} on a small netCDF-4 file created in memory.
+ * The file contains a {@code "temperature"} variable of type {@code int} stored in 2×4 chunks
+ * compressed with the shuffle and DEFLATE filters, with one chunk missing. The two dimensions
+ * are dimension scales: {@code "time"} in contiguous layout and {@code "lon"} in compact layout.
+ *
+ * <p>This class tests also the {@value #SST_FILE} file written by the HDF5 1.14 library, using the calls done by
+ * the netCDF library for netCDF-4 files in the classic model (dimension scales, {@code "_Netcdf4Dimid"} attributes,
+ * fill value, shuffle and DEFLATE filters). Since the file has been created with the default file creation
+ * properties, it uses the structures of the oldest HDF5 format: superblock version 0, groups with symbol tables,
+ * version 1 B-trees and version 1 object headers. The content of that file in CDL is:</p>
+ *
+ * {@preformat text
+ *   dimensions:
+ *       time = UNLIMITED ; // (3 currently)
+ *       lat = 4 ;
+ *       lon = 5 ;
+ *   variables:
+ *       double time(time) ;             // 0, 6, 12
+ *           time:units = "hours since 2017-01-01 00:00:00" ;
+ *       float lat(lat) ;                // 40, 40.5, 41, 41.5
+ *           lat:units = "degrees_north" ;
+ *       float lon(lon) ;                // -10, -9.75, -9.5, -9.25, -9
+ *           lon:units = "degrees_east" ;
+ *       short sst(time, lat, lon) ;     // Chunks of 1×2×3 elements.
+ *           sst:long_name = "Sea surface temperature" ;
+ *           sst:units = "degree_Celsius" ;
+ *           sst:_FillValue = -999s ;
+ *   :title = "Sea surface temperature test" ;
+ *   :Conventions = "CF-1.6" ;
+ * }
+ *
+ * The {@code sst} values are <var>t</var>×100 + <var>y</var>×10 + <var>x</var> where <var>t</var>, <var>y</var>
+ * and <var>x</var> are grid indices, except in the two chunk rows covering the last time step at the two last
+ * latitudes, which have never been written.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class HDF5ReaderTest extends TestCase {
+    /**
+     * Size of the {@code "time"} and {@code "lon"} dimensions.
+     */
+    private static final int NT = 4, NX = 6;
+
+    /**
+     * Size of the chunks of the {@code "temperature"} variable.
+     */
+    private static final int CT = 2, CX = 4;
+
+    /**
+     * The fill value of the {@code "temperature"} variable.
+     */
+    private static final int FILL_VALUE = -999;
+
+    /**
+     * Name of the netCDF-4 file written by the HDF5 library. See class javadoc for a description of its content.
+     */
+    private static final String SST_FILE = "sst.nc";
+
+    /**
+     * Size of the {@code "time"}, {@code "lat"} and {@code "lon"} dimensions in the {@value #SST_FILE} file.
+     */
+    private static final int ST = 3, SY = 4, SX = 5;
+
+    /**
+     * Types of the object header messages used in the test file.
+     */
+    private static final int DATASPACE = 0x01, DATATYPE = 0x03, FILL = 0x05, LINK = 0x06,
+            LAYOUT = 0x08, FILTERS = 0x0B, ATTRIBUTE = 0x0C;
+
+    /**
+     * Returns the expected temperature value at the given indices.
+     */
+    private static int temperature(final int t, final int x) {
+        return t*100 + x;
+    }
+
+    /**
+     * Creates a little-endian buffer for building a message.
+     */
+    private static ByteBuffer allocate() {
+        return ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the bytes of the given string, followed by a null terminator if {@code nul} is {@code true}.
+     */
+    private static byte[] bytes(final String text, final boolean nul) {
+        final byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return nul ? Arrays.copyOf(bytes, bytes.length + 1) : bytes;
+    }
+
+    /**
+     * Writes a datatype message for signed integers or floating point values of the given size.
+     */
+    private static ByteBuffer datatype(final boolean isFloat, final int size) {
+        final ByteBuffer b = allocate();
+        if (isFloat) {
+            b.put((byte) 0x11).put((byte) 0x20).put((byte) (size * 8 - 1)).put((byte) 0).putInt(size);
+            b.put(new byte[12]);                                        // Offset, precision, exponent and mantissa.
+        } else {
+            b.put((byte) 0x10).put((byte) 0x08).put((byte) 0).put((byte) 0).putInt(size);
+            b.putShort((short) 0).putShort((short) (size * 8));         // Bit offset and precision.
+        }
+        return b;
+    }
+
+    /**
+     * Writes a datatype message for fixed-length strings.
+     */
+    private static ByteBuffer stringType(final int length) {
+        return allocate().put((byte) 0x13).put(new byte[3]).putInt(length);
+    }
+
+    /**
+     * Writes a version 2 dataspace message. An empty shape means a scalar.
+     */
+    private static ByteBuffer dataspace(final long... shape) {
+        final ByteBuffer b = allocate().put((byte) 2).put((byte) shape.length).put((byte) 0);
+        b.put((byte) (shape.length == 0 ? 0 : 1));
+        for (final long n : shape) {
+            b.putLong(n);
+        }
+        return b;
+    }
+
+    /**
+     * Writes a version 3 attribute message.
+     */
+    private static ByteBuffer attribute(final String name, final ByteBuffer type, final ByteBuffer space, final ByteBuffer data) {
+        type.flip(); space.flip(); data.flip();
+        final byte[] n = bytes(name, true);
+        final ByteBuffer b = allocate().put((byte) 3).put((byte) 0);
+        b.putShort((short) n.length).putShort((short) type.remaining()).putShort((short) space.remaining());
+        return b.put((byte) 0).put(n).put(type).put(space).put(data);
+    }
+
+    /**
+     * Writes an attribute having a string value.
+     */
+    private static ByteBuffer attribute(final String name, final String value) {
+        final byte[] v = bytes(value, false);
+        return attribute(name, stringType(v.length), dataspace(), allocate().put(v));
+    }
+
+    /**
+     * Writes an attribute having integer values. A single value is written as a scalar.
+     */
+    private static ByteBuffer attribute(final String name, final int... values) {
+        final ByteBuffer data = allocate();
+        for (final int v : values) {
+            data.putInt(v);
+        }
+        return attribute(name, datatype(false, 4), (values.length == 1) ? dataspace() : dataspace(values.length), data);
+    }
+
+    /**
+     * Writes a version 2 object header containing the given messages.
+     *
+     * @param  file      the buffer where to write the object header.
+     * @param  messages  (type, body) pairs.
+     * @return address of the object header.
+     */
+    private static long header(final ByteBuffer file, final Object... messages) {
+        final int address = file.position();
+        file.put(bytes("OHDR", false)).put((byte) 2).put((byte) 0x02);  // Version 2, size of chunk 0 on 4 bytes.
+        final int sizePosition = file.position();
+        file.putInt(0);
+        for (int i=0; i<messages.length; i += 2) {
+            final ByteBuffer body = (ByteBuffer) messages[i+1];
+            body.flip();
+            file.put((byte) (int) (Integer) messages[i]).putShort((short) body.remaining()).put((byte) 0).put(body);
+        }
+        file.putInt(sizePosition, file.position() - (sizePosition + 4));
+        file.putInt(0);                                                 // Checksum (not verified).
+        return address;
+    }
+
+    /**
+     * Writes a link message to the object at the given address.
+     */
+    private static ByteBuffer link(final String name, final long address) {
+        final byte[] n = bytes(name, false);
+        return allocate().put((byte) 1).put((byte) 0).put((byte) n.length).put(n).putLong(address);
+    }
+
+    /**
+     * Shuffles and compresses the given chunk values, as done by the netCDF library.
+     */
+    private static byte[] compress(final int[] values) {
+        final ByteBuffer raw = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        raw.asIntBuffer().put(values);
+        final byte[] shuffled = new byte[raw.capacity()];
+        int dst = 0;
+        for (int b=0; b<4; b++) {
+            for (int i=b; i<shuffled.length; i += 4) {
+                shuffled[dst++] = raw.get(i);
+            }
+        }
+        final Deflater deflater = new Deflater();
+        deflater.setInput(shuffled);
+        deflater.finish();
+        final byte[] compressed = new byte[shuffled.length + 64];
+        final int length = deflater.deflate(compressed);
+        deflater.end();
+        return Arrays.copyOf(compressed, length);
+    }
+
+    /**
+     * Creates the test file in memory and returns an input for reading it.
+     * The whole file is in the buffer, so all seek operations are allowed.
+     */
+    private static ChannelDataInput createInput() throws IOException {
+        return createInput(false);
+    }
+
+    /**
+     * Creates the test file in memory, optionally with a {@code "forecast"} sub-group in the root group.
+     *
+     * @param  withGroup  whether to add a sub-group linking to the {@code "lon"} dataset.
+     */
+    private static ChannelDataInput createInput(final boolean withGroup) throws IOException {
+        final ByteBuffer file = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        file.putLong(Long.reverseBytes(HDF5Reader.SIGNATURE));
+        file.put((byte) 2).put((byte) 8).put((byte) 8).put((byte) 0);  // Superblock version 2, offset and length sizes.
+        file.putLong(0).putLong(-1).putLong(0);                         // Base address, no extension, end of file.
+        final int rootPosition = file.position();
+        file.putLong(0).putInt(0);                                      // Root address (set later) and checksum.
+        /*
+         * Data of the "time" variable (contiguous), then the chunks of the "temperature" variable.
+         * The chunk at (2,4) is omitted for testing fill values.
+         */
+        final long timeData = file.position();
+        for (int t=0; t<NT; t++) {
+            file.putDouble(t * 0.5);
+        }
+        final long[][] offsets = {{0,0}, {0,CX}, {CT,0}};
+        final long[] addresses = new long[offsets.length];
+        final int [] sizes     = new int [offsets.length];
+        for (int c=0; c<offsets.length; c++) {
+            final int[] values = new int[CT*CX];
+            for (int i=0; i<CT; i++) {
+                for (int j=0; j<CX; j++) {
+                    final int t = (int) offsets[c][0] + i;
+                    final int x = (int) offsets[c][1] + j;
+                    values[i*CX + j] = (x < NX) ? temperature(t, x) : 0;
+                }
+            }
+            final byte[] compressed = compress(values);
+            addresses[c] = file.position();
+            sizes[c] = compressed.length;
+            file.put(compressed);
+        }
+        /*
+         * Version 1 B-tree (leaf node) indexing the chunks.
+         */
+        final long btree = file.position();
+        file.put(bytes("TREE", false)).put((byte) 1).put((byte) 0).putShort((short) offsets.length);
+        file.putLong(-1).putLong(-1);                                   // No sibling.
+        for (int c=0; c<offsets.length; c++) {
+            file.putInt(sizes[c]).putInt(0).putLong(offsets[c][0]).putLong(offsets[c][1]).putLong(0);
+            file.putLong(addresses[c]);
+        }
+        file.putInt(0).putInt(0).putLong(NT).putLong(0).putLong(0);     // Final key.
+        /*
+         * Object headers of the dimensions and variable.
+         */
+        final ByteBuffer lonData = allocate();
+        for (int x=0; x<NX; x++) {
+            lonData.putFloat(x * 10);
+        }
+        lonData.flip();
+        final long time = header(file,
+                DATASPACE, dataspace(NT),
+                DATATYPE,  datatype(true, 8),
+                LAYOUT,    allocate().put((byte) 3).put((byte) 1).putLong(timeData).putLong(NT * 8),
+                ATTRIBUTE, attribute("CLASS", "DIMENSION_SCALE"),
+                ATTRIBUTE, attribute("_Netcdf4Dimid", 0),
+                ATTRIBUTE, attribute("units", "days since 2000-01-01"));
+        final long lon = header(file,
+                DATASPACE, dataspace(NX),
+                DATATYPE,  datatype(true, 4),
+                LAYOUT,    allocate().put((byte) 3).put((byte) 0).putShort((short) lonData.remaining()).put(lonData),
+                ATTRIBUTE, attribute("CLASS", "DIMENSION_SCALE"),
+                ATTRIBUTE, attribute("_Netcdf4Dimid", 1));
+        final long temperature = header(file,
+                DATASPACE, dataspace(NT, NX),
+                DATATYPE,  datatype(false, 4),
+                FILL,      allocate().put((byte) 3).put((byte) 0x20).putInt(4).putInt(FILL_VALUE),
+                LAYOUT,    allocate().put((byte) 3).put((byte) 2).put((byte) 3).putLong(btree).putInt(CT).putInt(CX).putInt(4),
+                FILTERS,   allocate().put((byte) 2).put((byte) 2)
+                                     .putShort((short) 2).putShort((short) 0).putShort((short) 1).putInt(4)   // Shuffle.
+                                     .putShort((short) 1).putShort((short) 0).putShort((short) 1).putInt(6),  // Deflate.
+                ATTRIBUTE, attribute("_Netcdf4Coordinates", 0, 1),
+                ATTRIBUTE, attribute("long_name", "Temperature"));
+        final long root;
+        if (withGroup) {
+            final long group = header(file, LINK, link("lon", lon));
+            root = header(file,
+                    LINK, link("temperature", temperature),
+                    LINK, link("time", time),
+                    LINK, link("lon", lon),
+                    LINK, link("forecast", group),
+                    ATTRIBUTE, attribute("title", "HDF5 test"));
+        } else {
+            root = header(file,
+                    LINK, link("temperature", temperature),
+                    LINK, link("time", time),
+                    LINK, link("lon", lon),
+                    ATTRIBUTE, attribute("title", "HDF5 test"));
+        }
+        file.putLong(rootPosition, root);
+        file.flip();
+        file.order(ByteOrder.BIG_ENDIAN);                               // Byte order of buffers given by StorageConnector.
+        return new ChannelDataInput("test.nc", Channels.newChannel(new ByteArrayInputStream(new byte[0])), file, true);
+    }
+
+    /**
+     * Returns an input for reading the {@value #SST_FILE} file. The whole file is loaded in the buffer,
+     * so all seek operations are allowed as with the file created by {@link #createInput(boolean)}.
+     */
+    private static ChannelDataInput openSST() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = HDF5ReaderTest.class.getResourceAsStream(SST_FILE)) {
+            assertNotNull(SST_FILE, in);
+            final byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        final ByteBuffer file = ByteBuffer.wrap(bytes.toByteArray());
+        return new ChannelDataInput(SST_FILE, Channels.newChannel(new ByteArrayInputStream(new byte[0])), file, true);
+    }
+
+    /**
+     * Returns the expected {@code sst} value at the given indices in the {@value #SST_FILE} file.
+     */
+    private static int sst(final int t, final int y, final int x) {
+        return (t == ST-1 && y >= 2) ? FILL_VALUE : t*100 + y*10 + x;
+    }
+
+    /**
+     * Returns the dataset of the given name in the given group.
+     */
+    private static Dataset dataset(final Group group, final String name) {
+        for (final Dataset dataset : group.getDatasets()) {
+            if (dataset.getName().equals(name)) {
+                return dataset;
+            }
+        }
+        fail("Dataset not found: " + name);
+        return null;
+    }
+
+    /**
+     * Tests {@link FilterPipeline#unshuffle(byte[], int)} and {@link FilterPipeline#inflate(byte[], int)}.
+     *
+     * @throws DataStoreException if the compressed data are invalid.
+     */
+    @Test
+    public void testFilters() throws DataStoreException {
+        assertArrayEquals(new byte[] {1, 4, 2, 5, 3, 6, 7},
+                FilterPipeline.unshuffle(new byte[] {1, 2, 3, 4, 5, 6, 7}, 2));
+        final int[] values = {3, -1, 1000000, 7};
+        final byte[] decoded = FilterPipeline.unshuffle(FilterPipeline.inflate(compress(values), 1), 4);
+        final int[] actual = new int[values.length];
+        ByteBuffer.wrap(decoded).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(actual);
+        assertArrayEquals(values, actual);
+    }
+
+    /**
+     * Tests {@link FilterPipeline#fletcher32(byte[], int)} and the verification of checksums by the filter pipeline.
+     * Expected values were computed with the algorithm of the {@code H5_checksum_fletcher32} function of HDF5.
+     *
+     * @throws DataStoreException if the checksum verification failed.
+     */
+    @Test
+    public void testFletcher32() throws DataStoreException {
+        final byte[] text = bytes("abcde", false);
+        assertEquals("abcde", 0x4FF029C7, FilterPipeline.fletcher32(text, text.length));
+        final byte[] data = new byte[1024 + 4];
+        for (int i=0; i<1024; i++) {
+            data[i] = (byte) i;
+        }
+        assertEquals("1024 bytes", 0x151600FF, FilterPipeline.fletcher32(data, 1024));
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(1024, 0x151600FF);
+        assertTrue(FilterPipeline.verifyChecksum(data, 1024));
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(1024, 0x1615FF00);
+        assertTrue("Checksum of HDF5 1.6.0 to 1.6.4", FilterPipeline.verifyChecksum(data, 1024));
+        /*
+         * Filter pipeline message (version 2) with only the Fletcher32 filter.
+         */
+        final FilterPipeline pipeline = new FilterPipeline((ByteBuffer) allocate().put((byte) 2).put((byte) 1)
+                .putShort((short) FilterPipeline.FLETCHER32).putShort((short) 0).putShort((short) 0).flip());
+        assertArrayEquals(Arrays.copyOf(data, 1024), pipeline.decode(data, 0, 1024, "test.nc", "v"));
+        data[100]++;
+        try {
+            pipeline.decode(data, 0, 1024, "test.nc", "v");
+            fail("Should not accept a corrupted chunk.");
+        } catch (DataStoreContentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("v"));
+        }
+    }
+
+    /**
+     * Tests {@link HDF5Reader#readRootGroup()} and the attributes of objects.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    public void testReadRootGroup() throws IOException, DataStoreException {
+        final Group root = new HDF5Reader(createInput()).readRootGroup();
+        assertEquals("title", "HDF5 test", root.getAttributes().get("title"));
+        assertTrue("groups", root.getGroups().isEmpty());
+        final List<Dataset> datasets = root.getDatasets();
+        assertEquals("datasets", 3, datasets.size());
+        final Dataset temperature = dataset(root, "temperature");
+        assertArrayEquals("shape", new long[] {NT, NX}, temperature.getShape());
+        assertEquals("long_name", "Temperature", temperature.getAttributes().get("long_name"));
+        assertArrayEquals("_Netcdf4Coordinates", new int[] {0, 1},
+                (int[]) temperature.getAttributes().get("_Netcdf4Coordinates"));
+        assertEquals("_Netcdf4Dimid", 1, dataset(root, "lon").getAttributes().get("_Netcdf4Dimid"));
+    }
+
+    /**
+     * Tests {@link Dataset#read(long[], long[], int[])} on contiguous, compact and chunked datasets.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod({"testFilters", "testReadRootGroup"})
+    public void testReadDataset() throws IOException, DataStoreException {
+        final Group root = new HDF5Reader(createInput()).readRootGroup();
+        assertArrayEquals("time", new double[] {0.5, 1.5},
+                (double[]) dataset(root, "time").read(new long[] {1}, new long[] {4}, new int[] {2}), STRICT);
+        assertArrayEquals("lon", new float[] {10, 20, 30, 40},
+                (float[]) dataset(root, "lon").read(new long[] {1}, new long[] {5}, new int[] {1}), (float) STRICT);
+
+        final Dataset temperature = dataset(root, "temperature");
+        int[] values = (int[]) temperature.read(new long[2], new long[] {NT, NX}, new int[] {1, 1});
+        for (int t=0; t<NT; t++) {
+            for (int x=0; x<NX; x++) {
+                final int expected = (t >= CT && x >= CX) ? FILL_VALUE : temperature(t, x);
+                assertEquals("temperature", expected, values[t*NX + x]);
+            }
+        }
+        values = (int[]) temperature.read(new long[] {1, 1}, new long[] {4, 6}, new int[] {2, 3});
+        assertArrayEquals("temperature", new int[] {temperature(1, 1), temperature(1, 4),
+                                                    temperature(3, 1), FILL_VALUE}, values);
+    }
+
+    /**
+     * Tests reading the netCDF-4 file through {@link ChannelDecoder}, which maps HDF5 datasets to netCDF variables.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testReadDataset")
+    public void testChannelDecoder() throws IOException, DataStoreException {
+        final ChannelDecoder decoder = new ChannelDecoder(createInput(), null, GeometryLibrary.JAVA2D,
+                org.apache.sis.internal.netcdf.TestCase.LISTENERS);
+        assertEquals("title", "HDF5 test", decoder.stringValue("title"));
+        final Variable[] variables = decoder.getVariables();
+        assertEquals("variables", 3, variables.length);
+        final Variable temperature = variables[0];
+        assertEquals("temperature", temperature.getName());
+        assertEquals("Temperature", temperature.getDescription());
+        assertArrayEquals(new String[] {"time", "lon"}, temperature.getGridDimensionNames());
+        assertArrayEquals(new int[] {NT, NX}, temperature.getGridEnvelope());
+        assertEquals("time", variables[1].getName());
+        assertTrue(variables[1].isCoordinateSystemAxis());
+        final Vector data = temperature.read(new int[] {2, 2}, new int[] {4, 6}, new int[] {1, 2});
+        assertEquals(4, data.size());
+        assertEquals(temperature(2, 2), data.intValue(0));
+        assertEquals(FILL_VALUE,        data.intValue(1));
+        assertEquals(temperature(3, 2), data.intValue(2));
+        assertEquals(0.5, variables[1].read().doubleValue(1), STRICT);
+    }
+
+    /**
+     * Tests that {@link ChannelDecoder} rejects a netCDF-4 file containing sub-groups instead of ignoring them,
+     * which allows {@link org.apache.sis.storage.netcdf.NetcdfStoreProvider} to fallback on the UCAR library.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testChannelDecoder")
+    public void testSubGroups() throws IOException, DataStoreException {
+        final Group root = new HDF5Reader(createInput(true)).readRootGroup();
+        assertEquals("forecast", getSingleton(root.getGroups()).getName());
+        try {
+            new ChannelDecoder(createInput(true), null, GeometryLibrary.JAVA2D,
+                    org.apache.sis.internal.netcdf.TestCase.LISTENERS);
+            fail("Sub-groups shall not be ignored silently.");
+        } catch (DataStoreContentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("forecast"));
+        }
+    }
+
+    /**
+     * Tests {@link HDF5Reader} and {@link Dataset} on the {@value #SST_FILE} file written by the HDF5 library.
+     * This file uses the superblock version 0, a group symbol table, version 1 object headers and chunks
+     * indexed by version 1 B-trees.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testReadDataset")
+    public void testReadLibraryFile() throws IOException, DataStoreException {
+        final Group root = new HDF5Reader(openSST()).readRootGroup();
+        assertEquals("title", "Sea surface temperature test", root.getAttributes().get("title"));
+        assertEquals("Conventions", "CF-1.6", root.getAttributes().get("Conventions"));
+        assertTrue("groups", root.getGroups().isEmpty());
+        assertEquals("datasets", 4, root.getDatasets().size());
+        final Dataset time = dataset(root, "time");
+        final Dataset lat  = dataset(root, "lat");
+        final Dataset lon  = dataset(root, "lon");
+        final Dataset sst  = dataset(root, "sst");
+        /*
+         * Dimension scales, referenced by the "DIMENSION_LIST" attribute of the variable.
+         */
+        assertEquals("CLASS", "DIMENSION_SCALE", time.getAttributes().get("CLASS"));
+        assertEquals("_Netcdf4Dimid", 0, time.getAttributes().get("_Netcdf4Dimid"));
+        assertEquals("_Netcdf4Dimid", 2, lon .getAttributes().get("_Netcdf4Dimid"));
+        assertEquals("units", "degrees_north", lat.getAttributes().get("units"));
+        assertArrayEquals("shape", new long[] {ST, SY, SX}, sst.getShape());
+        assertTrue ("unlimited", sst.isUnlimited(0));
+        assertFalse("unlimited", sst.isUnlimited(1));
+        assertArrayEquals("DIMENSION_LIST", new long[][] {{time.getAddress()}, {lat.getAddress()}, {lon.getAddress()}},
+                (long[][]) sst.getAttributes().get("DIMENSION_LIST"));
+        assertEquals("long_name", "Sea surface temperature", sst.getAttributes().get("long_name"));
+        assertEquals("_FillValue", (short) FILL_VALUE, sst.getAttributes().get("_FillValue"));
+        /*
+         * Data in contiguous layout and in chunks, including partial chunks on the last column
+         * and chunks that have never been written.
+         */
+        assertArrayEquals("time", new double[] {0, 6, 12},
+                (double[]) time.read(new long[1], new long[] {ST}, new int[] {1}), STRICT);
+        assertArrayEquals("lat", new float[] {40, 40.5f, 41, 41.5f},
+                (float[]) lat.read(new long[1], new long[] {SY}, new int[] {1}), (float) STRICT);
+        assertArrayEquals("lon", new float[] {-9.75f, -9.25f},
+                (float[]) lon.read(new long[] {1}, new long[] {SX}, new int[] {2}), (float) STRICT);
+        short[] values = (short[]) sst.read(new long[3], new long[] {ST, SY, SX}, new int[] {1, 1, 1});
+        assertEquals("length", ST*SY*SX, values.length);
+        int i = 0;
+        for (int t=0; t<ST; t++) {
+            for (int y=0; y<SY; y++) {
+                for (int x=0; x<SX; x++) {
+                    assertEquals("sst", sst(t, y, x), values[i++]);
+                }
+            }
+        }
+        values = (short[]) sst.read(new long[] {1, 1, 1}, new long[] {ST, SY, SX}, new int[] {1, 2, 3});
+        assertArrayEquals("sst", new short[] {111, 114, 131, 134, 211, 214, FILL_VALUE, FILL_VALUE}, values);
+    }
+
+    /**
+     * Tests reading the {@value #SST_FILE} file through {@link ChannelDecoder}. The dimensions of the variable
+     * are given by the references to dimension scales in the {@code "DIMENSION_LIST"} attribute.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testReadLibraryFile")
+    public void testLibraryFileDecoder() throws IOException, DataStoreException {
+        final ChannelDecoder decoder = new ChannelDecoder(openSST(), null, GeometryLibrary.JAVA2D,
+                org.apache.sis.internal.netcdf.TestCase.LISTENERS);
+        assertEquals("title", "Sea surface temperature test", decoder.stringValue("title"));
+        Variable sst = null;
+        for (final Variable variable : decoder.getVariables()) {
+            final String name = variable.getName();
+            if (name.equals("sst")) {
+                sst = variable;
+            } else {
+                assertTrue(name, variable.isCoordinateSystemAxis());
+            }
+        }
+        assertNotNull("sst", sst);
+        assertEquals("Sea surface temperature", sst.getDescription());
+        assertEquals("degree_Celsius", sst.getUnitsString());
+        assertArrayEquals(new String[] {"time", "lat", "lon"}, sst.getGridDimensionNames());
+        assertArrayEquals(new int[] {ST, SY, SX}, sst.getGridEnvelope());
+        final Vector data = sst.read(new int[] {2, 1, 0}, new int[] {3, 3, 5}, new int[] {1, 1, 2});
+        assertEquals(6, data.size());
+        assertEquals(sst(2, 1, 0), data.intValue(0));
+        assertEquals(sst(2, 1, 4), data.intValue(2));
+        assertEquals(FILL_VALUE,   data.intValue(3));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link RecordReader} on a small netCDF file created in memory. The file contains one fixed-size
+ * variable ({@code "f"}, 3 bytes) followed by 5 records of two interleaved record variables:
+ * {@code "t"} (one {@code double} per record) and {@code "v"} (3 {@code short} per record, padded to 8 bytes).
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+@DependsOn(VariableInfoTest.class)
+public final strictfp class RecordReaderTest extends TestCase {
+    /**
+     * Number of records in the test file.
+     */
+    private static final int NUM_RECORDS = 5;
+
+    /**
+     * Length of the {@code "n"} dimension, which is the second dimension of the {@code "v"} variable.
+     */
+    private static final int N = 3;
+
+    /**
+     * Creates a decoder for a netCDF classic file containing record variables.
+     * The whole file is in the buffer, so all seek operations are allowed.
+     */
+    private static ChannelDecoder createDecoder() throws IOException, DataStoreException {
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.putInt(ChannelDecoder.MAGIC_NUMBER | 1).putInt(NUM_RECORDS);
+        buffer.putInt(0x0A).putInt(2);                                  // Dimensions list.
+        putName(buffer, "rec"); buffer.putInt(0);                       // Unlimited dimension.
+        putName(buffer, "n");   buffer.putInt(N);
+        buffer.putLong(0);                                              // No global attribute.
+        buffer.putInt(0x0B).putInt(3);                                  // Variables list.
+        final int[] begins = new int[3];
+        begins[0] = putVariable(buffer, "f", 1, 4, 1);                  // NC_BYTE (n)
+        begins[1] = putVariable(buffer, "t", 6, 8, 0);                  // NC_DOUBLE (rec)
+        begins[2] = putVariable(buffer, "v", 3, 8, 0, 1);               // NC_SHORT (rec, n)
+        final int start = buffer.position();
+        buffer.putInt(begins[0], start);
+        buffer.putInt(begins[1], start + 4);
+        buffer.putInt(begins[2], start + 12);
+        buffer.put((byte) 7).put((byte) 8).put((byte) 9).put((byte) 0);
+        for (int r=0; r<NUM_RECORDS; r++) {
+            buffer.putDouble(r * 1.5);
+            for (int k=0; k<N; k++) {
+                buffer.putShort((short) (r*10 + k));
+            }
+            buffer.putShort((short) 0);                                 // Padding.
+        }
+        buffer.flip();
+        final ChannelDataInput input = new ChannelDataInput("records.nc",
+                Channels.newChannel(new ByteArrayInputStream(new byte[0])), buffer, true);
+        return new ChannelDecoder(input, null, GeometryLibrary.JAVA2D,
+                org.apache.sis.internal.netcdf.TestCase.LISTENERS);
+    }
+
+    /**
+     * Writes a name in the netCDF format, padded to a multiple of 4 bytes.
+     */
+    private static void putName(final ByteBuffer buffer, final String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+        buffer.position((buffer.position() + 3) & ~3);
+    }
+
+    /**
+     * Writes a variable header and returns the position where to write the offset of variable data.
+     */
+    private static int putVariable(final ByteBuffer buffer, final String name, final int type, final int size,
+            final int... dimensions)
+    {
+        putName(buffer, name);
+        buffer.putInt(dimensions.length);
+        for (final int dim : dimensions) {
+            buffer.putInt(dim);
+        }
+        buffer.putLong(0);                                              // No attribute.
+        buffer.putInt(type).putInt(size);
+        final int position = buffer.position();
+        buffer.putInt(0);                                               // Offset to be set later.
+        return position;
+    }
+
+    /**
+     * Tests {@link ChannelDecoder#readRecords(Variable[], int, int, int)} with two interleaved variables.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    public void testReadRecords() throws IOException, DataStoreException {
+        final ChannelDecoder decoder = createDecoder();
+        final Variable[] variables = decoder.getVariables();
+        assertEquals("v", variables[2].getName());
+        final Vector[] values = decoder.readRecords(new Variable[] {variables[2], variables[1]}, 1, NUM_RECORDS, 2);
+        assertEquals("v.size()", 2*N, values[0].size());
+        assertEquals("t.size()", 2,   values[1].size());
+        for (int i=0; i<2; i++) {
+            final int r = 1 + 2*i;
+            assertEquals("t", r * 1.5, values[1].doubleValue(i), STRICT);
+            for (int k=0; k<N; k++) {
+                assertEquals("v", r*10 + k, values[0].intValue(i*N + k));
+            }
+        }
+        try {
+            decoder.readRecords(new Variable[] {variables[0]}, 0, 1, 1);
+            fail("Should not accept a variable which is not a record variable.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("f"));
+        }
+    }
+
+    /**
+     * Tests {@link Variable#read()} and {@link Variable#read(int[], int[], int[])} on record variables,
+     * which shall skip the values of other record variables.
+     *
+     * @throws IOException if an error occurred while reading the test file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testReadRecords")
+    public void testReadVariable() throws IOException, DataStoreException {
+        final ChannelDecoder decoder = createDecoder();
+        final Variable[] variables = decoder.getVariables();
+        Vector data = variables[1].read();
+        assertEquals("t.size()", NUM_RECORDS, data.size());
+        for (int r=0; r<NUM_RECORDS; r++) {
+            assertEquals("t", r * 1.5, data.doubleValue(r), STRICT);
+        }
+        data = variables[2].read();
+        assertEquals("v.size()", NUM_RECORDS * N, data.size());
+        for (int i=0; i<data.size(); i++) {
+            assertEquals("v", (i / N) * 10 + (i % N), data.intValue(i));
+        }
+        data = variables[2].read(new int[] {1, 1}, new int[] {4, 3}, new int[] {2, 1});
+        assertArrayEquals("v", new int[] {11, 12, 31, 32}, new int[] {
+            data.intValue(0), data.intValue(1), data.intValue(2), data.intValue(3)
+        });
+        data = variables[2].read(new int[] {0, 0}, new int[] {5, 3}, new int[] {2, 2});
+        assertArrayEquals("v", new int[] {0, 2, 20, 22, 40, 42}, new int[] {
+            data.intValue(0), data.intValue(1), data.intValue(2), data.intValue(3), data.intValue(4), data.intValue(5)
+        });
+        assertEquals("v.size()", 6, data.size());
+        data = variables[2].read(new int[] {3, 0}, new int[] {4, 3}, new int[] {1, 1});
+        assertArrayEquals("v", new int[] {30, 31, 32}, new int[] {data.intValue(0), data.intValue(1), data.intValue(2)});
+        data = variables[0].read();
+        assertEquals("f", 8, data.intValue(1));
+    }
+}
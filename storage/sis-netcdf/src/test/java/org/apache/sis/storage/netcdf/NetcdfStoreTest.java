@@ -16,8 +16,11 @@
  */
 package org.apache.sis.storage.netcdf;
 
+import java.util.Collection;
 import org.opengis.metadata.Metadata;
 import org.apache.sis.internal.netcdf.IOTestCase;
+import org.apache.sis.internal.netcdf.GridResource;
+import org.apache.sis.storage.Resource;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.DependsOn;
@@ -63,4 +66,20 @@ public final strictfp class NetcdfStoreTest extends IOTestCase {
         }
         MetadataReaderTest.compareToExpected(metadata);
     }
+
+    /**
+     * Tests {@link NetcdfStore#components()}. The gridded variables shall be exposed as resources.
+     *
+     * @throws DataStoreException if an error occurred while reading the netCDF file.
+     */
+    @Test
+    public void testComponents() throws DataStoreException {
+        try (NetcdfStore store = create(NCEP)) {
+            final Collection<Resource> components = store.components();
+            assertEquals("components.size()", 1, components.size());
+            final GridResource resource = (GridResource) components.iterator().next();
+            assertEquals("SST", resource.getName());
+            assertArrayEquals("getGridEnvelope()", new int[] {1, 73, 73}, resource.getGridEnvelope());
+        }
+    }
 }
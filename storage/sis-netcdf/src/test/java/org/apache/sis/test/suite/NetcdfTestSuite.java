@@ -36,9 +36,12 @@ import org.junit.BeforeClass;
     org.apache.sis.internal.netcdf.DecoderTest.class,
     org.apache.sis.internal.netcdf.VariableTest.class,
     org.apache.sis.internal.netcdf.GridGeometryTest.class,
+    org.apache.sis.internal.netcdf.GridResourceTest.class,
     org.apache.sis.internal.netcdf.impl.ChannelDecoderTest.class,
     org.apache.sis.internal.netcdf.impl.VariableInfoTest.class,
+    org.apache.sis.internal.netcdf.impl.RecordReaderTest.class,
     org.apache.sis.internal.netcdf.impl.GridGeometryInfoTest.class,
+    org.apache.sis.internal.netcdf.hdf5.HDF5ReaderTest.class,
     org.apache.sis.storage.netcdf.MetadataReaderTest.class,
     org.apache.sis.storage.netcdf.NetcdfStoreProviderTest.class,
     org.apache.sis.storage.netcdf.NetcdfStoreTest.class
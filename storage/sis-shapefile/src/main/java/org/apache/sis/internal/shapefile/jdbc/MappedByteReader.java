@@ -27,6 +27,7 @@ import java.util.logging.Level;
 import org.apache.sis.internal.shapefile.jdbc.resultset.SQLIllegalColumnIndexException;
 import org.apache.sis.internal.shapefile.jdbc.resultset.SQLNoSuchFieldException;
 import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
 
 // Branch-dependent imports
 import org.apache.sis.internal.jdk8.JDK8;
@@ -47,6 +48,12 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
     /** Connection properties. */
     private Properties info;
 
+    /** Feature type for which {@link #fieldsIndices} have been computed, or null if not yet computed. */
+    private DefaultFeatureType indexedType;
+
+    /** Index of the property of each field in features of {@link #indexedType}. */
+    private int[] fieldsIndices;
+
     /**
      * Construct a mapped byte reader on a file.
      * @param dbase3File File.
@@ -81,7 +88,21 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
         getByteBuffer().get(); // denotes whether deleted or current
         // read first part of record
 
-        for (DBase3FieldDescriptor fd : this.fieldsDescriptors) {
+        // Resolve the property names only once for all records of the same feature type.
+        DefaultFeatureType type = feature.getType();
+
+        if (type != this.indexedType) {
+            this.fieldsIndices = new int[this.fieldsDescriptors.size()];
+
+            for (int i = 0; i < this.fieldsIndices.length; i++) {
+                this.fieldsIndices[i] = type.indexOf(this.fieldsDescriptors.get(i).getName());
+            }
+
+            this.indexedType = type;
+        }
+
+        for (int i = 0; i < this.fieldsIndices.length; i++) {
+            DBase3FieldDescriptor fd = this.fieldsDescriptors.get(i);
             byte[] data = new byte[fd.getLength()];
             getByteBuffer().get(data);
 
@@ -91,7 +112,7 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
             }
 
             String value = new String(data, 0, length);
-            feature.setPropertyValue(fd.getName(), value);
+            feature.setPropertyValue(this.fieldsIndices[i], value);
         }
     }
 
@@ -0,0 +1,805 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.internal.system.Modules;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.Utilities;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.logging.Logging;
+import org.apache.sis.util.resources.Errors;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Stream;
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * A read-only spatial index of two-dimensional envelopes, bulk-loaded with the <cite>Sort-Tile-Recursive</cite>
+ * (STR) algorithm. All entries are known before the tree is built, which allows to pack the nodes at 100% of
+ * their capacity. The tree is stored in flat buffers of primitive types without node objects: the children of a
+ * node are consecutive in the level below, so their position can be computed from the position of the parent.
+ *
+ * <p>A tree can be {@linkplain #write written} in a compact binary format and {@linkplain #read read back}
+ * by memory-mapping the file. A tree read that way is queried directly in the mapped buffers, without being
+ * deserialized into Java objects, so loading time is independent of the number of entries.</p>
+ *
+ * <p>Entries are identified by integers assigned by the {@link Builder} in insertion order. Queries report the
+ * identifiers of matching entries to a {@link Visitor}. Query methods do not allocate objects and can be invoked
+ * concurrently by many threads.</p>
+ *
+ * <p>The envelope coordinates are used as given, in the {@linkplain #getCoordinateReferenceSystem() index CRS}.
+ * Distances in radius and nearest-neighbor queries are Euclidean distances in the units of that CRS.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ *
+ * @see <a href="https://doi.org/10.1109/ICDE.1997.582015">Leutenegger, Lopez &amp; Edgington (1997),
+ *      STR: a simple and efficient algorithm for R-tree packing</a>
+ *
+ * @since 0.8
+ * @module
+ */
+public final class PackedRTree {
+    /**
+     * The default maximal number of children in a node.
+     */
+    public static final int DEFAULT_NODE_CAPACITY = 16;
+
+    /**
+     * The format name, used in error messages.
+     */
+    private static final String FORMAT_NAME = "PackedRTree";
+
+    /**
+     * The magic number at the beginning of files written by {@link #write(WritableByteChannel)}.
+     * This is the {@code "SISR"} string in US-ASCII.
+     */
+    private static final int MAGIC_NUMBER = 0x53495352;
+
+    /**
+     * Version of the binary format written by {@link #write(WritableByteChannel)}.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size in bytes of the fixed part of the header, before the {@link #levelStart} values.
+     * The header contains the magic number, the version, the node capacity, the number of entries,
+     * the number of values in {@code levelStart} and the length of the CRS definition.
+     */
+    private static final int HEADER_SIZE = 6 * Integer.SIZE / Byte.SIZE;
+
+    /**
+     * Number of bytes in a value of type {@code int} or {@code double}.
+     */
+    private static final int INT_SIZE = Integer.SIZE / Byte.SIZE, DOUBLE_SIZE = Double.SIZE / Byte.SIZE;
+
+    /**
+     * Byte order of binary files. We use the byte order of most common hardware
+     * for avoiding byte swapping when the file is memory-mapped.
+     */
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * Receives the identifiers of entries found by a query.
+     */
+    public interface Visitor {
+        /**
+         * Invoked for each entry found by a query.
+         *
+         * @param  id  identifier of the entry, as assigned by the {@link Builder}.
+         * @return {@code true} for continuing the search, or {@code false} for stopping it.
+         */
+        boolean visit(int id);
+    }
+
+    /**
+     * Maximal number of children in a node.
+     */
+    final int nodeCapacity;
+
+    /**
+     * Number of entries in the index.
+     */
+    private final int size;
+
+    /**
+     * Bounding boxes of all entries followed by bounding boxes of all nodes, level by level from the leaves
+     * to the root. Each box is stored as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+     * <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) values. The position of a box in this
+     * buffer, divided by 4, is called the <cite>slot</cite> of that entry or node.
+     */
+    final DoubleBuffer boxes;
+
+    /**
+     * Slot of the first entry or node in each level. Level 0 contains the entries, level 1 contains the leaves
+     * and the last level contains only the root. The last element of this array is the total number of slots.
+     * The children of node <var>i</var> (counted from the beginning of its level) are the slots
+     * {@code levelStart[level-1] + i*nodeCapacity} inclusive to {@code min(… + nodeCapacity, levelStart[level])}
+     * exclusive.
+     */
+    final int[] levelStart;
+
+    /**
+     * Identifiers of entries, in the order of their slots.
+     */
+    final IntBuffer ids;
+
+    /**
+     * The coordinate reference system of the envelopes, or {@code null} if unknown.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * Creates a tree from the given buffers, which are stored by reference.
+     * The buffers may wrap arrays or may be views over a memory-mapped file.
+     */
+    PackedRTree(final int nodeCapacity, final DoubleBuffer boxes, final int[] levelStart, final IntBuffer ids,
+            final CoordinateReferenceSystem crs)
+    {
+        this.nodeCapacity = nodeCapacity;
+        this.boxes        = boxes;
+        this.levelStart   = levelStart;
+        this.ids          = ids;
+        this.crs          = crs;
+        this.size         = ids.limit();
+    }
+
+    /**
+     * Returns the number of entries in this index.
+     *
+     * @return number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the coordinate reference system of the envelopes in this index, or {@code null} if unknown.
+     *
+     * @return the index CRS, or {@code null}.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Returns the envelope of all entries in this index, or {@code null} if this index is empty.
+     *
+     * @return the union of all entry envelopes, or {@code null}.
+     */
+    public Envelope2D getEnvelope() {
+        if (size == 0) {
+            return null;
+        }
+        final int b = levelStart[levelStart.length - 2] * 4;
+        final double xmin = boxes.get(b);
+        final double ymin = boxes.get(b+1);
+        return new Envelope2D(crs, xmin, ymin, boxes.get(b+2) - xmin, boxes.get(b+3) - ymin);
+    }
+
+    /**
+     * Finds all entries intersecting the given rectangle. Entries touching the rectangle border are included.
+     *
+     * @param  xmin     minimal <var>x</var> value of the rectangle to search.
+     * @param  ymin     minimal <var>y</var> value of the rectangle to search.
+     * @param  xmax     maximal <var>x</var> value of the rectangle to search.
+     * @param  ymax     maximal <var>y</var> value of the rectangle to search.
+     * @param  visitor  the visitor to notify for each entry found.
+     * @return {@code false} if the visitor stopped the search, or {@code true} otherwise.
+     */
+    public boolean search(final double xmin, final double ymin, final double xmax, final double ymax, final Visitor visitor) {
+        ArgumentChecks.ensureNonNull("visitor", visitor);
+        if (size == 0) {
+            return true;
+        }
+        final int level = levelStart.length - 2;
+        return search(level, levelStart[level], xmin, ymin, xmax, ymax, visitor);
+    }
+
+    /**
+     * Finds all entries intersecting the given envelope, which must be in the index CRS.
+     *
+     * @param  area     the envelope to search.
+     * @param  visitor  the visitor to notify for each entry found.
+     * @return {@code false} if the visitor stopped the search, or {@code true} otherwise.
+     */
+    public boolean search(final Envelope area, final Visitor visitor) {
+        ArgumentChecks.ensureNonNull("area", area);
+        return search(area.getMinimum(0), area.getMinimum(1), area.getMaximum(0), area.getMaximum(1), visitor);
+    }
+
+    /**
+     * Recursive implementation of {@link #search(double, double, double, double, Visitor)}.
+     *
+     * @param  level  level of the node to search. Shall be 1 or greater.
+     * @param  slot   slot of the node to search.
+     */
+    private boolean search(final int level, final int slot, final double xmin, final double ymin,
+            final double xmax, final double ymax, final Visitor visitor)
+    {
+        final int first = levelStart[level - 1] + (slot - levelStart[level]) * nodeCapacity;
+        final int last  = Math.min(first + nodeCapacity, levelStart[level]);
+        for (int c=first; c<last; c++) {
+            final int b = c * 4;
+            if (boxes.get(b) <= xmax && boxes.get(b+2) >= xmin && boxes.get(b+1) <= ymax && boxes.get(b+3) >= ymin) {
+                if (level == 1) {
+                    if (!visitor.visit(ids.get(c))) return false;
+                } else {
+                    if (!search(level - 1, c, xmin, ymin, xmax, ymax, visitor)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds all entries at a distance smaller than or equal to the given radius from the given point.
+     * The distance of an entry is the Euclidean distance from the point to the nearest point of the entry
+     * envelope (which is zero if the envelope contains the point).
+     *
+     * @param  x        <var>x</var> coordinate of the center, in the index CRS.
+     * @param  y        <var>y</var> coordinate of the center, in the index CRS.
+     * @param  radius   the search radius, in units of the index CRS axes.
+     * @param  visitor  the visitor to notify for each entry found.
+     * @return {@code false} if the visitor stopped the search, or {@code true} otherwise.
+     */
+    public boolean searchRadius(final double x, final double y, final double radius, final Visitor visitor) {
+        ArgumentChecks.ensureNonNull("visitor", visitor);
+        if (size == 0 || !(radius >= 0)) {
+            return true;
+        }
+        final int level = levelStart.length - 2;
+        return searchRadius(level, levelStart[level], x, y, radius * radius, visitor);
+    }
+
+    /**
+     * Recursive implementation of {@link #searchRadius(double, double, double, Visitor)}.
+     */
+    private boolean searchRadius(final int level, final int slot, final double x, final double y,
+            final double r2, final Visitor visitor)
+    {
+        final int first = levelStart[level - 1] + (slot - levelStart[level]) * nodeCapacity;
+        final int last  = Math.min(first + nodeCapacity, levelStart[level]);
+        for (int c=first; c<last; c++) {
+            if (distanceSquared(c, x, y) <= r2) {
+                if (level == 1) {
+                    if (!visitor.visit(ids.get(c))) return false;
+                } else {
+                    if (!searchRadius(level - 1, c, x, y, r2, visitor)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the <var>k</var> entries nearest to the given point, where <var>k</var> is the length of the
+     * given {@code ids} array. The identifiers and distances are stored in the given arrays by increasing
+     * distance order. This method does not allocate objects, so callers can reuse the same arrays for many
+     * queries.
+     *
+     * @param  x          <var>x</var> coordinate of the point, in the index CRS.
+     * @param  y          <var>y</var> coordinate of the point, in the index CRS.
+     * @param  ids        where to store the identifiers of the nearest entries.
+     * @param  distances  where to store the distances of the nearest entries. Length shall be at least {@code ids.length}.
+     * @return number of entries found, which is the length of {@code ids} unless this index contains less entries.
+     */
+    public int nearest(final double x, final double y, final int[] ids, final double[] distances) {
+        final int k = ids.length;
+        ArgumentChecks.ensureSizeBetween("distances", k, Integer.MAX_VALUE, distances.length);
+        Arrays.fill(distances, 0, k, Double.POSITIVE_INFINITY);
+        if (size == 0 || k == 0) {
+            return 0;
+        }
+        final int level = levelStart.length - 2;
+        final int n = nearest(level, levelStart[level], x, y, ids, distances, 0);
+        for (int i=0; i<n; i++) {
+            distances[i] = Math.sqrt(distances[i]);
+        }
+        return n;
+    }
+
+    /**
+     * Recursive implementation of {@link #nearest(double, double, int[], double[])}. The {@code distances}
+     * array contains squared distances sorted in increasing order. Nodes farther than the <var>k</var>-th
+     * entry found so far are pruned.
+     *
+     * @param  count  number of entries found so far.
+     * @return number of entries found after this method call.
+     */
+    private int nearest(final int level, final int slot, final double x, final double y,
+            final int[] found, final double[] distances, int count)
+    {
+        final int k     = found.length;
+        final int first = levelStart[level - 1] + (slot - levelStart[level]) * nodeCapacity;
+        final int last  = Math.min(first + nodeCapacity, levelStart[level]);
+        for (int c=first; c<last; c++) {
+            final double d = distanceSquared(c, x, y);
+            if (d < distances[k-1] || count < k) {
+                if (level == 1) {
+                    /*
+                     * Insert the entry in the sorted arrays, discarding the farthest one if the arrays are full.
+                     */
+                    int i = Math.min(count, k - 1);
+                    while (i > 0 && distances[i-1] > d) {
+                        distances[i] = distances[i-1];
+                        found    [i] = found    [i-1];
+                        i--;
+                    }
+                    distances[i] = d;
+                    found    [i] = ids.get(c);
+                    if (count < k) count++;
+                } else {
+                    count = nearest(level - 1, c, x, y, found, distances, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the squared distance from the given point to the box in the given slot.
+     */
+    private double distanceSquared(final int slot, final double x, final double y) {
+        final int b = slot * 4;
+        double dx = 0, dy = 0;
+        if      (x < boxes.get(b  )) dx = boxes.get(b  ) - x;
+        else if (x > boxes.get(b+2)) dx = x - boxes.get(b+2);
+        if      (y < boxes.get(b+1)) dy = boxes.get(b+1) - y;
+        else if (y > boxes.get(b+3)) dy = y - boxes.get(b+3);
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Writes this tree in the given channel, starting at the current channel position. The binary format is:
+     *
+     * <ol>
+     *   <li>a header made of the {@code "SISR"} magic number, the format version, the node capacity,
+     *       the number of entries, the number of levels + 1 and the length of the CRS definition
+     *       (all as 32 bits integers),</li>
+     *   <li>the index of the first slot of each level (32 bits integers),</li>
+     *   <li>the CRS in Well Known Text format encoded in UTF-8, or nothing if the CRS is unknown,</li>
+     *   <li>padding to a multiple of 8 bytes,</li>
+     *   <li>the boxes of all slots (64 bits floating point values),</li>
+     *   <li>the identifiers of all entries (32 bits integers), followed by padding to a multiple of 8 bytes.</li>
+     * </ol>
+     *
+     * All values are in little-endian byte order. Applications can write their own data after the tree;
+     * the padding ensures that those data start at a position aligned on 8 bytes relative to the tree start.
+     *
+     * @param  out  the channel where to write the tree.
+     * @throws IOException if an error occurred while writing the tree.
+     */
+    public void write(final WritableByteChannel out) throws IOException {
+        byte[] wkt = new byte[0];
+        if (crs != null) try {
+            wkt = crs.toWKT().getBytes(StandardCharsets.UTF_8);
+        } catch (UnsupportedOperationException e) {
+            /*
+             * The CRS can not be formatted as WKT. Saving the tree without CRS is still useful
+             * since the coordinates are unchanged; the application knows in which CRS they are.
+             */
+            Logging.recoverableException(Logging.getLogger(Modules.STORAGE), PackedRTree.class, "write", e);
+        }
+        final int slots = levelStart[levelStart.length - 1];
+        final int headerLength = HEADER_SIZE + levelStart.length * INT_SIZE + wkt.length;
+        final ByteBuffer header = ByteBuffer.allocate((int) align(headerLength)).order(BYTE_ORDER);
+        header.putInt(MAGIC_NUMBER).putInt(VERSION).putInt(nodeCapacity).putInt(size)
+              .putInt(levelStart.length).putInt(wkt.length);
+        header.asIntBuffer().put(levelStart);
+        header.position(HEADER_SIZE + levelStart.length * INT_SIZE);
+        header.put(wkt).clear();
+        writeFully(out, header);
+        /*
+         * Copy the boxes and identifiers by chunks, using absolute get operations
+         * for leaving the position of the buffers unchanged.
+         */
+        final ByteBuffer buffer = ByteBuffer.allocate(8 * 1024).order(BYTE_ORDER);
+        for (int i=0, n=slots*4; i<n;) {
+            final int end = Math.min(n, i + buffer.capacity() / DOUBLE_SIZE);
+            while (i < end) buffer.putDouble(boxes.get(i++));
+            buffer.flip();
+            writeFully(out, buffer);
+            buffer.clear();
+        }
+        for (int i=0; i<size;) {
+            final int end = Math.min(size, i + buffer.capacity() / INT_SIZE);
+            while (i < end) buffer.putInt(ids.get(i++));
+            if (i == size) {
+                while (buffer.position() != align(buffer.position())) buffer.put((byte) 0);
+            }
+            buffer.flip();
+            writeFully(out, buffer);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes all remaining bytes of the given buffer.
+     */
+    private static void writeFully(final WritableByteChannel out, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Rounds the given number of bytes to the next multiple of 8.
+     */
+    private static long align(final long length) {
+        return (length + (DOUBLE_SIZE - 1)) & ~(DOUBLE_SIZE - 1);
+    }
+
+    /**
+     * Reads a tree written by {@link #write(WritableByteChannel)}, starting at the current channel position.
+     * The boxes and identifiers are not copied in the Java heap; they are read from a memory-mapped buffer.
+     * The mapping stays valid after the channel is closed. On return, the channel is positioned just after
+     * the tree, where applications may have written their own data.
+     *
+     * @param  channel   the channel from which to read the tree.
+     * @param  filename  name of the file, used only in error messages.
+     * @return the tree read from the channel.
+     * @throws DataStoreContentException if the file is not a packed R-tree or is of unsupported version.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    public static PackedRTree read(final FileChannel channel, final String filename)
+            throws DataStoreContentException, IOException
+    {
+        final long start = channel.position();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+        readFully(channel, header, start, filename);
+        if (header.getInt() != MAGIC_NUMBER) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, FORMAT_NAME, filename));
+        }
+        final int version = header.getInt();
+        if (version != VERSION) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnsupportedFormatVersion_2, FORMAT_NAME, version));
+        }
+        final int nodeCapacity = header.getInt();
+        final int size         = header.getInt();
+        final int levelCount   = header.getInt();
+        final int wktLength    = header.getInt();
+        if (nodeCapacity < 2 || size < 0 || levelCount < 2 || wktLength < 0) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, FORMAT_NAME, filename));
+        }
+        header = ByteBuffer.allocate(levelCount * INT_SIZE + wktLength).order(BYTE_ORDER);
+        readFully(channel, header, start + HEADER_SIZE, filename);
+        final int[] levelStart = new int[levelCount];
+        header.asIntBuffer().get(levelStart);
+        CoordinateReferenceSystem crs = null;
+        if (wktLength != 0) try {
+            crs = CRS.fromWKT(new String(header.array(), levelCount * INT_SIZE, wktLength, StandardCharsets.UTF_8));
+        } catch (FactoryException e) {
+            throw new DataStoreContentException(e);
+        }
+        /*
+         * Map the boxes and identifiers. A single buffer can not be larger than 2 Gb,
+         * which limits the tree to about 50 millions entries.
+         */
+        final int  slots  = levelStart[levelCount - 1];
+        final long offset = start + align(HEADER_SIZE + levelCount * INT_SIZE + wktLength);
+        final long length = align(slots * (4L * DOUBLE_SIZE) + size * (long) INT_SIZE);
+        if (slots < size || length > Integer.MAX_VALUE || offset + length > channel.size()) {
+            throw new DataStoreContentException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, FORMAT_NAME, filename));
+        }
+        final ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(BYTE_ORDER);
+        final DoubleBuffer boxes = mapped.asDoubleBuffer();
+        boxes.limit(slots * 4);
+        mapped.position(slots * (4 * DOUBLE_SIZE));
+        final IntBuffer ids = mapped.slice().order(BYTE_ORDER).asIntBuffer();
+        ids.limit(size);
+        channel.position(offset + length);
+        return new PackedRTree(nodeCapacity, boxes, levelStart, ids, crs);
+    }
+
+    /**
+     * Reads the given buffer fully from the given position, then flips the buffer.
+     */
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position, final String filename)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, filename));
+            }
+            position += n;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Collects the envelopes to index, then builds the {@link PackedRTree}.
+     * Identifiers are assigned to entries in insertion order, starting at zero.
+     *
+     * <b>Multi-threading:</b> this class is not thread-safe.
+     *
+     * @author  Martin Desruisseaux (Geomatys)
+     * @version 0.8
+     * @since   0.8
+     * @module
+     */
+    public static final class Builder {
+        /**
+         * Maximal number of children in a node.
+         */
+        private final int nodeCapacity;
+
+        /**
+         * The coordinate reference system of envelopes, or {@code null} if not yet known.
+         */
+        private CoordinateReferenceSystem crs;
+
+        /**
+         * Bounding boxes of entries, as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+         * <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) tuples.
+         */
+        private double[] boxes;
+
+        /**
+         * Identifiers of entries.
+         */
+        private int[] ids;
+
+        /**
+         * Number of entries added.
+         */
+        private int count;
+
+        /**
+         * The identifier to assign to the next entry.
+         */
+        private int nextId;
+
+        /**
+         * Creates a new builder with the {@linkplain PackedRTree#DEFAULT_NODE_CAPACITY default node capacity}.
+         */
+        public Builder() {
+            this(DEFAULT_NODE_CAPACITY);
+        }
+
+        /**
+         * Creates a new builder for a tree having the given maximal number of children per node.
+         *
+         * @param  nodeCapacity  maximal number of children per node. Shall be at least 2.
+         */
+        public Builder(final int nodeCapacity) {
+            ArgumentChecks.ensureBetween("nodeCapacity", 2, 0x10000, nodeCapacity);
+            this.nodeCapacity = nodeCapacity;
+            boxes = new double[64 * 4];
+            ids   = new int[64];
+        }
+
+        /**
+         * Sets the coordinate reference system of the envelopes to index. This method needs to be invoked only
+         * if entries are added with {@link #add(double, double, double, double)} before any envelope having a CRS.
+         *
+         * @param  crs  the index CRS, or {@code null} if unknown.
+         * @throws IllegalStateException if the CRS has already been set to a different value.
+         */
+        public void setCoordinateReferenceSystem(final CoordinateReferenceSystem crs) {
+            if (this.crs != null && crs != null && !Utilities.equalsIgnoreMetadata(this.crs, crs)) {
+                throw new IllegalStateException(Errors.format(Errors.Keys.ValueAlreadyDefined_1, "crs"));
+            }
+            if (crs != null) {
+                this.crs = crs;
+            }
+        }
+
+        /**
+         * Adds an entry with the given bounding box. If any value is NaN, then the identifier is
+         * consumed but the entry is not indexed.
+         *
+         * @param  xmin  minimal <var>x</var> value of the entry.
+         * @param  ymin  minimal <var>y</var> value of the entry.
+         * @param  xmax  maximal <var>x</var> value of the entry.
+         * @param  ymax  maximal <var>y</var> value of the entry.
+         * @return the identifier assigned to the entry.
+         */
+        public int add(final double xmin, final double ymin, final double xmax, final double ymax) {
+            final int id = nextId++;
+            if (xmin <= xmax && ymin <= ymax) {            // Also excludes NaN values.
+                if (count == ids.length) {
+                    ids   = Arrays.copyOf(ids,   count * 2);
+                    boxes = Arrays.copyOf(boxes, count * 8);
+                }
+                final int b = count * 4;
+                boxes[b  ] = xmin;
+                boxes[b+1] = ymin;
+                boxes[b+2] = xmax;
+                boxes[b+3] = ymax;
+                ids[count++] = id;
+            }
+            return id;
+        }
+
+        /**
+         * Adds an entry with the given envelope. The first envelope having a CRS determines the index CRS.
+         * Envelopes in other CRS are transformed to the index CRS. Only the two first dimensions are used.
+         *
+         * @param  envelope  the envelope of the entry to add, or {@code null} for consuming an identifier
+         *                   without indexing any entry.
+         * @return the identifier assigned to the entry.
+         * @throws TransformException if the envelope can not be transformed to the index CRS.
+         */
+        public int add(Envelope envelope) throws TransformException {
+            if (envelope == null) {
+                return nextId++;
+            }
+            final CoordinateReferenceSystem ec = envelope.getCoordinateReferenceSystem();
+            if (ec != null) {
+                if (crs == null) {
+                    crs = ec;
+                } else if (!Utilities.equalsIgnoreMetadata(crs, ec)) {
+                    envelope = Envelopes.transform(envelope, crs);
+                }
+            }
+            return add(envelope.getMinimum(0), envelope.getMinimum(1), envelope.getMaximum(0), envelope.getMaximum(1));
+        }
+
+        /**
+         * Adds the envelopes of all features in the given set. The identifiers are assigned in the order
+         * of the feature stream, so the identifier of a feature is its index in that stream. Features
+         * without envelope consume an identifier but are not indexed.
+         *
+         * @param  features  the features to index.
+         * @return the identifier assigned to the first feature.
+         * @throws DataStoreException if an error occurred while reading the features or transforming their envelopes.
+         */
+        public int addAll(final FeatureSet features) throws DataStoreException {
+            final String name = AttributeConvention.ENVELOPE_PROPERTY.toString();
+            final int first = nextId;
+            try (Stream<AbstractFeature> stream = features.features(false)) {
+                final Iterator<AbstractFeature> it = stream.iterator();
+                while (it.hasNext()) {
+                    final Object value = it.next().getPropertyValue(name);
+                    add((value instanceof Envelope) ? (Envelope) value : null);
+                }
+            } catch (TransformException e) {
+                throw new DataStoreException(e);
+            } catch (BackingStoreException e) {
+                throw e.unwrapOrRethrow(DataStoreException.class);
+            }
+            return first;
+        }
+
+        /**
+         * Builds the tree with all entries added so far.
+         *
+         * @return the packed R-tree.
+         */
+        public PackedRTree build() {
+            final int n = count;
+            final int[] order = sortTileRecursive(n);
+            /*
+             * Compute the number of nodes in each level, then copy the entries
+             * in the STR order followed by the node envelopes level by level.
+             */
+            int[] levelStart = new int[8];
+            int levels = 0, total = n;
+            for (int length = n; length > 1 || (levels == 0 && length == 1);) {
+                length = (length + nodeCapacity - 1) / nodeCapacity;
+                if (++levels >= levelStart.length) {
+                    levelStart = Arrays.copyOf(levelStart, levels * 2);
+                }
+                levelStart[levels] = total;
+                total += length;
+            }
+            levelStart = Arrays.copyOf(levelStart, levels + 2);
+            levelStart[levels + 1] = total;
+            if (n == 0) {
+                levelStart = new int[] {0, 0};
+            }
+            final double[] packed = new double[total * 4];
+            final int[] sortedIds = new int[n];
+            for (int i=0; i<n; i++) {
+                final int s = order[i];
+                System.arraycopy(boxes, s*4, packed, i*4, 4);
+                sortedIds[i] = ids[s];
+            }
+            for (int level=1; level < levelStart.length - 1; level++) {
+                final int childEnd = levelStart[level];
+                int child = levelStart[level - 1];
+                for (int node = levelStart[level]; node < levelStart[level + 1]; node++) {
+                    final int end = Math.min(child + nodeCapacity, childEnd);
+                    double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+                    double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+                    for (; child < end; child++) {
+                        final int b = child * 4;
+                        if (packed[b  ] < xmin) xmin = packed[b  ];
+                        if (packed[b+1] < ymin) ymin = packed[b+1];
+                        if (packed[b+2] > xmax) xmax = packed[b+2];
+                        if (packed[b+3] > ymax) ymax = packed[b+3];
+                    }
+                    final int b = node * 4;
+                    packed[b  ] = xmin;
+                    packed[b+1] = ymin;
+                    packed[b+2] = xmax;
+                    packed[b+3] = ymax;
+                }
+            }
+            return new PackedRTree(nodeCapacity, DoubleBuffer.wrap(packed), levelStart, IntBuffer.wrap(sortedIds), crs);
+        }
+
+        /**
+         * Returns the index of entries in <cite>Sort-Tile-Recursive</cite> order. Entries are sorted by the
+         * <var>x</var> coordinate of their center, then partitioned in vertical slices of √<var>P</var> nodes
+         * where <var>P</var> is the number of leaves. Each slice is sorted by the <var>y</var> coordinate of
+         * entry centers.
+         *
+         * <p>For performance reasons, the sort key (as a {@code float}) and the entry index are packed in a
+         * single {@code long} value, so the sort is performed on an array of primitive type. The reduced
+         * precision of the sort key affects only the quality of the packing, not the query results.</p>
+         */
+        private int[] sortTileRecursive(final int n) {
+            final long[] keys = new long[n];
+            for (int i=0; i<n; i++) {
+                keys[i] = sortKey(boxes[i*4] + boxes[i*4 + 2], i);
+            }
+            Arrays.sort(keys);
+            final int leafCount  = (n + nodeCapacity - 1) / nodeCapacity;
+            final int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+            final int sliceSize  = Math.max(1, (leafCount + sliceCount - 1) / Math.max(1, sliceCount)) * nodeCapacity;
+            for (int start=0; start<n; start += sliceSize) {
+                final int end = Math.min(start + sliceSize, n);
+                for (int i=start; i<end; i++) {
+                    final int s = (int) keys[i];
+                    keys[i] = sortKey(boxes[s*4 + 1] + boxes[s*4 + 3], s);
+                }
+                Arrays.sort(keys, start, end);
+            }
+            final int[] order = new int[n];
+            for (int i=0; i<n; i++) {
+                order[i] = (int) keys[i];
+            }
+            return order;
+        }
+
+        /**
+         * Packs the given sort key and index in a {@code long} value preserving the order of sort keys.
+         * The bits of negative {@code float} values are flipped for making them comparable as integers.
+         */
+        private static long sortKey(final double key, final int index) {
+            int bits = Float.floatToIntBits((float) key);
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            return (((long) bits) << Integer.SIZE) | (index & 0xFFFFFFFFL);
+        }
+    }
+}
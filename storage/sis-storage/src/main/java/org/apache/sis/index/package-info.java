@@ -17,6 +17,8 @@
 
 
 /**
- * Computes geohash strings from geographic coordinates, and conversely.
+ * Spatial indexing of envelopes and geohash encoding of geographic coordinates.
+ * {@link org.apache.sis.index.PackedRTree} is a read-only R-tree bulk-loaded from a known set of envelopes,
+ * stored in flat arrays of primitive types and queried without object allocations.
  */
 package org.apache.sis.index;
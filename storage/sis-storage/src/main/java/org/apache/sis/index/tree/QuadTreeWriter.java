@@ -25,7 +25,10 @@ import java.io.IOException;
 /**
  * Class to save the quad tree index from file.
  *
+ * @deprecated Replaced by the single-file binary format of
+ *             {@link org.apache.sis.index.PackedRTree#write(java.nio.channels.WritableByteChannel)}.
  */
+@Deprecated
 public final class QuadTreeWriter {
   private QuadTreeWriter() {
   }
@@ -0,0 +1,675 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.Map;
+import java.util.List;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.io.ObjectStreamException;
+import org.opengis.metadata.Metadata;
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.feature.AbstractOperation;
+import org.apache.sis.feature.DefaultAttributeType;
+import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.collection.BackingStoreException;
+import org.apache.sis.util.logging.WarningListeners;
+import org.apache.sis.util.resources.Errors;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+import org.apache.sis.internal.jdk8.Spliterator;
+import org.apache.sis.internal.jdk8.Stream;
+import org.apache.sis.internal.jdk8.StreamSupport;
+
+
+/**
+ * An in-memory set of features of a simple type, stored by columns of primitive values.
+ * Each attribute is stored in an array of the primitive type matching the attribute value class
+ * ({@code double[]}, {@code float[]}, {@code int[]}, {@code long[]}, bit sets for booleans),
+ * or as dictionary codes for character strings. Only attributes of other types are stored
+ * as objects. Consequently the memory cost of a value is in the order of the primitive type size,
+ * instead of the size of a boxed object plus a reference plus the feature overhead.
+ *
+ * <p>Features returned by {@link #features(boolean)} and {@link #getFeature(int)} are lightweight views
+ * over a row of this set: they contain only a reference to this set and the row index. Values are
+ * boxed when requested through the {@link AbstractFeature} API. Callers that can work with primitive
+ * values should use {@link #getDouble(int, int)} instead. In both cases, attributes can be designated
+ * by their index as given by {@link DefaultFeatureType#indexOf(String)}. The views are read-only.</p>
+ *
+ * <p>Instances of this class are immutable and thread-safe. They are created by {@link Builder}.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final class ColumnarFeatureSet extends AbstractFeatureSet {
+    /**
+     * Minimal number of rows in a spliterator before it accepts to split itself.
+     */
+    private static final int MIN_SPLIT_SIZE = 1024;
+
+    /**
+     * The type of all features in this set.
+     */
+    private final DefaultFeatureType type;
+
+    /**
+     * The values of each attribute, in the order of {@link DefaultFeatureType#indexOf(String)} values.
+     */
+    private final Column[] columns;
+
+    /**
+     * Number of features (rows) in this set.
+     */
+    private final int size;
+
+    /**
+     * The metadata, created when first requested.
+     */
+    private Metadata metadata;
+
+    /**
+     * Creates a new feature set with the content of the given builder.
+     */
+    private ColumnarFeatureSet(final Builder builder) {
+        super(builder.listeners);
+        type    = builder.type;
+        columns = builder.columns;
+        size    = builder.size;
+        for (final Column column : columns) {
+            column.trim(size);
+        }
+    }
+
+    /**
+     * Returns the type of all features in this set.
+     *
+     * @return the feature type.
+     */
+    @Override
+    public DefaultFeatureType getType() {
+        return type;
+    }
+
+    /**
+     * Returns a description of this set of features.
+     *
+     * @return information about this set of features.
+     */
+    @Override
+    public synchronized Metadata getMetadata() {
+        if (metadata == null) {
+            final MetadataBuilder builder = new MetadataBuilder();
+            builder.addFeatureType(type, size);
+            metadata = builder.build(true);
+        }
+        return metadata;
+    }
+
+    /**
+     * Returns the number of features in this set.
+     *
+     * @return number of features.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of the given attribute in the given row.
+     *
+     * @param  row     index of the feature.
+     * @param  column  index of the attribute, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @return value of the attribute (may be {@code null}).
+     */
+    public Object getValue(final int row, final int column) {
+        ArgumentChecks.ensureValidIndex(size, row);
+        return columns[column].get(row);
+    }
+
+    /**
+     * Returns the value of the given numeric attribute in the given row, without boxing.
+     * Null values are returned as {@link Double#NaN}.
+     *
+     * @param  row     index of the feature.
+     * @param  column  index of the attribute, as given by {@link DefaultFeatureType#indexOf(String)}.
+     * @return value of the attribute, or {@code NaN}.
+     * @throws ClassCastException if the attribute is not numeric.
+     */
+    public double getDouble(final int row, final int column) {
+        ArgumentChecks.ensureValidIndex(size, row);
+        return columns[column].getDouble(row);
+    }
+
+    /**
+     * Returns a view of the feature at the given row.
+     *
+     * @param  row  index of the feature.
+     * @return view of the feature at the given row.
+     */
+    public AbstractFeature getFeature(final int row) {
+        ArgumentChecks.ensureValidIndex(size, row);
+        return new Row(this, row);
+    }
+
+    /**
+     * Returns a stream of views over all features in this set.
+     *
+     * @param  parallel  {@code true} for a parallel stream, or {@code false} for a sequential stream.
+     * @return all features in this set.
+     */
+    @Override
+    public Stream<AbstractFeature> features(final boolean parallel) {
+        return StreamSupport.stream(new Rows(this, 0, size), parallel);
+    }
+
+
+
+
+    /**
+     * A feature which is a view over a row of a {@link ColumnarFeatureSet}.
+     * This view is read-only. On serialization, it is replaced by a standalone copy.
+     */
+    private static final class Row extends AbstractFeature {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = 1812493316484328813L;
+
+        /**
+         * The set which contain the values.
+         */
+        private final ColumnarFeatureSet owner;
+
+        /**
+         * Index of the feature in the {@linkplain #owner}.
+         */
+        private final int row;
+
+        /**
+         * Creates a view over the given row.
+         */
+        Row(final ColumnarFeatureSet owner, final int row) {
+            super(owner.type);
+            this.owner = owner;
+            this.row   = row;
+        }
+
+        /**
+         * Returns the value of the property of the given name.
+         */
+        @Override
+        public Object getPropertyValue(final String name) throws IllegalArgumentException {
+            final AbstractIdentifiedType property = getType().getProperty(name);
+            if (property instanceof AbstractOperation) {
+                return getOperationValue(name);
+            }
+            return owner.columns[owner.type.indexOf(name)].get(row);
+        }
+
+        /**
+         * Returns the value of the property at the given index.
+         */
+        @Override
+        public Object getPropertyValue(final int index) {
+            return owner.columns[index].get(row);
+        }
+
+        /**
+         * Unsupported operation, since the views are read-only.
+         */
+        @Override
+        public void setPropertyValue(final String name, final Object value) {
+            throw new UnsupportedOperationException(Errors.format(Errors.Keys.UnmodifiableObject_1, ColumnarFeatureSet.class));
+        }
+
+        /**
+         * Unsupported operation, since the views are read-only.
+         */
+        @Override
+        public void setPropertyValue(final int index, final Object value) {
+            throw new UnsupportedOperationException(Errors.format(Errors.Keys.UnmodifiableObject_1, ColumnarFeatureSet.class));
+        }
+
+        /**
+         * Replaces this view by a standalone feature on serialization.
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            final AbstractFeature copy = getType().newInstance();
+            for (int i=0; i<owner.columns.length; i++) {
+                copy.setPropertyValue(i, owner.columns[i].get(row));
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * An iterator over a range of rows, which can be split for parallel streams.
+     */
+    private static final class Rows implements Spliterator<AbstractFeature> {
+        /** The set which contain the values. */
+        private final ColumnarFeatureSet owner;
+
+        /** Index of the next row to return. */
+        private int row;
+
+        /** Index after the last row to return. */
+        private final int end;
+
+        /** Creates an iterator over the given range of rows. */
+        Rows(final ColumnarFeatureSet owner, final int row, final int end) {
+            this.owner = owner;
+            this.row   = row;
+            this.end   = end;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super AbstractFeature> action) {
+            if (row >= end) return false;
+            action.accept(new Row(owner, row++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super AbstractFeature> action) {
+            while (row < end) {
+                action.accept(new Row(owner, row++));
+            }
+        }
+
+        @Override
+        public Spliterator<AbstractFeature> trySplit() {
+            final int start = row;
+            if (end - start < 2*MIN_SPLIT_SIZE) {
+                return null;
+            }
+            row = (start + end) >>> 1;
+            return new Rows(owner, start, row);
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - row;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+
+
+
+    /**
+     * Creates {@link ColumnarFeatureSet} instances from features of a simple type.
+     * The builder copies the attribute values of each feature in its columns.
+     *
+     * <b>Multi-threading:</b> this class is not thread-safe.
+     *
+     * @author  Martin Desruisseaux (Geomatys)
+     * @version 0.8
+     * @since   0.8
+     * @module
+     */
+    public static final class Builder {
+        /**
+         * The type of all features.
+         */
+        final DefaultFeatureType type;
+
+        /**
+         * The listeners of the data store which contains the features, or {@code null} if none.
+         */
+        final WarningListeners<DataStore> listeners;
+
+        /**
+         * The values of each attribute.
+         */
+        final Column[] columns;
+
+        /**
+         * Name of each column, in the same order than {@link #columns}.
+         */
+        private final String[] names;
+
+        /**
+         * Number of features added.
+         */
+        int size;
+
+        /**
+         * Creates a new builder for features of the given type.
+         *
+         * @param  type       the type of features to store. Must be a {@linkplain DefaultFeatureType#isSimple() simple} type.
+         * @param  listeners  the listeners of the data store which contains the features, or {@code null} if none.
+         * @throws IllegalArgumentException if the given type is not simple.
+         */
+        public Builder(final DefaultFeatureType type, final WarningListeners<DataStore> listeners) {
+            ArgumentChecks.ensureNonNull("type", type);
+            if (!type.isSimple()) {
+                throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalArgumentValue_2, "type", type.getName()));
+            }
+            this.type      = type;
+            this.listeners = listeners;
+            final List<Column> columns = new ArrayList<>();
+            final List<String> names   = new ArrayList<>();
+            for (final AbstractIdentifiedType property : type.getProperties(true)) {
+                if (property instanceof DefaultAttributeType<?>) {
+                    final DefaultAttributeType<?> attribute = (DefaultAttributeType<?>) property;
+                    if (attribute.getMaximumOccurs() != 0) {
+                        final String name = attribute.getName().toString();
+                        assert type.indexOf(name) == columns.size() : name;
+                        columns.add(Column.create(attribute.getValueClass()));
+                        names.add(name);
+                    }
+                }
+            }
+            this.columns = columns.toArray(new Column[columns.size()]);
+            this.names   = names.toArray(new String[names.size()]);
+        }
+
+        /**
+         * Adds a copy of the attribute values of the given feature.
+         *
+         * @param  feature  the feature to add.
+         * @throws IllegalArgumentException if an attribute is missing or has an unexpected value class.
+         */
+        public void add(final AbstractFeature feature) {
+            final boolean sameType = (feature.getType() == type);
+            for (int i=0; i<columns.length; i++) {
+                final Object value = sameType ? feature.getPropertyValue(i) : feature.getPropertyValue(names[i]);
+                try {
+                    columns[i].append(size, value);
+                } catch (ClassCastException e) {
+                    throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalPropertyValueClass_3,
+                            names[i], columns[i].valueClass(), value.getClass()), e);
+                }
+            }
+            size++;
+        }
+
+        /**
+         * Adds a copy of all features in the given set.
+         *
+         * @param  features  the features to add.
+         * @throws DataStoreException if an error occurred while reading the features.
+         */
+        public void addAll(final FeatureSet features) throws DataStoreException {
+            try (Stream<AbstractFeature> stream = features.features(false)) {
+                final Iterator<AbstractFeature> it = stream.iterator();
+                while (it.hasNext()) {
+                    add(it.next());
+                }
+            } catch (BackingStoreException e) {
+                throw e.unwrapOrRethrow(DataStoreException.class);
+            }
+        }
+
+        /**
+         * Creates the feature set with all features added so far.
+         * This builder shall not be used anymore after this method call.
+         *
+         * @return the feature set.
+         */
+        public ColumnarFeatureSet build() {
+            return new ColumnarFeatureSet(this);
+        }
+    }
+
+
+
+
+    /**
+     * Values of an attribute for all rows. Subclasses store values in arrays of primitive type.
+     */
+    private abstract static class Column {
+        /**
+         * Initial capacity of arrays.
+         */
+        static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * Rows having a null value, or {@code null} if none.
+         */
+        BitSet nulls;
+
+        /**
+         * Creates a column for values of the given class.
+         */
+        static Column create(final Class<?> type) {
+            if (type == Double.class)  return new Doubles();
+            if (type == Float.class)   return new Floats();
+            if (type == Long.class)    return new Longs();
+            if (type == Boolean.class) return new Booleans();
+            if (type == String.class)  return new Strings();
+            if (type == Integer.class || type == Short.class || type == Byte.class) {
+                return new Integers(type);
+            }
+            return new Objects(type);
+        }
+
+        /**
+         * Appends the given value in the given row.
+         * The row shall be the number of values added so far.
+         *
+         * @throws ClassCastException if the value is not of the expected class.
+         */
+        final void append(final int row, final Object value) {
+            if (value == null) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(row);
+                appendNull(row);
+            } else {
+                appendValue(row, value);
+            }
+        }
+
+        /**
+         * Returns {@code true} if the value in the given row is null.
+         */
+        final boolean isNull(final int row) {
+            return nulls != null && nulls.get(row);
+        }
+
+        /**
+         * Returns the class of values in this column.
+         */
+        abstract Class<?> valueClass();
+
+        /**
+         * Stores a placeholder for a null value in the given row.
+         */
+        abstract void appendNull(int row);
+
+        /**
+         * Stores the given non-null value in the given row.
+         */
+        abstract void appendValue(int row, Object value);
+
+        /**
+         * Returns the value in the given row.
+         */
+        abstract Object get(int row);
+
+        /**
+         * Returns the value in the given row as a {@code double}.
+         *
+         * @throws ClassCastException if the values are not numeric.
+         */
+        double getDouble(final int row) {
+            final Object value = get(row);
+            return (value != null) ? ((Number) value).doubleValue() : Double.NaN;
+        }
+
+        /**
+         * Reduces the arrays capacity to the given number of rows.
+         */
+        abstract void trim(int size);
+    }
+
+    /**
+     * Column of {@link Double} values stored in a {@code double[]} array.
+     */
+    private static final class Doubles extends Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+        @Override Class<?> valueClass()     {return Double.class;}
+        @Override void appendNull(int row)  {appendValue(row, Double.NaN);}
+        @Override double getDouble(int row) {return values[row];}
+        @Override Object get(int row)       {return isNull(row) ? null : values[row];}
+        @Override void trim(int size)       {values = Arrays.copyOf(values, size);}
+        @Override void appendValue(final int row, final Object value) {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = (Double) value;
+        }
+    }
+
+    /**
+     * Column of {@link Float} values stored in a {@code float[]} array.
+     */
+    private static final class Floats extends Column {
+        private float[] values = new float[INITIAL_CAPACITY];
+        @Override Class<?> valueClass()     {return Float.class;}
+        @Override void appendNull(int row)  {appendValue(row, Float.NaN);}
+        @Override double getDouble(int row) {return values[row];}
+        @Override Object get(int row)       {return isNull(row) ? null : values[row];}
+        @Override void trim(int size)       {values = Arrays.copyOf(values, size);}
+        @Override void appendValue(final int row, final Object value) {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = (Float) value;
+        }
+    }
+
+    /**
+     * Column of {@link Long} values stored in a {@code long[]} array.
+     */
+    private static final class Longs extends Column {
+        private long[] values = new long[INITIAL_CAPACITY];
+        @Override Class<?> valueClass()     {return Long.class;}
+        @Override void appendNull(int row)  {appendValue(row, 0L);}
+        @Override double getDouble(int row) {return isNull(row) ? Double.NaN : values[row];}
+        @Override Object get(int row)       {return isNull(row) ? null : values[row];}
+        @Override void trim(int size)       {values = Arrays.copyOf(values, size);}
+        @Override void appendValue(final int row, final Object value) {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = (Long) value;
+        }
+    }
+
+    /**
+     * Column of {@link Integer}, {@link Short} or {@link Byte} values stored in an {@code int[]} array.
+     */
+    private static final class Integers extends Column {
+        private final Class<?> type;
+        private int[] values = new int[INITIAL_CAPACITY];
+        Integers(final Class<?> type)       {this.type = type;}
+        @Override Class<?> valueClass()     {return type;}
+        @Override void appendNull(int row)  {store(row, 0);}
+        @Override double getDouble(int row) {return isNull(row) ? Double.NaN : values[row];}
+        @Override void trim(int size)       {values = Arrays.copyOf(values, size);}
+        @Override void appendValue(final int row, final Object value) {
+            store(row, ((Number) type.cast(value)).intValue());
+        }
+        private void store(final int row, final int value) {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = value;
+        }
+        @Override Object get(final int row) {
+            if (isNull(row)) return null;
+            final int value = values[row];
+            if (type == Short.class) return (short) value;
+            if (type == Byte.class)  return (byte)  value;
+            return value;
+        }
+    }
+
+    /**
+     * Column of {@link Boolean} values stored in a bit set.
+     */
+    private static final class Booleans extends Column {
+        private final BitSet values = new BitSet();
+        @Override Class<?> valueClass()     {return Boolean.class;}
+        @Override void appendNull(int row)  {}
+        @Override Object get(int row)       {return isNull(row) ? null : values.get(row);}
+        @Override void trim(int size)       {}
+        @Override void appendValue(final int row, final Object value) {
+            if ((Boolean) value) values.set(row);
+        }
+    }
+
+    /**
+     * Column of {@link String} values stored as codes in a dictionary of distinct values.
+     * The codes are stored in an {@code int[]} array; a code of -1 stands for the null value.
+     */
+    private static final class Strings extends Column {
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private final List<String> dictionary = new ArrayList<>();
+        private Map<String,Integer> lookup = new HashMap<>();
+        private String[] values;
+        @Override Class<?> valueClass()     {return String.class;}
+        @Override void appendNull(int row)  {store(row, -1);}
+        @Override Object get(int row)       {final int c = codes[row]; return (c >= 0) ? values[c] : null;}
+        @Override void appendValue(final int row, final Object value) {
+            final String text = (String) value;
+            Integer code = lookup.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                lookup.put(text, code);
+            }
+            store(row, code);
+        }
+        private void store(final int row, final int code) {
+            if (row == codes.length) codes = Arrays.copyOf(codes, row * 2);
+            codes[row] = code;
+        }
+        @Override void trim(final int size) {
+            codes  = Arrays.copyOf(codes, size);
+            values = dictionary.toArray(new String[dictionary.size()]);
+            lookup = null;
+        }
+    }
+
+    /**
+     * Column of arbitrary objects, used for values of classes not handled by more specific columns.
+     */
+    private static final class Objects extends Column {
+        private final Class<?> type;
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        Objects(final Class<?> type)        {this.type = type;}
+        @Override Class<?> valueClass()     {return type;}
+        @Override void appendNull(int row)  {appendValue(row, null);}
+        @Override Object get(int row)       {return values[row];}
+        @Override void trim(int size)       {values = Arrays.copyOf(values, size);}
+        @Override void appendValue(final int row, final Object value) {
+            if (row == values.length) values = Arrays.copyOf(values, row * 2);
+            values[row] = type.cast(value);
+        }
+    }
+}
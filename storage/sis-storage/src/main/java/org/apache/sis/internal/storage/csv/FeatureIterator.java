@@ -70,6 +70,13 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
      */
     final String[] propertyNames;
 
+    /**
+     * Indices of the properties where to store a value, as given by {@code DefaultFeatureType.indexOf(String)}.
+     * Used instead of {@link #propertyNames} for avoiding a lookup by name for each value of each line.
+     * This array be considered unmodifiable and may be shared between many {@code Iter} instances.
+     */
+    private final int[] propertyIndices;
+
     /**
      * Converters from string representations to the values to store in the {@link #values} array.
      * This array be considered unmodifiable and may be shared between many {@code Iter} instances.
@@ -98,9 +105,11 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
         converters    = new ObjectConverter[properties.size()];
         values        = new Object[converters.length];
         propertyNames = new String[converters.length];
+        propertyIndices = new int[converters.length];
         int i = -1;
         for (final AbstractIdentifiedType p : properties) {
             propertyNames[++i] = p.getName().tip().toString();
+            propertyIndices[i] = store.featureType.indexOf(propertyNames[i]);
             /*
              * According Moving Features specification:
              *   Column 0 is the feature identifier (mfidref). There is nothing special to do here.
@@ -147,13 +156,14 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
 
     /**
      * Creates a new iterator using the same configuration than the given iterator.
-     * This constructor is for {@link #trySplit()} implementation only.
+     * This constructor is for {@link #trySplit()} implementations only.
      */
-    private FeatureIterator(final FeatureIterator other) {
+    FeatureIterator(final FeatureIterator other) {
         store         = other.store;
         splitCount    = other.splitCount;
         converters    = other.converters;
         propertyNames = other.propertyNames;
+        propertyIndices = other.propertyIndices;
         values        = new Object[converters.length];
     }
 
@@ -217,19 +227,17 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
      */
     private boolean read(final Consumer<? super AbstractFeature> action, final boolean all) throws IOException {
         final FixedSizeList elements = new FixedSizeList(values);
-        String line;
-        while ((line = store.readLine()) != null) {
-            Store.split(line, elements);
+        while (readLine(elements)) {
             final AbstractFeature feature = store.featureType.newInstance();
             int i, n = elements.size();
             for (i=0; i<n; i++) {
                 values[i] = converters[i].apply((String) values[i]);
-                feature.setPropertyValue(propertyNames[i], values[i]);
+                feature.setPropertyValue(propertyIndices[i], values[i]);
             }
             n = values.length;
             for (; i<n; i++) {
                 // For omitted elements, reuse previous value.
-                feature.setPropertyValue(propertyNames[i], values[i]);
+                feature.setPropertyValue(propertyIndices[i], values[i]);
             }
             action.accept(feature);
             if (!all) return true;
@@ -238,6 +246,24 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
         return false;
     }
 
+    /**
+     * Reads the next line and splits it around the column separator. The elements are added in the given list,
+     * which is initially empty. The default implementation reads the line from {@link Store#readLine()}.
+     * Subclasses can override this method for reading the lines from another source.
+     *
+     * @param  elements  an initially empty list where to add the elements of the next line.
+     * @return {@code false} if there is no more line to read.
+     * @throws IOException if an I/O error occurred while reading the line.
+     */
+    boolean readLine(final FixedSizeList elements) throws IOException {
+        final String line = store.readLine();
+        if (line == null) {
+            return false;
+        }
+        Store.split(line, elements);
+        return true;
+    }
+
     /**
      * We do not know the number of features.
      */
@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.csv;
+
+import java.util.Arrays;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.channels.FileChannel;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Spliterator;
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * An iterator over the features in a range of bytes of a CSV file. Contrarily to {@link FeatureIterator}
+ * which reads the lines from the {@link Store} reader, this iterator reads the bytes directly from a file
+ * channel using positional reads. Consequently many instances can read different parts of the same file
+ * in parallel. The {@link #trySplit()} method partitions the remaining bytes in two halves.
+ *
+ * <div class="section">Line ownership</div>
+ * A range boundary is usually in the middle of a line. Each line is processed by the range containing
+ * the first byte of that line, with one exception: the Moving Features specification allows to omit the
+ * values which are equal to the values of the previous line. Since those values are unknown at the
+ * beginning of a range, the lines having less values than the number of columns are processed by the
+ * previous range. In other words, a range begins at the first line which is complete and starts at or
+ * after the range start, and stops just before the first line having the same properties after the range
+ * end. Adjacent ranges apply the same rule on their common boundary, so each line is processed exactly once.
+ *
+ * <div class="section">Limitations</div>
+ * This iterator can be used only with character encodings where the line feed, carriage return, comma and
+ * quote characters are encoded as the ASCII bytes and those bytes never appear inside another character.
+ * This is the case of UTF-8 and ISO-8859-1 for example, but not UTF-16. Quoted values spanning many lines
+ * are not supported, but they are not supported by the sequential reader neither.
+ *
+ * <b>Multi-threading:</b> this iterator is not thread-safe, but different instances created by
+ * {@link #trySplit()} can be used concurrently. They share the same file channel.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+final class FeatureRangeIterator extends FeatureIterator {
+    /**
+     * Initial capacity of the buffer where to read the bytes. This is also the minimal number of remaining bytes
+     * for allowing a split. The buffer will be enlarged if it is not sufficient for holding a single line.
+     */
+    static final int BUFFER_SIZE = 0x10000;
+
+    /**
+     * The file to read. Positional read operations on this channel can be done concurrently.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The decoder for converting the bytes of a line to characters.
+     * Each iterator has its own instance since decoders are not thread-safe.
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * Bytes read from the file. Valid bytes are from index 0 inclusive to {@link #limit} exclusive.
+     */
+    private byte[] buffer;
+
+    /**
+     * Number of valid bytes in the {@link #buffer}.
+     */
+    private int limit;
+
+    /**
+     * Index in the {@link #buffer} of the next byte to process. This is always the beginning of a line,
+     * except during the realignment of a range which was created by {@link #trySplit()}.
+     */
+    private int index;
+
+    /**
+     * File position of the first byte in the {@link #buffer}.
+     */
+    private long bufferStart;
+
+    /**
+     * File position of the line most recently read by {@link #nextLine()}.
+     */
+    private long lineStart;
+
+    /**
+     * File position where this iteration stops, ignoring the adjustment for incomplete lines.
+     * This value is reduced when {@link #trySplit()} creates another iterator for the second half.
+     */
+    private long end;
+
+    /**
+     * The characters of the line most recently read by {@link #nextLine()}. Reused for all lines.
+     */
+    private CharBuffer line;
+
+    /**
+     * Average number of bytes in a line, used for estimating the number of remaining features.
+     * This is measured on the first data block and shared by all iterators created by {@link #trySplit()}.
+     */
+    private final double bytesPerLine;
+
+    /**
+     * {@code true} if the channel reached the end of file.
+     */
+    private boolean eof;
+
+    /**
+     * {@code true} if the iterator has been positioned at the beginning of its first line.
+     * This is initially {@code false} for the iterators created by {@link #trySplit()}.
+     */
+    private boolean aligned;
+
+    /**
+     * {@code true} if the iteration is finished.
+     */
+    private boolean finished;
+
+    /**
+     * Creates an iterator over all features in the given file. This constructor skips the header lines,
+     * which have already been parsed by the {@link Store} constructor.
+     *
+     * @param  store     the store which is creating this iterator.
+     * @param  channel   the channel to the same file than the one read by the store.
+     * @param  encoding  the character encoding, which shall be {@linkplain #isSupported(Charset) supported}.
+     * @throws IOException if an error occurred while reading the header.
+     */
+    FeatureRangeIterator(final Store store, final FileChannel channel, final Charset encoding) throws IOException {
+        super(store);
+        this.channel = channel;
+        decoder = encoding.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                                       .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        buffer  = new byte[BUFFER_SIZE];
+        line    = CharBuffer.allocate(256);
+        end     = channel.size();
+        aligned = true;
+        /*
+         * Skip the header lines, using the same criterion than Store.rewind().
+         */
+        while (nextLine()) {
+            final int length = line.length();
+            int i = 0;
+            while (i < length && line.get(i) <= ' ') i++;            // Same criterion than String.trim().
+            if (i < length) {
+                final char c = line.get(i);
+                if (c != Store.COMMENT && c != Store.METADATA) {
+                    index = (int) (lineStart - bufferStart);        // Restore position to the first data line.
+                    break;
+                }
+            }
+        }
+        final int start = index;
+        /*
+         * Estimate the average line length from the data which are already in the buffer.
+         */
+        int count = 0;
+        for (int i=start; i<limit; i++) {
+            if (buffer[i] == '\n') count++;
+        }
+        if (count == 0) {
+            for (int i=start; i<limit; i++) {
+                if (buffer[i] == '\r') count++;
+            }
+        }
+        bytesPerLine = Math.max(1, limit - start) / (double) Math.max(1, count);
+    }
+
+    /**
+     * Creates an iterator for the given range of bytes, using the same configuration than the given iterator.
+     * The first line will be searched when first needed, in the thread which will execute the iteration.
+     */
+    private FeatureRangeIterator(final FeatureRangeIterator other, final long start, final long end) {
+        super(other);
+        channel      = other.channel;
+        decoder      = other.decoder.charset().newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                                                           .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        buffer       = new byte[BUFFER_SIZE];
+        line         = CharBuffer.allocate(other.line.capacity());
+        bytesPerLine = other.bytesPerLine;
+        bufferStart  = start - 1;       // Byte before the range start, for finding the end of the line.
+        this.end     = end;
+    }
+
+    /**
+     * Returns {@code true} if this iterator can read a file encoded with the given character encoding.
+     * This method verifies that the characters used as line terminators and column separators are
+     * encoded as the corresponding ASCII bytes.
+     *
+     * @param  encoding  the character encoding of the CSV file.
+     * @return whether this iterator can be used for the given encoding.
+     */
+    static boolean isSupported(final Charset encoding) {
+        final char[] characters = {'\n', '\r', Store.SEPARATOR, Store.QUOTE, Store.COMMENT, Store.METADATA};
+        final byte[] encoded = new String(characters).getBytes(encoding);
+        if (encoded.length != characters.length) {
+            return false;
+        }
+        for (int i=0; i<encoded.length; i++) {
+            if (encoded[i] != characters[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next line in the {@link #line} buffer. Lines are terminated by a line feed, a carriage return
+     * or a carriage return followed immediately by a line feed, as in {@link java.io.BufferedReader#readLine()}.
+     * This method stores the file position of the line start in {@link #lineStart}.
+     *
+     * @return {@code false} if the end of file has been reached.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    private boolean nextLine() throws IOException {
+        int i = index;
+        for (;;) {
+            while (i < limit) {
+                final byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    int next = i + 1;
+                    if (b == '\r') {
+                        if (next >= limit && !eof) {
+                            break;                      // Need the next byte for checking for "\r\n".
+                        }
+                        if (next < limit && buffer[next] == '\n') {
+                            next++;
+                        }
+                    }
+                    decode(i);
+                    index = next;
+                    return true;
+                }
+                i++;
+            }
+            if (eof) {
+                if (index >= limit) {
+                    return false;
+                }
+                decode(limit);
+                index = limit;
+                return true;
+            }
+            i -= fill();
+        }
+    }
+
+    /**
+     * Moves the remaining bytes to the beginning of the buffer, then reads more bytes from the channel.
+     * If there is no remaining space (because a single line is longer than the buffer), the buffer is enlarged.
+     *
+     * @return the number of bytes by which the buffer content has been shifted.
+     */
+    private int fill() throws IOException {
+        final int shift = index;
+        if (shift != 0) {
+            System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+            limit       -= shift;
+            index        = 0;
+            bufferStart += shift;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        final int n = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit), bufferStart + limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+        return shift;
+    }
+
+    /**
+     * Decodes the bytes from {@link #index} inclusive to the given index exclusive into the {@link #line} buffer.
+     * The decoder and the character buffer are reused for all lines.
+     */
+    private void decode(final int upper) {
+        lineStart = bufferStart + index;
+        final ByteBuffer bytes = ByteBuffer.wrap(buffer, index, upper - index);
+        CoderResult result;
+        do {
+            bytes.position(index);
+            line.clear();
+            decoder.reset();
+            result = decoder.decode(bytes, line, true);
+            if (!result.isOverflow()) {
+                result = decoder.flush(line);
+            }
+            if (result.isOverflow()) {
+                line = CharBuffer.allocate(line.capacity() * 2);
+            }
+        } while (result.isOverflow());
+        line.flip();
+    }
+
+    /**
+     * Reads the next line owned by this range and splits it around the column separator.
+     *
+     * @param  elements  an initially empty list where to add the elements of the next line.
+     * @return {@code false} if there is no more line to read in this range.
+     * @throws IOException if an I/O error occurred while reading the line.
+     */
+    @Override
+    boolean readLine(final FixedSizeList elements) throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (!aligned) {
+            /*
+             * Skip the end of the line which contains the byte before the range start (this line belongs to
+             * the previous range), then the incomplete lines (which also belong to the previous range).
+             */
+            aligned = true;
+            if (nextLine()) {
+                while (nextLine()) {
+                    if (lineStart >= end) break;
+                    Store.split(line, elements);
+                    if (elements.size() == values.length) {
+                        return true;
+                    }
+                    elements.clear();
+                }
+            }
+            finished = true;
+            return false;
+        }
+        if (nextLine()) {
+            Store.split(line, elements);
+            if (lineStart < end || elements.size() != values.length) {
+                return true;
+            }
+        }
+        finished = true;
+        return false;
+    }
+
+    /**
+     * Returns an iterator over the second half of the remaining bytes, or {@code null} if the remaining
+     * part of the file is too small for being worth to split. After this method call, this iterator
+     * covers only the first half.
+     */
+    @Override
+    public Spliterator<AbstractFeature> trySplit() {
+        if (finished) {
+            return null;
+        }
+        final long start = position();
+        if (end - start < 2 * BUFFER_SIZE) {
+            return null;
+        }
+        final long mid = start + (end - start) / 2;
+        final FeatureRangeIterator other = new FeatureRangeIterator(this, mid, end);
+        end = mid;
+        return other;
+    }
+
+    /**
+     * Returns the file position of the next byte to process.
+     */
+    private long position() {
+        return bufferStart + index + (aligned ? 0 : 1);
+    }
+
+    /**
+     * Returns an estimation of the number of remaining features, based on the average line length.
+     */
+    @Override
+    public long estimateSize() {
+        if (finished) {
+            return 0;
+        }
+        return (long) Math.ceil(Math.max(0, end - position()) / bytesPerLine);
+    }
+}
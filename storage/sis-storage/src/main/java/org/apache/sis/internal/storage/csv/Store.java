@@ -28,6 +28,9 @@ import java.io.LineNumberReader;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import javax.measure.Unit;
 import javax.measure.quantity.Time;
 import org.opengis.util.FactoryException;
@@ -90,7 +93,7 @@ final class Store extends URIDataStore implements FeatureSet {
      * The character at the beginning of lines to ignore in the header.
      * Note that this is not part of OGC Moving Feature Specification.
      */
-    private static final char COMMENT = '#';
+    static final char COMMENT = '#';
 
     /**
      * The character at the beginning of metadata lines.
@@ -100,7 +103,7 @@ final class Store extends URIDataStore implements FeatureSet {
     /**
      * The quote character. Quotes inside quoted texts must be doubled.
      */
-    private static final char QUOTE = '"';
+    static final char QUOTE = '"';
 
     /**
      * The column separator.
@@ -137,6 +140,20 @@ final class Store extends URIDataStore implements FeatureSet {
      */
     private BufferedReader source;
 
+    /**
+     * The path to the CSV file, or {@code null} if the storage is not a file.
+     * This is used for reading different parts of the file in parallel.
+     *
+     * @see #features(boolean)
+     */
+    private final Path path;
+
+    /**
+     * The channel for reading different parts of the file in parallel, or {@code null} if not yet opened.
+     * This channel is opened when first needed and closed by {@link #close()}.
+     */
+    private FileChannel channel;
+
     /**
      * The character encoding, or {@code null} if unspecified (in which case the platform default is assumed).
      * Note that the default value is different than the moving feature specification, which requires UTF-8.
@@ -231,6 +248,7 @@ final class Store extends URIDataStore implements FeatureSet {
             throws DataStoreException
     {
         super(provider, connector);
+        path = connector.getStorageAs(Path.class);
         final Reader r = connector.getStorageAs(Reader.class);
         connector.closeAllExcept(r);
         if (r == null) {
@@ -691,9 +709,23 @@ final class Store extends URIDataStore implements FeatureSet {
         /*
          * If the user asks for one feature instance per line, then we can return a FeatureIter instance directly.
          * Since each feature is fully constructed from a single line and each line are read atomically, we can
-         * parallelize this mode.
+         * parallelize this mode. If the storage is a file, a parallel stream reads different parts of the file
+         * in different threads. Otherwise the iterators created by trySplit() compete for the same reader.
          */
         if (dissociate) {
+            if (parallel && path != null) {
+                final Charset cs = (encoding != null) ? encoding : Charset.defaultCharset();
+                if (FeatureRangeIterator.isSupported(cs)) try {
+                    if (channel == null) {
+                        channel = FileChannel.open(path, StandardOpenOption.READ);
+                    }
+                    return StreamSupport.stream(new FeatureRangeIterator(this, channel, cs), true);
+                } catch (UnsupportedOperationException e) {
+                    // The file is not on the default file system. Fallback on the reader.
+                } catch (IOException e) {
+                    throw new DataStoreException(canNotParseFile(), e);
+                }
+            }
             return StreamSupport.stream(new FeatureIterator(this), parallel);
         }
         if (movingFeatures == null) try {
@@ -713,7 +745,7 @@ final class Store extends URIDataStore implements FeatureSet {
      * @param line      the line to parse.
      * @param elements  an initially empty list where to add elements.
      */
-    static void split(final String line, final List<? super String> elements) {
+    static void split(final CharSequence line, final List<? super String> elements) {
         int startAt = 0;
         boolean isQuoting = false;        // If a quote has been opened and not yet closed.
         boolean hasQuotes = false;        // If the value contains at least one quote (not used for quoting the value).
@@ -841,9 +873,12 @@ final class Store extends URIDataStore implements FeatureSet {
     @Override
     public synchronized void close() throws DataStoreException {
         final BufferedReader s = source;
-        source = null;                  // Cleared first in case of failure.
-        if (s != null) try {
-            s.close();
+        final FileChannel    c = channel;
+        source  = null;                 // Cleared first in case of failure.
+        channel = null;
+        try {
+            if (s != null) s.close();
+            if (c != null) c.close();
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
@@ -27,6 +27,7 @@ import java.nio.LongBuffer;
 import java.nio.FloatBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import org.apache.sis.internal.storage.Resources;
@@ -64,7 +65,7 @@ import org.apache.sis.internal.jdk8.JDK8;
  * {@link javax.imageio} is needed.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.3
  * @module
  */
@@ -75,6 +76,32 @@ public class ChannelDataInput extends ChannelData {
      */
     public final ReadableByteChannel channel;
 
+    /**
+     * Whether callers are allowed to {@linkplain #map(long, long) map} regions of the channel in memory.
+     * This is {@code false} by default and can be enabled only if the channel is a {@link FileChannel}.
+     *
+     * @see #setMemoryMapping(boolean)
+     */
+    private boolean memoryMapping;
+
+    /**
+     * Minimal size of the windows created by {@link #map(long, long)}. Mapping a region larger than requested
+     * allows subsequent calls to return slices of the same mapping instead than creating new ones, since the
+     * mappings are released only when the buffers are garbage-collected.
+     */
+    private static final int MAPPING_WINDOW = 64 * 1024 * 1024;
+
+    /**
+     * The last region mapped by {@link #map(long, long)}, or {@code null} if none.
+     * The buffer position and limit are never modified; only slices are given to callers.
+     */
+    private ByteBuffer mapped;
+
+    /**
+     * Position of the {@link #mapped} region, relative to the stream position at construction time.
+     */
+    private long mappedPosition;
+
     /**
      * Creates a new data input for the given channel and using the given buffer.
      * If the buffer already contains some data, then the {@code filled} argument shall be {@code true}.
@@ -837,6 +864,91 @@ public class ChannelDataInput extends ChannelData {
         }
     }
 
+    /**
+     * Returns whether callers are allowed to {@linkplain #map(long, long) map} regions of the channel in memory.
+     *
+     * @return whether memory mapping is enabled.
+     *
+     * @since 0.8
+     */
+    public final boolean isMemoryMapping() {
+        return memoryMapping;
+    }
+
+    /**
+     * Enables or disables memory mapping. Memory mapping can be enabled only if the channel is a {@link FileChannel}.
+     * This method is typically invoked by {@link org.apache.sis.storage.StorageConnector} when the user specified
+     * the {@link org.apache.sis.setup.OptionKey#MEMORY_MAPPING} option.
+     *
+     * @param  enabled  whether to allow memory mapping.
+     * @return whether memory mapping is enabled after this method call.
+     *
+     * @since 0.8
+     */
+    public final boolean setMemoryMapping(final boolean enabled) {
+        return memoryMapping = enabled && (channel instanceof FileChannel);
+    }
+
+    /**
+     * Returns {@code true} if the given region is already mapped in memory. In such case, invoking
+     * {@link #map(long, long)} with the same arguments is cheap since it returns a slice of the current mapping.
+     * Callers can use this information for deciding whether to use memory mapping even for small regions.
+     *
+     * @param  position  position of the first byte, relative to the stream position at construction time.
+     * @param  length    number of bytes.
+     * @return whether the given region is inside the region currently mapped in memory.
+     *
+     * @since 0.8
+     */
+    public final boolean isMapped(final long position, final long length) {
+        return mapped != null && position >= mappedPosition && length >= 0
+                && position - mappedPosition <= mapped.capacity() - length;
+    }
+
+    /**
+     * Maps the given region of the channel in memory, or returns {@code null} if memory mapping is not enabled.
+     * The given position is relative to the stream position at construction time, as for {@link #seek(long)}.
+     * The returned buffer is read-only, uses the same byte order than the {@linkplain #buffer buffer} and has
+     * a position of zero. The stream position and the buffer content of this {@code ChannelDataInput} are not
+     * modified by this method call.
+     *
+     * <p>This method does not create a new mapping on each call. It maps a window of at least 64 megabytes
+     * (or up to the end of file) starting at the requested position, then returns slices of that window as
+     * long as the requested regions are inside it. A new window replaces the previous one only when a region
+     * is outside the current window.</p>
+     *
+     * <p>This method returns {@code null} if memory mapping is not {@linkplain #isMemoryMapping() enabled},
+     * or if the requested region exceeds the capacity of a buffer or the file size. Callers shall fallback on
+     * the usual reading methods in such case.</p>
+     *
+     * @param  position  position of the first byte to map, relative to the stream position at construction time.
+     * @param  length    number of bytes to map.
+     * @return a read-only buffer mapping the requested region, or {@code null} if memory mapping is not possible.
+     * @throws IOException if an error occurred while mapping the channel.
+     *
+     * @since 0.8
+     */
+    public final ByteBuffer map(final long position, final long length) throws IOException {
+        if (!memoryMapping || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        if (!isMapped(position, length)) {
+            final FileChannel fc = (FileChannel) channel;
+            final long start = JDK8.addExact(channelOffset, position);
+            final long remaining = fc.size() - start;
+            if (length > remaining) {
+                return null;                    // Let the usual reading methods report the end of file.
+            }
+            final long size = Math.min(Math.max(length, MAPPING_WINDOW), Math.min(remaining, Integer.MAX_VALUE));
+            mapped = fc.map(FileChannel.MapMode.READ_ONLY, start, size);
+            mappedPosition = position;
+        }
+        final ByteBuffer slice = mapped.duplicate();
+        final int offset = (int) (position - mappedPosition);
+        slice.limit(offset + (int) length).position(offset);
+        return slice.slice().order(buffer.order());
+    }
+
     /**
      * Moves to the given position in the stream, relative to the stream position at construction time.
      *
@@ -31,6 +31,13 @@ import org.apache.sis.util.Debug;
  * The data can be stored in an existing array, or a new array can be created.
  * This class does not handle compression; it is rather designed for efficient reading of uncompressed data.
  *
+ * <p>If {@linkplain ChannelDataInput#isMemoryMapping() memory mapping is enabled} on the input,
+ * then this class transfers the values directly from a buffer mapping the file region to read.
+ * This avoids the intermediate copy in the {@link ChannelDataInput#buffer} and the seek operation
+ * before each row. The {@link #view(Region)} method goes one step further by returning the mapped
+ * values without any copy when the region to read is contiguous. Small regions are read through
+ * the buffer anyway, unless they are inside a region already mapped by a previous call.</p>
+ *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
  * @version 0.8
@@ -38,11 +45,30 @@ import org.apache.sis.util.Debug;
  * @module
  */
 public final class HyperRectangleReader {
+    /**
+     * Minimal number of bytes spanned by a region for reading it through memory mapping. Smaller regions
+     * are read through the {@link ChannelDataInput#buffer}, which requires few channel reads, unless the
+     * region is already inside the region mapped by a previous call.
+     */
+    static final int MAPPING_THRESHOLD = 256 * 1024;
+
     /**
      * The channel from which to read the values, together with a buffer for transferring data.
      */
     private final DataTransfer reader;
 
+    /**
+     * The channel from which to read the values, or {@code null} if the values are read from a buffer
+     * given at construction time. This is used for mapping the regions to read in memory, if enabled.
+     */
+    private final ChannelDataInput input;
+
+    /**
+     * The type of elements to read, as one of the constants defined in {@link Numbers}.
+     * This is used only if {@link #input} is non-null.
+     */
+    private final byte dataType;
+
     /**
      * The {@code input} position of the first sample (ignoring sub-area and sub-sampling).
      * This is the {@code origin} argument given to the constructor, copied verbatim.
@@ -72,7 +98,9 @@ public final class HyperRectangleReader {
             case Numbers.DOUBLE:    reader = input.new DoublesReader((double[]) null); break;
             default: throw new DataStoreContentException(Errors.format(Errors.Keys.UnknownType_1, dataType));
         }
-        this.origin = origin;
+        this.origin   = origin;
+        this.input    = input;
+        this.dataType = dataType;
         final ByteBuffer buffer = input.buffer;
         final int pos = buffer.position();
         final int lim = buffer.limit();
@@ -93,8 +121,10 @@ public final class HyperRectangleReader {
      * @throws IOException should never happen.
      */
     public HyperRectangleReader(final String filename, final Buffer data) throws IOException {
-        reader = new MemoryDataTransfer(filename, data).reader();
-        origin = 0;
+        reader   = new MemoryDataTransfer(filename, data).reader();
+        origin   = 0;
+        input    = null;
+        dataType = 0;
     }
 
     /**
@@ -126,6 +156,32 @@ public final class HyperRectangleReader {
             strides[i] = (region.skips[i + region.contiguousDataDimension] + contiguousDataLength) << sizeShift;
             assert (strides[i] > 0) : i;
         }
+        DataTransfer reader = this.reader;
+        if (input != null && input.isMemoryMapping()) {
+            /*
+             * Compute the number of bytes between the first value to read and the end of the last one.
+             * Along each dimension, the stride is applied (n-1) times for each cycle of the dimensions
+             * above it. If that span can be mapped in memory, read from the mapped buffer instead than
+             * from the channel. Positions are then relative to the beginning of the mapped region.
+             */
+            long span  = ((long) contiguousDataLength) << sizeShift;
+            long count = 1;
+            for (int i=strides.length; --i >= 0;) {
+                final int n = region.targetSize[region.contiguousDataDimension + i];
+                span  += strides[i] * (n - 1) * count;
+                count *= n;
+            }
+            final ByteBuffer mapped;
+            if (span >= MAPPING_THRESHOLD || input.isMapped(streamPosition, span)) {
+                mapped = input.map(streamPosition, span);
+            } else {
+                mapped = null;          // Small regions are read faster through the buffer.
+            }
+            if (mapped != null) {
+                reader = new MemoryDataTransfer(reader.filename(), asTypedView(mapped)).reader();
+                streamPosition = 0;
+            }
+        }
         try {
             reader.createDataArray(region.targetLength(region.getDimension()));
             final Buffer view = reader.view();
@@ -155,4 +211,48 @@ loop:       do {
             reader.setDest(null);
         }
     }
+
+    /**
+     * Returns the values in the given region as a read-only buffer mapping directly the file content,
+     * without any copy. This method can be used only if {@linkplain ChannelDataInput#isMemoryMapping()
+     * memory mapping is enabled} and the region is contiguous in the file, i.e. there is no sub-sampling
+     * and the region covers the full extent of all dimensions except the last one. Otherwise this method
+     * returns {@code null} and the caller should use {@link #read(Region)} instead.
+     *
+     * <p>The returned buffer is a {@link java.nio.ShortBuffer}, {@link java.nio.IntBuffer}, <i>etc.</i>
+     * depending on the data type given at construction time, with values in the same order than the
+     * arrays returned by {@link #read(Region)}. The region can not be larger than {@link Integer#MAX_VALUE}
+     * bytes.</p>
+     *
+     * @param  region  the sub-area to read. Sub-sampling shall be 1 in all dimensions.
+     * @return the values in a buffer mapping the file, or {@code null} if the region can not be mapped.
+     * @throws IOException if an error occurred while mapping the file.
+     */
+    public Buffer view(final Region region) throws IOException {
+        if (input == null || region.contiguousDataDimension != region.getDimension()) {
+            return null;
+        }
+        long length = 1;
+        for (final int n : region.targetSize) {
+            length *= n;
+        }
+        final int sizeShift = reader.dataSizeShift();
+        final ByteBuffer mapped = input.map(origin + (region.startAt << sizeShift), length << sizeShift);
+        return (mapped != null) ? asTypedView(mapped) : null;
+    }
+
+    /**
+     * Returns a view of the given mapped buffer as a buffer of the type of elements to read.
+     */
+    private Buffer asTypedView(final ByteBuffer mapped) {
+        switch (dataType) {
+            case Numbers.CHARACTER: return mapped.asCharBuffer();
+            case Numbers.SHORT:     return mapped.asShortBuffer();
+            case Numbers.INTEGER:   return mapped.asIntBuffer();
+            case Numbers.LONG:      return mapped.asLongBuffer();
+            case Numbers.FLOAT:     return mapped.asFloatBuffer();
+            case Numbers.DOUBLE:    return mapped.asDoubleBuffer();
+            default:                return mapped;
+        }
+    }
 }
@@ -576,6 +576,7 @@ public class StorageConnector implements Serializable {
      *   <li>{@link OptionKey#URL_ENCODING} for converting URL to URI or filename, if needed.</li>
      *   <li>{@link OptionKey#OPEN_OPTIONS} for specifying whether the data store shall be read only or read/write.</li>
      *   <li>{@link OptionKey#BYTE_BUFFER}  for allowing users to control the byte buffer to be created.</li>
+     *   <li>{@link OptionKey#MEMORY_MAPPING} for allowing data stores to map file regions in memory.</li>
      * </ul>
      *
      * @param <T>    the type of option value.
@@ -940,6 +941,9 @@ public class StorageConnector implements Serializable {
         } else {
             asDataInput = new ChannelDataInput(name, channel, buffer, false);
         }
+        if (Boolean.TRUE.equals(getOption(OptionKey.MEMORY_MAPPING))) {
+            asDataInput.setMemoryMapping(true);                     // Ignored if the channel is not a file.
+        }
         addView(ChannelDataInput.class, asDataInput, ReadableByteChannel.class, CASCADE_ON_RESET);
         /*
          * Following is an undocumented mechanism for allowing some Apache SIS implementations of DataStore
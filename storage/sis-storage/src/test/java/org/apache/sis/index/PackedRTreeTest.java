@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.geometry.Envelope2D;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.Utilities;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link PackedRTree}. Query results are compared with a brute-force search on random envelopes.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class PackedRTreeTest extends TestCase {
+    /**
+     * Number of random entries to index.
+     */
+    private static final int COUNT = 5000;
+
+    /**
+     * The envelopes of random entries, as (xmin, ymin, xmax, ymax) tuples.
+     */
+    private double[] boxes;
+
+    /**
+     * Creates a tree of random envelopes with the given node capacity.
+     */
+    private PackedRTree createTree(final Random random, final int nodeCapacity) {
+        final PackedRTree.Builder builder = new PackedRTree.Builder(nodeCapacity);
+        boxes = new double[COUNT * 4];
+        for (int i=0; i<COUNT; i++) {
+            final double x = random.nextDouble() * 1000 - 500;
+            final double y = random.nextDouble() * 1000 - 500;
+            final int b = i * 4;
+            boxes[b  ] = x;
+            boxes[b+1] = y;
+            boxes[b+2] = x + random.nextDouble() * 10;
+            boxes[b+3] = y + random.nextDouble() * 10;
+            assertEquals(i, builder.add(boxes[b], boxes[b+1], boxes[b+2], boxes[b+3]));
+        }
+        final PackedRTree tree = builder.build();
+        assertEquals(COUNT, tree.size());
+        return tree;
+    }
+
+    /**
+     * Returns the squared distance from the given point to the box of the given entry.
+     */
+    private double distanceSquared(final int id, final double x, final double y) {
+        final int b = id * 4;
+        final double dx = Math.max(0, Math.max(boxes[b  ] - x, x - boxes[b+2]));
+        final double dy = Math.max(0, Math.max(boxes[b+1] - y, y - boxes[b+3]));
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Collects the identifiers visited by a query.
+     */
+    private static final class Collector implements PackedRTree.Visitor {
+        final BitSet found = new BitSet();
+        @Override public boolean visit(final int id) {
+            assertFalse("Duplicated identifier.", found.get(id));
+            found.set(id);
+            return true;
+        }
+    }
+
+    /**
+     * Tests {@link PackedRTree#search(double, double, double, double, PackedRTree.Visitor)}.
+     */
+    @Test
+    public void testSearch() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        for (final int capacity : new int[] {2, 5, PackedRTree.DEFAULT_NODE_CAPACITY}) {
+            final PackedRTree tree = createTree(random, capacity);
+            for (int q=0; q<50; q++) {
+                final double xmin = random.nextDouble() * 1000 - 500;
+                final double ymin = random.nextDouble() * 1000 - 500;
+                final double xmax = xmin + random.nextDouble() * 100;
+                final double ymax = ymin + random.nextDouble() * 100;
+                final BitSet expected = new BitSet();
+                for (int i=0; i<COUNT; i++) {
+                    final int b = i * 4;
+                    if (boxes[b] <= xmax && boxes[b+2] >= xmin && boxes[b+1] <= ymax && boxes[b+3] >= ymin) {
+                        expected.set(i);
+                    }
+                }
+                final Collector collector = new Collector();
+                assertTrue(tree.search(xmin, ymin, xmax, ymax, collector));
+                assertEquals(expected, collector.found);
+            }
+            final Envelope2D envelope = tree.getEnvelope();
+            final Collector collector = new Collector();
+            assertTrue(tree.search(envelope, collector));
+            assertEquals(COUNT, collector.found.cardinality());
+        }
+    }
+
+    /**
+     * Tests that a search stops when the visitor returns {@code false}.
+     */
+    @Test
+    @DependsOnMethod("testSearch")
+    public void testEarlyStop() {
+        final PackedRTree tree = createTree(TestUtilities.createRandomNumberGenerator(), PackedRTree.DEFAULT_NODE_CAPACITY);
+        final int[] count = new int[1];
+        assertFalse(tree.search(-1000, -1000, 1000, 1000, new PackedRTree.Visitor() {
+            @Override public boolean visit(final int id) {
+                return ++count[0] < 10;
+            }
+        }));
+        assertEquals(10, count[0]);
+    }
+
+    /**
+     * Tests {@link PackedRTree#searchRadius(double, double, double, PackedRTree.Visitor)}.
+     */
+    @Test
+    public void testSearchRadius() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final PackedRTree tree = createTree(random, 8);
+        for (int q=0; q<50; q++) {
+            final double x = random.nextDouble() * 1000 - 500;
+            final double y = random.nextDouble() * 1000 - 500;
+            final double r = random.nextDouble() * 50;
+            final BitSet expected = new BitSet();
+            for (int i=0; i<COUNT; i++) {
+                if (distanceSquared(i, x, y) <= r*r) {
+                    expected.set(i);
+                }
+            }
+            final Collector collector = new Collector();
+            assertTrue(tree.searchRadius(x, y, r, collector));
+            assertEquals(expected, collector.found);
+        }
+    }
+
+    /**
+     * Tests {@link PackedRTree#nearest(double, double, int[], double[])}.
+     */
+    @Test
+    public void testNearest() {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final PackedRTree tree = createTree(random, PackedRTree.DEFAULT_NODE_CAPACITY);
+        final int[]    ids       = new int[7];
+        final double[] distances = new double[ids.length];
+        final double[] all       = new double[COUNT];
+        for (int q=0; q<50; q++) {
+            final double x = random.nextDouble() * 1200 - 600;
+            final double y = random.nextDouble() * 1200 - 600;
+            for (int i=0; i<COUNT; i++) {
+                all[i] = Math.sqrt(distanceSquared(i, x, y));
+            }
+            Arrays.sort(all);
+            assertEquals(ids.length, tree.nearest(x, y, ids, distances));
+            for (int i=0; i<ids.length; i++) {
+                assertEquals(all[i], distances[i], 1E-9);
+                assertEquals(distances[i], Math.sqrt(distanceSquared(ids[i], x, y)), 1E-9);
+            }
+        }
+    }
+
+    /**
+     * Tests small trees, including empty trees and trees having a single entry.
+     */
+    @Test
+    public void testSmallTrees() {
+        final PackedRTree.Builder builder = new PackedRTree.Builder(4);
+        PackedRTree tree = builder.build();
+        assertEquals(0, tree.size());
+        assertNull(tree.getEnvelope());
+        assertTrue(tree.search(-10, -10, 10, 10, new Collector()));
+        assertEquals(0, tree.nearest(0, 0, new int[3], new double[3]));
+
+        assertEquals(0, builder.add(Double.NaN, 0, 1, 1));
+        assertEquals(1, builder.add(2, 3, 4, 5));
+        tree = builder.build();
+        assertEquals(1, tree.size());
+        assertEquals(new Envelope2D(null, 2, 3, 2, 2), tree.getEnvelope());
+        final int[] ids = new int[3];
+        final double[] distances = new double[3];
+        assertEquals(1, tree.nearest(0, 0, ids, distances));
+        assertEquals(1, ids[0]);
+        assertEquals(Math.hypot(2, 3), distances[0], 1E-12);
+    }
+
+    /**
+     * Tests {@link PackedRTree.Builder#add(org.opengis.geometry.Envelope)} with envelopes in different CRS.
+     *
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Test
+    public void testAddEnvelope() throws TransformException {
+        final PackedRTree.Builder builder = new PackedRTree.Builder();
+        assertEquals(0, builder.add(new Envelope2D(CommonCRS.WGS84.normalizedGeographic(), 10, 40, 2, 1)));
+        assertEquals(1, builder.add(new Envelope2D(CommonCRS.WGS84.geographic(), 20, -30, 1, 2)));    // (φ, λ) order.
+        final PackedRTree tree = builder.build();
+        assertSame(CommonCRS.WGS84.normalizedGeographic(), tree.getCoordinateReferenceSystem());
+        final Collector collector = new Collector();
+        tree.search(-29, 20, -29, 20, collector);
+        assertEquals(BitSet.valueOf(new long[] {2}), collector.found);
+    }
+
+    /**
+     * Tests {@link PackedRTree#write(java.nio.channels.WritableByteChannel)} followed by
+     * {@link PackedRTree#read(FileChannel, String)}. The file contains application data
+     * after the tree, which shall be readable at the channel position after the tree.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException if the file content is not recognized.
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Test
+    @DependsOnMethod({"testSearch", "testNearest", "testAddEnvelope"})
+    public void testWriteRead() throws IOException, DataStoreException, TransformException {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final PackedRTree.Builder builder = new PackedRTree.Builder(7);
+        builder.add(new Envelope2D(CommonCRS.WGS84.normalizedGeographic(), 0, 0, 1, 1));
+        for (int i=0; i<999; i++) {
+            final double x = random.nextDouble() * 360 - 180;
+            final double y = random.nextDouble() * 180 - 90;
+            builder.add(x, y, x, y);
+        }
+        final PackedRTree tree = builder.build();
+        final Path file = Files.createTempFile("SIS", ".idx");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+                tree.write(channel);
+                channel.write(ByteBuffer.wrap(new byte[] {4, 5}));
+            }
+            final PackedRTree copy;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                channel.position(3);
+                copy = PackedRTree.read(channel, file.toString());
+                assertEquals("Application data", 0, (channel.position() - 3) % 8);
+                final ByteBuffer trailer = ByteBuffer.allocate(2);
+                assertEquals(2, channel.read(trailer));
+                assertArrayEquals(new byte[] {4, 5}, trailer.array());
+            }
+            assertEquals(tree.size(), copy.size());
+            assertTrue(tree.getEnvelope().boundsEquals(copy.getEnvelope(), 0, 1, 0));
+            assertTrue(Utilities.equalsIgnoreMetadata(
+                    tree.getCoordinateReferenceSystem(), copy.getCoordinateReferenceSystem()));
+            final int[]    expectedIds = new int   [5], actualIds = new int   [5];
+            final double[] expectedDst = new double[5], actualDst = new double[5];
+            for (int q=0; q<20; q++) {
+                final double x = random.nextDouble() * 360 - 180;
+                final double y = random.nextDouble() * 180 - 90;
+                final Collector expected = new Collector();
+                final Collector actual   = new Collector();
+                tree.search(x, y, x + 20, y + 10, expected);
+                copy.search(x, y, x + 20, y + 10, actual);
+                assertEquals(expected.found, actual.found);
+                tree.nearest(x, y, expectedIds, expectedDst);
+                copy.nearest(x, y, actualIds,   actualDst);
+                assertArrayEquals(expectedIds, actualIds);
+                assertArrayEquals(expectedDst, actualDst, 0);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
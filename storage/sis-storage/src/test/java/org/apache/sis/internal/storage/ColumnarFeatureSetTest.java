@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.feature.builder.AttributeRole;
+import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestUtilities;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Branch-dependent imports
+import org.apache.sis.internal.jdk8.Consumer;
+
+
+/**
+ * Tests {@link ColumnarFeatureSet}.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 0.8
+ * @since   0.8
+ * @module
+ */
+public final strictfp class ColumnarFeatureSetTest extends TestCase {
+    /**
+     * Creates the type of features used for the tests.
+     */
+    private static DefaultFeatureType createType() {
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder().setName("City");
+        builder.addAttribute(String .class).setName("id").addRole(AttributeRole.IDENTIFIER_COMPONENT);
+        builder.addAttribute(String .class).setName("country");
+        builder.addAttribute(Integer.class).setName("population");
+        builder.addAttribute(Double .class).setName("latitude");
+        builder.addAttribute(Float  .class).setName("elevation");
+        builder.addAttribute(Short  .class).setName("zone");
+        builder.addAttribute(Long   .class).setName("area");
+        builder.addAttribute(Boolean.class).setName("capital");
+        return builder.build();
+    }
+
+    /**
+     * Creates the given number of random features of the given type.
+     */
+    private static List<AbstractFeature> createFeatures(final DefaultFeatureType type, final int count) {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final String[] countries = {"Canada", "France", "Japan", "Peru"};
+        final List<AbstractFeature> features = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            final AbstractFeature f = type.newInstance();
+            f.setPropertyValue("id",         "C" + i);
+            f.setPropertyValue("country",    countries[random.nextInt(countries.length)]);
+            f.setPropertyValue("population", random.nextInt(1000000));
+            f.setPropertyValue("latitude",   random.nextDouble() * 180 - 90);
+            f.setPropertyValue("elevation",  random.nextFloat() * 1000);
+            f.setPropertyValue("zone",       (short) random.nextInt(60));
+            f.setPropertyValue("area",       random.nextLong());
+            f.setPropertyValue("capital",    random.nextBoolean());
+            features.add(f);
+        }
+        return features;
+    }
+
+    /**
+     * Creates a columnar set with the given features.
+     */
+    private static ColumnarFeatureSet create(final DefaultFeatureType type, final List<AbstractFeature> features) {
+        final ColumnarFeatureSet.Builder builder = new ColumnarFeatureSet.Builder(type, null);
+        for (final AbstractFeature f : features) {
+            builder.add(f);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Tests that the views return the same values than the original features.
+     */
+    @Test
+    public void testGetFeature() {
+        final DefaultFeatureType type = createType();
+        final List<AbstractFeature> features = createFeatures(type, 300);
+        final ColumnarFeatureSet set = create(type, features);
+        assertSame("type", type, set.getType());
+        assertEquals("size", features.size(), set.size());
+        final int latitude = type.indexOf("latitude");
+        for (int i=0; i<features.size(); i++) {
+            final AbstractFeature expected = features.get(i);
+            final AbstractFeature actual = set.getFeature(i);
+            for (final String name : new String[] {"id", "country", "population", "latitude", "elevation", "zone", "area", "capital"}) {
+                assertEquals(name, expected.getPropertyValue(name), actual.getPropertyValue(name));
+            }
+            assertEquals("sis:identifier", "C" + i, actual.getPropertyValue(AttributeConvention.IDENTIFIER_PROPERTY.toString()));
+            assertEquals("getDouble", (Double) expected.getPropertyValue("latitude"), set.getDouble(i, latitude), 0);
+        }
+    }
+
+    /**
+     * Tests null values and read-only views.
+     */
+    @Test
+    public void testNullAndReadOnly() {
+        final DefaultFeatureType type = createType();
+        final List<AbstractFeature> features = createFeatures(type, 3);
+        features.get(1).setPropertyValue("country",   null);
+        features.get(1).setPropertyValue("latitude",  null);
+        features.get(1).setPropertyValue("zone",      null);
+        features.get(1).setPropertyValue("capital",   null);
+        final ColumnarFeatureSet set = create(type, features);
+        final AbstractFeature f = set.getFeature(1);
+        assertNull(f.getPropertyValue("country"));
+        assertNull(f.getPropertyValue("latitude"));
+        assertNull(f.getPropertyValue("zone"));
+        assertNull(f.getPropertyValue("capital"));
+        assertTrue(Double.isNaN(set.getDouble(1, type.indexOf("zone"))));
+        assertNotNull(set.getFeature(0).getPropertyValue("country"));
+        try {
+            f.setPropertyValue("country", "Canada");
+            fail("Views shall be read-only.");
+        } catch (UnsupportedOperationException e) {
+            assertNotNull(e.getMessage());
+        }
+        try {
+            f.getPropertyValue("unknown");
+            fail("Expected an exception for an unknown property.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("unknown"));
+        }
+    }
+
+    /**
+     * Tests {@link ColumnarFeatureSet#features(boolean)} with sequential and parallel streams.
+     */
+    @Test
+    @DependsOnMethod("testGetFeature")
+    public void testStream() {
+        final DefaultFeatureType type = createType();
+        final List<AbstractFeature> features = createFeatures(type, 5000);
+        final ColumnarFeatureSet set = create(type, features);
+        final AtomicInteger count = new AtomicInteger();
+        set.features(true).forEach(new Consumer<AbstractFeature>() {
+            @Override public void accept(final AbstractFeature feature) {
+                count.incrementAndGet();
+            }
+        });
+        assertEquals("parallel", features.size(), count.get());
+        final Iterator<AbstractFeature> it = set.features(false).iterator();
+        for (final AbstractFeature expected : features) {
+            assertTrue(it.hasNext());
+            assertEquals(expected.getPropertyValue("id"), it.next().getPropertyValue("id"));
+        }
+        assertFalse(it.hasNext());
+    }
+}
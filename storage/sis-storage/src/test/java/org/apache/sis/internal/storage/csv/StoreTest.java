@@ -16,14 +16,27 @@
  */
 package org.apache.sis.internal.storage.csv;
 
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.io.IOException;
 import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.extent.Extent;
 import org.opengis.metadata.extent.GeographicBoundingBox;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.setup.OptionKey;
+import org.apache.sis.test.DependsOnMethod;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 import com.esri.core.geometry.Point2D;
@@ -41,6 +54,8 @@ import org.apache.sis.feature.DefaultAttributeType;
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.metadata.iso.identification.AbstractIdentification;
 import org.apache.sis.internal.jdk8.Instant;
+import org.apache.sis.internal.jdk8.Consumer;
+import org.apache.sis.internal.jdk8.Spliterator;
 
 
 /**
@@ -146,6 +161,76 @@ public final strictfp class StoreTest extends TestCase {
         }
     }
 
+    /**
+     * Tests {@link Store#features(boolean)} in parallel mode on a file large enough for being split
+     * in many ranges. Some lines omit the last values and some lines use the Windows line terminator,
+     * for testing the line ownership rules at range boundaries.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException if an error occurred while parsing the data.
+     */
+    @Test
+    @DependsOnMethod("testStaticFeatures")
+    public void testParallelFeatures() throws IOException, DataStoreException {
+        final int count = 20000;
+        final StringBuilder buffer = new StringBuilder(
+            "@stboundedby, urn:ogc:def:crs:CRS:1.3:84, 2D,  50.23 9.23,  50.31 9.27,  2012-01-17T12:33:41Z, 2012-01-17T12:37:00Z, sec\n" +
+            "@columns, mfidref, trajectory, state,xsd:string, \"\"\"type\"\" code\",xsd:integer\n" +
+            "@foliation,Time\n");
+        for (int i=0; i<count; i++) {
+            buffer.append('f').append(i).append(",  10, 150, 11.0 2.0 12.0 3.0");
+            if (i % 7 != 0) {
+                buffer.append(", walking, ").append(i);     // Other lines repeat the values of previous line.
+            }
+            buffer.append((i & 1) == 0 ? "\n" : "\r\n");
+        }
+        final Path file = Files.createTempFile("SIS", ".csv");
+        try {
+            Files.write(file, buffer.toString().getBytes(StandardCharsets.UTF_8));
+            final StorageConnector connector = new StorageConnector(file);
+            connector.setOption(OptionKey.ENCODING, StandardCharsets.UTF_8);
+            try (Store store = new Store(null, connector, true)) {
+                final List<String> expected = new ArrayList<>(count);
+                final Iterator<AbstractFeature> it = store.features(false).iterator();
+                while (it.hasNext()) {
+                    expected.add(summary(it.next()));
+                }
+                assertEquals("count", count, expected.size());
+                final Queue<String> actual = new ConcurrentLinkedQueue<>();
+                store.features(true).forEach(new Consumer<AbstractFeature>() {
+                    @Override public void accept(final AbstractFeature feature) {
+                        actual.add(summary(feature));
+                    }
+                });
+                final List<String> sorted = new ArrayList<>(actual);
+                Collections.sort(expected);
+                Collections.sort(sorted);
+                assertEquals(expected, sorted);
+                /*
+                 * Verify that the file is actually partitioned and that the size estimation is reasonable.
+                 */
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    final FeatureRangeIterator iter = new FeatureRangeIterator(store, channel, StandardCharsets.UTF_8);
+                    final long estimate = iter.estimateSize();
+                    assertTrue(String.valueOf(estimate), Math.abs(estimate - count) < count / 10);
+                    final Spliterator<AbstractFeature> other = iter.trySplit();
+                    assertNotNull("trySplit", other);
+                    assertTrue(Math.abs(iter.estimateSize() - other.estimateSize()) < count / 10);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Returns a string representation of the identifier and attributes of the given feature,
+     * for comparison purpose in {@link #testParallelFeatures()}.
+     */
+    private static String summary(final AbstractFeature f) {
+        return f.getPropertyValue("mfidref") + " " + f.getPropertyValue("state") + " " + f.getPropertyValue("\"type\" code");
+    }
+
     /**
      * Verifies that the feature type is equal to the expected one.
      */
@@ -21,6 +21,10 @@ import java.util.Random;
 import java.nio.ByteOrder;
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.io.IOException;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.storage.DataStoreException;
@@ -38,7 +42,7 @@ import static org.junit.Assert.*;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 0.8
  * @since   0.7
  * @module
  */
@@ -70,6 +74,16 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      */
     private HyperRectangleReader reader;
 
+    /**
+     * The file channel opened by {@link #initialize(Random, boolean, Path)}, or {@code null} if none.
+     */
+    private FileChannel file;
+
+    /**
+     * The input over {@link #file} created by {@link #initialize(Random, boolean, Path)}, or {@code null} if none.
+     */
+    private ChannelDataInput mappedInput;
+
     /**
      * Encodes the given index in the sample values to be stored in the array of data.
      * We use a decimal encoding for making easier to compare the actual values with the expected ones.
@@ -85,8 +99,12 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      * @param random      the random number generator to use for initializing the test.
      * @param useChannel  {@code true} for fetching the data from channel to a small buffer, or
      *                    {@code false} if the data are expected to be fully contained in the buffer.
+     * @param mapped      if non-null, a temporary file where to write the data for reading them
+     *                    with memory mapping enabled. Ignored if {@code useChannel} is {@code false}.
      */
-    private void initialize(final Random random, final boolean useChannel) throws IOException, DataStoreException {
+    private void initialize(final Random random, final boolean useChannel, final Path mapped)
+            throws IOException, DataStoreException
+    {
         /*
          * Compute a random hyper-rectangle size, sub-region and sub-sampling. Each dimension will have a
          * size between 1 to 10, so we will be able to use decimal digits from 0 to 9 in the sample values.
@@ -132,9 +150,19 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         }
         assertEquals(length, view.position());
         if (useChannel) {
-            final ByteArrayChannel channel = new ByteArrayChannel(array, true);
-            final ByteBuffer       buffer  = ByteBuffer.allocate(random.nextInt(20) + 20).order(ByteOrder.nativeOrder());
-            final ChannelDataInput input   = new ChannelDataInput("HyperRectangle in channel", channel, buffer, false);
+            final ByteBuffer buffer = ByteBuffer.allocate(random.nextInt(20) + 20).order(ByteOrder.nativeOrder());
+            final ChannelDataInput input;
+            if (mapped != null) {
+                Files.write(mapped, array);
+                file  = FileChannel.open(mapped, StandardOpenOption.READ);
+                input = new ChannelDataInput("HyperRectangle in file", file, buffer, false);
+                assertTrue("setMemoryMapping", input.setMemoryMapping(true));
+                mappedInput = input;
+            } else {
+                final ByteArrayChannel channel = new ByteArrayChannel(array, true);
+                input = new ChannelDataInput("HyperRectangle in channel", channel, buffer, false);
+                assertFalse("setMemoryMapping", input.setMemoryMapping(true));
+            }
             reader = new HyperRectangleReader(Numbers.SHORT, input, origin);
         } else {
             view.clear();
@@ -173,7 +201,7 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      */
     @Test
     public void testSubRegion() throws IOException, DataStoreException {
-        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        initialize(TestUtilities.createRandomNumberGenerator(), true, null);
         Arrays.fill(subsampling, 0, subsampling.length, 1);
         verifyRegionRead();
     }
@@ -186,7 +214,7 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      */
     @Test
     public void testSubSampling() throws IOException, DataStoreException {
-        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        initialize(TestUtilities.createRandomNumberGenerator(), true, null);
         System.arraycopy(size, 0, upper, 0, size.length);
         Arrays.fill(lower, 0, lower.length, 0);
         verifyRegionRead();
@@ -201,7 +229,7 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
     @Test
     @DependsOnMethod({"testSubRegion", "testSubSampling"})
     public void testRandom() throws IOException, DataStoreException {
-        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        initialize(TestUtilities.createRandomNumberGenerator(), true, null);
         verifyRegionRead();
     }
 
@@ -214,7 +242,73 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
     @Test
     @DependsOnMethod("testRandom")
     public void testMemoryTransfer() throws IOException, DataStoreException {
-        initialize(TestUtilities.createRandomNumberGenerator(), false);
+        initialize(TestUtilities.createRandomNumberGenerator(), false, null);
         verifyRegionRead();
     }
+
+    /**
+     * Tests reading data from a file with memory mapping enabled. This method tests a random region with
+     * a random sub-sampling before and after mapping the file, then a contiguous region which can be viewed
+     * without copying the values.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testMemoryMapping() throws IOException, DataStoreException {
+        final Path tmp = Files.createTempFile("SIS", ".raw");
+        try {
+            initialize(TestUtilities.createRandomNumberGenerator(), true, tmp);
+            final long[] randomLower = lower.clone();
+            final long[] randomUpper = upper.clone();
+            final int[]  randomSubsampling = subsampling.clone();
+            /*
+             * The test file is smaller than the mapping threshold,
+             * so the first read shall use the buffer without mapping.
+             */
+            verifyRegionRead();
+            assertFalse("isMapped", mappedInput.isMapped(0, 1));
+            /*
+             * Viewing the whole hyper-rectangle maps the file. Reading the random region again
+             * shall use the same mapping, since it is inside the region already mapped.
+             */
+            System.arraycopy(size, 0, upper, 0, size.length);
+            Arrays.fill(lower, 0);
+            Arrays.fill(subsampling, 1);
+            final ShortBuffer whole = (ShortBuffer) reader.view(new Region(size, lower, upper, subsampling));
+            assertNotNull("view", whole);
+            assertEquals("remaining", file.size() - reader.origin, whole.remaining() * (long) (Short.SIZE / Byte.SIZE));
+            assertTrue("isMapped", mappedInput.isMapped(reader.origin, 1));
+            System.arraycopy(randomLower, 0, lower, 0, lower.length);
+            System.arraycopy(randomUpper, 0, upper, 0, upper.length);
+            System.arraycopy(randomSubsampling, 0, subsampling, 0, subsampling.length);
+            verifyRegionRead();
+            /*
+             * Region contiguous in the file: full extent in all dimensions except the last one.
+             */
+            System.arraycopy(size, 0, upper, 0, size.length - 1);
+            Arrays.fill(lower, 0, lower.length - 1, 0);
+            Arrays.fill(subsampling, 0, subsampling.length, 1);
+            verifyRegionRead();
+            final Region region = new Region(size, lower, upper, subsampling);
+            final short[] expected = (short[]) reader.read(region);
+            final ShortBuffer view = (ShortBuffer) reader.view(region);
+            assertNotNull("view", view);
+            assertEquals("remaining", expected.length, view.remaining());
+            for (final short value : expected) {
+                assertEquals("Sample value", value, view.get());
+            }
+            /*
+             * Sub-sampling prevents the creation of a view.
+             */
+            subsampling[subsampling.length - 1] = 2;
+            assertNull("view", reader.view(new Region(size, lower, upper, subsampling)));
+        } finally {
+            if (file != null) {
+                file.close();
+            }
+            Files.delete(tmp);
+        }
+    }
 }
@@ -39,6 +39,7 @@ import org.junit.BeforeClass;
     org.apache.sis.internal.storage.io.HyperRectangleReaderTest.class,
     org.apache.sis.internal.storage.io.RewindableLineReaderTest.class,
     org.apache.sis.internal.storage.MetadataBuilderTest.class,
+    org.apache.sis.internal.storage.ColumnarFeatureSetTest.class,
     org.apache.sis.storage.FeatureNamingTest.class,
     org.apache.sis.storage.ProbeResultTest.class,
     org.apache.sis.storage.StorageConnectorTest.class,
@@ -50,7 +51,8 @@ import org.junit.BeforeClass;
     org.apache.sis.internal.storage.csv.StoreProviderTest.class,
     org.apache.sis.internal.storage.csv.StoreTest.class,
     org.apache.sis.internal.storage.folder.StoreTest.class,
-    org.apache.sis.storage.DataStoresTest.class
+    org.apache.sis.storage.DataStoresTest.class,
+    org.apache.sis.index.PackedRTreeTest.class
 })
 public final strictfp class StorageTestSuite extends TestSuite {
     /**
@@ -356,9 +356,7 @@ parse:  while (reader.hasNext()) {
      * @return {@code false} if this method as detected the end of {@code <gpx>} element or the end of document.
      * @throws DataStoreException if the file contains invalid elements.
      * @throws XMLStreamException if an error occurred while reading the XML file.
-     * @throws URISyntaxException if an error occurred while parsing GPX 1.0 URI.
-     * @throws JAXBException if an error occurred while parsing GPX 1.1 link.
-     * @throws ClassCastException if an object unmarshalled by JAXB was not of the expected type.
+     * @throws URISyntaxException if an error occurred while parsing URI.
      * @throws NumberFormatException if a text can not be parsed as an integer or a floating point number.
      * @throws ParseException if a text can not be parsed as a date.
      * @throws EOFException if the file seems to be truncated.
@@ -444,7 +442,7 @@ parse:  while (reader.hasNext()) {
                         case Tags.SATELITTES:       // Fallthrough to getElementAsInteger()
                         case Tags.DGPS_ID:          value = getElementAsInteger(); break;
                         case Tags.FIX:              value = Fix.fromGPX(getElementText()); break;
-                        case Tags.LINK:             links = Metadata.addIfNonNull(links, unmarshal(Link.class)); continue;
+                        case Tags.LINK:             links = Metadata.addIfNonNull(links, parseLink()); continue;
                         case Tags.URL:              links = Metadata.addIfNonNull(links, Link.valueOf(getElementAsURI())); continue;
                         default: {
                             if (name.equals(tagName)) {
@@ -470,6 +468,41 @@ parse:  while (reader.hasNext()) {
         }
     }
 
+    /**
+     * Parses a GPX 1.1 {@code <link>} element. This element is very frequent in way points, so we parse it
+     * directly with STAX instead of delegating to JAXB. The JAXB annotations on {@link Link} are still used
+     * for links inside the {@code <metadata>} element, which is unmarshalled as a whole.
+     * The STAX reader {@linkplain XMLStreamReader#getEventType() current event} must be a {@link #START_ELEMENT}.
+     * After this method invocation, the reader will be on {@link #END_ELEMENT}.
+     *
+     * @throws Exception see the list of exceptions documented in {@link #parse(Consumer, boolean)}.
+     */
+    private Link parseLink() throws Exception {
+        assert reader.isStartElement() && Tags.LINK.equals(reader.getLocalName());
+        final Link link = new Link(getAttributeAsURI(Attributes.HREF));
+        while (true) {
+            switch (next()) {
+                case START_ELEMENT: {
+                    switch (isGPX() ? reader.getLocalName() : "") {
+                        case Tags.TEXT: link.text = getElementText(); break;
+                        case Tags.TYPE: link.type = getElementText(); break;
+                        default: skipUntilEnd(reader.getName()); break;
+                    }
+                    break;
+                }
+                case END_ELEMENT: {
+                    if (Tags.LINK.equals(reader.getLocalName()) && isGPX()) {
+                        return link;
+                    }
+                    break;
+                }
+                case END_DOCUMENT: {
+                    throw new EOFException(endOfFile());
+                }
+            }
+        }
+    }
+
     /**
      * Parses a {@code <rte>} element. The STAX reader {@linkplain XMLStreamReader#getEventType() current event}
      * must be a {@link #START_ELEMENT} and the name of that start element must be {@link Tags#ROUTES}.
@@ -499,7 +532,7 @@ parse:  while (reader.hasNext()) {
                         case Tags.SOURCE:      // ︙
                         case Tags.TYPE:        value = getElementText(); break;
                         case Tags.NUMBER:      value = getElementAsInteger(); break;
-                        case Tags.LINK:        links = Metadata.addIfNonNull(links, unmarshal(Link.class)); continue;
+                        case Tags.LINK:        links = Metadata.addIfNonNull(links, parseLink()); continue;
                         case Tags.URL:         links = Metadata.addIfNonNull(links, Link.valueOf(getElementAsURI())); continue;
                         case Tags.ROUTES:      throw new DataStoreContentException(nestedElement(name));
                         case Tags.ROUTE_POINTS: {
@@ -598,7 +631,7 @@ parse:  while (reader.hasNext()) {
                         case Tags.SOURCE:       // ︙
                         case Tags.TYPE:         value = getElementText(); break;
                         case Tags.NUMBER:       value = getElementAsInteger(); break;
-                        case Tags.LINK:         links = Metadata.addIfNonNull(links, unmarshal(Link.class)); continue;
+                        case Tags.LINK:         links = Metadata.addIfNonNull(links, parseLink()); continue;
                         case Tags.URL:          links = Metadata.addIfNonNull(links, Link.valueOf(getElementAsURI())); continue;
                         case Tags.TRACKS:       throw new DataStoreContentException(nestedElement(name));
                         case Tags.TRACK_SEGMENTS: {
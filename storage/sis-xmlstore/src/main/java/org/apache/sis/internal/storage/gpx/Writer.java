@@ -19,7 +19,6 @@ package org.apache.sis.internal.storage.gpx;
 import java.io.IOException;
 import java.util.Collection;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.bind.JAXBException;
 import org.apache.sis.storage.gps.Fix;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.IllegalFeatureTypeException;
@@ -137,10 +136,9 @@ final class Writer extends StaxStreamWriter {
      * @param  feature  the feature to write, or {@code null} if none.
      * @throws DataStoreException if the given feature is not a recognized type.
      * @throws XMLStreamException if underlying STAX writer encounter an error.
-     * @throws JAXBException if underlying JAXB marshaller encounter an error.
      */
     @Override
-    public void write(final AbstractFeature feature) throws DataStoreException, XMLStreamException, JAXBException {
+    public void write(final AbstractFeature feature) throws DataStoreException, XMLStreamException {
         if (feature != null) {
             final Types types = ((Store) owner).types;
             final DefaultFeatureType type = feature.getType();
@@ -187,9 +185,8 @@ final class Writer extends StaxStreamWriter {
      * @param  feature  feature to write, or {@code null} if none.
      * @param  tagName  way point tag name (can not be {@code null}).
      * @throws XMLStreamException if underlying STAX writer encounter an error.
-     * @throws JAXBException if underlying JAXB marshaller encounter an error.
      */
-    private void writeWayPoint(final AbstractFeature feature, final String tagName) throws XMLStreamException, JAXBException {
+    private void writeWayPoint(final AbstractFeature feature, final String tagName) throws XMLStreamException {
         if (feature != null) {
             final double[] pt = Geometries.getCoordinate(feature.getPropertyValue("sis:geometry"));
             if (pt != null && pt.length >= 2) {
@@ -235,16 +232,15 @@ final class Writer extends StaxStreamWriter {
      *
      * @param  links  the links to write.
      * @throws XMLStreamException if underlying STAX writer encounter an error.
-     * @throws JAXBException if underlying JAXB marshaller encounter an error.
      */
-    private void writeLinks(final Collection<?> links) throws XMLStreamException, JAXBException {
+    private void writeLinks(final Collection<?> links) throws XMLStreamException {
         if (links != null) {
             for (final Object link : links) {
                 if (link != null) {
                     switch (version) {
                         default:
                         case 1: {
-                            marshal(Tags.NAMESPACE_V11, Tags.LINK, Link.class, (Link) link);
+                            writeLink((Link) link);
                             break;
                         }
                         case 0: {
@@ -257,4 +253,22 @@ final class Writer extends StaxStreamWriter {
             }
         }
     }
+
+    /**
+     * Writes a GPX 1.1 link. This element is very frequent in way points, so we write it directly
+     * with STAX instead of delegating to JAXB. The output is the same than the JAXB marshalling of
+     * {@link Link} in the default namespace.
+     *
+     * @param  link  the link to write.
+     * @throws XMLStreamException if underlying STAX writer encounter an error.
+     */
+    private void writeLink(final Link link) throws XMLStreamException {
+        writer.writeStartElement(Tags.LINK);
+        if (link.uri != null) {
+            writer.writeAttribute(Attributes.HREF, link.uri.toString());
+        }
+        writeSingleValue(Tags.TEXT, link.text);
+        writeSingleValue(Tags.TYPE, link.type);
+        writer.writeEndElement();
+    }
 }
@@ -350,6 +350,29 @@ public abstract class StaxStreamReader extends StaxStreamIO implements XMLStream
         return Context.converter(context).toURI(context, getElementText());
     }
 
+    /**
+     * Returns the value of the given attribute of the current element as a URI,
+     * or {@code null} if that attribute is absent or empty.
+     * This method does not move the reader.
+     *
+     * <p>The current event when this method is invoked must be {@link #START_ELEMENT}.</p>
+     *
+     * @param  localName  local name of the attribute, in no namespace.
+     * @return the attribute value as a URI, or {@code null} if none.
+     * @throws URISyntaxException if the attribute value can not be parsed as a URI.
+     */
+    protected final URI getAttributeAsURI(final String localName) throws URISyntaxException {
+        String text = reader.getAttributeValue(null, localName);
+        if (text != null) {
+            text = text.trim();
+            if (!text.isEmpty()) {
+                final Context context = Context.current();
+                return Context.converter(context).toURI(context, text);
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns the current value of {@link XMLStreamReader#getElementText()} as an integer,
      * or {@code null} if that value is null or empty.